@@ -0,0 +1,75 @@
+package data;
+
+public class DronePathPlan {
+    private String droneId;
+    private DeliveryPathResponse.DronePath dronePath;
+    private boolean feasible;
+    private boolean budgetExhausted;
+    private String message;
+
+    public DronePathPlan(String droneId, DeliveryPathResponse.DronePath dronePath, boolean feasible, String message) {
+        this.droneId = droneId;
+        this.dronePath = dronePath;
+        this.feasible = feasible;
+        this.message = message;
+    }
+
+    public static DronePathPlan feasible(String droneId, DeliveryPathResponse.DronePath dronePath) {
+        return new DronePathPlan(droneId, dronePath, true, null);
+    }
+
+    public static DronePathPlan infeasible(String droneId, String message) {
+        return new DronePathPlan(droneId, null, false, message);
+    }
+
+    /**
+     * Creates the plan of a tour whose leg search ran out of time or nodes before it found a path or proved
+     * there is none; the tour may still be feasible
+     */
+    public static DronePathPlan budgetExhausted(String droneId, String message) {
+        DronePathPlan plan = new DronePathPlan(droneId, null, false, message);
+        plan.budgetExhausted = true;
+        return plan;
+    }
+
+    // Getters and Setters
+    public String getDroneId() {
+        return droneId;
+    }
+
+    public void setDroneId(String droneId) {
+        this.droneId = droneId;
+    }
+
+    public DeliveryPathResponse.DronePath getDronePath() {
+        return dronePath;
+    }
+
+    public void setDronePath(DeliveryPathResponse.DronePath dronePath) {
+        this.dronePath = dronePath;
+    }
+
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    public void setFeasible(boolean feasible) {
+        this.feasible = feasible;
+    }
+
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    public void setBudgetExhausted(boolean budgetExhausted) {
+        this.budgetExhausted = budgetExhausted;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,27 @@
+package data;
+
+import java.util.List;
+
+public class RegionBatchRequest {
+    private List<PositionDto> positions;
+    private Region region;
+
+    public RegionBatchRequest() {}
+    public RegionBatchRequest(List<PositionDto> positions, Region region) {
+        this.positions = positions;
+        this.region = region;
+    }
+
+    public List<PositionDto> getPositions() {
+        return positions;
+    }
+    public void setPositions(List<PositionDto> positions) {
+        this.positions = positions;
+    }
+    public Region getRegion() {
+        return region;
+    }
+    public void setRegion(Region region) {
+        this.region = region;
+    }
+}
@@ -0,0 +1,133 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import java.util.Arrays;
+
+/**
+ * Point-in-polygon index for a polygon checked against many points.
+ * The latitude range of the polygon is cut into bands, and each band lists the edges whose latitude range
+ * overlaps it. A point can only touch or be crossed by an edge whose latitude range contains the point's
+ * latitude, so only the edges of one band are tested. Answers are the same as {@link PreparedPolygon#contains}.
+ * Instances are immutable and safe to share between threads.
+ */
+public class BandedPolygon {
+
+    /** Polygons with at most this many edges are tested directly, a band lookup would not pay off */
+    private static final int MIN_INDEXED_EDGES = 16;
+
+    /** Average edges per band the band count aims for */
+    private static final int EDGES_PER_BAND = 4;
+
+    /** Upper bound on the number of bands */
+    private static final int MAX_BANDS = 4096;
+
+    private final PreparedPolygon polygon;
+    private final double[] coords;
+    private final double minLat;
+    private final double bandHeight;
+    private final int bands;
+    /** Start offset of each band in {@link #bandEdges}, CSR layout with one extra entry at the end */
+    private final int[] bandStart;
+    private final int[] bandEdges;
+
+    /**
+     * Builds the index of a prepared polygon
+     * @param polygon the polygon; its edges are the consecutive vertex pairs, as in {@link PreparedPolygon#contains}
+     */
+    public BandedPolygon(PreparedPolygon polygon) {
+        this.polygon = polygon;
+        this.coords = polygon.packedCoordinates();
+        int edges = Math.max(0, polygon.getVertexCount() - 1);
+        this.minLat = polygon.getMinLat();
+        double height = polygon.getMaxLat() - polygon.getMinLat();
+
+        if (edges <= MIN_INDEXED_EDGES || !polygon.isFinite() || !(height > 0)) {
+            this.bands = 0;
+            this.bandHeight = 0;
+            this.bandStart = new int[0];
+            this.bandEdges = new int[0];
+            return;
+        }
+        this.bands = Math.min(MAX_BANDS, edges / EDGES_PER_BAND);
+        this.bandHeight = height / bands;
+
+        // Count the edges of each band, then fill them in edge order
+        int[] counts = new int[bands + 1];
+        for (int edge = 0; edge < edges; edge++) {
+            for (int band = lowBand(edge); band <= highBand(edge); band++) {
+                counts[band + 1]++;
+            }
+        }
+        for (int band = 0; band < bands; band++) {
+            counts[band + 1] += counts[band];
+        }
+        this.bandStart = counts;
+        this.bandEdges = new int[counts[bands]];
+        int[] next = Arrays.copyOf(counts, bands);
+        for (int edge = 0; edge < edges; edge++) {
+            for (int band = lowBand(edge); band <= highBand(edge); band++) {
+                bandEdges[next[band]++] = edge;
+            }
+        }
+    }
+
+    /**
+     * Gets the indexed polygon
+     * @return the prepared polygon
+     */
+    public PreparedPolygon getPolygon() {
+        return polygon;
+    }
+
+    /**
+     * Checks whether a point lies inside the polygon or on one of its edges
+     * @param pointLng longitude of the point
+     * @param pointLat latitude of the point
+     * @return the same answer as {@link PreparedPolygon#contains(double, double)}
+     */
+    public boolean contains(double pointLng, double pointLat) {
+        if (bands == 0) {
+            return polygon.contains(pointLng, pointLat);
+        }
+        // No edge can be touched or crossed by the ray outside the latitude range
+        if (pointLat < minLat || pointLat > polygon.getMaxLat()) {
+            return false;
+        }
+
+        // The order of the edges does not matter: any touched edge decides, the crossings only flip parity
+        boolean inside = false;
+        int band = bandOf(pointLat);
+        for (int k = bandStart[band]; k < bandStart[band + 1]; k++) {
+            int i = bandEdges[k];
+            double currLng = coords[2 * i];
+            double currLat = coords[2 * i + 1];
+            double nextLng = coords[2 * i + 2];
+            double nextLat = coords[2 * i + 3];
+
+            if (PreparedPolygon.isPointOnEdge(pointLng, pointLat, currLng, currLat, nextLng, nextLat)) {
+                return true;
+            }
+
+            if (((currLat > pointLat) != (nextLat > pointLat)) &&
+                    (pointLng < (nextLng - currLng) * (pointLat - currLat) / (nextLat - currLat) + currLng)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Gets the band of a latitude; monotone in the latitude, so an edge's bands cover every latitude it spans
+     */
+    private int bandOf(double lat) {
+        int band = (int) ((lat - minLat) / bandHeight);
+        return Math.max(0, Math.min(bands - 1, band));
+    }
+
+    private int lowBand(int edge) {
+        return bandOf(Math.min(coords[2 * edge + 1], coords[2 * edge + 3]));
+    }
+
+    private int highBand(int edge) {
+        return bandOf(Math.max(coords[2 * edge + 1], coords[2 * edge + 3]));
+    }
+}
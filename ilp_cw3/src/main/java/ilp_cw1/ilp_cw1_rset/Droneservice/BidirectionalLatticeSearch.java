@@ -0,0 +1,299 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Bidirectional variant of the 16-direction lattice search.
+ * One search grows from the start and one from the goal, always expanding the side with the smaller open set.
+ * When a node of one side comes within one move of a node of the other, the backward branch is replayed
+ * from the forward node with the opposite moves, so the result is a sequence of legal moves from the start.
+ * Every replayed move is checked again, and the replay is accepted only if it ends within 0.00015 of the goal,
+ * the same termination rule as the single-direction search.
+ * The shortest joined path so far is kept. Every joined path is a forward path, and a forward node within one
+ * move of the goal joins the goal itself, so the search ends once the forward side's smallest f is not below
+ * that length; with lower-bound heuristics the result is then as short as the single-direction search's.
+ * A backward node whose f is not below it cannot join a shorter path, so from then on only the forward side
+ * is expanded.
+ */
+public class BidirectionalLatticeSearch {
+
+    /**
+     * Decides whether the drone may fly a move
+     */
+    @FunctionalInterface
+    public interface MoveCheck {
+        boolean isSafe(double fromLng, double fromLat, double toLng, double toLat);
+    }
+
+    private static final double STEP = MoveLattice.STEP;
+
+    private final MoveCheck moveCheck;
+    private final RouteCorridor corridor;
+    private final DoubleBinaryOperator toGoal;
+    private final DoubleBinaryOperator toStart;
+    private final SearchBudget budget;
+
+    /**
+     * Creates a search without a budget
+     * @param moveCheck safety check for a single move
+     * @param corridor corridor both sides are confined to, or null to search everywhere
+     * @param toGoal heuristic of a position towards the goal, used by the forward side
+     * @param toStart heuristic of a position towards the start, used by the backward side
+     *                (both lower bounds on the remaining length for the shortest path)
+     */
+    public BidirectionalLatticeSearch(MoveCheck moveCheck, RouteCorridor corridor,
+                                      DoubleBinaryOperator toGoal, DoubleBinaryOperator toStart) {
+        this(moveCheck, corridor, toGoal, toStart, SearchBudget.unlimited());
+    }
+
+    /**
+     * Creates a search
+     * @param moveCheck safety check for a single move
+     * @param corridor corridor both sides are confined to, or null to search everywhere
+     * @param toGoal heuristic of a position towards the goal, used by the forward side
+     * @param toStart heuristic of a position towards the start, used by the backward side
+     * @param budget limit on the expansions of both sides together
+     */
+    public BidirectionalLatticeSearch(MoveCheck moveCheck, RouteCorridor corridor,
+                                      DoubleBinaryOperator toGoal, DoubleBinaryOperator toStart,
+                                      SearchBudget budget) {
+        this.moveCheck = moveCheck;
+        this.corridor = corridor;
+        this.toGoal = toGoal;
+        this.toStart = toStart;
+        this.budget = budget;
+    }
+
+    /**
+     * Searches for a path
+     * @param start starting position, outside every restricted area
+     * @param goal target position, outside every restricted area
+     * @return positions from the start to within one move of the goal; the shortest joined path found so far
+     *         if either side or the budget is exhausted or the sides reach the node cap together, null if none was
+     */
+    public List<PositionDto> search(PositionDto start, PositionDto goal) {
+        try (SearchArena forwardArena = SearchArena.acquire();
+             SearchArena backwardArena = SearchArena.acquire()) {
+            return search(new Side(start, false, toGoal, forwardArena), new Side(goal, true, toStart, backwardArena),
+                    goal);
+        }
+    }
+
+    private List<PositionDto> search(Side forward, Side backward, PositionDto goal) {
+        double goalLng = goal.getLng();
+        double goalLat = goal.getLat();
+        List<PositionDto> best = null;
+        double bestLength = Double.POSITIVE_INFINITY;
+
+        while (!forward.openSet.isEmpty() && forward.openSet.peekKey() < bestLength) {
+            boolean backwardUseful = !backward.openSet.isEmpty() && backward.openSet.peekKey() < bestLength;
+            if (!backwardUseful && best == null) {
+                // The goal's side ran out of nodes without meeting the start's
+                return null;
+            }
+            if (!budget.tryExpand()) {
+                return best;
+            }
+            boolean expandForward = !backwardUseful || forward.openSet.size() <= backward.openSet.size();
+            Side side = expandForward ? forward : backward;
+            Side other = expandForward ? backward : forward;
+
+            int current = side.openSet.poll();
+            side.nodes.close(current);
+            double currentLng = side.nodes.lngOf(current);
+            double currentLat = side.nodes.latOf(current);
+
+            // Try every node of the other side within one move of the node just expanded
+            int[] nearby = other.nodesNear(currentLng, currentLat);
+            for (int i = 0; i < nearby.length; i++) {
+                int forwardNode = expandForward ? current : nearby[i];
+                int backwardNode = expandForward ? nearby[i] : current;
+                double length = forward.nodes.gScoreOf(forwardNode) + backward.nodes.gScoreOf(backwardNode);
+                if (length >= bestLength) {
+                    continue;
+                }
+                List<PositionDto> path = splice(forward, forwardNode, backward, backwardNode, goalLng, goalLat);
+                if (path != null) {
+                    best = path;
+                    bestLength = length;
+                }
+            }
+
+            if (!side.expand(current, other.nodes.size(), bestLength)) {
+                return best;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Continues the forward path with the moves of the backward branch reversed
+     * @return the joined path, or null if a replayed move is unsafe or the end is not within one move of the goal
+     */
+    private List<PositionDto> splice(Side forward, int forwardNode, Side backward, int backwardNode,
+                                     double goalLng, double goalLat) {
+        double lng = forward.nodes.lngOf(forwardNode);
+        double lat = forward.nodes.latOf(forwardNode);
+        if (ilpService.euclideanDistance(lng, lat, backward.nodes.lngOf(backwardNode), backward.nodes.latOf(backwardNode)) >= STEP) {
+            return null;
+        }
+
+        List<PositionDto> path = forward.nodes.pathTo(forwardNode);
+        double[] next = new double[2];
+        for (int node = backwardNode; backward.nodes.parentOf(node) >= 0; node = backward.nodes.parentOf(node)) {
+            MoveStepTable.neighbour(lng, lat, MoveStepTable.opposite(backward.directionOf(node)), next);
+            if (!moveCheck.isSafe(lng, lat, next[0], next[1])) {
+                return null;
+            }
+            lng = next[0];
+            lat = next[1];
+            path.add(new PositionDto(lng, lat));
+        }
+        return ilpService.euclideanDistance(lng, lat, goalLng, goalLat) < STEP ? path : null;
+    }
+
+    /**
+     * State of one search direction, kept in a search arena
+     */
+    private final class Side {
+        private final boolean reversed;
+        private final DoubleBinaryOperator heuristic;
+        private final MoveLattice lattice;
+        private final SearchArena arena;
+        private final LatticeNodeTable nodes;
+        private final IndexedMinHeap openSet;
+        private final double[] neighborCoords;
+
+        /** Direction of the move from each node's parent to the node */
+        private int[] directions;
+
+        /** Nodes bucketed by one-move cells, chained through nextInCell */
+        private final LatticeNodeTable cells;
+        private int[] cellHead;
+        private int[] nextInCell;
+
+        private Side(PositionDto root, boolean reversed, DoubleBinaryOperator heuristic, SearchArena arena) {
+            this.reversed = reversed;
+            this.heuristic = heuristic;
+            this.lattice = new MoveLattice(root);
+            this.arena = arena;
+            this.nodes = arena.nodes();
+            this.openSet = arena.openSet();
+            this.neighborCoords = arena.neighborCoords();
+            this.cells = arena.cells();
+            this.directions = arena.directions(1);
+            this.cellHead = arena.cellHeads(1);
+            this.nextInCell = arena.cellLinks(1);
+            int rootId = nodes.add(lattice.keyOf(root), root.getLng(), root.getLat(), 0.0, -1);
+            directions[rootId] = -1;
+            addToCell(rootId, root.getLng(), root.getLat());
+            openSet.insertOrDecrease(rootId, heuristic.applyAsDouble(root.getLng(), root.getLat()));
+        }
+
+        private int directionOf(int node) {
+            return directions[node];
+        }
+
+        /**
+         * Adds the moves from a node to the open set
+         * @param otherNodes nodes stored by the other side, counted against the node cap
+         * @param bound length of the shortest joined path so far; moves whose f is not below it are skipped
+         * @return false if the node cap stopped the expansion
+         */
+        private boolean expand(int current, int otherNodes, double bound) {
+            double currentLng = nodes.lngOf(current);
+            double currentLat = nodes.latOf(current);
+            double currentGScore = nodes.gScoreOf(current);
+            MoveStepTable.neighbours(currentLng, currentLat, neighborCoords);
+
+            for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+                double neighborLng = neighborCoords[2 * direction];
+                double neighborLat = neighborCoords[2 * direction + 1];
+                long neighborKey = lattice.keyOf(neighborLng, neighborLat);
+                int neighbor = nodes.idOf(neighborKey);
+                if (neighbor >= 0 && nodes.isClosed(neighbor)) {
+                    continue;
+                }
+                double newGScore = currentGScore + ilpService.euclideanDistance(currentLng, currentLat, neighborLng, neighborLat);
+                if (neighbor >= 0 && newGScore >= nodes.gScoreOf(neighbor)) {
+                    continue;
+                }
+                double fScore = newGScore + heuristic.applyAsDouble(neighborLng, neighborLat);
+                if (fScore >= bound) {
+                    continue;
+                }
+                if (corridor != null && !corridor.contains(neighborLng, neighborLat)) {
+                    continue;
+                }
+                // The backward side is flown towards its root, so the move is checked in flight direction
+                boolean safe = reversed
+                        ? moveCheck.isSafe(neighborLng, neighborLat, currentLng, currentLat)
+                        : moveCheck.isSafe(currentLng, currentLat, neighborLng, neighborLat);
+                if (!safe) {
+                    continue;
+                }
+                if (neighbor < 0) {
+                    if (!budget.allowsNodes(nodes.size() + otherNodes)) {
+                        return false;
+                    }
+                    neighbor = nodes.add(neighborKey, neighborLng, neighborLat, newGScore, current);
+                    addToCell(neighbor, neighborLng, neighborLat);
+                } else {
+                    nodes.update(neighbor, neighborLng, neighborLat, newGScore, current);
+                }
+                directions[neighbor] = direction;
+                openSet.insertOrDecrease(neighbor, fScore);
+            }
+            return true;
+        }
+
+        /**
+         * Finds the nodes in the 3x3 block of one-move cells around a position
+         */
+        private int[] nodesNear(double lng, double lat) {
+            long column = (long) Math.floor(lng / STEP);
+            long row = (long) Math.floor(lat / STEP);
+            int[] found = new int[0];
+            int count = 0;
+            for (long dy = -1; dy <= 1; dy++) {
+                for (long dx = -1; dx <= 1; dx++) {
+                    int cell = cells.idOf(cellKey(column + dx, row + dy));
+                    if (cell < 0) {
+                        continue;
+                    }
+                    for (int node = cellHead[cell]; node >= 0; node = nextInCell[node]) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, Math.max(8, count * 2));
+                        }
+                        found[count++] = node;
+                    }
+                }
+            }
+            return count == found.length ? found : Arrays.copyOf(found, count);
+        }
+
+        private void addToCell(int node, double lng, double lat) {
+            long key = cellKey((long) Math.floor(lng / STEP), (long) Math.floor(lat / STEP));
+            int cell = cells.idOf(key);
+            if (cell < 0) {
+                cell = cells.add(key, 0.0, 0.0, 0.0, -1);
+                cellHead = arena.cellHeads(cell + 1);
+                cellHead[cell] = -1;
+            }
+            if (node >= nextInCell.length) {
+                nextInCell = arena.cellLinks(node + 1);
+                directions = arena.directions(node + 1);
+            }
+            nextInCell[node] = cellHead[cell];
+            cellHead[cell] = node;
+        }
+
+        private long cellKey(long column, long row) {
+            return MoveLattice.pack((int) column, (int) row);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Memory-bounded variant of the 16-direction lattice search, used for legs that need more nodes than
+ * the node cap of a search allows.
+ * It is iterative-deepening A*: each iteration is a depth-first search that abandons a branch once g + h
+ * exceeds a threshold, and the next iteration raises the threshold to the smallest f that was cut off,
+ * but by at least {@link #THRESHOLD_GROWTH}, which bounds the number of iterations.
+ * Memory is the current branch with the untried moves of each of its nodes, plus a fixed-size transposition
+ * table of the best g reached in recently searched half-move cells. The table keeps the depth-first search
+ * from flying the many orderings of the same moves again; a branch entering a cell that this iteration
+ * already reached as cheaply is dropped. The table is direct-mapped and a new cell replaces whatever shares
+ * its slot, so a full table only costs repeated work.
+ */
+public class BoundedLatticeSearch {
+
+    /** Smallest factor the f threshold grows by between iterations */
+    private static final double THRESHOLD_GROWTH = 1.05;
+
+    /** g scores closer than this are equal, since orderings of the same moves differ by rounding only */
+    private static final double G_TOLERANCE = 1e-12;
+
+    /** Transposition table slots without a node cap */
+    private static final int DEFAULT_TABLE_SLOTS = 1 << 20;
+
+    private static final double STEP = MoveLattice.STEP;
+    /** Cell size of the transposition table; positions within a cell are treated as the same node */
+    private static final double CELL = STEP / 2;
+    private static final int DIRECTIONS = MoveStepTable.DIRECTIONS;
+
+    private final BidirectionalLatticeSearch.MoveCheck moveCheck;
+    private final RouteCorridor corridor;
+    private final DoubleBinaryOperator heuristic;
+    private final int maxNodes;
+    private final SearchBudget budget;
+
+    /**
+     * Creates a search
+     * @param moveCheck safety check for a single move
+     * @param corridor corridor the search is confined to, or null to search everywhere
+     * @param heuristic lower bound of the length still to fly from a position until within one move of the goal
+     * @param maxNodes limit on the cells of the transposition table, 0 for the default size
+     * @param budget time and expansion limit for the leg
+     */
+    public BoundedLatticeSearch(BidirectionalLatticeSearch.MoveCheck moveCheck, RouteCorridor corridor,
+                                DoubleBinaryOperator heuristic, int maxNodes, SearchBudget budget) {
+        if (maxNodes < 0) {
+            throw new IllegalArgumentException("Node limit cannot be negative");
+        }
+        this.moveCheck = moveCheck;
+        this.corridor = corridor;
+        this.heuristic = heuristic;
+        this.maxNodes = maxNodes;
+        this.budget = budget;
+    }
+
+    /**
+     * Searches for a path
+     * @param start starting position, outside every restricted area
+     * @param goal target position
+     * @param lengthBound only paths shorter than this are searched for; infinity for no bound
+     * @return positions from the start to within one move of the goal,
+     *         or null if there is none within the bound or the budget is exhausted
+     */
+    public List<PositionDto> search(PositionDto start, PositionDto goal, double lengthBound) {
+        return new Iterations(start, goal, lengthBound).run();
+    }
+
+    /**
+     * State of the deepening iterations of one search
+     */
+    private final class Iterations {
+        private final double goalLng;
+        private final double goalLat;
+        private final double lengthBound;
+        private final double originLng;
+        private final double originLat;
+        private final double[] neighborCoords = new double[DIRECTIONS * 2];
+
+        // Transposition table: the cell key, its best g and the iteration that last entered it, 0 for a free slot
+        private final long[] tableKeys;
+        private final double[] tableG;
+        private final int[] tableIteration;
+        private final int tableMask;
+        private int iteration;
+
+        // The current branch: one frame per depth, each with its untried moves ordered by f
+        private double[] frameLng = new double[256];
+        private double[] frameLat = new double[256];
+        private double[] frameG = new double[256];
+        private int[] frameNext = new int[256];
+        private int[] frameCount = new int[256];
+        private double[] moveLng = new double[256 * DIRECTIONS];
+        private double[] moveLat = new double[256 * DIRECTIONS];
+        private double[] moveG = new double[256 * DIRECTIONS];
+        private double[] moveF = new double[256 * DIRECTIONS];
+
+        private Iterations(PositionDto start, PositionDto goal, double lengthBound) {
+            this.goalLng = goal.getLng();
+            this.goalLat = goal.getLat();
+            this.lengthBound = lengthBound;
+            this.originLng = start.getLng();
+            this.originLat = start.getLat();
+            int slots = Integer.highestOneBit(Math.max(16, maxNodes == 0 ? DEFAULT_TABLE_SLOTS : maxNodes));
+            this.tableKeys = new long[slots];
+            this.tableG = new double[slots];
+            this.tableIteration = new int[slots];
+            this.tableMask = slots - 1;
+            frameLng[0] = start.getLng();
+            frameLat[0] = start.getLat();
+        }
+
+        private List<PositionDto> run() {
+            double threshold = heuristic.applyAsDouble(frameLng[0], frameLat[0]);
+            while (threshold < lengthBound) {
+                iteration++;
+                double cutOff = Double.POSITIVE_INFINITY;
+                int depth = 0;
+                frameG[0] = 0.0;
+                frameCount[0] = -1;
+                enter(frameLng[0], frameLat[0], 0.0);
+
+                while (depth >= 0) {
+                    if (frameCount[depth] < 0) {
+                        if (ilpService.euclideanDistance(frameLng[depth], frameLat[depth], goalLng, goalLat) < STEP) {
+                            return branch(depth);
+                        }
+                        if (!budget.tryExpand()) {
+                            return null;
+                        }
+                        cutOff = Math.min(cutOff, expand(depth, threshold));
+                    }
+                    if (frameNext[depth] == frameCount[depth]) {
+                        depth--;
+                        continue;
+                    }
+                    int move = depth * DIRECTIONS + frameNext[depth]++;
+                    if (enter(moveLng[move], moveLat[move], moveG[move])) {
+                        depth++;
+                        ensureDepth(depth);
+                        frameLng[depth] = moveLng[move];
+                        frameLat[depth] = moveLat[move];
+                        frameG[depth] = moveG[move];
+                        frameCount[depth] = -1;
+                    }
+                }
+
+                if (cutOff == Double.POSITIVE_INFINITY) {
+                    return null;
+                }
+                threshold = Math.max(cutOff, threshold * THRESHOLD_GROWTH);
+            }
+            return null;
+        }
+
+        /**
+         * Collects the moves of a node within the threshold, ordered by f
+         * @return smallest f of the moves cut off by the threshold, infinity if none was
+         */
+        private double expand(int depth, double threshold) {
+            double lng = frameLng[depth];
+            double lat = frameLat[depth];
+            double g = frameG[depth];
+            double cutOff = Double.POSITIVE_INFINITY;
+            int base = depth * DIRECTIONS;
+            int count = 0;
+
+            MoveStepTable.neighbours(lng, lat, neighborCoords);
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                double neighborLng = neighborCoords[2 * direction];
+                double neighborLat = neighborCoords[2 * direction + 1];
+                double neighborG = g + ilpService.euclideanDistance(lng, lat, neighborLng, neighborLat);
+                double f = neighborG + heuristic.applyAsDouble(neighborLng, neighborLat);
+                if (f >= lengthBound || !isBetter(neighborLng, neighborLat, neighborG)) {
+                    continue;
+                }
+                if (f > threshold) {
+                    cutOff = Math.min(cutOff, f);
+                    continue;
+                }
+                if (corridor != null && !corridor.contains(neighborLng, neighborLat)) {
+                    continue;
+                }
+                if (!moveCheck.isSafe(lng, lat, neighborLng, neighborLat)) {
+                    continue;
+                }
+                // Insertion sort, there are at most 16 moves
+                int slot = base + count++;
+                while (slot > base && moveF[slot - 1] > f) {
+                    moveLng[slot] = moveLng[slot - 1];
+                    moveLat[slot] = moveLat[slot - 1];
+                    moveG[slot] = moveG[slot - 1];
+                    moveF[slot] = moveF[slot - 1];
+                    slot--;
+                }
+                moveLng[slot] = neighborLng;
+                moveLat[slot] = neighborLat;
+                moveG[slot] = neighborG;
+                moveF[slot] = f;
+            }
+            frameNext[depth] = 0;
+            frameCount[depth] = count;
+            return cutOff;
+        }
+
+        /**
+         * Checks a node against the transposition table without entering it
+         */
+        private boolean isBetter(double lng, double lat, double g) {
+            long key = cellOf(lng, lat);
+            int slot = slotOf(key);
+            return tableIteration[slot] == 0 || tableKeys[slot] != key || isBetter(slot, g);
+        }
+
+        /**
+         * Enters a node unless this iteration already reached it at least as cheaply
+         * @return true if the node is to be searched from
+         */
+        private boolean enter(double lng, double lat, double g) {
+            long key = cellOf(lng, lat);
+            int slot = slotOf(key);
+            if (tableIteration[slot] != 0 && tableKeys[slot] == key) {
+                if (!isBetter(slot, g)) {
+                    return false;
+                }
+                g = Math.min(g, tableG[slot]);
+            }
+            tableKeys[slot] = key;
+            tableG[slot] = g;
+            tableIteration[slot] = iteration;
+            return true;
+        }
+
+        /**
+         * A node is searched again with a smaller g, or with the same g in a later iteration whose higher
+         * threshold lets the search get further from it
+         */
+        private boolean isBetter(int slot, double g) {
+            return g < tableG[slot] - G_TOLERANCE
+                    || (g <= tableG[slot] + G_TOLERANCE && tableIteration[slot] != iteration);
+        }
+
+        private long cellOf(double lng, double lat) {
+            return MoveLattice.pack((int) Math.floor((lng - originLng) / CELL), (int) Math.floor((lat - originLat) / CELL));
+        }
+
+        private int slotOf(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & tableMask;
+        }
+
+        private List<PositionDto> branch(int depth) {
+            List<PositionDto> path = new ArrayList<>(depth + 1);
+            for (int i = 0; i <= depth; i++) {
+                path.add(new PositionDto(frameLng[i], frameLat[i]));
+            }
+            return path;
+        }
+
+        private void ensureDepth(int depth) {
+            if (depth < frameLng.length) {
+                return;
+            }
+            int length = frameLng.length * 2;
+            frameLng = Arrays.copyOf(frameLng, length);
+            frameLat = Arrays.copyOf(frameLat, length);
+            frameG = Arrays.copyOf(frameG, length);
+            frameNext = Arrays.copyOf(frameNext, length);
+            frameCount = Arrays.copyOf(frameCount, length);
+            moveLng = Arrays.copyOf(moveLng, length * DIRECTIONS);
+            moveLat = Arrays.copyOf(moveLat, length * DIRECTIONS);
+            moveG = Arrays.copyOf(moveG, length * DIRECTIONS);
+            moveF = Arrays.copyOf(moveF, length * DIRECTIONS);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+/**
+ * Point-in-polygon test for many points against one polygon, as when rasterizing restricted areas or
+ * geofencing a whole fleet. When the JVM runs with the jdk.incubator.vector module
+ * ({@code --add-modules jdk.incubator.vector}) several points are tested per instruction; otherwise every point
+ * is tested with {@link PreparedPolygon#contains(double, double)}. Both paths give the same answers.
+ */
+public final class BulkContainment {
+
+    /** Whether the vectorized kernel is used, decided once per JVM */
+    private static final boolean VECTORIZED = detectVectorSupport();
+
+    private BulkContainment() {
+    }
+
+    /**
+     * Checks whether the vectorized kernel is used
+     * @return true if the Vector API is available and tests more than one point per instruction
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Checks whether each point lies inside the polygon or on one of its edges
+     * @param polygon the polygon
+     * @param lngs point longitudes
+     * @param lats point latitudes
+     * @param count number of points to check, from index 0
+     * @param out receives {@link PreparedPolygon#contains(double, double)} of each point
+     */
+    public static void contains(PreparedPolygon polygon, double[] lngs, double[] lats, int count, boolean[] out) {
+        if (VECTORIZED) {
+            VectorContainment.contains(polygon, lngs, lats, count, out);
+        } else {
+            containsScalar(polygon, lngs, lats, count, out);
+        }
+    }
+
+    /**
+     * Checks each point one at a time, without the Vector API
+     * @param polygon the polygon
+     * @param lngs point longitudes
+     * @param lats point latitudes
+     * @param count number of points to check, from index 0
+     * @param out receives {@link PreparedPolygon#contains(double, double)} of each point
+     */
+    public static void containsScalar(PreparedPolygon polygon, double[] lngs, double[] lats, int count, boolean[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i] = polygon.contains(lngs[i], lats[i]);
+        }
+    }
+
+    private static boolean detectVectorSupport() {
+        // Incubator modules are only resolved on request, so check before VectorContainment is loaded
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorContainment.lanes() > 1;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
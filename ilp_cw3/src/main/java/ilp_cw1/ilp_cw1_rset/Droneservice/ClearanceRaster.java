@@ -0,0 +1,305 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Raster of restricted areas on a grid aligned to the 0.00015-degree move step.
+ * Each cell is classified as free (no area edge within the cell and outside every area), blocked
+ * (no edge within the cell and inside an area) or boundary (an edge passes through or near it).
+ * The free and blocked classes are stored as bitsets; a byte field holds the Chebyshev distance in
+ * cells from every cell to the nearest cell that is not free.
+ *
+ * A move whose length is below the clearance of its start cell can only pass through free cells and is
+ * therefore safe; a move starting or ending in a blocked cell is unsafe. Every other move, i.e. one near
+ * an area boundary, is left to the exact polygon tests.
+ */
+public class ClearanceRaster {
+
+    /** Result of a raster lookup for a move */
+    public enum Verdict {
+        /** The move cannot touch any rasterized area */
+        SAFE,
+        /** The move starts or ends inside a rasterized area */
+        BLOCKED,
+        /** The move is near an area boundary and needs the exact test */
+        UNKNOWN
+    }
+
+    /** Cell size in degrees, one move step */
+    public static final double CELL_SIZE = MoveLattice.STEP;
+
+    /** Largest raster built, in cells; larger extents are left to the exact tests */
+    public static final int MAX_CELLS = 4_000_000;
+
+    /** Distance by which cells are padded when marking edges, far above rounding error of the exact tests */
+    private static final double EDGE_PADDING = 1e-9;
+
+    /** Clearance is saturated at this many cells */
+    private static final int MAX_CLEARANCE = 127;
+
+    private final double originLng;
+    private final double originLat;
+    private final int columns;
+    private final int rows;
+    private final long[] freeBits;
+    private final long[] blockedBits;
+    private final byte[] clearance;
+
+    private ClearanceRaster(double originLng, double originLat, int columns, int rows) {
+        this.originLng = originLng;
+        this.originLat = originLat;
+        this.columns = columns;
+        this.rows = rows;
+        int cells = columns * rows;
+        this.freeBits = new long[(cells + 63) >>> 6];
+        this.blockedBits = new long[(cells + 63) >>> 6];
+        this.clearance = new byte[cells];
+    }
+
+    /**
+     * Rasterizes closed polygons
+     * @param polygons closed polygons with finite coordinates
+     * @return the raster, or null if the polygons span more than {@link #MAX_CELLS} cells
+     */
+    public static ClearanceRaster build(List<PreparedPolygon> polygons) {
+        if (polygons.isEmpty()) {
+            return new ClearanceRaster(0, 0, 0, 0);
+        }
+        double minLng = Double.POSITIVE_INFINITY;
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLng = Double.NEGATIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        for (PreparedPolygon polygon : polygons) {
+            minLng = Math.min(minLng, polygon.getMinLng());
+            minLat = Math.min(minLat, polygon.getMinLat());
+            maxLng = Math.max(maxLng, polygon.getMaxLng());
+            maxLat = Math.max(maxLat, polygon.getMaxLat());
+        }
+
+        // Two free cells of margin on every side, with cell borders on multiples of the step
+        double originLng = (Math.floor(minLng / CELL_SIZE) - 2) * CELL_SIZE;
+        double originLat = (Math.floor(minLat / CELL_SIZE) - 2) * CELL_SIZE;
+        long columns = (long) Math.ceil((maxLng - originLng) / CELL_SIZE) + 3;
+        long rows = (long) Math.ceil((maxLat - originLat) / CELL_SIZE) + 3;
+        if (columns * rows > MAX_CELLS) {
+            return null;
+        }
+
+        ClearanceRaster raster = new ClearanceRaster(originLng, originLat, (int) columns, (int) rows);
+        raster.classify(polygons);
+        raster.computeClearance();
+        return raster;
+    }
+
+    /**
+     * Classifies a move using only the raster
+     * @param fromLng starting longitude
+     * @param fromLat starting latitude
+     * @param toLng target longitude
+     * @param toLat target latitude
+     * @return SAFE or BLOCKED when the raster decides the move, UNKNOWN otherwise
+     */
+    public Verdict classifyMove(double fromLng, double fromLat, double toLng, double toLat) {
+        if (columns == 0) {
+            return Verdict.SAFE;
+        }
+        int fromColumn = columnOf(fromLng);
+        int fromRow = rowOf(fromLat);
+        if (isBlocked(fromColumn, fromRow) || isBlocked(columnOf(toLng), rowOf(toLat))) {
+            return Verdict.BLOCKED;
+        }
+
+        // Cells within this Chebyshev distance of the start cell cover the whole move; the small
+        // allowance absorbs rounding of a full-step move and is far below the edge padding
+        double reach = Math.max(Math.abs(toLng - fromLng), Math.abs(toLat - fromLat)) / CELL_SIZE;
+        if (!(reach < MAX_CLEARANCE)) {
+            return Verdict.UNKNOWN;
+        }
+        int cellsCrossed = (int) Math.ceil(reach - 1e-6);
+        return cellsCrossed < clearanceOf(fromColumn, fromRow) ? Verdict.SAFE : Verdict.UNKNOWN;
+    }
+
+    /**
+     * Gets the clearance of the cell containing a point
+     * @param lng longitude
+     * @param lat latitude
+     * @return Chebyshev distance in cells to the nearest cell that is not free, saturated at 127
+     */
+    public int clearanceAt(double lng, double lat) {
+        if (columns == 0) {
+            return MAX_CLEARANCE;
+        }
+        return clearanceOf(columnOf(lng), rowOf(lat));
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    private void classify(List<PreparedPolygon> polygons) {
+        long[] boundaryBits = new long[freeBits.length];
+
+        for (PreparedPolygon polygon : polygons) {
+            double[] coords = polygon.packedCoordinates();
+            int n = polygon.getVertexCount();
+            for (int i = 0; i < n; i++) {
+                int j = (i + 1) % n;
+                markEdge(boundaryBits, coords[2 * i], coords[2 * i + 1], coords[2 * j], coords[2 * j + 1]);
+            }
+        }
+
+        // Cells without an edge are entirely inside or entirely outside, so their centre decides;
+        // the centres of a row are tested together against each polygon
+        double[] centerLngs = new double[columns];
+        double[] centerLats = new double[columns];
+        int[] rowCells = new int[columns];
+        boolean[] inside = new boolean[columns];
+        boolean[] insidePolygon = new boolean[columns];
+        for (int row = 0; row < rows; row++) {
+            int count = 0;
+            for (int column = 0; column < columns; column++) {
+                int cell = row * columns + column;
+                if (isSet(boundaryBits, cell)) {
+                    continue;
+                }
+                centerLngs[count] = originLng + (column + 0.5) * CELL_SIZE;
+                centerLats[count] = originLat + (row + 0.5) * CELL_SIZE;
+                rowCells[count++] = cell;
+            }
+            Arrays.fill(inside, 0, count, false);
+            for (PreparedPolygon polygon : polygons) {
+                BulkContainment.contains(polygon, centerLngs, centerLats, count, insidePolygon);
+                for (int i = 0; i < count; i++) {
+                    inside[i] |= insidePolygon[i];
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                if (inside[i]) {
+                    set(blockedBits, rowCells[i]);
+                } else {
+                    set(freeBits, rowCells[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks every cell an edge passes through or comes within the padding of, column by column
+     */
+    private void markEdge(long[] boundaryBits, double lng1, double lat1, double lng2, double lat2) {
+        double edgeMinLng = Math.min(lng1, lng2) - EDGE_PADDING;
+        double edgeMaxLng = Math.max(lng1, lng2) + EDGE_PADDING;
+        int firstColumn = clampColumn(columnOf(edgeMinLng));
+        int lastColumn = clampColumn(columnOf(edgeMaxLng));
+
+        for (int column = firstColumn; column <= lastColumn; column++) {
+            double sliceMinLng = Math.max(edgeMinLng, originLng + column * CELL_SIZE);
+            double sliceMaxLng = Math.min(edgeMaxLng, originLng + (column + 1) * CELL_SIZE);
+            double sliceMinLat;
+            double sliceMaxLat;
+            if (lng1 == lng2) {
+                sliceMinLat = Math.min(lat1, lat2);
+                sliceMaxLat = Math.max(lat1, lat2);
+            } else {
+                // Latitude of the edge at both ends of the column slice, clipped to the edge
+                double t1 = clampUnit((sliceMinLng - lng1) / (lng2 - lng1));
+                double t2 = clampUnit((sliceMaxLng - lng1) / (lng2 - lng1));
+                double latA = lat1 + (lat2 - lat1) * t1;
+                double latB = lat1 + (lat2 - lat1) * t2;
+                sliceMinLat = Math.min(latA, latB);
+                sliceMaxLat = Math.max(latA, latB);
+            }
+            int firstRow = clampRow(rowOf(sliceMinLat - EDGE_PADDING));
+            int lastRow = clampRow(rowOf(sliceMaxLat + EDGE_PADDING));
+            for (int row = firstRow; row <= lastRow; row++) {
+                set(boundaryBits, row * columns + column);
+            }
+        }
+    }
+
+    /**
+     * Two-pass chamfer transform computing the exact Chebyshev distance to the nearest non-free cell
+     */
+    private void computeClearance() {
+        int cells = columns * rows;
+        int[] distance = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            distance[cell] = isSet(freeBits, cell) ? MAX_CLEARANCE : 0;
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int cell = row * columns + column;
+                int best = distance[cell];
+                if (column > 0) best = Math.min(best, distance[cell - 1] + 1);
+                if (row > 0) {
+                    best = Math.min(best, distance[cell - columns] + 1);
+                    if (column > 0) best = Math.min(best, distance[cell - columns - 1] + 1);
+                    if (column < columns - 1) best = Math.min(best, distance[cell - columns + 1] + 1);
+                }
+                distance[cell] = best;
+            }
+        }
+        for (int row = rows - 1; row >= 0; row--) {
+            for (int column = columns - 1; column >= 0; column--) {
+                int cell = row * columns + column;
+                int best = distance[cell];
+                if (column < columns - 1) best = Math.min(best, distance[cell + 1] + 1);
+                if (row < rows - 1) {
+                    best = Math.min(best, distance[cell + columns] + 1);
+                    if (column < columns - 1) best = Math.min(best, distance[cell + columns + 1] + 1);
+                    if (column > 0) best = Math.min(best, distance[cell + columns - 1] + 1);
+                }
+                distance[cell] = best;
+                clearance[cell] = (byte) Math.min(best, MAX_CLEARANCE);
+            }
+        }
+    }
+
+    private boolean isBlocked(int column, int row) {
+        return column >= 0 && column < columns && row >= 0 && row < rows && isSet(blockedBits, row * columns + column);
+    }
+
+    private int clearanceOf(int column, int row) {
+        // Outside the raster, distance to the nearest raster cell plus the free margin ring
+        int outside = Math.max(Math.max(-column, column - (columns - 1)), Math.max(-row, row - (rows - 1)));
+        if (outside > 0) {
+            return (int) Math.min(MAX_CLEARANCE, (long) outside + 1);
+        }
+        return clearance[row * columns + column];
+    }
+
+    private int columnOf(double lng) {
+        double column = Math.floor((lng - originLng) / CELL_SIZE);
+        return (int) Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, column));
+    }
+
+    private int rowOf(double lat) {
+        double row = Math.floor((lat - originLat) / CELL_SIZE);
+        return (int) Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, row));
+    }
+
+    private int clampColumn(int column) {
+        return Math.max(0, Math.min(columns - 1, column));
+    }
+
+    private int clampRow(int row) {
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    private static double clampUnit(double t) {
+        return Math.max(0.0, Math.min(1.0, t));
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+}
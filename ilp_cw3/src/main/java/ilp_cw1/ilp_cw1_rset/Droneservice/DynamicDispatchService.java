@@ -1,10 +1,12 @@
 package ilp_cw1.ilp_cw1_rset.Droneservice;
 
 import data.*;
+import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -15,12 +17,28 @@ public class DynamicDispatchService {
 
     private final Map<String, DroneSimulationState> droneSimulationStates = new ConcurrentHashMap<>();
     private ScheduledExecutorService scheduler;
+    /** Runs route repairs one after another, beside the position updates of the scheduler */
+    private final ExecutorService repairExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "route-repair");
+        thread.setDaemon(true);
+        return thread;
+    });
     private volatile boolean isSimulationRunning = false;
-    private List<RestrictedArea> restrictedAreas;
+    private volatile List<RestrictedArea> restrictedAreas;
+    private volatile RestrictedAreaIndex restrictedAreaIndex;
     private final Map<String, List<MedDispatchRec>> droneToOriginalTasks = new ConcurrentHashMap<>();
     private final Object simulationLock = new Object();
     private final droneService droneService;
 
+    /** Repairs retried when the drone moves past the repaired part while it is planned */
+    private static final int MAX_REPAIR_ATTEMPTS = 3;
+    /** Wall-clock limit for planning the detours of all drones around one new area */
+    private static final long REPAIR_TIME_BUDGET_MILLIS = 1000;
+    /** Room left around a new area inside the repair corridor */
+    private static final double REPAIR_CORRIDOR_MARGIN = 4 * MoveLattice.STEP;
+    /** Route points kept per corridor point; the corridor only needs the shape of the route */
+    private static final int REPAIR_CORRIDOR_STRIDE = 8;
+
     public DynamicDispatchService(droneService droneService) {
         this.droneService = droneService;
         this.restrictedAreas = Collections.unmodifiableList(
@@ -30,6 +48,11 @@ public class DynamicDispatchService {
         System.out.println("✅ DynamicDispatchService initialized, restricted areas count: " + restrictedAreas.size());
     }
 
+    @PostConstruct
+    public void init() {
+        droneService.addRestrictedAreaListener(this::onRestrictedAreaAdded);
+    }
+
     public void refreshRestrictedAreas() {
         try {
             List<RestrictedArea> areas = droneService.getRestrictedAreas();
@@ -43,6 +66,96 @@ public class DynamicDispatchService {
         }
     }
 
+    /**
+     * Keeps a running simulation clear of a restricted area added while it runs.
+     * Runs on the thread that added the area, so the area is only recorded here and the repair is left to
+     * the repair thread. Drones keep flying while their detours are planned, and each repaired route is
+     * swapped in only if the drone has not moved past its first detour meanwhile.
+     */
+    private void onRestrictedAreaAdded(RestrictedArea area) {
+        synchronized (simulationLock) {
+            List<RestrictedArea> areas = new ArrayList<>(restrictedAreas);
+            areas.add(area);
+            restrictedAreas = Collections.unmodifiableList(areas);
+            if (isSimulationRunning) {
+                repairExecutor.execute(() -> repairRoutesAround(area));
+            }
+        }
+    }
+
+    /**
+     * Repairs the remaining routes of the simulated drones around a newly added restricted area.
+     * Only the new polygon is checked against the moves still to fly, since the routes already avoid the older
+     * areas. A segment crossing it is replanned from the last clear point before the crossing to the stop the
+     * segment flies to, inside a corridor around the rest of the segment that is just wide enough to pass the
+     * new area; the moves up to that point and the segments that stay clear are kept.
+     * All drones share one time budget, so a repair never takes much longer than {@link #REPAIR_TIME_BUDGET_MILLIS};
+     * drones left when it runs out keep their routes. Drones fly their repaired routes from the next tick.
+     * @param area the new area
+     * @return number of drones whose route was repaired
+     */
+    public int repairRoutesAround(RestrictedArea area) {
+        if (droneSimulationStates.isEmpty()) {
+            return 0;
+        }
+        RestrictedAreaIndex newAreaIndex = new RestrictedAreaIndex(Collections.singletonList(area));
+        List<RestrictedArea> allAreas = new ArrayList<>(restrictedAreas);
+        if (!allAreas.contains(area)) {
+            allAreas.add(area);
+        }
+        RestrictedAreaIndex allAreaIndex = RestrictedAreaIndex.reuseOrBuild(restrictedAreaIndex, allAreas);
+        restrictedAreaIndex = allAreaIndex;
+        double corridorHalfWidth = corridorHalfWidth(area);
+
+        long startNanos = System.nanoTime();
+        SearchBudget budget = new SearchBudget(REPAIR_TIME_BUDGET_MILLIS, 0);
+        int repaired = 0;
+        for (DroneSimulationState state : droneSimulationStates.values()) {
+            if (budget.isExhausted()) {
+                System.err.println("Warning: Route repair around " + area.getName() +
+                        " ran out of time, drone " + state.droneId + " and later drones keep their routes");
+                break;
+            }
+            if (state.repairAround(newAreaIndex, allAreaIndex, corridorHalfWidth, budget)) {
+                repaired++;
+            }
+        }
+        System.out.println("Route repair around " + area.getName() + ": " + repaired + " of " +
+                droneSimulationStates.size() + " drones rerouted in " +
+                (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+        return repaired;
+    }
+
+    /**
+     * Gets the half-width of a repair corridor: half the diagonal of the area's bounding box and a margin,
+     * so a detour can pass the area on either side of a route crossing its middle
+     */
+    private static double corridorHalfWidth(RestrictedArea area) {
+        double minLng = Double.POSITIVE_INFINITY;
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLng = Double.NEGATIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        if (area.getVertices() != null) {
+            for (PositionDto vertex : area.getVertices()) {
+                minLng = Math.min(minLng, vertex.getLng());
+                minLat = Math.min(minLat, vertex.getLat());
+                maxLng = Math.max(maxLng, vertex.getLng());
+                maxLat = Math.max(maxLat, vertex.getLat());
+            }
+        }
+        double halfDiagonal = minLng <= maxLng
+                ? ilpService.euclideanDistance(minLng, minLat, maxLng, maxLat) / 2 : 0.0;
+        return halfDiagonal + REPAIR_CORRIDOR_MARGIN;
+    }
+
+    /**
+     * Get the positions a drone still has to fly, from its current position
+     */
+    public List<PositionDto> getRemainingFlightPath(String droneId) {
+        DroneSimulationState state = droneSimulationStates.get(droneId);
+        return state != null ? state.getRemainingFlightPath() : Collections.emptyList();
+    }
+
     /**
      * Start simulation with idempotent calls
      */
@@ -248,49 +361,16 @@ public class DynamicDispatchService {
     }
 
     /**
-     * Check if position is within restricted area
+     * Check if position is within restricted area (same containment rules as the ILP service)
      */
     private boolean isInRestrictedArea(PositionDto position) {
-        return restrictedAreas.stream()
-                .anyMatch(area -> isPointInPolygon(position, area.getVertices()));
-    }
-
-    /**
-     * Point in polygon detection (ray casting algorithm)
-     */
-    private boolean isPointInPolygon(PositionDto point, List<PositionDto> vertices) {
-        if (vertices == null || vertices.size() < 3) return false;
-
-        int n = vertices.size();
-        boolean inside = false;
-        for (int i = 0, j = n - 1; i < n; j = i++) {
-            PositionDto vi = vertices.get(i);
-            PositionDto vj = vertices.get(j);
-
-            if (isPointOnSegment(point, vi, vj)) {
+        RestrictedAreaIndex index = RestrictedAreaIndex.reuseOrBuild(restrictedAreaIndex, restrictedAreas);
+        restrictedAreaIndex = index;
+        GeoPoint point = GeoPoint.of(position);
+        for (PreparedPolygon polygon : index.candidatePolygons(point.lng(), point.lat(), point.lng(), point.lat())) {
+            if (polygon.contains(point.lng(), point.lat())) {
                 return true;
             }
-
-            if ((vi.getLat() > point.getLat()) != (vj.getLat() > point.getLat())) {
-                double slope = (vj.getLng() - vi.getLng()) / (vj.getLat() - vi.getLat());
-                double xIntersect = vi.getLng() + (point.getLat() - vi.getLat()) * slope;
-                if (point.getLng() < xIntersect) {
-                    inside = !inside;
-                }
-            }
-        }
-        return inside;
-    }
-
-    /**
-     * Check if point is on line segment
-     */
-    private boolean isPointOnSegment(PositionDto p, PositionDto a, PositionDto b) {
-        if (Math.min(a.getLng(), b.getLng()) - 1e-9 <= p.getLng() && p.getLng() <= Math.max(a.getLng(), b.getLng()) + 1e-9
-                && Math.min(a.getLat(), b.getLat()) - 1e-9 <= p.getLat() && p.getLat() <= Math.max(a.getLat(), b.getLat()) + 1e-9) {
-            double crossProduct = (p.getLng() - a.getLng()) * (b.getLat() - a.getLat())
-                    - (p.getLat() - a.getLat()) * (b.getLng() - a.getLng());
-            return Math.abs(crossProduct) < 1e-9;
         }
         return false;
     }
@@ -332,6 +412,8 @@ public class DynamicDispatchService {
         private Integer currentEmergencyTaskId;
         private int interruptedSegmentIndex = 0;
         private int interruptedPathIndex = 0;
+        /** Incremented whenever the segment list changes, so a repair planned on an older list is not applied */
+        private int routeVersion = 0;
 
         public DroneSimulationState(DeliveryPathResponse.DronePath dronePath) {
             this.droneId = dronePath.getDroneId();
@@ -370,7 +452,8 @@ public class DynamicDispatchService {
         /**
          * Insert emergency task and pause current task
          */
-        public void insertEmergencyTask(DeliveryPathResponse.Delivery emergencyTask) {
+        public synchronized void insertEmergencyTask(DeliveryPathResponse.Delivery emergencyTask) {
+            routeVersion++;
             if (isProcessingEmergency) {
                 emergencyDeliveries.add(emergencyTask);
                 System.out.println("Drone " + droneId + " is already processing emergency task, new emergency task added to queue");
@@ -412,7 +495,7 @@ public class DynamicDispatchService {
         /**
          * Update drone position - critical fix method
          */
-        public void updatePosition() {
+        public synchronized void updatePosition() {
             if (status == DroneStatus.COMPLETED) return;
 
             DeliveryPathResponse.Delivery currentSegment = getCurrentSegment();
@@ -442,6 +525,7 @@ public class DynamicDispatchService {
                     currentEmergencyTaskId = null;
 
                     allFlightSegments.remove(0);
+                    routeVersion++;
 
                     currentSegmentIndex = interruptedSegmentIndex;
                     currentPathPointIndex = interruptedPathIndex;
@@ -499,6 +583,7 @@ public class DynamicDispatchService {
                 returnSegment.setFlightPath(returnPath);
 
                 allFlightSegments.add(returnSegment);
+                routeVersion++;
                 System.out.println("Drone " + droneId + " added return to service point path: " +
                         currentPos.getLng() + "," + currentPos.getLat() + " -> " +
                         servicePoint.getLng() + "," + servicePoint.getLat());
@@ -509,6 +594,177 @@ public class DynamicDispatchService {
             }
         }
 
+        /**
+         * Replans the remaining segments that cross a new restricted area.
+         * @param newAreaIndex index over the new area only
+         * @param allAreaIndex index over every restricted area, including the new one
+         * @param corridorHalfWidth half-width of the corridor each detour is searched in
+         * @param budget search budget shared by the detours of all drones, also across retries
+         * @return true if the route was changed
+         */
+        public boolean repairAround(RestrictedAreaIndex newAreaIndex, RestrictedAreaIndex allAreaIndex,
+                                    double corridorHalfWidth, SearchBudget budget) {
+            for (int attempt = 0; attempt < MAX_REPAIR_ATTEMPTS; attempt++) {
+                int version;
+                int segmentIndex;
+                int pointIndex;
+                List<DeliveryPathResponse.Delivery> segments;
+                synchronized (this) {
+                    if (status == DroneStatus.COMPLETED) {
+                        return false;
+                    }
+                    version = routeVersion;
+                    segmentIndex = currentSegmentIndex;
+                    pointIndex = currentPathPointIndex;
+                    segments = new ArrayList<>(allFlightSegments);
+                }
+
+                // Planned without the lock, so the drone keeps flying meanwhile
+                List<DeliveryPathResponse.Delivery> repairedSegments = new ArrayList<>(segments);
+                int firstRepairedSegment = -1;
+                int firstAnchor = -1;
+                for (int s = segmentIndex; s < segments.size(); s++) {
+                    DeliveryPathResponse.Delivery segment = segments.get(s);
+                    List<PositionDto> path = segment.getFlightPath();
+                    if (path == null || path.size() < 2) {
+                        continue;
+                    }
+                    int crossing = firstCrossing(path, s == segmentIndex ? pointIndex : 0, newAreaIndex);
+                    if (crossing < 0) {
+                        continue;
+                    }
+                    PositionDto stop = stopOf(segments, s);
+                    List<PositionDto> bypass = planBypass(path.get(crossing), stop, newAreaIndex, allAreaIndex,
+                            corridorAlong(path, crossing, stop, corridorHalfWidth), budget);
+                    if (bypass == null) {
+                        System.err.println("Warning: Drone " + droneId + " segment " + s +
+                                " crosses the new restricted area and could not be rerouted");
+                        continue;
+                    }
+
+                    List<PositionDto> repairedPath = new ArrayList<>(path.subList(0, crossing));
+                    repairedPath.addAll(bypass);
+                    if (endsWithHover(path)) {
+                        PositionDto last = bypass.get(bypass.size() - 1);
+                        repairedPath.add(new PositionDto(last.getLng(), last.getLat()));
+                    }
+                    DeliveryPathResponse.Delivery repaired = new DeliveryPathResponse.Delivery();
+                    repaired.setDeliveryId(segment.getDeliveryId());
+                    repaired.setFlightPath(repairedPath);
+                    repairedSegments.set(s, repaired);
+                    if (firstRepairedSegment < 0) {
+                        firstRepairedSegment = s;
+                        firstAnchor = crossing;
+                    }
+                }
+                if (firstRepairedSegment < 0) {
+                    return false;
+                }
+
+                synchronized (this) {
+                    boolean passedAnchor = currentSegmentIndex > firstRepairedSegment
+                            || (currentSegmentIndex == firstRepairedSegment && currentPathPointIndex > firstAnchor);
+                    if (routeVersion == version && !passedAnchor) {
+                        allFlightSegments = repairedSegments;
+                        routeVersion++;
+                        System.out.println("Drone " + droneId + " rerouted around the new restricted area from segment " +
+                                firstRepairedSegment + ", point " + firstAnchor);
+                        return true;
+                    }
+                }
+            }
+            System.err.println("Warning: Drone " + droneId + " moved on while its route was repaired, keeping the old route");
+            return false;
+        }
+
+        /**
+         * Finds the first remaining move that touches the new area
+         * @return index of the point the move starts from, or -1 if every move is clear
+         */
+        private int firstCrossing(List<PositionDto> path, int from, RestrictedAreaIndex newAreaIndex) {
+            for (int m = Math.max(0, from); m < path.size() - 1; m++) {
+                if (!droneService.isMoveSafe(path.get(m), path.get(m + 1), newAreaIndex)) {
+                    return m;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Plans the replacement for the rest of a segment
+         * @return positions from the anchor to within one move of the stop, or null if the anchor or the stop
+         *         is inside the new area or no clear path was found
+         */
+        private List<PositionDto> planBypass(PositionDto anchor, PositionDto stop, RestrictedAreaIndex newAreaIndex,
+                                             RestrictedAreaIndex allAreaIndex, RouteCorridor corridor,
+                                             SearchBudget budget) {
+            if (!droneService.isMoveSafe(anchor, anchor, newAreaIndex) || !droneService.isMoveSafe(stop, stop, newAreaIndex)) {
+                return null;
+            }
+            List<PositionDto> bypass = droneService.planDetour(anchor, stop, allAreaIndex, corridor, budget);
+            if (bypass == null || bypass.isEmpty()) {
+                return null;
+            }
+            PositionDto last = bypass.get(bypass.size() - 1);
+            return ilpService.euclideanDistance(last.getLng(), last.getLat(), stop.getLng(), stop.getLat()) < MoveLattice.STEP
+                    ? bypass : null;
+        }
+
+        /**
+         * Builds the corridor a detour is searched in: around the part of the segment still to fly from the anchor,
+         * which already avoids the older areas, thinned to every few points
+         */
+        private RouteCorridor corridorAlong(List<PositionDto> path, int anchor, PositionDto stop, double halfWidth) {
+            int last = path.size() - 1;
+            double[] route = new double[2 * ((last - anchor) / REPAIR_CORRIDOR_STRIDE + 3)];
+            int length = 0;
+            for (int i = anchor; i < last; i += REPAIR_CORRIDOR_STRIDE) {
+                route[length++] = path.get(i).getLng();
+                route[length++] = path.get(i).getLat();
+            }
+            route[length++] = path.get(last).getLng();
+            route[length++] = path.get(last).getLat();
+            route[length++] = stop.getLng();
+            route[length++] = stop.getLat();
+            return new RouteCorridor(Arrays.copyOf(route, length), halfWidth);
+        }
+
+        /**
+         * Gets the stop a segment flies to: where the next segment starts, or the end of the last segment
+         */
+        private PositionDto stopOf(List<DeliveryPathResponse.Delivery> segments, int segment) {
+            if (segment + 1 < segments.size()) {
+                List<PositionDto> next = segments.get(segment + 1).getFlightPath();
+                if (next != null && !next.isEmpty()) {
+                    return next.get(0);
+                }
+            }
+            List<PositionDto> path = segments.get(segment).getFlightPath();
+            return path.get(path.size() - 1);
+        }
+
+        private boolean endsWithHover(List<PositionDto> path) {
+            PositionDto last = path.get(path.size() - 1);
+            PositionDto beforeLast = path.get(path.size() - 2);
+            return last.getLng().equals(beforeLast.getLng()) && last.getLat().equals(beforeLast.getLat());
+        }
+
+        /**
+         * Collects the positions still to fly, starting with the current position
+         */
+        public synchronized List<PositionDto> getRemainingFlightPath() {
+            List<PositionDto> remaining = new ArrayList<>();
+            for (int s = currentSegmentIndex; s < allFlightSegments.size(); s++) {
+                List<PositionDto> path = allFlightSegments.get(s).getFlightPath();
+                if (path != null && !path.isEmpty()) {
+                    remaining.addAll(s == currentSegmentIndex
+                            ? path.subList(Math.min(currentPathPointIndex, path.size() - 1), path.size())
+                            : path);
+                }
+            }
+            return remaining;
+        }
+
         /**
          * Get current flight segment being processed
          */
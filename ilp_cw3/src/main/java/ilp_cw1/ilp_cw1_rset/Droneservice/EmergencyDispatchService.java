@@ -11,6 +11,7 @@ public class EmergencyDispatchService {
 
     private final droneService droneService;
     private final DynamicDispatchService dynamicDispatchService;
+    private volatile RestrictedAreaIndex restrictedAreaIndex;
 
     public EmergencyDispatchService(droneService droneService, DynamicDispatchService dynamicDispatchService) {
         this.droneService = droneService;
@@ -435,16 +436,17 @@ public class EmergencyDispatchService {
         List<PositionDto> path = new ArrayList<>();
         path.add(start);
 
-        double distance = calculateDistance(start, end);
+        GeoPoint from = GeoPoint.of(start);
+        GeoPoint to = GeoPoint.of(end);
+        double distance = from.distanceTo(to);
         int steps = Math.max(2, (int) Math.ceil(distance / 0.00015));
 
         for (int i = 1; i <= steps; i++) {
             double ratio = (double) i / steps;
-            PositionDto point = new PositionDto(
-                    start.getLng() + (end.getLng() - start.getLng()) * ratio,
-                    start.getLat() + (end.getLat() - start.getLat()) * ratio
-            );
-            path.add(point);
+            path.add(new PositionDto(
+                    from.lng() + (to.lng() - from.lng()) * ratio,
+                    from.lat() + (to.lat() - from.lat()) * ratio
+            ));
         }
 
         path.add(end);
@@ -465,17 +467,17 @@ public class EmergencyDispatchService {
      * Calculate distance between two points (simplified version)
      */
     public double calculateDistance(PositionDto p1, PositionDto p2) {
-        double dx = p1.getLng() - p2.getLng();
-        double dy = p1.getLat() - p2.getLat();
-        return Math.sqrt(dx * dx + dy * dy);
+        return ilpService.euclideanDistance(p1.getLng(), p1.getLat(), p2.getLng(), p2.getLat());
     }
 
     /**
-     * Get name of blocking restricted area
+     * Get name of blocking restricted area (only areas near the direct line are tested)
      */
     public String getBlockingRestrictedAreaName(PositionDto start, PositionDto end,
                                                 List<RestrictedArea> restrictedAreas) {
-        for (RestrictedArea area : restrictedAreas) {
+        RestrictedAreaIndex index = RestrictedAreaIndex.reuseOrBuild(restrictedAreaIndex, restrictedAreas);
+        restrictedAreaIndex = index;
+        for (RestrictedArea area : index.candidates(start, end)) {
             if (droneService.doesLineIntersectPolygon(start, end, area.getVertices())) {
                 return area.getName() != null ? area.getName() : "Unknown restricted area";
             }
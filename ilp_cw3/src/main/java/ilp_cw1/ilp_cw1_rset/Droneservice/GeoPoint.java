@@ -0,0 +1,38 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+
+/**
+ * Immutable position with primitive coordinates, used inside the services in place of {@link PositionDto},
+ * which boxes both coordinates and is kept for the JSON boundary.
+ * @param lng longitude in degrees
+ * @param lat latitude in degrees
+ */
+public record GeoPoint(double lng, double lat) {
+
+    /**
+     * Converts a position from the JSON boundary
+     * @param position position with both coordinates set
+     * @return the point with the same coordinates
+     */
+    public static GeoPoint of(PositionDto position) {
+        return new GeoPoint(position.getLng(), position.getLat());
+    }
+
+    /**
+     * Converts the point for the JSON boundary
+     * @return a new position with the same coordinates
+     */
+    public PositionDto toDto() {
+        return new PositionDto(lng, lat);
+    }
+
+    /**
+     * Calculates the Euclidean distance to another point, as {@link ilpService#euclideanDistance} does
+     * @param other the other point
+     * @return the distance in degrees
+     */
+    public double distanceTo(GeoPoint other) {
+        return ilpService.euclideanDistance(lng, lat, other.lng, other.lat);
+    }
+}
@@ -0,0 +1,328 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import java.math.BigDecimal;
+
+/**
+ * Double-precision evaluation of the decimal geometry ilpService is defined by.
+ * The service treats every coordinate as the decimal {@link BigDecimal#valueOf(double)} gives, the shortest
+ * decimal that rounds back to the double, and rounds a move back to double only once at the end. This class
+ * reproduces those results without BigDecimal arithmetic, in the adaptive style of robust geometric predicates:
+ * a fast evaluation in doubles comes with an error bound, and only when the bound cannot decide the answer is
+ * the next, more exact stage run. The final stage is the original BigDecimal expression, so every result is
+ * bit-identical to it.
+ *
+ * The decimal of a double is found from its digits: a * 10^k is split into an exact double-double with a fused
+ * multiply-add, which gives the nearest k-digit decimal and its distance from a exactly enough to tell whether
+ * it rounds back to a. The smallest such k is the shortest decimal.
+ */
+public final class GeometryKernel {
+
+    /** Powers of ten that are exact doubles */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Powers of ten that fit in a long */
+    private static final long[] LONG_POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    /** Digits a decimal mantissa may have, below 2^57 so mantissa and scale pack into one long */
+    private static final double MANTISSA_LIMIT = 0x1p57;
+
+    /** Doubles below this have no digits left of the decimal point that could be dropped */
+    private static final double INTEGER_LIMIT = 0x1p53;
+
+    /** log10(2), for estimating digit counts from binary exponents */
+    private static final double LOG10_2 = 0.30102999566398120;
+
+    /** Bits of a packed decimal that hold the scale */
+    private static final int SCALE_BITS = 5;
+
+    /** Scaled mantissas stay below this, so their differences fit in a long */
+    private static final long SCALED_LIMIT = 1L << 62;
+
+    /** Marks a decimal the double evaluation could not decide */
+    private static final long UNDECIDED = -1;
+
+    /** Marks a number of digits too small to round back to the double */
+    private static final long TOO_SHORT = -2;
+
+    /** Smallest result the rounding test handles; below it gaps between doubles stop being uniform */
+    private static final double MIN_RESULT = 0x1p-900;
+
+    /** Length of a move as ilpService defines it, and its double-double split */
+    private static final BigDecimal MOVE_DISTANCE = new BigDecimal("0.00015");
+    private static final double MOVE_HI = MOVE_DISTANCE.doubleValue();
+    private static final double MOVE_LO = MOVE_DISTANCE.subtract(new BigDecimal(MOVE_HI)).doubleValue();
+
+    private GeometryKernel() {
+    }
+
+    /**
+     * Gets the difference between the decimal value ilpService gives a double and the double itself
+     * @param value a double
+     * @return BigDecimal.valueOf(value) - value to about 2^-50 relative accuracy,
+     *         or NaN if it could not be decided in doubles
+     */
+    public static double decimalError(double value) {
+        if (value == 0) {
+            return 0.0;
+        }
+        double magnitude = Math.abs(value);
+        long decimal = shortestDecimal(magnitude);
+        if (decimal < 0) {
+            return Double.NaN;
+        }
+        long mantissa = decimal >>> SCALE_BITS;
+        double scale = POW10[(int) (decimal & ((1 << SCALE_BITS) - 1))];
+        double high = magnitude * scale;
+        double low = Math.fma(magnitude, scale, -high);
+        double nearest = Math.rint(high);
+        // mantissa - magnitude * scale; both parts are exact, the sum rounds once
+        double residual = (double) (mantissa - (long) nearest) + (nearest - high) - low;
+        return value < 0 ? -residual / scale : residual / scale;
+    }
+
+    /**
+     * Moves a coordinate by a decimal delta as ilpService does: the decimal of the start plus the delta,
+     * rounded once to double
+     * @param start start coordinate
+     * @param startError {@link #decimalError} of the start, NaN if unknown
+     * @param deltaHi the delta rounded to double
+     * @param deltaLo the rest of the delta, to about 2^-100 of the delta
+     * @return the moved coordinate, or NaN if the double evaluation could not decide its rounding
+     */
+    public static double addDecimal(double start, double startError, double deltaHi, double deltaLo) {
+        double slack = 0.0;
+        if (Double.isNaN(startError)) {
+            // The decimal is within half a gap of the double
+            startError = 0.0;
+            slack = 0.5 * Math.ulp(start);
+        }
+        return roundSum(start, startError, deltaHi, deltaLo, slack);
+    }
+
+    /**
+     * Moves a coordinate one step along a unit component, exactly as {@link ilpService#movementCalculate}
+     * @param start start coordinate
+     * @param unit cosine or sine of the move angle
+     * @return BigDecimal.valueOf(start) + 0.00015 * BigDecimal.valueOf(unit), rounded to double
+     */
+    public static double moveCoordinate(double start, double unit) {
+        if (Double.isFinite(start) && Double.isFinite(unit)) {
+            double slack = 0.0;
+            double unitError = decimalError(unit);
+            if (Double.isNaN(unitError)) {
+                unitError = 0.0;
+                slack = MOVE_HI * Math.ulp(unit);
+            }
+            // Delta as a double-double; the dropped MOVE_LO * unitError is below the error bound
+            double deltaHi = MOVE_HI * unit;
+            double deltaLo = Math.fma(MOVE_HI, unit, -deltaHi) + MOVE_HI * unitError + MOVE_LO * unit;
+
+            double startError = decimalError(start);
+            if (Double.isNaN(startError)) {
+                startError = 0.0;
+                slack += 0.5 * Math.ulp(start);
+            }
+            double next = roundSum(start, startError, deltaHi, deltaLo, slack);
+            if (!Double.isNaN(next)) {
+                return next;
+            }
+        }
+        return BigDecimal.valueOf(start).add(MOVE_DISTANCE.multiply(BigDecimal.valueOf(unit))).doubleValue();
+    }
+
+    /**
+     * Checks whether the cross product of p - a and b - a is exactly zero over the decimal values of the coordinates.
+     * The decimals are scaled to integers with a common scale per axis, and the two products are compared in
+     * 128-bit integer arithmetic.
+     * @return true if p, a and b are collinear in decimal arithmetic
+     */
+    public static boolean isDecimalCrossZero(double pLng, double pLat, double aLng, double aLat,
+                                             double bLng, double bLat) {
+        long pX = decimalOf(pLng);
+        long pY = decimalOf(pLat);
+        long aX = decimalOf(aLng);
+        long aY = decimalOf(aLat);
+        long bX = decimalOf(bLng);
+        long bY = decimalOf(bLat);
+        if (pX < 0 || pY < 0 || aX < 0 || aY < 0 || bX < 0 || bY < 0) {
+            return referenceCrossZero(pLng, pLat, aLng, aLat, bLng, bLat);
+        }
+
+        int scaleX = Math.max(scaleOf(pX), Math.max(scaleOf(aX), scaleOf(bX)));
+        int scaleY = Math.max(scaleOf(pY), Math.max(scaleOf(aY), scaleOf(bY)));
+        long px = scaled(pLng, pX, scaleX);
+        long ax = scaled(aLng, aX, scaleX);
+        long bx = scaled(bLng, bX, scaleX);
+        long py = scaled(pLat, pY, scaleY);
+        long ay = scaled(aLat, aY, scaleY);
+        long by = scaled(bLat, bY, scaleY);
+        if (px == Long.MIN_VALUE || ax == Long.MIN_VALUE || bx == Long.MIN_VALUE
+                || py == Long.MIN_VALUE || ay == Long.MIN_VALUE || by == Long.MIN_VALUE) {
+            return referenceCrossZero(pLng, pLat, aLng, aLat, bLng, bLat);
+        }
+
+        long dx1 = px - ax;
+        long dy1 = py - ay;
+        long dx2 = bx - ax;
+        long dy2 = by - ay;
+        return Math.multiplyHigh(dx1, dy2) == Math.multiplyHigh(dx2, dy1) && dx1 * dy2 == dx2 * dy1;
+    }
+
+    /**
+     * Rounds start + startError + deltaHi + deltaLo to double when the double-double sum decides it
+     * @param slack additional uncertainty of the exact sum
+     * @return the correctly rounded sum, or NaN if it is too close to halfway between two doubles
+     */
+    private static double roundSum(double start, double startError, double deltaHi, double deltaLo, double slack) {
+        // Two-sum of the leading terms is exact, the small terms are collected in the tail
+        double sum = start + deltaHi;
+        double virtual = sum - start;
+        double tail = (start - (sum - virtual)) + (deltaHi - virtual);
+        double low = tail + startError + deltaLo;
+
+        double high = sum + low;
+        virtual = high - sum;
+        double rest = (sum - (high - virtual)) + (low - virtual);
+
+        if (!(Math.abs(high) >= MIN_RESULT) || Double.isInfinite(high)) {
+            return Double.NaN;
+        }
+        double error = slack
+                + 0x1p-45 * (Math.abs(tail) + Math.abs(startError) + Math.abs(deltaLo))
+                + 0x1p-90 * Math.abs(deltaHi);
+        double halfUp = 0.5 * (Math.nextUp(high) - high);
+        double halfDown = 0.5 * (high - Math.nextDown(high));
+        if (rest < halfUp - error && rest > error - halfDown) {
+            return high;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Finds the decimal of a double as a mantissa and scale
+     * @return the packed decimal of |value|, 0 for zero, or a negative value if it could not be decided
+     */
+    private static long decimalOf(double value) {
+        return value == 0 ? 0 : shortestDecimal(Math.abs(value));
+    }
+
+    private static int scaleOf(long decimal) {
+        return (int) (decimal & ((1 << SCALE_BITS) - 1));
+    }
+
+    /**
+     * Scales a decimal to an integer count of 10^-scale units
+     * @return the signed count, or Long.MIN_VALUE if it does not fit
+     */
+    private static long scaled(double value, long decimal, int scale) {
+        int shift = scale - scaleOf(decimal);
+        long mantissa = decimal >>> SCALE_BITS;
+        if (shift >= LONG_POW10.length || mantissa >= SCALED_LIMIT / LONG_POW10[shift]) {
+            return Long.MIN_VALUE;
+        }
+        long count = mantissa * LONG_POW10[shift];
+        return value < 0 ? -count : count;
+    }
+
+    /**
+     * Finds the shortest decimal of at least two digits that rounds to a positive double, choosing the
+     * nearest one, as {@link Double#toString(double)} does.
+     * A k-digit decimal rounding to the double implies every longer one nearest to it does too, so the number
+     * of fractional digits is searched downwards from the most the mantissa allows. Coordinates produced by
+     * moves nearly always need all their digits, so the longest two are tried before bisecting the rest.
+     * @param magnitude a positive double
+     * @return mantissa << SCALE_BITS | fractional digits, or UNDECIDED
+     */
+    private static long shortestDecimal(double magnitude) {
+        // From 2^53 on the shortest decimal can need fewer digits than the integer part, which is not searched
+        if (!(magnitude < INTEGER_LIMIT) || magnitude < MIN_RESULT) {
+            return UNDECIDED;
+        }
+        // Largest digit count keeping magnitude * 10^high below 2^57; the estimate is at most one too small
+        int high = Math.min(POW10.length - 1, (int) ((56 - Math.getExponent(magnitude)) * LOG10_2));
+        if (high < 0) {
+            return UNDECIDED;
+        }
+        if (high < POW10.length - 1 && magnitude * POW10[high + 1] < MANTISSA_LIMIT) {
+            high++;
+        }
+        long mantissa = nearestDecimal(magnitude, high);
+        if (mantissa < 0) {
+            return UNDECIDED;
+        }
+        int low = 0;
+        for (int tries = 0; tries < 2 && low < high; tries++) {
+            long candidate = nearestDecimal(magnitude, high - 1);
+            if (candidate == UNDECIDED) {
+                return UNDECIDED;
+            }
+            if (candidate < 0) {
+                low = high;
+            } else {
+                high--;
+                mantissa = candidate;
+            }
+        }
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long candidate = nearestDecimal(magnitude, middle);
+            if (candidate == UNDECIDED) {
+                return UNDECIDED;
+            }
+            if (candidate >= 0) {
+                high = middle;
+                mantissa = candidate;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return mantissa << SCALE_BITS | high;
+    }
+
+    /**
+     * Finds the decimal with the given number of fractional digits nearest to a positive double
+     * @return its mantissa if it has at least two digits and rounds back to the double, TOO_SHORT if it
+     *         does not, or UNDECIDED if the double evaluation is too close to a tie
+     */
+    private static long nearestDecimal(double magnitude, int digits) {
+        double scale = POW10[digits];
+        double high = magnitude * scale;
+        double low = Math.fma(magnitude, scale, -high);
+        double nearest = Math.rint(high);
+        // magnitude * scale - nearest; the difference of high and its rounding is exact
+        double fraction = (high - nearest) + low;
+        // Above 2^53 the low part can exceed one unit
+        double carry = Math.rint(fraction);
+        long mantissa = (long) nearest + (long) carry;
+        fraction -= carry;
+        if (Math.abs(Math.abs(fraction) - 0.5) <= 0x1p-40) {
+            // Halfway between two decimals; only matters if either could round back to the double
+            return 0.5 * Math.ulp(magnitude) * scale < 0.25 ? TOO_SHORT : UNDECIDED;
+        }
+
+        // The decimal rounds back if it is closer than half the gap to the neighbouring double on its side
+        double gap = fraction > 0 ? magnitude - Math.nextDown(magnitude) : Math.ulp(magnitude);
+        double bound = 0.5 * gap * scale;
+        double distance = Math.abs(fraction);
+        if (Math.abs(distance - bound) <= 0x1p-40 * bound + 4 * Math.ulp(distance)) {
+            return UNDECIDED;
+        }
+        return distance < bound && mantissa >= 10 ? mantissa : TOO_SHORT;
+    }
+
+    private static boolean referenceCrossZero(double pLng, double pLat, double aLng, double aLat,
+                                              double bLng, double bLat) {
+        BigDecimal dx1 = BigDecimal.valueOf(pLng).subtract(BigDecimal.valueOf(aLng));
+        BigDecimal dy1 = BigDecimal.valueOf(pLat).subtract(BigDecimal.valueOf(aLat));
+        BigDecimal dx2 = BigDecimal.valueOf(bLng).subtract(BigDecimal.valueOf(aLng));
+        BigDecimal dy2 = BigDecimal.valueOf(bLat).subtract(BigDecimal.valueOf(aLat));
+        return dx1.multiply(dy2).subtract(dx2.multiply(dy1)).compareTo(BigDecimal.ZERO) == 0;
+    }
+}
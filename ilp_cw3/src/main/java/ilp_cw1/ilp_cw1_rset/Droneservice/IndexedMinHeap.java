@@ -0,0 +1,178 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap of integer node ids ordered by a double priority.
+ * Entries are kept in parallel primitive arrays and every node id appears at most once,
+ * so an improved priority is applied with decrease-key instead of inserting a duplicate entry.
+ */
+public class IndexedMinHeap {
+
+    private int[] heapIds;
+    private double[] heapKeys;
+    /** Heap slot of each node id, or -1 if the node is not queued */
+    private int[] slotOf;
+    private int size;
+
+    /**
+     * Creates a heap with a default initial capacity
+     */
+    public IndexedMinHeap() {
+        this(256);
+    }
+
+    /**
+     * Creates a heap sized for the given number of node ids
+     * @param initialCapacity expected number of node ids
+     */
+    public IndexedMinHeap(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        heapIds = new int[capacity];
+        heapKeys = new double[capacity];
+        slotOf = new int[capacity];
+        Arrays.fill(slotOf, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a node id is currently queued
+     * @param id node id
+     * @return true if the node is in the heap
+     */
+    public boolean contains(int id) {
+        return id < slotOf.length && slotOf[id] >= 0;
+    }
+
+    /**
+     * Inserts a node, or lowers its priority if it is already queued with a higher one
+     * @param id node id (non-negative)
+     * @param key priority, lower values are polled first
+     * @return true if the heap changed
+     */
+    public boolean insertOrDecrease(int id, double key) {
+        ensureIdCapacity(id);
+        int slot = slotOf[id];
+        if (slot >= 0) {
+            if (key >= heapKeys[slot]) {
+                return false;
+            }
+            heapKeys[slot] = key;
+            siftUp(slot);
+            return true;
+        }
+        ensureHeapCapacity(size + 1);
+        heapIds[size] = id;
+        heapKeys[size] = key;
+        slotOf[id] = size;
+        siftUp(size);
+        size++;
+        return true;
+    }
+
+    /**
+     * Returns the priority of the node at the top of the heap
+     * @return smallest queued priority
+     */
+    public double peekKey() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        return heapKeys[0];
+    }
+
+    /**
+     * Removes and returns the node with the smallest priority
+     * @return node id
+     */
+    public int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        int top = heapIds[0];
+        slotOf[top] = -1;
+        size--;
+        if (size > 0) {
+            heapIds[0] = heapIds[size];
+            heapKeys[0] = heapKeys[size];
+            slotOf[heapIds[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Empties the heap so it can be reused for another search
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            slotOf[heapIds[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int id = heapIds[slot];
+        double key = heapKeys[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (heapKeys[parent] <= key) {
+                break;
+            }
+            heapIds[slot] = heapIds[parent];
+            heapKeys[slot] = heapKeys[parent];
+            slotOf[heapIds[slot]] = slot;
+            slot = parent;
+        }
+        heapIds[slot] = id;
+        heapKeys[slot] = key;
+        slotOf[id] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int id = heapIds[slot];
+        double key = heapKeys[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && heapKeys[right] < heapKeys[child]) {
+                child = right;
+            }
+            if (key <= heapKeys[child]) {
+                break;
+            }
+            heapIds[slot] = heapIds[child];
+            heapKeys[slot] = heapKeys[child];
+            slotOf[heapIds[slot]] = slot;
+            slot = child;
+        }
+        heapIds[slot] = id;
+        heapKeys[slot] = key;
+        slotOf[id] = slot;
+    }
+
+    private void ensureHeapCapacity(int required) {
+        if (required > heapIds.length) {
+            int capacity = Math.max(required, heapIds.length * 2);
+            heapIds = Arrays.copyOf(heapIds, capacity);
+            heapKeys = Arrays.copyOf(heapKeys, capacity);
+        }
+    }
+
+    private void ensureIdCapacity(int id) {
+        if (id >= slotOf.length) {
+            int oldLength = slotOf.length;
+            slotOf = Arrays.copyOf(slotOf, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(slotOf, oldLength, slotOf.length, -1);
+        }
+    }
+}
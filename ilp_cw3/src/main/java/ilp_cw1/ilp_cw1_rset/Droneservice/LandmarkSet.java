@@ -0,0 +1,158 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Landmark (ALT) lower bounds on the moves between two positions.
+ * Each landmark holds the move counts of a {@link RouteTable} flood, so they already account for the
+ * restricted areas. By the triangle inequality, the moves from a position to a goal are at least the
+ * difference of their move counts from any landmark, which is far tighter than the straight-line distance
+ * behind a wall. Landmarks are placed at the corners of the box around all closed restricted areas, where
+ * they see every area from outside, and at the service points.
+ * Only the {@link MoveCountGrid} of each flood is kept, 2 bytes per cell, and the floods have their own
+ * cell limit, well below that of the service point tables.
+ *
+ * A position is looked up by its half-move cell, and {@link #SLACK_MOVES} covers the error of the counts
+ * at both ends of the bound plus the final move. The cell part is exact: a position is less than one move
+ * from the node of its cell. The flood part is measured, not bounded: the flood keeps one node per cell,
+ * and although its counts stay within about two moves of the lattice distance in the open, a cell behind
+ * a wall corner can be further off. The heuristic is therefore not guaranteed admissible, and a search
+ * using it can in rare cases return a leg a move or two longer than the shortest one.
+ * A set is built for one restricted area set, identified by its fingerprint, and is immutable.
+ */
+public class LandmarkSet {
+
+    /** Moves between a position and the node of its cell, which are less than one move apart */
+    private static final int CELL_ERROR_MOVES = 1;
+
+    /** Moves a flood count can exceed the lattice distance by in the open, as measured on route tables */
+    private static final int FLOOD_ERROR_MOVES = 2;
+
+    /** Moves subtracted from every landmark bound: the count errors at both ends and the final move of a leg */
+    public static final int SLACK_MOVES = 2 * (CELL_ERROR_MOVES + FLOOD_ERROR_MOVES) + 1;
+
+    /** Distance of the corner landmarks from the box around the areas, in moves */
+    private static final int MARGIN_MOVES = 10;
+
+    private static final double STEP = MoveLattice.STEP;
+
+    private final long fingerprint;
+    private final MoveCountGrid[] grids;
+
+    private LandmarkSet(long fingerprint, MoveCountGrid[] grids) {
+        this.fingerprint = fingerprint;
+        this.grids = grids;
+    }
+
+    /**
+     * Floods the lattice from the landmarks of an area set
+     * @param areaIndex index over the restricted areas
+     * @param servicePoints service points to use as further landmarks
+     * @param moveCheck safety check for a single move against these areas
+     * @param maxLandmarks largest number of landmarks
+     * @param maxCells largest number of nodes in one landmark table
+     * @return the landmark set; empty when there are no closed areas
+     */
+    public static LandmarkSet build(RestrictedAreaIndex areaIndex, List<PositionDto> servicePoints,
+                                    BidirectionalLatticeSearch.MoveCheck moveCheck, int maxLandmarks, int maxCells) {
+        List<PreparedPolygon> polygons = areaIndex.closedPolygons();
+        if (polygons.isEmpty() || maxLandmarks <= 0) {
+            return new LandmarkSet(areaIndex.fingerprint(), new MoveCountGrid[0]);
+        }
+
+        double minLng = Double.POSITIVE_INFINITY;
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLng = Double.NEGATIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        for (PreparedPolygon polygon : polygons) {
+            minLng = Math.min(minLng, polygon.getMinLng());
+            minLat = Math.min(minLat, polygon.getMinLat());
+            maxLng = Math.max(maxLng, polygon.getMaxLng());
+            maxLat = Math.max(maxLat, polygon.getMaxLat());
+        }
+        double margin = MARGIN_MOVES * STEP;
+        minLng -= margin;
+        minLat -= margin;
+        maxLng += margin;
+        maxLat += margin;
+
+        List<PositionDto> landmarks = new ArrayList<>();
+        landmarks.add(new PositionDto(minLng, minLat));
+        landmarks.add(new PositionDto(maxLng, maxLat));
+        landmarks.add(new PositionDto(minLng, maxLat));
+        landmarks.add(new PositionDto(maxLng, minLat));
+        landmarks.addAll(servicePoints);
+
+        // Detours around the areas make the farthest corner further than the diagonal
+        int radiusMoves = (int) Math.ceil(1.5 * ilpService.euclideanDistance(minLng, minLat, maxLng, maxLat) / STEP)
+                + 2 * MARGIN_MOVES;
+        radiusMoves = Math.min(radiusMoves, MoveCountGrid.MAX_MOVES);
+        int count = Math.min(maxLandmarks, landmarks.size());
+        MoveCountGrid[] grids = new MoveCountGrid[count];
+        for (int i = 0; i < count; i++) {
+            // The links of the flood are dropped with the table
+            grids[i] = RouteTable.build(landmarks.get(i), moveCheck, radiusMoves, maxCells).getMoveCounts();
+        }
+        return new LandmarkSet(areaIndex.fingerprint(), grids);
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Gets the number of landmarks
+     * @return landmark count
+     */
+    public int size() {
+        return grids.length;
+    }
+
+    /**
+     * Prepares the lower bounds towards one goal
+     * @param goalLng goal longitude
+     * @param goalLat goal latitude
+     * @return the bound towards the goal
+     */
+    public Target towards(double goalLng, double goalLat) {
+        int[] goalMoves = new int[grids.length];
+        for (int i = 0; i < grids.length; i++) {
+            goalMoves[i] = grids[i].movesAt(goalLng, goalLat);
+        }
+        return new Target(goalMoves);
+    }
+
+    /**
+     * Lower bounds towards a fixed goal
+     */
+    public final class Target {
+        private final int[] goalMoves;
+
+        private Target(int[] goalMoves) {
+            this.goalMoves = goalMoves;
+        }
+
+        /**
+         * Gets a lower bound on the distance still to fly from a position to the goal
+         * @param lng longitude
+         * @param lat latitude
+         * @return lower bound in degrees; 0 when no landmark covers both positions
+         */
+        public double lowerBound(double lng, double lat) {
+            int best = 0;
+            for (int i = 0; i < grids.length; i++) {
+                if (goalMoves[i] < 0) {
+                    continue;
+                }
+                int moves = grids[i].movesAt(lng, lat);
+                if (moves >= 0) {
+                    best = Math.max(best, Math.abs(goalMoves[i] - moves));
+                }
+            }
+            return Math.max(0, best - SLACK_MOVES) * STEP;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Node storage for a lattice A* search.
+ * Each node gets a dense integer id; its exact coordinates, g-score, parent and closed flag are kept
+ * in parallel primitive arrays, and packed lattice keys are mapped to ids with an open-addressing table.
+ * A slot of the table is occupied only if it carries the current generation stamp, so {@link #clear()}
+ * empties the table for the next search by moving to a new generation instead of overwriting it.
+ */
+public class LatticeNodeTable {
+
+    private double[] lng;
+    private double[] lat;
+    private double[] gScore;
+    private int[] parent;
+    private boolean[] closed;
+    private int count;
+
+    private long[] tableKeys;
+    private int[] tableIds;
+    private int[] tableStamps;
+    private int stamp = 1;
+    private int tableMask;
+
+    /**
+     * Creates a table with a default initial capacity
+     */
+    public LatticeNodeTable() {
+        this(256);
+    }
+
+    /**
+     * Creates a table sized for the given number of nodes
+     * @param initialCapacity expected number of nodes
+     */
+    public LatticeNodeTable(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        lng = new double[capacity];
+        lat = new double[capacity];
+        gScore = new double[capacity];
+        parent = new int[capacity];
+        closed = new boolean[capacity];
+
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        tableKeys = new long[tableSize];
+        tableIds = new int[tableSize];
+        tableStamps = new int[tableSize];
+        tableMask = tableSize - 1;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the number of nodes the table holds without growing
+     * @return node capacity
+     */
+    public int capacity() {
+        return lng.length;
+    }
+
+    /**
+     * Removes every node, keeping the allocated arrays for the next search
+     */
+    public void clear() {
+        count = 0;
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(tableStamps, 0);
+            stamp = 1;
+        }
+    }
+
+    /**
+     * Looks up the node id for a lattice key
+     * @param key packed lattice key
+     * @return node id, or -1 if no node has been created for the key
+     */
+    public int idOf(long key) {
+        int slot = mix(key) & tableMask;
+        while (true) {
+            if (tableStamps[slot] != stamp) {
+                return -1;
+            }
+            if (tableKeys[slot] == key) {
+                return tableIds[slot];
+            }
+            slot = (slot + 1) & tableMask;
+        }
+    }
+
+    /**
+     * Creates a node for a lattice key that does not have one yet
+     * @param key packed lattice key
+     * @param nodeLng exact longitude the node was reached at
+     * @param nodeLat exact latitude the node was reached at
+     * @param g cost from the start
+     * @param parentId id of the predecessor, or -1 for the start node
+     * @return the new node id
+     */
+    public int add(long key, double nodeLng, double nodeLat, double g, int parentId) {
+        ensureNodeCapacity(count + 1);
+        int id = count++;
+        lng[id] = nodeLng;
+        lat[id] = nodeLat;
+        gScore[id] = g;
+        parent[id] = parentId;
+        closed[id] = false;
+
+        if (count * 2 > tableKeys.length) {
+            rehash(tableKeys.length * 2);
+        }
+        insertKey(key, id);
+        return id;
+    }
+
+    /**
+     * Re-parents a node after a cheaper route to it was found.
+     * The coordinates are replaced as well, so the move from the new parent stays exact.
+     * @param id node id
+     * @param nodeLng exact longitude reached via the new parent
+     * @param nodeLat exact latitude reached via the new parent
+     * @param g new cost from the start
+     * @param parentId new predecessor id
+     */
+    public void update(int id, double nodeLng, double nodeLat, double g, int parentId) {
+        lng[id] = nodeLng;
+        lat[id] = nodeLat;
+        gScore[id] = g;
+        parent[id] = parentId;
+    }
+
+    public double lngOf(int id) {
+        return lng[id];
+    }
+
+    public double latOf(int id) {
+        return lat[id];
+    }
+
+    public double gScoreOf(int id) {
+        return gScore[id];
+    }
+
+    public int parentOf(int id) {
+        return parent[id];
+    }
+
+    public boolean isClosed(int id) {
+        return closed[id];
+    }
+
+    public void close(int id) {
+        closed[id] = true;
+    }
+
+    /**
+     * Marks an expanded node as open again, for searches that re-expand a node reached more cheaply
+     * @param id node id
+     */
+    public void reopen(int id) {
+        closed[id] = false;
+    }
+
+    /**
+     * Creates a position object for a node
+     * @param id node id
+     * @return the node position
+     */
+    public PositionDto positionOf(int id) {
+        return new PositionDto(lng[id], lat[id]);
+    }
+
+    /**
+     * Builds the path from the start node to the given node by following parent links
+     * @param endId id of the last node
+     * @return list of positions from start to end
+     */
+    public List<PositionDto> pathTo(int endId) {
+        int length = 0;
+        for (int id = endId; id >= 0; id = parent[id]) {
+            length++;
+        }
+        PositionDto[] points = new PositionDto[length];
+        int index = length;
+        for (int id = endId; id >= 0; id = parent[id]) {
+            points[--index] = positionOf(id);
+        }
+        return new ArrayList<>(Arrays.asList(points));
+    }
+
+    private void insertKey(long key, int id) {
+        int slot = mix(key) & tableMask;
+        while (tableStamps[slot] == stamp) {
+            slot = (slot + 1) & tableMask;
+        }
+        tableKeys[slot] = key;
+        tableIds[slot] = id;
+        tableStamps[slot] = stamp;
+    }
+
+    private void rehash(int newSize) {
+        long[] oldKeys = tableKeys;
+        int[] oldIds = tableIds;
+        int[] oldStamps = tableStamps;
+        tableKeys = new long[newSize];
+        tableIds = new int[newSize];
+        tableStamps = new int[newSize];
+        tableMask = newSize - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == stamp) {
+                insertKey(oldKeys[i], oldIds[i]);
+            }
+        }
+    }
+
+    private void ensureNodeCapacity(int required) {
+        if (required > lng.length) {
+            int capacity = Math.max(required, lng.length * 2);
+            lng = Arrays.copyOf(lng, capacity);
+            lat = Arrays.copyOf(lat, capacity);
+            gScore = Arrays.copyOf(gScore, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            closed = Arrays.copyOf(closed, capacity);
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,194 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded least-recently-used cache of planned flight legs.
+ * A leg is identified by its exact start and goal coordinates and a fingerprint of the restricted areas
+ * it was planned around, so a changed area set can never return a stale path. The searches do not depend on
+ * the drone, so one cached leg serves every drone model.
+ */
+public final class LegPathCache {
+
+    /** Default maximum number of cached legs */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<Key, PositionDto[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private int capacity;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a cache with the default capacity
+     */
+    public LegPathCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache holding at most the given number of legs
+     * @param capacity maximum number of legs, 0 disables caching
+     */
+    public LegPathCache(int capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * Builds the cache key of a leg
+     * @param areaFingerprint fingerprint of the restricted areas the leg avoids
+     * @param start leg start
+     * @param goal leg goal
+     * @return the key
+     */
+    public static Key key(long areaFingerprint, PositionDto start, PositionDto goal) {
+        return new Key(areaFingerprint, bits(start.getLng()), bits(start.getLat()),
+                bits(goal.getLng()), bits(goal.getLat()));
+    }
+
+    /**
+     * Looks up a leg
+     * @param key the leg key
+     * @return a fresh copy of the cached path, or null on a miss
+     */
+    public List<PositionDto> get(Key key) {
+        PositionDto[] path;
+        synchronized (lock) {
+            path = entries.get(key);
+        }
+        if (path == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copyOf(path);
+    }
+
+    /**
+     * Stores a planned leg, evicting the least recently used leg when full
+     * @param key the leg key
+     * @param path the planned path; it is copied
+     */
+    public void put(Key key, List<PositionDto> path) {
+        PositionDto[] stored = new PositionDto[path.size()];
+        for (int i = 0; i < stored.length; i++) {
+            stored[i] = new PositionDto(path.get(i).getLng(), path.get(i).getLat());
+        }
+        synchronized (lock) {
+            if (capacity == 0) {
+                return;
+            }
+            entries.put(key, stored);
+            trimToCapacity();
+        }
+    }
+
+    /**
+     * Removes every cached leg, used when the restricted areas change
+     */
+    public void invalidateAll() {
+        synchronized (lock) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Changes the maximum number of cached legs
+     * @param capacity maximum number of legs, 0 disables caching
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache capacity cannot be negative");
+        }
+        synchronized (lock) {
+            this.capacity = capacity;
+            trimToCapacity();
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private void trimToCapacity() {
+        while (entries.size() > capacity) {
+            Map.Entry<Key, PositionDto[]> eldest = entries.entrySet().iterator().next();
+            entries.remove(eldest.getKey());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static List<PositionDto> copyOf(PositionDto[] path) {
+        List<PositionDto> copy = new ArrayList<>(path.length);
+        for (PositionDto point : path) {
+            copy.add(new PositionDto(point.getLng(), point.getLat()));
+        }
+        return copy;
+    }
+
+    private static long bits(double value) {
+        // Adding zero turns -0.0 into 0.0 so both map to the same key
+        return Double.doubleToLongBits(value + 0.0);
+    }
+
+    /**
+     * Identity of a planned leg
+     */
+    public static final class Key {
+        private final long areaFingerprint;
+        private final long startLng;
+        private final long startLat;
+        private final long goalLng;
+        private final long goalLat;
+
+        private Key(long areaFingerprint, long startLng, long startLat, long goalLng, long goalLat) {
+            this.areaFingerprint = areaFingerprint;
+            this.startLng = startLng;
+            this.startLat = startLat;
+            this.goalLng = goalLng;
+            this.goalLat = goalLat;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return areaFingerprint == other.areaFingerprint
+                    && startLng == other.startLng && startLat == other.startLat
+                    && goalLng == other.goalLng && goalLat == other.goalLat;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = areaFingerprint;
+            h = h * 31 + startLng;
+            h = h * 31 + startLat;
+            h = h * 31 + goalLng;
+            h = h * 31 + goalLat;
+            return Long.hashCode(h * 0x9E3779B97F4A7C15L);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import java.util.Arrays;
+
+/**
+ * Move counts of a lattice flood, one per half-move cell of a dense square grid centred on the flood root.
+ * Counts are kept as shorts, 2 bytes per cell; -1 marks a cell the flood has not reached.
+ */
+public final class MoveCountGrid {
+
+    /** Side of a grid cell in degrees, half a move */
+    public static final double CELL = MoveLattice.STEP / 2;
+
+    /** Largest move count a grid can hold */
+    public static final int MAX_MOVES = Short.MAX_VALUE;
+
+    private final int originColumn;
+    private final int originRow;
+    private final int side;
+    private final short[] moves;
+
+    /**
+     * Creates an empty grid
+     * @param centreColumn cell column of the centre
+     * @param centreRow cell row of the centre
+     * @param halfSide cells on each side of the centre
+     */
+    MoveCountGrid(int centreColumn, int centreRow, int halfSide) {
+        this.originColumn = centreColumn - halfSide;
+        this.originRow = centreRow - halfSide;
+        this.side = 2 * halfSide + 1;
+        this.moves = new short[side * side];
+        Arrays.fill(moves, (short) -1);
+    }
+
+    /**
+     * Gets the move count recorded for the cell containing a position
+     * @param lng longitude
+     * @param lat latitude
+     * @return move count, or -1 if the flood did not reach the cell or it lies outside the grid
+     */
+    public int movesAt(double lng, double lat) {
+        int index = indexOf(columnOf(lng), rowOf(lat));
+        return index < 0 ? -1 : moves[index];
+    }
+
+    /**
+     * Gets the number of cells in the grid, reached or not
+     * @return cell count
+     */
+    public int size() {
+        return moves.length;
+    }
+
+    static int columnOf(double lng) {
+        return (int) Math.floor(lng / CELL);
+    }
+
+    static int rowOf(double lat) {
+        return (int) Math.floor(lat / CELL);
+    }
+
+    /**
+     * Gets the index of a cell
+     * @return index, or -1 if the cell lies outside the grid
+     */
+    int indexOf(int column, int row) {
+        int x = column - originColumn;
+        int y = row - originRow;
+        if (x < 0 || y < 0 || x >= side || y >= side) {
+            return -1;
+        }
+        return y * side + x;
+    }
+
+    int columnAt(int index) {
+        return originColumn + index % side;
+    }
+
+    int rowAt(int index) {
+        return originRow + index / side;
+    }
+
+    int movesAt(int index) {
+        return moves[index];
+    }
+
+    void setMoves(int index, int count) {
+        moves[index] = (short) count;
+    }
+}
@@ -0,0 +1,152 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+
+/**
+ * Integer coordinate system for the 16-direction move lattice used by A* search.
+ * Every position reachable from the search origin by 0.00015-degree compass moves is mapped to
+ * integer offsets from that origin and packed into a single primitive long key, so that the same
+ * lattice point reached through a different ordering of moves is recognised as the same node.
+ *
+ * The 16 step vectors are linearly independent over the integers, so the exact set of reachable
+ * points is dense: without snapping, a search pressed against a restricted area would keep finding
+ * "new" points a few micrometres apart. Offsets are therefore measured in units of 1/8 of a move.
+ * Nodes keep the exact coordinates they were reached with, so every emitted move is still a
+ * genuine 0.00015 step; only node identity uses the snapped offsets.
+ */
+public class MoveLattice {
+
+    /** Length of a single drone move in degrees */
+    public static final double STEP = 0.00015;
+
+    /** Size of one integer lattice unit in degrees */
+    public static final double QUANTUM = STEP / 8;
+
+    /** Half the angle between neighbouring move directions, 11.25 degrees, and the middle of the next sector */
+    private static final double SECTOR_COS = Math.cos(Math.toRadians(11.25));
+    private static final double SECTOR_SIN = Math.sin(Math.toRadians(11.25));
+    private static final double UPPER_SECTOR_COS = Math.cos(Math.toRadians(33.75));
+    private static final double UPPER_SECTOR_SIN = Math.sin(Math.toRadians(33.75));
+
+    /** Longest lattice distance the final move tolerance can cover: a gap shorter than one move in any direction */
+    public static final double GOAL_REACH = STEP / SECTOR_COS;
+
+    private final double originLng;
+    private final double originLat;
+
+    /**
+     * Creates a lattice anchored at the given origin
+     * @param origin the search origin, normally the service point or the leg start
+     */
+    public MoveLattice(PositionDto origin) {
+        this(origin.getLng(), origin.getLat());
+    }
+
+    /**
+     * Creates a lattice anchored at the given origin coordinates
+     * @param originLng origin longitude
+     * @param originLat origin latitude
+     */
+    public MoveLattice(double originLng, double originLat) {
+        this.originLng = originLng;
+        this.originLat = originLat;
+    }
+
+    /**
+     * Converts a position to its packed lattice key
+     * @param position the position to convert
+     * @return the packed key
+     */
+    public long keyOf(PositionDto position) {
+        return keyOf(position.getLng(), position.getLat());
+    }
+
+    /**
+     * Converts coordinates to their packed lattice key
+     * @param lng longitude
+     * @param lat latitude
+     * @return the packed key, upper 32 bits holding the longitude offset and lower 32 bits the latitude offset
+     */
+    public long keyOf(double lng, double lat) {
+        int x = (int) Math.round((lng - originLng) / QUANTUM);
+        int y = (int) Math.round((lat - originLat) / QUANTUM);
+        return pack(x, y);
+    }
+
+    /**
+     * Packs two integer lattice offsets into a key
+     * @param x longitude offset in lattice units
+     * @param y latitude offset in lattice units
+     * @return the packed key
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Extracts the longitude offset from a packed key
+     * @param key the packed key
+     * @return longitude offset in lattice units
+     */
+    public static int unpackX(long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * Extracts the latitude offset from a packed key
+     * @param key the packed key
+     * @return latitude offset in lattice units
+     */
+    public static int unpackY(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Gets the shortest total length of 16-direction moves covering a displacement, the counterpart of the
+     * octile distance on an 8-direction grid. A displacement is covered most cheaply by the two move directions
+     * either side of it, which costs its projection onto the middle of their sector divided by cos(11.25 degrees);
+     * the largest such projection over all sectors picks the right pair.
+     * @param dLng longitude displacement
+     * @param dLat latitude displacement
+     * @return lattice distance in degrees, at least the straight-line distance and at most 2% above it
+     */
+    public static double latticeDistance(double dLng, double dLat) {
+        double x = Math.abs(dLng);
+        double y = Math.abs(dLat);
+        if (y > x) {
+            double swap = x;
+            x = y;
+            y = swap;
+        }
+        // Folded into 0 to 45 degrees, which the sectors around 11.25 and 33.75 degrees cover
+        return Math.max(x * SECTOR_COS + y * SECTOR_SIN, x * UPPER_SECTOR_COS + y * UPPER_SECTOR_SIN) / SECTOR_COS;
+    }
+
+    /**
+     * Gets the ratio of the lattice distance to the straight-line distance in the direction of a displacement
+     * @param dLng longitude displacement
+     * @param dLat latitude displacement
+     * @return ratio between 1 and 1/cos(11.25 degrees), 1 for no displacement
+     */
+    public static double latticeFactor(double dLng, double dLat) {
+        double straight = Math.sqrt(dLng * dLng + dLat * dLat);
+        return straight == 0.0 ? 1.0 : latticeDistance(dLng, dLat) / straight;
+    }
+
+    /**
+     * Gets the fewest moves that end within one move of a goal at a lattice distance
+     * @param latticeDistance lattice distance from the start to the goal
+     * @return exact lower bound on the move count
+     */
+    public static int minimumMoves(double latticeDistance) {
+        return Math.max(0, (int) Math.ceil((latticeDistance - GOAL_REACH) / STEP - 1e-9));
+    }
+
+    public double getOriginLng() {
+        return originLng;
+    }
+
+    public double getOriginLat() {
+        return originLat;
+    }
+}
@@ -0,0 +1,120 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import java.math.BigDecimal;
+
+/**
+ * Precomputed table of the 16 compass moves a drone can make.
+ * The coordinate deltas are the exact BigDecimal products that {@link ilpService#movementCalculate}
+ * computes on every call, so applying them yields bit-identical positions without repeating the
+ * trigonometry, the delta multiplication or the request/response object allocation per move.
+ * The deltas are also kept as double-double pairs, so moves are added by {@link GeometryKernel} in doubles;
+ * BigDecimal is only used for the rare sums the kernel cannot round with certainty.
+ */
+public final class MoveStepTable {
+
+    /** Number of compass directions */
+    public static final int DIRECTIONS = 16;
+
+    /** Angle between two neighbouring directions in degrees */
+    public static final double ANGLE_STEP = 22.5;
+
+    private static final BigDecimal[] LNG_DELTAS = new BigDecimal[DIRECTIONS];
+    private static final BigDecimal[] LAT_DELTAS = new BigDecimal[DIRECTIONS];
+    private static final double[] LNG_STEPS = new double[DIRECTIONS];
+    private static final double[] LAT_STEPS = new double[DIRECTIONS];
+    private static final double[] LNG_DELTA_LOWS = new double[DIRECTIONS];
+    private static final double[] LAT_DELTA_LOWS = new double[DIRECTIONS];
+
+    static {
+        BigDecimal moveDistance = new BigDecimal("0.00015");
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            // Same operations as ilpService.movementCalculate, evaluated once
+            double radians = Math.toRadians(angleOf(direction));
+            LNG_DELTAS[direction] = moveDistance.multiply(BigDecimal.valueOf(Math.cos(radians)));
+            LAT_DELTAS[direction] = moveDistance.multiply(BigDecimal.valueOf(Math.sin(radians)));
+            LNG_STEPS[direction] = LNG_DELTAS[direction].doubleValue();
+            LAT_STEPS[direction] = LAT_DELTAS[direction].doubleValue();
+            LNG_DELTA_LOWS[direction] = LNG_DELTAS[direction].subtract(new BigDecimal(LNG_STEPS[direction])).doubleValue();
+            LAT_DELTA_LOWS[direction] = LAT_DELTAS[direction].subtract(new BigDecimal(LAT_STEPS[direction])).doubleValue();
+        }
+    }
+
+    private MoveStepTable() {
+    }
+
+    /**
+     * Gets the compass angle of a direction index
+     * @param direction direction index from 0 (east) counter-clockwise to 15
+     * @return angle in degrees
+     */
+    public static double angleOf(int direction) {
+        return direction * ANGLE_STEP;
+    }
+
+    /**
+     * Gets the approximate longitude change of one move, for estimates that do not need exact positions
+     * @param direction direction index
+     * @return longitude delta in degrees
+     */
+    public static double lngStep(int direction) {
+        return LNG_STEPS[direction];
+    }
+
+    /**
+     * Gets the approximate latitude change of one move, for estimates that do not need exact positions
+     * @param direction direction index
+     * @return latitude delta in degrees
+     */
+    public static double latStep(int direction) {
+        return LAT_STEPS[direction];
+    }
+
+    /**
+     * Writes the position one move away in a single direction into a caller-owned buffer
+     * @param lng start longitude
+     * @param lat start latitude
+     * @param direction direction index
+     * @param out buffer of at least 2 values; receives the longitude and latitude
+     */
+    public static void neighbour(double lng, double lat, int direction, double[] out) {
+        out[0] = move(lng, GeometryKernel.decimalError(lng), LNG_DELTAS[direction],
+                LNG_STEPS[direction], LNG_DELTA_LOWS[direction]);
+        out[1] = move(lat, GeometryKernel.decimalError(lat), LAT_DELTAS[direction],
+                LAT_STEPS[direction], LAT_DELTA_LOWS[direction]);
+    }
+
+    /**
+     * Gets the direction that undoes a move
+     * @param direction direction index
+     * @return the opposite direction index
+     */
+    public static int opposite(int direction) {
+        return (direction + DIRECTIONS / 2) % DIRECTIONS;
+    }
+
+    /**
+     * Writes the positions of all 16 neighbours of a point into a caller-owned buffer.
+     * The decimal error of the start coordinates is found once and shared by all directions.
+     * @param lng start longitude
+     * @param lat start latitude
+     * @param out buffer of at least 32 values; direction d is written to out[2d] (lng) and out[2d + 1] (lat)
+     */
+    public static void neighbours(double lng, double lat, double[] out) {
+        double lngError = GeometryKernel.decimalError(lng);
+        double latError = GeometryKernel.decimalError(lat);
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            out[2 * direction] = move(lng, lngError, LNG_DELTAS[direction],
+                    LNG_STEPS[direction], LNG_DELTA_LOWS[direction]);
+            out[2 * direction + 1] = move(lat, latError, LAT_DELTAS[direction],
+                    LAT_STEPS[direction], LAT_DELTA_LOWS[direction]);
+        }
+    }
+
+    /**
+     * Adds a delta to a coordinate in doubles, or in BigDecimal when the rounding is too close to call
+     */
+    private static double move(double start, double startError, BigDecimal delta, double deltaHi, double deltaLo) {
+        double next = GeometryKernel.addDecimal(start, startError, deltaHi, deltaLo);
+        return Double.isNaN(next) ? BigDecimal.valueOf(start).add(delta).doubleValue() : next;
+    }
+}
@@ -0,0 +1,410 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Hash-distributed variant of the 16-direction lattice search (HDA*) for legs long enough that one thread
+ * needs seconds to plan them.
+ * Every lattice node is owned by one worker, chosen by hashing the block of moves it lies in, and only its
+ * owner stores, queues and expands it. A worker sends each node it generates to the owner's inbox, a
+ * lock-free queue. The owner keeps the node if it is new or reached more cheaply than before. Workers do not
+ * expand in one global f order, so a node can be expanded before its best route reaches its owner; unlike the
+ * single-threaded search, such a node is reopened when a route at least half a move shorter arrives, which keeps
+ * the result as short as the single-threaded search's. Expanding it again improves its children by as much, so
+ * the stored positions below it are replaced too and stay exactly one move from their parents.
+ * A node found within one move of the goal becomes the
+ * incumbent, and workers go on expanding the nodes whose f is below the incumbent's, as the single-threaded
+ * search would before it polls the goal. The search ends when every worker is idle and no node is in flight
+ * between workers.
+ * The path is replayed from the start with the move directions of its nodes, so every move is exact and
+ * checked again.
+ */
+public class ParallelLatticeSearch {
+
+    private static final double STEP = MoveLattice.STEP;
+
+    /** Side of the square blocks of lattice quanta hashed to one worker: four moves, so most moves stay local */
+    private static final int BLOCK_QUANTA = 32;
+
+    /** Shortening that reopens an expanded node; less would only chase rounding between move orderings */
+    private static final double REOPEN_MARGIN = STEP / 2;
+
+    /** Pause of an idle worker between looks at its inbox */
+    private static final long IDLE_PARK_NANOS = 20_000;
+
+    private final BidirectionalLatticeSearch.MoveCheck moveCheck;
+    private final RouteCorridor corridor;
+    private final DoubleBinaryOperator heuristic;
+    private final SearchBudget budget;
+    private final ExecutorService executor;
+    private final int threads;
+
+    /**
+     * Creates a search
+     * @param moveCheck safety check for a single move
+     * @param corridor corridor the search is confined to, or null to search everywhere
+     * @param heuristic estimate of the remaining cost from a position, in the units of the move distances;
+     *                  a lower bound gives the shortest path, a larger estimate a greedier search
+     * @param budget time, expansion and node limit shared by all workers
+     * @param executor runs all workers but the first at the same time, which runs on the calling thread
+     * @param threads number of workers
+     */
+    public ParallelLatticeSearch(BidirectionalLatticeSearch.MoveCheck moveCheck, RouteCorridor corridor,
+                                 DoubleBinaryOperator heuristic, SearchBudget budget,
+                                 ExecutorService executor, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A parallel search needs at least one thread");
+        }
+        this.moveCheck = moveCheck;
+        this.corridor = corridor;
+        this.heuristic = heuristic;
+        this.budget = budget;
+        this.executor = executor;
+        this.threads = threads;
+    }
+
+    /**
+     * Searches for a path
+     * @param start starting position, outside every restricted area
+     * @param goal target position
+     * @return positions from the start to within one move of the goal; the best path found so far if the budget
+     *         or the node cap stopped the search, null if none was found
+     */
+    public List<PositionDto> search(PositionDto start, PositionDto goal) {
+        Run run = new Run(start, goal);
+        SearchBudget[] parts = budget.split(threads);
+        Worker[] workers = run.workers;
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i, run, parts[i]);
+        }
+        long startKey = run.lattice.keyOf(start);
+        workers[run.ownerOf(startKey)].receive(startKey, start.getLng(), start.getLat(), 0.0, -1, -1, -1);
+
+        List<Future<?>> futures = new ArrayList<>(threads - 1);
+        try {
+            for (int i = 1; i < threads; i++) {
+                futures.add(executor.submit(workers[i]));
+            }
+            // The first worker only returns once the search has stopped
+            workers[0].run();
+        } catch (RuntimeException e) {
+            run.failure = e;
+        } finally {
+            run.stop();
+            // Workers still queued never start; running ones see the stop and finish their current step
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+            // Parts are only read once their workers are done with them
+            awaitWorkers(workers);
+            for (int i = 0; i < threads; i++) {
+                budget.absorb(parts[i]);
+            }
+        }
+
+        if (run.failure != null) {
+            System.err.println("Warning: Parallel lattice search failed: " + run.failure.getMessage());
+            return null;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return null;
+        }
+        return run.solutionWorker < 0 ? null : run.replay(start, goal);
+    }
+
+    /**
+     * Waits until every worker of a stopped search has finished or is sure never to start
+     */
+    private static void awaitWorkers(Worker[] workers) {
+        boolean interrupted = false;
+        for (Worker worker : workers) {
+            if (worker == null || worker.started.compareAndSet(false, true)) {
+                continue;
+            }
+            while (true) {
+                try {
+                    worker.finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * State shared by the workers of one search
+     */
+    private final class Run {
+        private final MoveLattice lattice;
+        private final double goalLng;
+        private final double goalLat;
+        private final Worker[] workers = new Worker[threads];
+
+        /** Workers waiting for messages */
+        private final AtomicInteger idle = new AtomicInteger();
+        /** Messages sent but not yet handled by their owner */
+        private final AtomicLong inFlight = new AtomicLong();
+        private volatile boolean stopped;
+        /** First exception of a worker, which stopped the search */
+        private volatile RuntimeException failure;
+
+        // The incumbent: f of the best node found within one move of the goal, and where it is stored
+        private volatile double solutionF = Double.POSITIVE_INFINITY;
+        private int solutionWorker = -1;
+        private int solutionNode = -1;
+
+        private Run(PositionDto start, PositionDto goal) {
+            this.lattice = new MoveLattice(start);
+            this.goalLng = goal.getLng();
+            this.goalLat = goal.getLat();
+        }
+
+        private int ownerOf(long key) {
+            long block = MoveLattice.pack(Math.floorDiv(MoveLattice.unpackX(key), BLOCK_QUANTA),
+                    Math.floorDiv(MoveLattice.unpackY(key), BLOCK_QUANTA));
+            long h = block * 0x9E3779B97F4A7C15L;
+            return Math.floorMod((int) (h ^ (h >>> 32)), threads);
+        }
+
+        private synchronized void offerSolution(double f, int worker, int node) {
+            if (f < solutionF) {
+                solutionF = f;
+                solutionWorker = worker;
+                solutionNode = node;
+            }
+        }
+
+        private void stop() {
+            stopped = true;
+        }
+
+        /**
+         * Flies the directions stored along the solution's parent chain from the start
+         * @return the path, or null if a replayed move is unsafe or misses the goal
+         */
+        private List<PositionDto> replay(PositionDto start, PositionDto goal) {
+            List<Integer> directions = new ArrayList<>();
+            int worker = solutionWorker;
+            int node = solutionNode;
+            while (workers[worker].directions[node] >= 0) {
+                directions.add(workers[worker].directions[node]);
+                int parentWorker = workers[worker].parentWorkers[node];
+                node = workers[worker].nodes.parentOf(node);
+                worker = parentWorker;
+            }
+            Collections.reverse(directions);
+
+            List<PositionDto> path = new ArrayList<>(directions.size() + 1);
+            double lng = start.getLng();
+            double lat = start.getLat();
+            path.add(start);
+            double[] next = new double[2];
+            for (int direction : directions) {
+                MoveStepTable.neighbour(lng, lat, direction, next);
+                if (!moveCheck.isSafe(lng, lat, next[0], next[1])) {
+                    return null;
+                }
+                lng = next[0];
+                lat = next[1];
+                path.add(new PositionDto(lng, lat));
+            }
+            return ilpService.euclideanDistance(lng, lat, goal.getLng(), goal.getLat()) < STEP ? path : null;
+        }
+    }
+
+    /**
+     * A node sent to its owner
+     */
+    private static final class Message {
+        private final long key;
+        private final double lng;
+        private final double lat;
+        private final double g;
+        private final int parentWorker;
+        private final int parentNode;
+        private final int direction;
+
+        private Message(long key, double lng, double lat, double g, int parentWorker, int parentNode, int direction) {
+            this.key = key;
+            this.lng = lng;
+            this.lat = lat;
+            this.g = g;
+            this.parentWorker = parentWorker;
+            this.parentNode = parentNode;
+            this.direction = direction;
+        }
+    }
+
+    /**
+     * Searches the nodes one worker owns
+     */
+    private final class Worker implements Runnable {
+        private final int index;
+        private final Run run;
+        private final SearchBudget budget;
+        private final ConcurrentLinkedQueue<Message> inbox = new ConcurrentLinkedQueue<>();
+        private final LatticeNodeTable nodes = new LatticeNodeTable(4096);
+        private final IndexedMinHeap openSet = new IndexedMinHeap(4096);
+        private final double[] neighborCoords = new double[MoveStepTable.DIRECTIONS * 2];
+
+        /** Worker storing the parent of each node, and the direction of the move from it */
+        private int[] parentWorkers = new int[4096];
+        private int[] directions = new int[4096];
+
+        /** Set by the first of the worker's own thread and the stopped search, so a cancelled worker never starts */
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        private Worker(int index, Run run, SearchBudget budget) {
+            this.index = index;
+            this.run = run;
+            this.budget = budget;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                search();
+            } catch (RuntimeException e) {
+                if (run.failure == null) {
+                    run.failure = e;
+                }
+            } finally {
+                // The other workers would otherwise wait for this one forever
+                run.stop();
+                finished.countDown();
+            }
+        }
+
+        private void search() {
+            while (!run.stopped) {
+                Message message;
+                while ((message = inbox.poll()) != null) {
+                    receive(message.key, message.lng, message.lat, message.g,
+                            message.parentWorker, message.parentNode, message.direction);
+                    run.inFlight.decrementAndGet();
+                }
+                if (run.stopped) {
+                    return;
+                }
+
+                if (!openSet.isEmpty() && openSet.peekKey() < run.solutionF) {
+                    if (!budget.tryExpand()) {
+                        run.stop();
+                        return;
+                    }
+                    int current = openSet.poll();
+                    nodes.close(current);
+                    expand(current);
+                    continue;
+                }
+
+                // Nothing below the incumbent: wait for messages, or end the search once everyone waits
+                run.idle.incrementAndGet();
+                while (inbox.isEmpty() && !run.stopped) {
+                    if ((run.idle.get() == threads && run.inFlight.get() == 0) || budget.isExhausted()) {
+                        run.stop();
+                        break;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                run.idle.decrementAndGet();
+            }
+        }
+
+        /**
+         * Keeps a node sent to this worker if it is new or cheaper than before
+         */
+        private void receive(long key, double lng, double lat, double g, int parentWorker, int parentNode,
+                             int direction) {
+            int node = nodes.idOf(key);
+            if (node < 0) {
+                if (!budget.allowsNodes(nodes.size())) {
+                    run.stop();
+                    return;
+                }
+                node = nodes.add(key, lng, lat, g, parentNode);
+                if (node >= directions.length) {
+                    parentWorkers = Arrays.copyOf(parentWorkers, directions.length * 2);
+                    directions = Arrays.copyOf(directions, directions.length * 2);
+                }
+            } else if (improves(node, g)) {
+                nodes.update(node, lng, lat, g, parentNode);
+                nodes.reopen(node);
+            } else {
+                return;
+            }
+            parentWorkers[node] = parentWorker;
+            directions[node] = direction;
+            openSet.insertOrDecrease(node, g + heuristic.applyAsDouble(lng, lat));
+        }
+
+        private boolean improves(int node, double g) {
+            return g < nodes.gScoreOf(node) - (nodes.isClosed(node) ? REOPEN_MARGIN : 0.0);
+        }
+
+        private void expand(int current) {
+            double currentLng = nodes.lngOf(current);
+            double currentLat = nodes.latOf(current);
+            double currentGScore = nodes.gScoreOf(current);
+
+            if (ilpService.euclideanDistance(currentLng, currentLat, run.goalLng, run.goalLat) < STEP) {
+                run.offerSolution(currentGScore + heuristic.applyAsDouble(currentLng, currentLat), index, current);
+                return;
+            }
+
+            MoveStepTable.neighbours(currentLng, currentLat, neighborCoords);
+            for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+                double neighborLng = neighborCoords[2 * direction];
+                double neighborLat = neighborCoords[2 * direction + 1];
+                double newGScore = currentGScore + ilpService.euclideanDistance(currentLng, currentLat, neighborLng, neighborLat);
+                if (newGScore + heuristic.applyAsDouble(neighborLng, neighborLat) >= run.solutionF) {
+                    continue;
+                }
+                long neighborKey = run.lattice.keyOf(neighborLng, neighborLat);
+                int owner = run.ownerOf(neighborKey);
+                // A known node is only worth a message if the move improves it
+                if (owner == index) {
+                    int neighbor = nodes.idOf(neighborKey);
+                    if (neighbor >= 0 && !improves(neighbor, newGScore)) {
+                        continue;
+                    }
+                }
+                if (corridor != null && !corridor.contains(neighborLng, neighborLat)) {
+                    continue;
+                }
+                if (!moveCheck.isSafe(currentLng, currentLat, neighborLng, neighborLat)) {
+                    continue;
+                }
+                if (owner == index) {
+                    receive(neighborKey, neighborLng, neighborLat, newGScore, index, current, direction);
+                } else {
+                    run.inFlight.incrementAndGet();
+                    run.workers[owner].inbox.add(new Message(neighborKey, neighborLng, neighborLat, newGScore,
+                            index, current, direction));
+                }
+            }
+        }
+    }
+}
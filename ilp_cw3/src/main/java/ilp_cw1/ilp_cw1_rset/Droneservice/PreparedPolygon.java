@@ -0,0 +1,293 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+
+import java.util.List;
+
+/**
+ * Polygon prepared once for repeated geometric queries.
+ * Vertices are stored in a packed primitive array (lng0, lat0, lng1, lat1, ...) together with a cached
+ * bounding box, so containment and segment tests do not walk boxed {@link PositionDto} lists or allocate.
+ *
+ * The results match the existing service semantics exactly:
+ * {@link #contains} follows {@link ilpService#isPointInPolygon} (ray casting over consecutive vertex pairs,
+ * a point on an edge counts as inside) and {@link #intersectsSegment} follows
+ * {@link droneService#doesLineIntersectPolygon} (orientation test over every edge including the closing one).
+ */
+public class PreparedPolygon {
+
+    /** Unit roundoff of double arithmetic */
+    private static final double UNIT_ROUNDOFF = 0x1.0p-53;
+
+    /** Padding for bounding box rejection of segments, absorbs rounding in the orientation test */
+    private static final double SEGMENT_PADDING = 1e-9;
+
+    private static final PreparedPolygon EMPTY = new PreparedPolygon(new double[0]);
+
+    private final double[] coords;
+    private final int vertexCount;
+    private final boolean closed;
+    private final double minLng;
+    private final double minLat;
+    private final double maxLng;
+    private final double maxLat;
+    /** Margin for longitude rejection, covers rounding in the ray crossing computation */
+    private final double lngMargin;
+
+    /**
+     * Prepares a polygon from its vertices
+     * @param vertices polygon vertices, in order; null is treated as an empty polygon
+     * @return the prepared polygon
+     */
+    public static PreparedPolygon of(List<PositionDto> vertices) {
+        if (vertices == null || vertices.isEmpty()) {
+            return EMPTY;
+        }
+        double[] packed = new double[vertices.size() * 2];
+        for (int i = 0; i < vertices.size(); i++) {
+            packed[2 * i] = vertices.get(i).getLng();
+            packed[2 * i + 1] = vertices.get(i).getLat();
+        }
+        return new PreparedPolygon(packed);
+    }
+
+    /**
+     * Creates a polygon from packed coordinates
+     * @param coords packed vertex coordinates (lng0, lat0, lng1, lat1, ...); the array is not copied
+     */
+    public PreparedPolygon(double[] coords) {
+        this.coords = coords;
+        this.vertexCount = coords.length / 2;
+
+        double boxMinLng = Double.POSITIVE_INFINITY;
+        double boxMinLat = Double.POSITIVE_INFINITY;
+        double boxMaxLng = Double.NEGATIVE_INFINITY;
+        double boxMaxLat = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < vertexCount; i++) {
+            boxMinLng = Math.min(boxMinLng, coords[2 * i]);
+            boxMinLat = Math.min(boxMinLat, coords[2 * i + 1]);
+            boxMaxLng = Math.max(boxMaxLng, coords[2 * i]);
+            boxMaxLat = Math.max(boxMaxLat, coords[2 * i + 1]);
+        }
+        this.minLng = boxMinLng;
+        this.minLat = boxMinLat;
+        this.maxLng = boxMaxLng;
+        this.maxLat = boxMaxLat;
+        this.lngMargin = vertexCount == 0 ? 0 : 32 * Math.ulp(Math.max(Math.abs(boxMinLng), Math.abs(boxMaxLng)));
+        this.closed = vertexCount >= 2
+                && coords[0] == coords[2 * vertexCount - 2]
+                && coords[1] == coords[2 * vertexCount - 1];
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Gets the packed vertex coordinates (lng0, lat0, lng1, lat1, ...); the array is shared, not copied
+     * @return the packed coordinates
+     */
+    double[] packedCoordinates() {
+        return coords;
+    }
+
+    /**
+     * Gets the margin of the longitude rejection in {@link #contains(double, double)}
+     * @return the margin, covering rounding in the ray crossing computation
+     */
+    double getLngMargin() {
+        return lngMargin;
+    }
+
+    /**
+     * Checks whether the last vertex repeats the first one
+     * @return true if the ring is explicitly closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Checks whether every vertex coordinate is a finite number
+     * @return true if the bounding box is finite
+     */
+    public boolean isFinite() {
+        return Double.isFinite(minLng) && Double.isFinite(minLat) && Double.isFinite(maxLng) && Double.isFinite(maxLat);
+    }
+
+    public double getMinLng() {
+        return minLng;
+    }
+
+    public double getMinLat() {
+        return minLat;
+    }
+
+    public double getMaxLng() {
+        return maxLng;
+    }
+
+    public double getMaxLat() {
+        return maxLat;
+    }
+
+    /**
+     * Checks whether a point lies inside the polygon or on one of its edges
+     * @param point the point to check
+     * @return true if the point is inside or on an edge
+     */
+    public boolean contains(PositionDto point) {
+        return contains(point.getLng(), point.getLat());
+    }
+
+    /**
+     * Checks whether a point lies inside the polygon or on one of its edges.
+     * Like ilpService, only consecutive vertex pairs are tested, so an open ring has no closing edge.
+     * @param pointLng longitude of the point
+     * @param pointLat latitude of the point
+     * @return true if the point is inside or on an edge
+     */
+    public boolean contains(double pointLng, double pointLat) {
+        // No edge can be touched or crossed by the ray outside the latitude range or right of the box
+        if (pointLat < minLat || pointLat > maxLat || pointLng > maxLng + lngMargin) {
+            return false;
+        }
+        // Left of a closed ring the ray crosses an even number of edges
+        if (closed && pointLng < minLng - lngMargin) {
+            return false;
+        }
+
+        boolean inside = false;
+        for (int i = 0; i < vertexCount - 1; i++) {
+            double currLng = coords[2 * i];
+            double currLat = coords[2 * i + 1];
+            double nextLng = coords[2 * i + 2];
+            double nextLat = coords[2 * i + 3];
+
+            if (isPointOnEdge(pointLng, pointLat, currLng, currLat, nextLng, nextLat)) {
+                return true;
+            }
+
+            if (((currLat > pointLat) != (nextLat > pointLat)) &&
+                    (pointLng < (nextLng - currLng) * (pointLat - currLat) / (nextLat - currLat) + currLng)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Checks whether a segment touches any edge of the polygon
+     * @param from segment start
+     * @param to segment end
+     * @return true if the segment intersects or touches an edge
+     */
+    public boolean intersectsSegment(PositionDto from, PositionDto to) {
+        return intersectsSegment(from.getLng(), from.getLat(), to.getLng(), to.getLat());
+    }
+
+    /**
+     * Checks whether a segment touches any edge of the polygon, including the edge from the last vertex back to the first
+     * @param lng1 segment start longitude
+     * @param lat1 segment start latitude
+     * @param lng2 segment end longitude
+     * @param lat2 segment end latitude
+     * @return true if the segment intersects or touches an edge
+     */
+    public boolean intersectsSegment(double lng1, double lat1, double lng2, double lat2) {
+        if (Math.max(lng1, lng2) < minLng - SEGMENT_PADDING || Math.min(lng1, lng2) > maxLng + SEGMENT_PADDING
+                || Math.max(lat1, lat2) < minLat - SEGMENT_PADDING || Math.min(lat1, lat2) > maxLat + SEGMENT_PADDING) {
+            return false;
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            int j = (i + 1) % vertexCount;
+            if (segmentsIntersect(lng1, lat1, lng2, lat2,
+                    coords[2 * i], coords[2 * i + 1], coords[2 * j], coords[2 * j + 1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if two line segments intersect, treating touching and collinear overlap as intersecting
+     * @return true if segment p1-p2 intersects segment q1-q2
+     */
+    public static boolean segmentsIntersect(double p1Lng, double p1Lat, double p2Lng, double p2Lat,
+                                            double q1Lng, double q1Lat, double q2Lng, double q2Lat) {
+        int o1 = orientation(p1Lng, p1Lat, p2Lng, p2Lat, q1Lng, q1Lat);
+        int o2 = orientation(p1Lng, p1Lat, p2Lng, p2Lat, q2Lng, q2Lat);
+        int o3 = orientation(q1Lng, q1Lat, q2Lng, q2Lat, p1Lng, p1Lat);
+        int o4 = orientation(q1Lng, q1Lat, q2Lng, q2Lat, p2Lng, p2Lat);
+        if (o1 != o2 && o3 != o4) return true;
+        if (o1 == 0 && onSegment(p1Lng, p1Lat, q1Lng, q1Lat, p2Lng, p2Lat)) return true;
+        if (o2 == 0 && onSegment(p1Lng, p1Lat, q2Lng, q2Lat, p2Lng, p2Lat)) return true;
+        if (o3 == 0 && onSegment(q1Lng, q1Lat, p1Lng, p1Lat, q2Lng, q2Lat)) return true;
+        if (o4 == 0 && onSegment(q1Lng, q1Lat, p2Lng, p2Lat, q2Lng, q2Lat)) return true;
+        return false;
+    }
+
+    /**
+     * Calculates orientation of three points
+     * @return 0 if collinear, 1 if clockwise, 2 if counterclockwise
+     */
+    public static int orientation(double pLng, double pLat, double qLng, double qLat, double rLng, double rLat) {
+        double val = (qLat - pLat) * (rLng - qLng) - (qLng - pLng) * (rLat - qLat);
+        if (val == 0) return 0;
+        return (val > 0) ? 1 : 2;
+    }
+
+    /**
+     * Checks if point q lies within the bounding box of segment pr
+     * @return true if q is within the box
+     */
+    public static boolean onSegment(double pLng, double pLat, double qLng, double qLat, double rLng, double rLat) {
+        return qLng <= Math.max(pLng, rLng) && qLng >= Math.min(pLng, rLng) &&
+                qLat <= Math.max(pLat, rLat) && qLat >= Math.min(pLat, rLat);
+    }
+
+    /**
+     * Checks if a point lies exactly on an edge, using the decimal values of the coordinates as ilpService does.
+     * A double cross product with an error bound decides almost every case; only products too close to zero
+     * to classify are recomputed exactly by {@link GeometryKernel#isDecimalCrossZero}.
+     */
+    static boolean isPointOnEdge(double pointLng, double pointLat,
+                                 double edgeLng1, double edgeLat1,
+                                 double edgeLng2, double edgeLat2) {
+        if (!isValueInRange(pointLat, edgeLat1, edgeLat2) ||
+                !isValueInRange(pointLng, edgeLng1, edgeLng2)) {
+            return false;
+        }
+
+        double dx1 = pointLng - edgeLng1;
+        double dy1 = pointLat - edgeLat1;
+        double dx2 = edgeLng2 - edgeLng1;
+        double dy2 = edgeLat2 - edgeLat1;
+        double term1 = dx1 * dy2;
+        double term2 = dx2 * dy1;
+        double cross = term1 - term2;
+
+        // Bound the rounding of the double evaluation plus the difference between each double and
+        // its shortest decimal representation (at most half an ulp per coordinate)
+        double magnitude = Math.max(Math.max(Math.abs(pointLng), Math.abs(pointLat)),
+                Math.max(Math.max(Math.abs(edgeLng1), Math.abs(edgeLat1)), Math.max(Math.abs(edgeLng2), Math.abs(edgeLat2))));
+        double perturbation = 4 * magnitude * UNIT_ROUNDOFF;
+        double bound = 8 * UNIT_ROUNDOFF * (Math.abs(term1) + Math.abs(term2))
+                + perturbation * (Math.abs(dx1) + Math.abs(dy1) + Math.abs(dx2) + Math.abs(dy2))
+                + 4 * perturbation * perturbation
+                + Double.MIN_NORMAL;
+        if (Math.abs(cross) > bound) {
+            return false;
+        }
+
+        return GeometryKernel.isDecimalCrossZero(pointLng, pointLat, edgeLng1, edgeLat1, edgeLng2, edgeLat2);
+    }
+
+    private static boolean isValueInRange(double value, double a, double b) {
+        if (a > b) {
+            return value >= b && value <= a;
+        } else {
+            return value >= a && value <= b;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.Region;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Regions registered once by name for repeated containment checks.
+ * Each region is prepared and indexed when it is registered, so a check by name only runs the
+ * point-in-polygon test, with the same rule as {@link ilpService#isPointInPolygon}.
+ * Registration is open to any client, so the number of regions and their vertices are limited, and a name
+ * must be usable as the id segment of a region path.
+ */
+@Service
+public class RegionRegistry {
+
+    /** Default limit on the number of registered regions */
+    public static final int DEFAULT_MAX_REGIONS = 1000;
+
+    /** Default limit on the vertices of one region */
+    public static final int DEFAULT_MAX_VERTICES = 10_000;
+
+    /** Longest region name */
+    public static final int MAX_NAME_LENGTH = 128;
+
+    private final Map<String, BandedPolygon> regions = new ConcurrentHashMap<>();
+    private volatile int maxRegions = DEFAULT_MAX_REGIONS;
+    private volatile int maxVertices = DEFAULT_MAX_VERTICES;
+
+    /**
+     * Sets the largest number of registered regions; regions already registered are kept
+     * @param maxRegions region limit
+     */
+    @Value("${regions.max-count:" + DEFAULT_MAX_REGIONS + "}")
+    public void setMaxRegions(int maxRegions) {
+        if (maxRegions < 1) {
+            throw new IllegalArgumentException("Region limit must be positive");
+        }
+        this.maxRegions = maxRegions;
+    }
+
+    /**
+     * Sets the largest number of vertices of a registered region
+     * @param maxVertices vertex limit, including the closing vertex
+     */
+    @Value("${regions.max-vertices:" + DEFAULT_MAX_VERTICES + "}")
+    public void setMaxVertices(int maxVertices) {
+        if (maxVertices < 4) {
+            throw new IllegalArgumentException("Vertex limit must allow a closed triangle");
+        }
+        this.maxVertices = maxVertices;
+    }
+
+    /**
+     * Checks whether a region may be registered: its name is usable as an id and its vertices are within the limit
+     * @param region the region, with a name and vertices
+     * @return true if the region may be registered
+     */
+    public boolean accepts(Region region) {
+        return isUsableName(region.getName()) && region.getVertices().size() <= maxVertices;
+    }
+
+    /**
+     * Checks whether a name can be used as the id segment of a region path, such as {@code /regions/{id}}.
+     * Rejects blank and overlong names, the dot segments, path and matrix separators and control characters.
+     * @param name the region name
+     * @return true if the name is usable
+     */
+    public static boolean isUsableName(String name) {
+        if (name == null || name.isBlank() || name.length() > MAX_NAME_LENGTH
+                || name.equals(".") || name.equals("..")) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '/' || c == '\\' || c == ';' || Character.isISOControl(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Registers a region under its name, replacing any region registered under the same name
+     * @param region the region, accepted by {@link #accepts}; its vertices are copied when it is prepared
+     * @return the id of the region, which is its name, or null if the registry is full and the name is new
+     */
+    public synchronized String register(Region region) {
+        if (!accepts(region)) {
+            throw new IllegalArgumentException("Region name or vertex count is not accepted");
+        }
+        if (regions.size() >= maxRegions && !regions.containsKey(region.getName())) {
+            return null;
+        }
+        regions.put(region.getName(), new BandedPolygon(PreparedPolygon.of(region.getVertices())));
+        return region.getName();
+    }
+
+    /**
+     * Removes a registered region
+     * @param id region id
+     * @return true if a region was removed
+     */
+    public boolean remove(String id) {
+        return regions.remove(id) != null;
+    }
+
+    /**
+     * Gets the prepared region registered under an id
+     * @param id region id
+     * @return the indexed region, or null if none is registered
+     */
+    public BandedPolygon get(String id) {
+        return regions.get(id);
+    }
+
+    /**
+     * Gets the ids of all registered regions
+     * @return sorted region ids
+     */
+    public List<String> getIds() {
+        List<String> ids = new ArrayList<>(regions.keySet());
+        Collections.sort(ids);
+        return ids;
+    }
+}
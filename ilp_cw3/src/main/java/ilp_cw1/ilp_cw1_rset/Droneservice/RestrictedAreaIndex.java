@@ -0,0 +1,460 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+import data.RestrictedArea;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uniform grid over the bounding boxes of a fixed set of restricted areas.
+ * Answers "which areas can this segment touch" so that safety checks only run the exact
+ * polygon tests against nearby areas instead of every area on the map.
+ *
+ * Candidates are a superset of the areas a segment can intersect or have an endpoint inside:
+ * areas whose ring is not closed are always returned, because the point-in-polygon test skips
+ * the closing edge and can then report points outside the bounding box as inside.
+ * Each area is also prepared once as a {@link PreparedPolygon} for the exact tests, and the closed areas
+ * are rasterized into a {@link ClearanceRaster} that decides most moves without them. The raster is built
+ * once per area fingerprint on a background thread and shared by every index over the same areas; until it
+ * is ready, moves are tested exactly.
+ * Instances are immutable apart from the reference to that raster, and safe to share between threads.
+ */
+public class RestrictedAreaIndex {
+
+    /** Padding added to every bounding box to absorb rounding in the exact tests */
+    private static final double PADDING = 1e-9;
+
+    private static final PreparedPolygon[] NO_POLYGONS = new PreparedPolygon[0];
+
+    /** Upper bound on grid cells per axis */
+    private static final int MAX_CELLS_PER_AXIS = 256;
+
+    /** Raster lookups answered exactly before the raster is requested, so one-off checks never pay for it */
+    private static final int RASTER_WARMUP_LOOKUPS = 64;
+
+    /** Rasters kept for recent area sets, so an area set used again does not rasterize again */
+    private static final int RETAINED_RASTERS = 4;
+
+    /** Rasters by area fingerprint, least recently used first; guarded by itself */
+    private static final Map<Long, CompletableFuture<ClearanceRaster>> RASTERS =
+            new LinkedHashMap<>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CompletableFuture<ClearanceRaster>> eldest) {
+                    return size() > RETAINED_RASTERS;
+                }
+            };
+
+    private static final ExecutorService RASTER_BUILDER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "clearance-raster-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<RestrictedArea> areas;
+    private final PreparedPolygon[] polygons;
+    private final double[] boxes;
+    private final int[] alwaysChecked;
+    private final long fingerprint;
+
+    private final double minLng;
+    private final double minLat;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+    /** Start offset of each cell in {@link #cellAreas}, CSR layout with one extra entry at the end */
+    private final int[] cellStart;
+    private final int[] cellAreas;
+
+    /** Lookups seen before the raster was requested */
+    private final AtomicInteger rasterLookups = new AtomicInteger();
+    private volatile CompletableFuture<ClearanceRaster> clearanceRaster;
+
+    /**
+     * Builds an index over the given areas
+     * @param restrictedAreas the areas to index; the list is copied
+     */
+    public RestrictedAreaIndex(List<RestrictedArea> restrictedAreas) {
+        this.areas = List.copyOf(restrictedAreas);
+        int n = areas.size();
+        this.polygons = new PreparedPolygon[n];
+        this.boxes = new double[n * 4];
+
+        List<Integer> unbounded = new ArrayList<>();
+        double unionMinLng = Double.POSITIVE_INFINITY;
+        double unionMinLat = Double.POSITIVE_INFINITY;
+        double unionMaxLng = Double.NEGATIVE_INFINITY;
+        double unionMaxLat = Double.NEGATIVE_INFINITY;
+        int bounded = 0;
+
+        for (int i = 0; i < n; i++) {
+            List<PositionDto> vertices = areas.get(i).getVertices();
+            polygons[i] = hasValidVertices(vertices) ? PreparedPolygon.of(vertices) : PreparedPolygon.of(null);
+            if (!polygons[i].isClosed() || !polygons[i].isFinite()) {
+                unbounded.add(i);
+                boxes[4 * i] = Double.NaN;
+                continue;
+            }
+            double boxMinLng = polygons[i].getMinLng();
+            double boxMinLat = polygons[i].getMinLat();
+            double boxMaxLng = polygons[i].getMaxLng();
+            double boxMaxLat = polygons[i].getMaxLat();
+            boxes[4 * i] = boxMinLng - PADDING;
+            boxes[4 * i + 1] = boxMinLat - PADDING;
+            boxes[4 * i + 2] = boxMaxLng + PADDING;
+            boxes[4 * i + 3] = boxMaxLat + PADDING;
+            unionMinLng = Math.min(unionMinLng, boxes[4 * i]);
+            unionMinLat = Math.min(unionMinLat, boxes[4 * i + 1]);
+            unionMaxLng = Math.max(unionMaxLng, boxes[4 * i + 2]);
+            unionMaxLat = Math.max(unionMaxLat, boxes[4 * i + 3]);
+            bounded++;
+        }
+        this.alwaysChecked = unbounded.stream().mapToInt(Integer::intValue).toArray();
+        this.fingerprint = fingerprintOf(areas);
+
+        if (bounded == 0) {
+            this.minLng = 0;
+            this.minLat = 0;
+            this.cellWidth = 1;
+            this.cellHeight = 1;
+            this.columns = 0;
+            this.rows = 0;
+            this.cellStart = new int[1];
+            this.cellAreas = new int[0];
+            return;
+        }
+
+        // Roughly two cells per area along each axis keeps most short segments in one or two cells
+        int perAxis = Math.min(MAX_CELLS_PER_AXIS, Math.max(1, (int) Math.ceil(Math.sqrt(bounded)) * 2));
+        this.minLng = unionMinLng;
+        this.minLat = unionMinLat;
+        this.columns = perAxis;
+        this.rows = perAxis;
+        this.cellWidth = Math.max((unionMaxLng - unionMinLng) / columns, Double.MIN_NORMAL);
+        this.cellHeight = Math.max((unionMaxLat - unionMinLat) / rows, Double.MIN_NORMAL);
+
+        int[] counts = new int[columns * rows + 1];
+        forEachBoxCell(n, (area, cell) -> counts[cell + 1]++);
+        for (int cell = 0; cell < columns * rows; cell++) {
+            counts[cell + 1] += counts[cell];
+        }
+        this.cellStart = counts.clone();
+        this.cellAreas = new int[counts[columns * rows]];
+        int[] fill = Arrays.copyOf(counts, columns * rows);
+        forEachBoxCell(n, (area, cell) -> cellAreas[fill[cell]++] = area);
+    }
+
+    /**
+     * Returns the cached index if it covers the same areas as the given ones, otherwise builds a new one.
+     * Areas fetched again from the API are new objects, so they are compared by name and geometry.
+     * @param cached previously built index, may be null
+     * @param restrictedAreas the current areas
+     * @return an index over areas with the same names and vertices as the given ones
+     */
+    public static RestrictedAreaIndex reuseOrBuild(RestrictedAreaIndex cached, List<RestrictedArea> restrictedAreas) {
+        if (cached != null && cached.matches(restrictedAreas)) {
+            return cached;
+        }
+        return new RestrictedAreaIndex(restrictedAreas);
+    }
+
+    /**
+     * Gets the areas that were indexed
+     * @return unmodifiable list of areas in their original order
+     */
+    public List<RestrictedArea> getAreas() {
+        return areas;
+    }
+
+    /**
+     * Gets a 64-bit hash of the geometry of the indexed areas.
+     * Two indexes over areas with the same vertices in the same order have the same fingerprint,
+     * even if the area objects were fetched separately.
+     * @return the fingerprint
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Checks whether this index was built from the given areas in the same order, or from copies of them.
+     * Names are compared because callers report the areas a move touches; the vertices are compared through
+     * the fingerprint, which costs one pass over them instead of a rebuild.
+     * @param restrictedAreas areas to compare against
+     * @return true if every area has the same name and the geometry has the same fingerprint
+     */
+    public boolean matches(List<RestrictedArea> restrictedAreas) {
+        if (restrictedAreas.size() != areas.size()) {
+            return false;
+        }
+        boolean sameObjects = true;
+        for (int i = 0; i < areas.size(); i++) {
+            RestrictedArea area = restrictedAreas.get(i);
+            if (area != areas.get(i)) {
+                sameObjects = false;
+                if (!Objects.equals(area.getName(), areas.get(i).getName())) {
+                    return false;
+                }
+            }
+        }
+        return sameObjects || fingerprintOf(restrictedAreas) == fingerprint;
+    }
+
+    /**
+     * Finds the areas a segment could touch
+     * @param from segment start
+     * @param to segment end
+     * @return candidate areas in their original order
+     */
+    public List<RestrictedArea> candidates(PositionDto from, PositionDto to) {
+        return candidates(from.getLng(), from.getLat(), to.getLng(), to.getLat());
+    }
+
+    /**
+     * Finds the areas a segment could touch
+     * @param lng1 segment start longitude
+     * @param lat1 segment start latitude
+     * @param lng2 segment end longitude
+     * @param lat2 segment end latitude
+     * @return candidate areas in their original order; an empty list if none
+     */
+    public List<RestrictedArea> candidates(double lng1, double lat1, double lng2, double lat2) {
+        int[] ids = candidateIds(lng1, lat1, lng2, lat2);
+        if (ids.length == 0) {
+            return Collections.emptyList();
+        }
+        List<RestrictedArea> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(areas.get(id));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the prepared polygons of the areas a segment could touch.
+     * Areas without usable vertices are represented by an empty polygon that never matches.
+     * @param lng1 segment start longitude
+     * @param lat1 segment start latitude
+     * @param lng2 segment end longitude
+     * @param lat2 segment end latitude
+     * @return candidate polygons in the original area order; an empty array if none
+     */
+    public PreparedPolygon[] candidatePolygons(double lng1, double lat1, double lng2, double lat2) {
+        int[] ids = candidateIds(lng1, lat1, lng2, lat2);
+        if (ids.length == 0) {
+            return NO_POLYGONS;
+        }
+        PreparedPolygon[] result = new PreparedPolygon[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = polygons[ids[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Gets the raster of the closed areas. Once the index has served enough lookups the raster is requested,
+     * and built in the background unless another index over the same areas already did.
+     * Open rings are not rasterized; {@link #unboundedPolygons()} must still be tested exactly.
+     * @return the raster, or null if it is not built yet or the areas span too many cells to rasterize
+     */
+    public ClearanceRaster getClearanceRaster() {
+        CompletableFuture<ClearanceRaster> raster = clearanceRaster;
+        if (raster == null) {
+            if (rasterLookups.getAndIncrement() < RASTER_WARMUP_LOOKUPS) {
+                return null;
+            }
+            raster = rasterOf(this);
+            clearanceRaster = raster;
+        }
+        return raster.getNow(null);
+    }
+
+    /**
+     * Finds the raster of an index's areas, starting its build if no index over the same areas has
+     * @param index the index whose areas to rasterize
+     * @return the pending or finished raster; it completes with null if the build fails or is too large
+     */
+    private static CompletableFuture<ClearanceRaster> rasterOf(RestrictedAreaIndex index) {
+        synchronized (RASTERS) {
+            return RASTERS.computeIfAbsent(index.fingerprint, fingerprint -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return ClearanceRaster.build(index.closedPolygons());
+                } catch (RuntimeException e) {
+                    System.err.println("Warning: Failed to build clearance raster: " + e.getMessage());
+                    return null;
+                }
+            }, RASTER_BUILDER));
+        }
+    }
+
+    /**
+     * Gets the prepared polygons of the closed areas with finite coordinates
+     * @return the polygons in the original area order
+     */
+    public List<PreparedPolygon> closedPolygons() {
+        List<PreparedPolygon> closed = new ArrayList<>(polygons.length - alwaysChecked.length);
+        for (int i = 0; i < polygons.length; i++) {
+            if (!Double.isNaN(boxes[4 * i])) {
+                closed.add(polygons[i]);
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Gets the prepared polygons of the areas that are not rasterized, i.e. open or non-finite rings
+     * @return the polygons in the original area order; an empty array if none
+     */
+    public PreparedPolygon[] unboundedPolygons() {
+        if (alwaysChecked.length == 0) {
+            return NO_POLYGONS;
+        }
+        PreparedPolygon[] result = new PreparedPolygon[alwaysChecked.length];
+        for (int i = 0; i < alwaysChecked.length; i++) {
+            result[i] = polygons[alwaysChecked[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Gets the prepared polygon of an indexed area
+     * @param position position of the area in {@link #getAreas()}
+     * @return the prepared polygon
+     */
+    public PreparedPolygon polygonAt(int position) {
+        return polygons[position];
+    }
+
+    private int[] candidateIds(double lng1, double lat1, double lng2, double lat2) {
+        double queryMinLng = Math.min(lng1, lng2);
+        double queryMaxLng = Math.max(lng1, lng2);
+        double queryMinLat = Math.min(lat1, lat2);
+        double queryMaxLat = Math.max(lat1, lat2);
+
+        int[] found = null;
+        int foundCount = 0;
+
+        if (columns > 0
+                && queryMaxLng >= minLng && queryMaxLat >= minLat
+                && queryMinLng <= minLng + columns * cellWidth && queryMinLat <= minLat + rows * cellHeight) {
+            int firstColumn = columnOf(queryMinLng);
+            int lastColumn = columnOf(queryMaxLng);
+            int firstRow = rowOf(queryMinLat);
+            int lastRow = rowOf(queryMaxLat);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    int cell = row * columns + column;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int area = cellAreas[k];
+                        if (overlaps(area, queryMinLng, queryMinLat, queryMaxLng, queryMaxLat)) {
+                            if (found == null) {
+                                found = new int[4];
+                            } else if (foundCount == found.length) {
+                                found = Arrays.copyOf(found, foundCount * 2);
+                            }
+                            found[foundCount++] = area;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (foundCount == 0) {
+            return alwaysChecked;
+        }
+
+        // Merge grid hits and always-checked areas, removing duplicates from boxes spanning several cells
+        int[] merged = Arrays.copyOf(found, foundCount + alwaysChecked.length);
+        System.arraycopy(alwaysChecked, 0, merged, foundCount, alwaysChecked.length);
+        Arrays.sort(merged);
+        int unique = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[unique - 1]) {
+                merged[unique++] = merged[i];
+            }
+        }
+        return unique == merged.length ? merged : Arrays.copyOf(merged, unique);
+    }
+
+    private boolean overlaps(int area, double queryMinLng, double queryMinLat, double queryMaxLng, double queryMaxLat) {
+        return boxes[4 * area] <= queryMaxLng && boxes[4 * area + 2] >= queryMinLng
+                && boxes[4 * area + 1] <= queryMaxLat && boxes[4 * area + 3] >= queryMinLat;
+    }
+
+    private int columnOf(double lng) {
+        return clamp((int) Math.floor((lng - minLng) / cellWidth), columns);
+    }
+
+    private int rowOf(double lat) {
+        return clamp((int) Math.floor((lat - minLat) / cellHeight), rows);
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    private void forEachBoxCell(int n, CellVisitor visitor) {
+        for (int area = 0; area < n; area++) {
+            if (Double.isNaN(boxes[4 * area])) {
+                continue;
+            }
+            int firstColumn = columnOf(boxes[4 * area]);
+            int lastColumn = columnOf(boxes[4 * area + 2]);
+            int firstRow = rowOf(boxes[4 * area + 1]);
+            int lastRow = rowOf(boxes[4 * area + 3]);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    visitor.visit(area, row * columns + column);
+                }
+            }
+        }
+    }
+
+    private static long fingerprintOf(List<RestrictedArea> areas) {
+        long hash = 0x2545F4914F6CDD1DL;
+        for (RestrictedArea area : areas) {
+            List<PositionDto> vertices = area.getVertices();
+            hash = mix(hash, vertices == null ? -1 : vertices.size());
+            if (vertices == null) {
+                continue;
+            }
+            for (PositionDto vertex : vertices) {
+                hash = mix(hash, vertex == null || vertex.getLng() == null ? 0 : Double.doubleToLongBits(vertex.getLng()));
+                hash = mix(hash, vertex == null || vertex.getLat() == null ? 0 : Double.doubleToLongBits(vertex.getLat()));
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static boolean hasValidVertices(List<PositionDto> vertices) {
+        if (vertices == null) {
+            return false;
+        }
+        for (PositionDto vertex : vertices) {
+            if (vertex == null || vertex.getLng() == null || vertex.getLat() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface CellVisitor {
+        void visit(int area, int cell);
+    }
+}
@@ -0,0 +1,107 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+/**
+ * Band of fixed half-width around a polyline route.
+ * The lattice search only expands nodes inside the band, so a coarse route from the
+ * {@link VisibilityGraphPlanner} limits the search to a narrow strip instead of the whole map.
+ * Instances are immutable.
+ */
+public class RouteCorridor {
+
+    private final double[] route;
+    private final double halfWidth;
+    private final double halfWidthSquared;
+    private final double minLng;
+    private final double minLat;
+    private final double maxLng;
+    private final double maxLat;
+
+    /**
+     * Creates a corridor around a route
+     * @param route packed route coordinates (lng0, lat0, lng1, lat1, ...) with at least one point; not copied
+     * @param halfWidth largest distance from the route that is still inside, in degrees
+     */
+    public RouteCorridor(double[] route, double halfWidth) {
+        if (route.length < 2) {
+            throw new IllegalArgumentException("Route must contain at least one point");
+        }
+        this.route = route;
+        this.halfWidth = halfWidth;
+        this.halfWidthSquared = halfWidth * halfWidth;
+
+        double boxMinLng = Double.POSITIVE_INFINITY;
+        double boxMinLat = Double.POSITIVE_INFINITY;
+        double boxMaxLng = Double.NEGATIVE_INFINITY;
+        double boxMaxLat = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < route.length; i += 2) {
+            boxMinLng = Math.min(boxMinLng, route[i]);
+            boxMinLat = Math.min(boxMinLat, route[i + 1]);
+            boxMaxLng = Math.max(boxMaxLng, route[i]);
+            boxMaxLat = Math.max(boxMaxLat, route[i + 1]);
+        }
+        this.minLng = boxMinLng - halfWidth;
+        this.minLat = boxMinLat - halfWidth;
+        this.maxLng = boxMaxLng + halfWidth;
+        this.maxLat = boxMaxLat + halfWidth;
+    }
+
+    /**
+     * Creates a wider corridor around the same route
+     * @param factor factor to multiply the half-width by
+     * @return the wider corridor
+     */
+    public RouteCorridor widened(double factor) {
+        return new RouteCorridor(route, halfWidth * factor);
+    }
+
+    public double getHalfWidth() {
+        return halfWidth;
+    }
+
+    /**
+     * Gets the number of points of the route
+     * @return route point count, including start and goal
+     */
+    public int getRoutePointCount() {
+        return route.length / 2;
+    }
+
+    /**
+     * Checks whether a point is within the half-width of any route segment
+     * @param lng longitude
+     * @param lat latitude
+     * @return true if the point is inside the corridor
+     */
+    public boolean contains(double lng, double lat) {
+        if (lng < minLng || lng > maxLng || lat < minLat || lat > maxLat) {
+            return false;
+        }
+        if (route.length == 2) {
+            return distanceSquared(lng, lat, route[0], route[1]) <= halfWidthSquared;
+        }
+        for (int i = 0; i + 3 < route.length; i += 2) {
+            if (segmentDistanceSquared(lng, lat, route[i], route[i + 1], route[i + 2], route[i + 3]) <= halfWidthSquared) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double segmentDistanceSquared(double lng, double lat,
+                                                 double lng1, double lat1, double lng2, double lat2) {
+        double dx = lng2 - lng1;
+        double dy = lat2 - lat1;
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            return distanceSquared(lng, lat, lng1, lat1);
+        }
+        double t = Math.max(0.0, Math.min(1.0, ((lng - lng1) * dx + (lat - lat1) * dy) / lengthSquared));
+        return distanceSquared(lng, lat, lng1 + t * dx, lat1 + t * dy);
+    }
+
+    private static double distanceSquared(double lng1, double lat1, double lng2, double lat2) {
+        double dx = lng1 - lng2;
+        double dy = lat1 - lat2;
+        return dx * dx + dy * dy;
+    }
+}
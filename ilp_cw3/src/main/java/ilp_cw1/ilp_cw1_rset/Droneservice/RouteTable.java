@@ -0,0 +1,346 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shortest move paths from one root position, usually a service point, to every position around it.
+ * A breadth-first flood over the 16-direction move lattice visits the positions in order of move count,
+ * keeping one node per half-move cell; every move is a uniform cost, so this is the uniform-cost flood
+ * with the fewest moves to each cell. Of the nodes reaching a cell with the same move count, the one
+ * farthest from the root is kept: keeping the first arrival instead lets the offsets within the cells
+ * drift behind, which grows the move counts like a four-neighbour grid, up to 40% above the lattice
+ * distance, where the farthest arrival stays within about two moves of it.
+ *
+ * The table is a dense square grid of cells around the root holding 3 bytes per cell: the move count
+ * in a {@link MoveCountGrid} and one link byte. The link packs the direction of the move into the cell's
+ * node with the cell of its parent; a move spans at most two cells per axis, so given the direction the
+ * parent column and row each take one of four values. Exact node positions are not stored: a node's
+ * position is rebuilt by walking the links back to the root and replaying the moves forward from it,
+ * which gives the same coordinates the flood computed. Only the node positions of the layer being
+ * expanded are held while the table is built.
+ *
+ * An outbound leg from the root is the chain of the node nearest its goal. A return leg to the root
+ * replays the same chain in reverse with the opposite moves, starting from the exact leg start; it ends
+ * within one move of the root because it is offset from the chain by less than one move. Replayed moves
+ * are not the moves the flood checked, so each of them is checked again.
+ * Instances are immutable once built and may be shared between threads.
+ */
+public class RouteTable {
+
+    private static final double STEP = MoveLattice.STEP;
+    private static final double CELL = MoveCountGrid.CELL;
+
+    /** Largest number of cells on each side of the root, keeping the grid within an int-indexed array */
+    private static final int MAX_HALF_SIDE = 16_384;
+
+    private final double rootLng;
+    private final double rootLat;
+    private final int radiusMoves;
+    private final boolean truncated;
+    private final int cellCount;
+    private final MoveCountGrid grid;
+    /** Per cell: direction of the move into the node in bits 0-3, parent column and row offsets in bits 4-7 */
+    private final byte[] links;
+
+    private RouteTable(double rootLng, double rootLat, int radiusMoves, boolean truncated, int cellCount,
+                       MoveCountGrid grid, byte[] links) {
+        this.rootLng = rootLng;
+        this.rootLat = rootLat;
+        this.radiusMoves = radiusMoves;
+        this.truncated = truncated;
+        this.cellCount = cellCount;
+        this.grid = grid;
+        this.links = links;
+    }
+
+    /**
+     * Floods the lattice from a root position.
+     * The grid covers the radius, or a square of about four times the size limit when that is smaller;
+     * a flood that runs off the grid is truncated like one that reaches the size limit.
+     * @param root the root position, outside every restricted area
+     * @param moveCheck safety check for a single move
+     * @param radiusMoves largest move count of a node in the table, at most {@link MoveCountGrid#MAX_MOVES}
+     * @param maxCells largest number of nodes in the table; the flood stops early when it is reached
+     * @return the table
+     */
+    public static RouteTable build(PositionDto root, BidirectionalLatticeSearch.MoveCheck moveCheck,
+                                   int radiusMoves, int maxCells) {
+        if (radiusMoves < 0 || maxCells < 1) {
+            throw new IllegalArgumentException("Route table radius and size must be positive");
+        }
+        if (radiusMoves > MoveCountGrid.MAX_MOVES) {
+            throw new IllegalArgumentException("Route table radius must be at most " + MoveCountGrid.MAX_MOVES + " moves");
+        }
+        // A move covers at most two cells per axis
+        int halfSide = Math.min(MAX_HALF_SIDE,
+                Math.min(2 * radiusMoves + 2, (int) Math.ceil(Math.sqrt(maxCells))));
+        MoveCountGrid grid = new MoveCountGrid(MoveCountGrid.columnOf(root.getLng()),
+                MoveCountGrid.rowOf(root.getLat()), halfSide);
+        byte[] links = new byte[grid.size()];
+        double[] neighborCoords = new double[MoveStepTable.DIRECTIONS * 2];
+
+        // Exact positions of the layer being expanded and of the next one, keyed by cell index
+        LatticeNodeTable layer = new LatticeNodeTable();
+        LatticeNodeTable nextLayer = new LatticeNodeTable();
+        int rootIndex = grid.indexOf(MoveCountGrid.columnOf(root.getLng()), MoveCountGrid.rowOf(root.getLat()));
+        grid.setMoves(rootIndex, 0);
+        layer.add(rootIndex, root.getLng(), root.getLat(), 0.0, -1);
+        int cellCount = 1;
+        boolean truncated = false;
+
+        flood:
+        for (int moves = 0; moves < radiusMoves && layer.size() > 0; moves++) {
+            nextLayer.clear();
+            for (int current = 0; current < layer.size(); current++) {
+                double currentLng = layer.lngOf(current);
+                double currentLat = layer.latOf(current);
+                int currentColumn = MoveCountGrid.columnOf(currentLng);
+                int currentRow = MoveCountGrid.rowOf(currentLat);
+                MoveStepTable.neighbours(currentLng, currentLat, neighborCoords);
+
+                for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+                    double neighborLng = neighborCoords[2 * direction];
+                    double neighborLat = neighborCoords[2 * direction + 1];
+                    int column = MoveCountGrid.columnOf(neighborLng);
+                    int row = MoveCountGrid.rowOf(neighborLat);
+                    int index = grid.indexOf(column, row);
+                    if (index < 0) {
+                        truncated |= moveCheck.isSafe(currentLng, currentLat, neighborLng, neighborLat);
+                        continue;
+                    }
+                    int existing = grid.movesAt(index);
+                    if (existing >= 0) {
+                        // Nodes of the next layer are not expanded yet, so a farther arrival can still take over
+                        if (existing == moves + 1) {
+                            int node = nextLayer.idOf(index);
+                            if (squaredDistance(neighborLng, neighborLat, root) > squaredDistance(
+                                    nextLayer.lngOf(node), nextLayer.latOf(node), root)
+                                    && moveCheck.isSafe(currentLng, currentLat, neighborLng, neighborLat)) {
+                                nextLayer.update(node, neighborLng, neighborLat, moves + 1, current);
+                                links[index] = link(direction, column, row, currentColumn, currentRow);
+                            }
+                        }
+                        continue;
+                    }
+                    if (!moveCheck.isSafe(currentLng, currentLat, neighborLng, neighborLat)) {
+                        continue;
+                    }
+                    if (cellCount == maxCells) {
+                        truncated = true;
+                        break flood;
+                    }
+                    grid.setMoves(index, moves + 1);
+                    links[index] = link(direction, column, row, currentColumn, currentRow);
+                    nextLayer.add(index, neighborLng, neighborLat, moves + 1, current);
+                    cellCount++;
+                }
+            }
+            LatticeNodeTable expanded = layer;
+            layer = nextLayer;
+            nextLayer = expanded;
+        }
+        return new RouteTable(root.getLng(), root.getLat(), radiusMoves, truncated, cellCount, grid, links);
+    }
+
+    /**
+     * Looks up the outbound leg from the root to a goal
+     * @param goalLng goal longitude
+     * @param goalLat goal latitude
+     * @return positions from the root to within one move of the goal, or null if the table has no such node
+     */
+    public List<PositionDto> pathTo(double goalLng, double goalLat) {
+        for (int candidate : cellsNear(goalLng, goalLat)) {
+            List<PositionDto> path = replayTo(candidate);
+            PositionDto end = path.get(path.size() - 1);
+            if (ilpService.euclideanDistance(end.getLng(), end.getLat(), goalLng, goalLat) < STEP) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the return leg from a start position to the root.
+     * Every node within one move of the start is tried, fewest moves first, since the replay of a chain
+     * that hugs an area can clip it.
+     * @param startLng start longitude
+     * @param startLat start latitude
+     * @param moveCheck safety check for the replayed moves
+     * @return positions from the start to within one move of the root,
+     *         or null if no node near the start has a chain that replays safely
+     */
+    public List<PositionDto> pathFrom(double startLng, double startLat, BidirectionalLatticeSearch.MoveCheck moveCheck) {
+        for (int candidate : cellsNear(startLng, startLat)) {
+            byte[] chain = chainOf(candidate);
+            double[] end = replay(chain, null);
+            if (ilpService.euclideanDistance(end[0], end[1], startLng, startLat) < STEP) {
+                List<PositionDto> path = replayFrom(chain, startLng, startLat, moveCheck);
+                if (path != null) {
+                    return path;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replays a chain in reverse from a start position
+     * @return the replayed path, or null if a move is unsafe or the end is not within one move of the root
+     */
+    private List<PositionDto> replayFrom(byte[] chain, double startLng, double startLat,
+                                         BidirectionalLatticeSearch.MoveCheck moveCheck) {
+        List<PositionDto> path = new ArrayList<>(chain.length + 1);
+        path.add(new PositionDto(startLng, startLat));
+        double lng = startLng;
+        double lat = startLat;
+        double[] next = new double[2];
+        for (int i = chain.length - 1; i >= 0; i--) {
+            MoveStepTable.neighbour(lng, lat, MoveStepTable.opposite(chain[i]), next);
+            if (!moveCheck.isSafe(lng, lat, next[0], next[1])) {
+                return null;
+            }
+            lng = next[0];
+            lat = next[1];
+            path.add(new PositionDto(lng, lat));
+        }
+        return ilpService.euclideanDistance(lng, lat, rootLng, rootLat) < STEP ? path : null;
+    }
+
+    /**
+     * Replays the chain of a cell's node forward from the root
+     * @return positions from the root to the node
+     */
+    private List<PositionDto> replayTo(int index) {
+        byte[] chain = chainOf(index);
+        List<PositionDto> path = new ArrayList<>(chain.length + 1);
+        path.add(new PositionDto(rootLng, rootLat));
+        replay(chain, path);
+        return path;
+    }
+
+    /**
+     * Applies the moves of a chain from the root, as the flood did
+     * @param path receives every position after the root; may be null
+     * @return longitude and latitude of the node at the end of the chain
+     */
+    private double[] replay(byte[] chain, List<PositionDto> path) {
+        double[] position = {rootLng, rootLat};
+        for (byte direction : chain) {
+            MoveStepTable.neighbour(position[0], position[1], direction, position);
+            if (path != null) {
+                path.add(new PositionDto(position[0], position[1]));
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Follows the links of a cell back to the root
+     * @return directions of the moves from the root to the cell's node, in flight order
+     */
+    private byte[] chainOf(int index) {
+        byte[] chain = new byte[grid.movesAt(index)];
+        for (int i = chain.length - 1; i >= 0; i--) {
+            int link = links[index];
+            int direction = link & 0xF;
+            chain[i] = (byte) direction;
+            index = grid.indexOf(parentBase(grid.columnAt(index), MoveStepTable.lngStep(direction)) + ((link >> 4) & 3) - 1,
+                    parentBase(grid.rowAt(index), MoveStepTable.latStep(direction)) + ((link >> 6) & 3) - 1);
+        }
+        return chain;
+    }
+
+    /**
+     * Gets the move count from the root to a position, as recorded for its cell
+     * @param lng longitude
+     * @param lat latitude
+     * @return moves of the node in the position's cell, or -1 if the flood did not reach it
+     */
+    public int movesNear(double lng, double lat) {
+        return grid.movesAt(lng, lat);
+    }
+
+    /**
+     * Gets the move counts of the table without the links, for holders that only need the counts
+     * @return the move count grid
+     */
+    public MoveCountGrid getMoveCounts() {
+        return grid;
+    }
+
+    public int getRadiusMoves() {
+        return radiusMoves;
+    }
+
+    /**
+     * Checks whether the flood stopped at the size limit or the grid edge before reaching the radius
+     * @return true if some positions within the radius are missing
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Gets the number of nodes in the table
+     * @return node count, including the root
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Finds the cells that may hold a node within one move of a position; each lies in the 5x5 block around it
+     * @return cell indices, fewest moves first
+     */
+    private int[] cellsNear(double lng, double lat) {
+        int column = MoveCountGrid.columnOf(lng);
+        int row = MoveCountGrid.rowOf(lat);
+        int[] found = new int[25];
+        int count = 0;
+        for (int dy = -2; dy <= 2; dy++) {
+            for (int dx = -2; dx <= 2; dx++) {
+                int index = grid.indexOf(column + dx, row + dy);
+                if (index >= 0 && grid.movesAt(index) >= 0) {
+                    // Insertion sort by move count, at most 25 entries
+                    int slot = count++;
+                    while (slot > 0 && grid.movesAt(found[slot - 1]) > grid.movesAt(index)) {
+                        found[slot] = found[slot - 1];
+                        slot--;
+                    }
+                    found[slot] = index;
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Packs the direction of a move and the cell it started from into a link byte.
+     * The parent lies within one cell of the child cell less the move, so each offset is stored in two bits.
+     */
+    private static byte link(int direction, int column, int row, int parentColumn, int parentRow) {
+        int columnOffset = parentColumn - parentBase(column, MoveStepTable.lngStep(direction)) + 1;
+        int rowOffset = parentRow - parentBase(row, MoveStepTable.latStep(direction)) + 1;
+        if (columnOffset < 0 || columnOffset > 3 || rowOffset < 0 || rowOffset > 3) {
+            throw new IllegalStateException("Move does not end next to its parent cell");
+        }
+        return (byte) (direction | columnOffset << 4 | rowOffset << 6);
+    }
+
+    /**
+     * Gets the lower of the two cell coordinates a parent can have when a move of the given delta reaches the child cell
+     */
+    private static int parentBase(int childCell, double step) {
+        return (int) Math.floor(childCell - step / CELL);
+    }
+
+    private static double squaredDistance(double lng, double lat, PositionDto root) {
+        double dLng = lng - root.getLng();
+        double dLat = lat - root.getLat();
+        return dLng * dLng + dLat * dLat;
+    }
+}
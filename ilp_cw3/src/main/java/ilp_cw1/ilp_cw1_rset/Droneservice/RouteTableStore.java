@@ -0,0 +1,271 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import data.PositionDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Route tables of the service points and the landmark set of the search heuristic, built in the background.
+ * Service points are few and fixed while task locations keep changing, so one {@link RouteTable} flood per
+ * service point answers the outbound and return legs of every tour from it without a search.
+ * Tables and landmarks are only used with the restricted areas they were built around; when the areas change,
+ * they are rebuilt in the background and legs are searched as usual until the new ones are ready.
+ */
+public final class RouteTableStore {
+
+    /** Default table size limit of the service, in lattice cells */
+    public static final int DEFAULT_MAX_CELLS = 1_000_000;
+
+    /** Default landmark count of the service */
+    public static final int DEFAULT_MAX_LANDMARKS = 8;
+
+    /** Default size limit of one landmark flood, in lattice cells */
+    public static final int DEFAULT_LANDMARK_MAX_CELLS = 250_000;
+
+    private final Map<Root, Entry> tables = new ConcurrentHashMap<>();
+    private final Set<Root> building = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+    private ExecutorService builder;
+    private volatile int maxCells;
+
+    private volatile LandmarkSet landmarkSet;
+    private final AtomicBoolean buildingLandmarks = new AtomicBoolean();
+    private volatile int maxLandmarks;
+    private volatile int landmarkMaxCells = DEFAULT_LANDMARK_MAX_CELLS;
+
+    /**
+     * Creates a store
+     * @param maxCells largest number of nodes in one table, 0 disables route tables
+     */
+    public RouteTableStore(int maxCells) {
+        setMaxCells(maxCells);
+    }
+
+    /**
+     * Sets the size limit of the tables; existing tables are dropped
+     * @param maxCells largest number of nodes in one table, 0 disables route tables
+     */
+    public void setMaxCells(int maxCells) {
+        if (maxCells < 0) {
+            throw new IllegalArgumentException("Route table size cannot be negative");
+        }
+        this.maxCells = maxCells;
+        tables.clear();
+        landmarkSet = null;
+    }
+
+    /**
+     * Sets the number of landmarks of the search heuristic
+     * @param maxLandmarks largest number of landmarks, 0 disables the landmark heuristic
+     */
+    public void setMaxLandmarks(int maxLandmarks) {
+        if (maxLandmarks < 0) {
+            throw new IllegalArgumentException("Landmark count cannot be negative");
+        }
+        this.maxLandmarks = maxLandmarks;
+        landmarkSet = null;
+    }
+
+    /**
+     * Sets the size limit of each landmark flood; the existing landmark set is dropped
+     * @param maxCells largest number of nodes in one landmark flood
+     */
+    public void setLandmarkMaxCells(int maxCells) {
+        if (maxCells < 1) {
+            throw new IllegalArgumentException("Landmark flood size must be positive");
+        }
+        this.landmarkMaxCells = maxCells;
+        landmarkSet = null;
+    }
+
+    /**
+     * Gets the landmark set of an area set, building it in the background when it is missing or outdated
+     * @param areaIndex index over the current restricted areas
+     * @param moveCheck safety check for a single move against these areas
+     * @return the landmark set, or null if landmarks are disabled or not ready for these areas
+     */
+    public LandmarkSet landmarks(RestrictedAreaIndex areaIndex, BidirectionalLatticeSearch.MoveCheck moveCheck) {
+        if (maxLandmarks == 0 || !isEnabled()) {
+            return null;
+        }
+        LandmarkSet current = landmarkSet;
+        if (current != null && current.getFingerprint() == areaIndex.fingerprint()) {
+            return current;
+        }
+        if (buildingLandmarks.compareAndSet(false, true)) {
+            List<PositionDto> servicePoints = new ArrayList<>();
+            for (Root root : tables.keySet()) {
+                servicePoints.add(new PositionDto(root.lng, root.lat));
+            }
+            int landmarkLimit = maxLandmarks;
+            int cellLimit = landmarkMaxCells;
+            execute(() -> {
+                try {
+                    landmarkSet = LandmarkSet.build(areaIndex, servicePoints, moveCheck, landmarkLimit, cellLimit);
+                } catch (RuntimeException e) {
+                    System.err.println("Warning: Failed to build landmarks: " + e.getMessage());
+                } finally {
+                    buildingLandmarks.set(false);
+                }
+            });
+        }
+        return null;
+    }
+
+    public boolean isEnabled() {
+        return maxCells > 0;
+    }
+
+    /**
+     * Makes sure a table for a service point exists for the given areas and radius, building it in the background.
+     * When the areas have changed, the tables of all other known service points are rebuilt too.
+     * @param servicePoint the service point
+     * @param areaIndex index over the current restricted areas
+     * @param moveCheck safety check for a single move against these areas
+     * @param radiusMoves largest move count the table should cover, capped at {@link MoveCountGrid#MAX_MOVES}
+     */
+    public void ensure(PositionDto servicePoint, RestrictedAreaIndex areaIndex,
+                       BidirectionalLatticeSearch.MoveCheck moveCheck, int radiusMoves) {
+        if (!isEnabled()) {
+            return;
+        }
+        radiusMoves = Math.min(radiusMoves, MoveCountGrid.MAX_MOVES);
+        long fingerprint = areaIndex.fingerprint();
+        Root root = new Root(servicePoint.getLng(), servicePoint.getLat());
+        for (Map.Entry<Root, Entry> known : tables.entrySet()) {
+            if (known.getValue().fingerprint != fingerprint && !known.getKey().equals(root)) {
+                schedule(known.getKey(), fingerprint, moveCheck, known.getValue().table.getRadiusMoves());
+            }
+        }
+        Entry entry = tables.get(root);
+        if (entry == null || entry.fingerprint != fingerprint
+                || (entry.table.getRadiusMoves() < radiusMoves && !entry.table.isTruncated())) {
+            schedule(root, fingerprint, moveCheck, entry == null ? radiusMoves
+                    : Math.max(radiusMoves, entry.table.getRadiusMoves()));
+        }
+    }
+
+    /**
+     * Looks up a leg starting or ending at a service point with a ready table
+     * @param start leg start
+     * @param goal leg goal
+     * @param areaFingerprint fingerprint of the restricted areas the leg avoids
+     * @param moveCheck safety check for the moves of return legs
+     * @return positions from the start to within one move of the goal, or null if no table answers the leg
+     */
+    public List<PositionDto> lookup(PositionDto start, PositionDto goal, long areaFingerprint,
+                                    BidirectionalLatticeSearch.MoveCheck moveCheck) {
+        if (!isEnabled() || tables.isEmpty()) {
+            return null;
+        }
+        Entry outbound = tables.get(new Root(start.getLng(), start.getLat()));
+        if (outbound != null && outbound.fingerprint == areaFingerprint) {
+            List<PositionDto> path = outbound.table.pathTo(goal.getLng(), goal.getLat());
+            if (path != null) {
+                return path;
+            }
+        }
+        Entry inbound = tables.get(new Root(goal.getLng(), goal.getLat()));
+        if (inbound != null && inbound.fingerprint == areaFingerprint) {
+            return inbound.table.pathFrom(start.getLng(), start.getLat(), moveCheck);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the ready table of a service point
+     * @param servicePoint the service point
+     * @param areaFingerprint fingerprint of the restricted areas
+     * @return the table, or null if none is ready for these areas
+     */
+    public RouteTable getTable(PositionDto servicePoint, long areaFingerprint) {
+        Entry entry = tables.get(new Root(servicePoint.getLng(), servicePoint.getLat()));
+        return entry != null && entry.fingerprint == areaFingerprint ? entry.table : null;
+    }
+
+    /**
+     * Stops the background builder; a new one is started when the next table is needed
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            if (builder != null) {
+                builder.shutdownNow();
+                builder = null;
+            }
+        }
+    }
+
+    private void schedule(Root root, long fingerprint, BidirectionalLatticeSearch.MoveCheck moveCheck,
+                          int radiusMoves) {
+        if (!building.add(root)) {
+            return;
+        }
+        int cellLimit = maxCells;
+        Runnable build = () -> {
+            try {
+                RouteTable table = RouteTable.build(new PositionDto(root.lng, root.lat), moveCheck,
+                        radiusMoves, cellLimit);
+                tables.put(root, new Entry(table, fingerprint));
+            } catch (RuntimeException e) {
+                System.err.println("Warning: Failed to build route table: " + e.getMessage());
+            } finally {
+                building.remove(root);
+            }
+        };
+        execute(build);
+    }
+
+    private void execute(Runnable task) {
+        synchronized (lock) {
+            if (builder == null) {
+                builder = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "route-table-builder");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            builder.execute(task);
+        }
+    }
+
+    private static final class Entry {
+        private final RouteTable table;
+        private final long fingerprint;
+
+        private Entry(RouteTable table, long fingerprint) {
+            this.table = table;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static final class Root {
+        private final double lng;
+        private final double lat;
+
+        private Root(double lng, double lat) {
+            this.lng = lng;
+            this.lat = lat;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Root)) return false;
+            Root other = (Root) o;
+            return Double.compare(lng, other.lng) == 0 && Double.compare(lat, other.lat) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lng, lat);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import java.util.Arrays;
+
+/**
+ * Reusable storage for one lattice search: the node table, the open set, the neighbour buffer and the
+ * per-node arrays of a bidirectional search side.
+ * Planning runs thousands of leg searches, so each thread keeps a few arenas and hands them out again
+ * instead of allocating and growing fresh tables for every search. Acquiring an arena empties it in
+ * constant time; the node table moves to a new generation and the open set drops its queued entries.
+ * An arena is used by the thread that acquired it until it is released.
+ */
+public class SearchArena implements AutoCloseable {
+
+    private static final int INITIAL_NODES = 4096;
+
+    /** Arenas kept per thread: a bidirectional search needs two, a nested search one more */
+    private static final int ARENAS_PER_THREAD = 4;
+
+    /**
+     * Arenas that grew beyond this many nodes are dropped on release rather than kept for the thread.
+     * Well below the node cap of a search, so only the few searches that come near the cap allocate afresh,
+     * and a thread keeps at most a few megabytes per arena.
+     */
+    private static final int MAX_RETAINED_NODES = 1 << 16;
+
+    private static final ThreadLocal<SearchArena[]> ARENAS =
+            ThreadLocal.withInitial(() -> new SearchArena[ARENAS_PER_THREAD]);
+
+    private final LatticeNodeTable nodes = new LatticeNodeTable(INITIAL_NODES);
+    private final IndexedMinHeap openSet = new IndexedMinHeap(INITIAL_NODES);
+    private final double[] neighborCoords = new double[MoveStepTable.DIRECTIONS * 2];
+    private final LatticeNodeTable cells = new LatticeNodeTable(INITIAL_NODES);
+    private int[] directions = new int[INITIAL_NODES];
+    private int[] cellHeads = new int[INITIAL_NODES];
+    private int[] cellLinks = new int[INITIAL_NODES];
+
+    private final int poolSlot;
+    private boolean inUse;
+
+    private SearchArena(int poolSlot) {
+        this.poolSlot = poolSlot;
+    }
+
+    /**
+     * Takes an empty arena of the current thread; release it with {@link #close()} when the search is done
+     * @return the arena, a fresh unpooled one if all arenas of the thread are in use
+     */
+    public static SearchArena acquire() {
+        SearchArena[] pool = ARENAS.get();
+        for (int slot = 0; slot < pool.length; slot++) {
+            SearchArena arena = pool[slot];
+            if (arena == null) {
+                arena = new SearchArena(slot);
+                pool[slot] = arena;
+            } else if (arena.inUse) {
+                continue;
+            } else {
+                arena.reset();
+            }
+            arena.inUse = true;
+            return arena;
+        }
+        return new SearchArena(-1);
+    }
+
+    /**
+     * Returns the arena to its thread; results must be copied out of it before
+     */
+    @Override
+    public void close() {
+        inUse = false;
+        if (poolSlot >= 0 && Math.max(Math.max(nodes.capacity(), cells.capacity()), directions.length)
+                > MAX_RETAINED_NODES) {
+            ARENAS.get()[poolSlot] = null;
+        }
+    }
+
+    public LatticeNodeTable nodes() {
+        return nodes;
+    }
+
+    public IndexedMinHeap openSet() {
+        return openSet;
+    }
+
+    public double[] neighborCoords() {
+        return neighborCoords;
+    }
+
+    /**
+     * Gets the table of one-move cells used to find the nodes near a position
+     * @return the cell table
+     */
+    public LatticeNodeTable cells() {
+        return cells;
+    }
+
+    /**
+     * Gets the array of move directions by node id, growing it to a minimum length
+     * @param minLength smallest length needed
+     * @return the array, with earlier entries kept
+     */
+    public int[] directions(int minLength) {
+        if (minLength > directions.length) {
+            directions = Arrays.copyOf(directions, Math.max(minLength, directions.length * 2));
+        }
+        return directions;
+    }
+
+    /**
+     * Gets the array of first nodes by cell id, growing it to a minimum length
+     * @param minLength smallest length needed
+     * @return the array, with earlier entries kept
+     */
+    public int[] cellHeads(int minLength) {
+        if (minLength > cellHeads.length) {
+            cellHeads = Arrays.copyOf(cellHeads, Math.max(minLength, cellHeads.length * 2));
+        }
+        return cellHeads;
+    }
+
+    /**
+     * Gets the array of next nodes in the same cell by node id, growing it to a minimum length
+     * @param minLength smallest length needed
+     * @return the array, with earlier entries kept
+     */
+    public int[] cellLinks(int minLength) {
+        if (minLength > cellLinks.length) {
+            cellLinks = Arrays.copyOf(cellLinks, Math.max(minLength, cellLinks.length * 2));
+        }
+        return cellLinks;
+    }
+
+    private void reset() {
+        nodes.clear();
+        openSet.clear();
+        cells.clear();
+    }
+}
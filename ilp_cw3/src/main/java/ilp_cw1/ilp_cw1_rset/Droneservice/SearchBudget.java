@@ -0,0 +1,150 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+/**
+ * Time and node expansion limit shared by all searches planning one leg.
+ * Searches call {@link #tryExpand()} before each expansion and stop once it returns false,
+ * which bounds the latency of a leg no matter how hard it is to plan.
+ * The budget also caps the nodes a single search may store: a search asks {@link #allowsNodes(int)} before
+ * storing another node and gives up when refused, so the leg can be finished by a memory-bounded search.
+ * Instances are used by a single thread; a search running on several threads gives each a part from
+ * {@link #split(int)}.
+ */
+public class SearchBudget {
+
+    /** The clock is read once per this many expansions */
+    private static final int CLOCK_INTERVAL = 256;
+
+    private final long deadlineNanos;
+    private final long maxExpansions;
+    private final int maxNodes;
+    private long expansions;
+    private boolean exhausted;
+    private int nodeCapHits;
+
+    /**
+     * Creates a budget starting now
+     * @param timeBudgetMillis wall-clock limit in milliseconds, 0 for none
+     * @param maxExpansions limit on node expansions, 0 for none
+     */
+    public SearchBudget(long timeBudgetMillis, long maxExpansions) {
+        this(timeBudgetMillis, maxExpansions, 0);
+    }
+
+    /**
+     * Creates a budget starting now
+     * @param timeBudgetMillis wall-clock limit in milliseconds, 0 for none
+     * @param maxExpansions limit on node expansions, 0 for none
+     * @param maxNodes limit on the nodes stored by one search, 0 for none
+     */
+    public SearchBudget(long timeBudgetMillis, long maxExpansions, int maxNodes) {
+        if (timeBudgetMillis < 0 || maxExpansions < 0 || maxNodes < 0) {
+            throw new IllegalArgumentException("Search budget cannot be negative");
+        }
+        this.deadlineNanos = timeBudgetMillis == 0 ? 0 : System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        this.maxExpansions = maxExpansions;
+        this.maxNodes = maxNodes;
+    }
+
+    private SearchBudget(long deadlineNanos, long maxExpansions, int maxNodes, boolean exhausted) {
+        this.deadlineNanos = deadlineNanos;
+        this.maxExpansions = maxExpansions;
+        this.maxNodes = maxNodes;
+        this.exhausted = exhausted;
+    }
+
+    /**
+     * Creates a budget without limits
+     * @return the budget
+     */
+    public static SearchBudget unlimited() {
+        return new SearchBudget(0, 0);
+    }
+
+    /**
+     * Accounts for one node expansion
+     * @return true if the expansion may go ahead, false once the budget is spent
+     */
+    public boolean tryExpand() {
+        if (exhausted) {
+            return false;
+        }
+        expansions++;
+        if (maxExpansions > 0 && expansions > maxExpansions) {
+            exhausted = true;
+        } else if (deadlineNanos != 0 && expansions % CLOCK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0) {
+            exhausted = true;
+        }
+        return !exhausted;
+    }
+
+    /**
+     * Checks whether a search has stopped because of this budget
+     * @return true if the budget is spent
+     */
+    public boolean isExhausted() {
+        if (!exhausted && deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0) {
+            exhausted = true;
+        }
+        return exhausted;
+    }
+
+    /**
+     * Checks whether a search may store one more node, counting a refusal as a hit of the node cap
+     * @param storedNodes nodes the search already stores
+     * @return true if the node may be stored
+     */
+    public boolean allowsNodes(int storedNodes) {
+        if (maxNodes == 0 || storedNodes < maxNodes) {
+            return true;
+        }
+        nodeCapHits++;
+        return false;
+    }
+
+    /**
+     * Splits what is left of this budget between searches running in parallel.
+     * Every part keeps the deadline and gets an equal share of the expansions left and of the node cap
+     * @param parts number of parts
+     * @return the parts, to be handed back with {@link #absorb(SearchBudget)} once their searches finished
+     */
+    public SearchBudget[] split(int parts) {
+        if (parts < 1) {
+            throw new IllegalArgumentException("A budget is split into at least one part");
+        }
+        long expansionsLeft = maxExpansions == 0 ? 0 : Math.max(1, (maxExpansions - expansions) / parts);
+        int nodesPerPart = maxNodes == 0 ? 0 : Math.max(1, maxNodes / parts);
+        SearchBudget[] split = new SearchBudget[parts];
+        for (int i = 0; i < parts; i++) {
+            split[i] = new SearchBudget(deadlineNanos, expansionsLeft, nodesPerPart, isExhausted());
+        }
+        return split;
+    }
+
+    /**
+     * Accounts for the expansions and node cap hits of a part from {@link #split(int)}
+     * @param part a part whose search has finished
+     */
+    public void absorb(SearchBudget part) {
+        expansions += part.expansions;
+        nodeCapHits += part.nodeCapHits;
+        if (part.exhausted || (maxExpansions > 0 && expansions > maxExpansions)) {
+            exhausted = true;
+        }
+    }
+
+    public long getExpansions() {
+        return expansions;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Gets how often a search was refused a node; a search that failed while this grew stopped at the cap
+     * @return number of refusals
+     */
+    public int getNodeCapHits() {
+        return nodeCapHits;
+    }
+}
@@ -0,0 +1,110 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Ray-casting point-in-polygon test over several points per instruction, using the JDK Vector API.
+ * Each lane holds one point; every edge is tested against all lanes at once with the same operations, in
+ * the same order, as {@link PreparedPolygon#contains}, so the crossing parity of every lane is bit-identical.
+ * The exact on-edge test is run per lane, only for lanes inside the bounding box of an edge.
+ *
+ * Only {@link BulkContainment} refers to this class, and only when the jdk.incubator.vector module is present,
+ * so the class is never loaded without it.
+ */
+final class VectorContainment {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorContainment() {
+    }
+
+    /**
+     * Gets the number of points tested per instruction
+     * @return the lane count of the preferred species
+     */
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Checks whether each point lies inside the polygon or on one of its edges
+     * @param polygon the polygon
+     * @param lngs point longitudes
+     * @param lats point latitudes
+     * @param count number of points
+     * @param out receives the answer of each point
+     */
+    static void contains(PreparedPolygon polygon, double[] lngs, double[] lats, int count, boolean[] out) {
+        double[] coords = polygon.packedCoordinates();
+        int edges = polygon.getVertexCount() - 1;
+        int lanes = SPECIES.length();
+        int bound = SPECIES.loopBound(count);
+        double minLng = polygon.getMinLng() - polygon.getLngMargin();
+        double maxLng = polygon.getMaxLng() + polygon.getLngMargin();
+
+        int start = 0;
+        for (; start < bound; start += lanes) {
+            DoubleVector pointLng = DoubleVector.fromArray(SPECIES, lngs, start);
+            DoubleVector pointLat = DoubleVector.fromArray(SPECIES, lats, start);
+            // Lanes rejected by the bounding box of PreparedPolygon#contains stay false
+            VectorMask<Double> inBox = pointLat.compare(VectorOperators.GE, polygon.getMinLat())
+                    .and(pointLat.compare(VectorOperators.LE, polygon.getMaxLat()))
+                    .and(pointLng.compare(VectorOperators.LE, maxLng));
+            if (polygon.isClosed()) {
+                inBox = inBox.and(pointLng.compare(VectorOperators.GE, minLng));
+            }
+            if (!inBox.anyTrue()) {
+                for (int lane = 0; lane < lanes; lane++) {
+                    out[start + lane] = false;
+                }
+                continue;
+            }
+
+            VectorMask<Double> inside = SPECIES.maskAll(false);
+            long onEdge = 0;
+
+            for (int i = 0; i < edges; i++) {
+                double currLng = coords[2 * i];
+                double currLat = coords[2 * i + 1];
+                double nextLng = coords[2 * i + 2];
+                double nextLat = coords[2 * i + 3];
+
+                // Lanes within the edge's bounding box may lie on it; the exact test decides them one by one
+                VectorMask<Double> nearEdge = pointLat.compare(VectorOperators.GE, Math.min(currLat, nextLat))
+                        .and(pointLat.compare(VectorOperators.LE, Math.max(currLat, nextLat)))
+                        .and(pointLng.compare(VectorOperators.GE, Math.min(currLng, nextLng)))
+                        .and(pointLng.compare(VectorOperators.LE, Math.max(currLng, nextLng)));
+                long candidates = nearEdge.and(inBox).toLong() & ~onEdge;
+                while (candidates != 0) {
+                    int lane = Long.numberOfTrailingZeros(candidates);
+                    candidates &= candidates - 1;
+                    if (PreparedPolygon.isPointOnEdge(lngs[start + lane], lats[start + lane],
+                            currLng, currLat, nextLng, nextLat)) {
+                        onEdge |= 1L << lane;
+                    }
+                }
+
+                // (currLat > pointLat) != (nextLat > pointLat), then the crossing longitude as the scalar test computes it
+                VectorMask<Double> straddles = pointLat.compare(VectorOperators.LT, currLat)
+                        .eq(pointLat.compare(VectorOperators.LT, nextLat)).not();
+                if (!straddles.anyTrue()) {
+                    continue;
+                }
+                DoubleVector crossing = pointLat.sub(currLat).mul(nextLng - currLng).div(nextLat - currLat).add(currLng);
+                VectorMask<Double> crosses = straddles.and(pointLng.compare(VectorOperators.LT, crossing));
+                inside = inside.eq(crosses).not();
+            }
+
+            long result = (inside.toLong() | onEdge) & inBox.toLong();
+            for (int lane = 0; lane < lanes; lane++) {
+                out[start + lane] = (result & (1L << lane)) != 0;
+            }
+        }
+        for (; start < count; start++) {
+            out[start] = polygon.contains(lngs[start], lats[start]);
+        }
+    }
+}
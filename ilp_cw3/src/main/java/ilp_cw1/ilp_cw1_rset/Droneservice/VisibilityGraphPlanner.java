@@ -0,0 +1,182 @@
+package ilp_cw1.ilp_cw1_rset.Droneservice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Coarse any-angle route planning on a visibility graph of restricted area vertices.
+ * Every convex vertex of a closed area contributes a waypoint pushed slightly outside the area along
+ * its bisector; two waypoints are connected when the straight segment between them passes the exact
+ * move safety tests. The shortest route from start to goal over these waypoints is found with A*,
+ * testing visibility lazily only for edges that would improve a waypoint.
+ *
+ * The route is not a legal flight path by itself; it guides the lattice search through a {@link RouteCorridor}.
+ */
+public class VisibilityGraphPlanner {
+
+    /** Distance waypoints are kept from the vertex they are derived from */
+    public static final double VERTEX_CLEARANCE = 2 * MoveLattice.STEP;
+
+    /** Largest number of waypoints planned over; denser maps are left to the lattice search alone */
+    public static final int MAX_WAYPOINTS = 1500;
+
+    private VisibilityGraphPlanner() {
+    }
+
+    /**
+     * Finds a coarse route between two points
+     * @param startLng start longitude
+     * @param startLat start latitude
+     * @param goalLng goal longitude
+     * @param goalLat goal latitude
+     * @param areaIndex spatial index over the restricted areas to avoid
+     * @return the route as packed coordinates (lng0, lat0, lng1, lat1, ...) from start to goal,
+     *         or null if no route exists over the waypoints or there are too many waypoints
+     */
+    public static double[] coarseRoute(double startLng, double startLat, double goalLng, double goalLat,
+                                       RestrictedAreaIndex areaIndex) {
+        if (isSegmentClear(startLng, startLat, goalLng, goalLat, areaIndex)) {
+            return new double[]{startLng, startLat, goalLng, goalLat};
+        }
+
+        double[] nodes = waypoints(startLng, startLat, goalLng, goalLat, areaIndex);
+        int count = nodes.length / 2;
+        if (count - 2 > MAX_WAYPOINTS) {
+            return null;
+        }
+
+        // Node 0 is the start and node 1 the goal
+        double[] gScore = new double[count];
+        int[] parent = new int[count];
+        boolean[] closed = new boolean[count];
+        Arrays.fill(gScore, Double.POSITIVE_INFINITY);
+        Arrays.fill(parent, -1);
+        IndexedMinHeap openSet = new IndexedMinHeap(count);
+        gScore[0] = 0.0;
+        openSet.insertOrDecrease(0, ilpService.euclideanDistance(startLng, startLat, goalLng, goalLat));
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            if (current == 1) {
+                return routeTo(nodes, parent);
+            }
+            closed[current] = true;
+            double currentLng = nodes[2 * current];
+            double currentLat = nodes[2 * current + 1];
+
+            for (int next = 1; next < count; next++) {
+                if (closed[next]) {
+                    continue;
+                }
+                double nextLng = nodes[2 * next];
+                double nextLat = nodes[2 * next + 1];
+                double tentative = gScore[current] + ilpService.euclideanDistance(currentLng, currentLat, nextLng, nextLat);
+                if (tentative >= gScore[next]
+                        || !isSegmentClear(currentLng, currentLat, nextLng, nextLat, areaIndex)) {
+                    continue;
+                }
+                gScore[next] = tentative;
+                parent[next] = current;
+                openSet.insertOrDecrease(next, tentative + ilpService.euclideanDistance(nextLng, nextLat, goalLng, goalLat));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the start, goal and vertex waypoints, dropping waypoints inside any area
+     */
+    private static double[] waypoints(double startLng, double startLat, double goalLng, double goalLat,
+                                      RestrictedAreaIndex areaIndex) {
+        List<double[]> points = new ArrayList<>();
+        points.add(new double[]{startLng, startLat});
+        points.add(new double[]{goalLng, goalLat});
+
+        for (PreparedPolygon polygon : areaIndex.closedPolygons()) {
+            double[] coords = polygon.packedCoordinates();
+            // The last vertex repeats the first one
+            int distinct = polygon.getVertexCount() - 1;
+            for (int i = 0; i < distinct; i++) {
+                int previous = (i + distinct - 1) % distinct;
+                int next = (i + 1) % distinct;
+                double[] waypoint = offsetVertex(
+                        coords[2 * previous], coords[2 * previous + 1],
+                        coords[2 * i], coords[2 * i + 1],
+                        coords[2 * next], coords[2 * next + 1]);
+                if (waypoint != null && isPointClear(waypoint[0], waypoint[1], areaIndex)) {
+                    points.add(waypoint);
+                }
+            }
+            if (points.size() - 2 > MAX_WAYPOINTS) {
+                break;
+            }
+        }
+
+        double[] packed = new double[points.size() * 2];
+        for (int i = 0; i < points.size(); i++) {
+            packed[2 * i] = points.get(i)[0];
+            packed[2 * i + 1] = points.get(i)[1];
+        }
+        return packed;
+    }
+
+    /**
+     * Moves a vertex away from both of its edges along the bisector.
+     * For reflex vertices this points into the area, and the waypoint is then dropped as unsafe.
+     * @return the waypoint, or null if the vertex has a zero-length or straight edge pair
+     */
+    private static double[] offsetVertex(double previousLng, double previousLat, double lng, double lat,
+                                         double nextLng, double nextLat) {
+        double inLength = ilpService.euclideanDistance(previousLng, previousLat, lng, lat);
+        double outLength = ilpService.euclideanDistance(nextLng, nextLat, lng, lat);
+        if (inLength == 0 || outLength == 0) {
+            return null;
+        }
+        double directionLng = (lng - previousLng) / inLength + (lng - nextLng) / outLength;
+        double directionLat = (lat - previousLat) / inLength + (lat - nextLat) / outLength;
+        double directionLength = Math.hypot(directionLng, directionLat);
+        if (directionLength < 1e-9) {
+            return null;
+        }
+        return new double[]{
+                lng + directionLng / directionLength * VERTEX_CLEARANCE,
+                lat + directionLat / directionLength * VERTEX_CLEARANCE
+        };
+    }
+
+    private static boolean isPointClear(double lng, double lat, RestrictedAreaIndex areaIndex) {
+        for (PreparedPolygon polygon : areaIndex.candidatePolygons(lng, lat, lng, lat)) {
+            if (polygon.contains(lng, lat)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSegmentClear(double lng1, double lat1, double lng2, double lat2,
+                                          RestrictedAreaIndex areaIndex) {
+        for (PreparedPolygon polygon : areaIndex.candidatePolygons(lng1, lat1, lng2, lat2)) {
+            if (polygon.contains(lng1, lat1) || polygon.contains(lng2, lat2)
+                    || polygon.intersectsSegment(lng1, lat1, lng2, lat2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double[] routeTo(double[] nodes, int[] parent) {
+        int length = 0;
+        for (int node = 1; node != -1; node = parent[node]) {
+            length++;
+        }
+        double[] route = new double[length * 2];
+        int position = length - 1;
+        for (int node = 1; node != -1; node = parent[node]) {
+            route[2 * position] = nodes[2 * node];
+            route[2 * position + 1] = nodes[2 * node + 1];
+            position--;
+        }
+        return route;
+    }
+}
@@ -1,14 +1,28 @@
 package ilp_cw1.ilp_cw1_rset.Droneservice;
 
 import data.*;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
 import java.util.stream.Collectors;
 
+import static ilp_cw1.ilp_cw1_rset.Droneservice.ilpService.euclideanDistance;
+
 /**
  * Service class for drone operations including data retrieval, query processing,
  * path calculation, and delivery optimization
@@ -313,8 +327,8 @@ public class droneService {
         }
 
         // Then add movement count check
-        double distanceToTask = ilpService.distanceCalculate(new DistanceRequest(servicePoint, taskLocation));
-        int estimatedMovesToTask = (int) Math.ceil(distanceToTask / 0.00015);
+        double distanceToTask = distanceBetween(servicePoint, taskLocation);
+        int estimatedMovesToTask = minimumMoves(distanceToTask, servicePoint, taskLocation);
 
         int totalEstimatedMoves = estimatedMovesToTask;
         if (includeReturn) {
@@ -378,8 +392,7 @@ public class droneService {
 
         double fixedCost = costInitial + costFinal;
 
-        double totalDistance = calculateSequentialPathDistance(servicePoint, tasks, taskLocations);
-        int totalMoves = (int) Math.ceil(totalDistance / 0.00015);
+        int totalMoves = calculateSequentialPathMoves(servicePoint, tasks, taskLocations);
 
         int hoverMoves = tasks.size() + 1;
         totalMoves += hoverMoves;
@@ -388,7 +401,6 @@ public class droneService {
 
         System.out.println("Cost estimation for drone " + drone.getId() + ":");
         System.out.println("  - Path: ServicePoint → " + tasks.size() + " tasks → ServicePoint");
-        System.out.println("  - Total distance: " + String.format("%.6f", totalDistance));
         System.out.println("  - Total moves: " + totalMoves + " (flight: " + (totalMoves - hoverMoves) + ", hover: " + hoverMoves + ")");
         System.out.println("  - Fixed cost: " + fixedCost);
         System.out.println("  - Move cost: " + (totalMoves * costPerMove));
@@ -397,17 +409,18 @@ public class droneService {
         return totalCost;
     }
 
-    private double calculateSequentialPathDistance(PositionDto servicePoint,
-                                                   List<MedDispatchRec> tasks,
-                                                   Map<Integer, PositionDto> taskLocations) {
-        double totalDistance = 0.0;
+    private int calculateSequentialPathMoves(PositionDto servicePoint,
+                                             List<MedDispatchRec> tasks,
+                                             Map<Integer, PositionDto> taskLocations) {
+        int totalMoves = 0;
         PositionDto currentPosition = servicePoint;
 
         // From service point to first task
         if (!tasks.isEmpty()) {
             PositionDto firstTask = taskLocations.get(tasks.get(0).getId());
             if (firstTask != null) {
-                totalDistance += ilpService.distanceCalculate(new DistanceRequest(currentPosition, firstTask));
+                totalMoves += minimumMoves(distanceBetween(currentPosition, firstTask),
+                        currentPosition, firstTask);
                 currentPosition = firstTask;
             }
         }
@@ -416,17 +429,19 @@ public class droneService {
         for (int i = 1; i < tasks.size(); i++) {
             PositionDto nextTask = taskLocations.get(tasks.get(i).getId());
             if (nextTask != null) {
-                totalDistance += ilpService.distanceCalculate(new DistanceRequest(currentPosition, nextTask));
+                totalMoves += minimumMoves(distanceBetween(currentPosition, nextTask),
+                        currentPosition, nextTask);
                 currentPosition = nextTask;
             }
         }
 
         // Return from last task to service point
         if (!tasks.isEmpty()) {
-            totalDistance += ilpService.distanceCalculate(new DistanceRequest(currentPosition, servicePoint));
+            totalMoves += minimumMoves(distanceBetween(currentPosition, servicePoint),
+                    currentPosition, servicePoint);
         }
 
-        return totalDistance;
+        return totalMoves;
     }
 
     public boolean isDroneWithinBudget(Drone drone, List<MedDispatchRec> tasks,
@@ -599,13 +614,41 @@ public class droneService {
      * @param servicePoint the drone's service point location
      * @param taskLocations map of task locations
      * @param restrictedAreas list of restricted areas to avoid
-     * @return calculated drone path
+     * @return calculated drone path, or null if the drone cannot complete the tasks within its move limit
+     *         or a leg search ran out of budget first
      */
     public DeliveryPathResponse.DronePath calculateSingleDronePath(Drone drone,
                                                                    List<MedDispatchRec> tasks,
                                                                    PositionDto servicePoint,
                                                                    Map<Integer, PositionDto> taskLocations,
                                                                    List<RestrictedArea> restrictedAreas) {
+        DronePathPlan plan = planSingleDronePath(drone, tasks, servicePoint, taskLocations, restrictedAreas);
+        if (!plan.isFeasible()) {
+            System.out.println("Drone " + drone.getId() + (plan.isBudgetExhausted() ? " not planned: " : " infeasible: ")
+                    + plan.getMessage());
+            return null;
+        }
+        return plan.getDronePath();
+    }
+
+    /**
+     * Plans the delivery path of a single drone handling multiple tasks within its move limit.
+     * The visiting order fixes the end points of every leg, so the legs are planned concurrently.
+     * Each leg is searched with the moves left after the lower bounds of all other legs,
+     * and the move count of the stitched tour is checked afterwards.
+     * @param drone the drone to calculate path for
+     * @param tasks list of tasks to deliver
+     * @param servicePoint the drone's service point location
+     * @param taskLocations map of task locations
+     * @param restrictedAreas list of restricted areas to avoid
+     * @return the plan, feasible with the drone path, infeasible with the reason, or budget exhausted when a leg
+     *         search stopped before it could tell
+     */
+    public DronePathPlan planSingleDronePath(Drone drone,
+                                             List<MedDispatchRec> tasks,
+                                             PositionDto servicePoint,
+                                             Map<Integer, PositionDto> taskLocations,
+                                             List<RestrictedArea> restrictedAreas) {
         List<DeliveryPathResponse.Delivery> deliveries = new ArrayList<>();
         PositionDto currentPosition = servicePoint;
         int totalMoves = 0;
@@ -614,6 +657,59 @@ public class droneService {
             throw new IllegalArgumentException("Service point for drone " + drone.getId() + " cannot be null");
         }
 
+        // Leg i flies from stop i to stop i + 1, with the service point as first and last stop
+        List<PositionDto> stops = new ArrayList<>(tasks.size() + 2);
+        stops.add(servicePoint);
+        for (MedDispatchRec task : tasks) {
+            PositionDto location = taskLocations.get(task.getId());
+            if (location == null) {
+                throw new IllegalArgumentException("Location for task " + task.getId() + " does not exist");
+            }
+            stops.add(location);
+        }
+        stops.add(servicePoint);
+
+        // Every leg ends with a hover move
+        int maxMoves = drone.getCapability().getMaxMoves();
+        int[] minimumLegMoves = new int[stops.size() - 1];
+        int minimumTourMoves = 0;
+        for (int i = 0; i < minimumLegMoves.length; i++) {
+            minimumLegMoves[i] = minimumMoves(stops.get(i), stops.get(i + 1));
+            minimumTourMoves += minimumLegMoves[i] + 1;
+        }
+        if (minimumTourMoves > maxMoves) {
+            return DronePathPlan.infeasible(drone.getId(), "Tour needs at least " + minimumTourMoves +
+                    " moves, maximum is " + maxMoves);
+        }
+
+        // Every stop of a tour is at most half the move limit from the service point
+        if (routeTables.isEnabled()) {
+            RestrictedAreaIndex areaIndex = getRestrictedAreaIndex(restrictedAreas);
+            routeTables.ensure(servicePoint, areaIndex,
+                    (fromLng, fromLat, toLng, toLat) -> isMoveSafe(fromLng, fromLat, toLng, toLat, areaIndex),
+                    maxMoves / 2);
+        }
+
+        int[] legMoveLimits = new int[minimumLegMoves.length];
+        for (int i = 0; i < legMoveLimits.length; i++) {
+            legMoveLimits[i] = maxMoves - minimumTourMoves + minimumLegMoves[i];
+        }
+        List<BoundedLeg> legs = planLegs(stops, legMoveLimits, restrictedAreas);
+        List<List<PositionDto>> legPaths = new ArrayList<>(legs.size());
+        for (int i = 0; i < legs.size(); i++) {
+            String leg = i < tasks.size() ? "task " + tasks.get(i).getId() : "the return";
+            if (legs.get(i).budgetExhausted()) {
+                return DronePathPlan.budgetExhausted(drone.getId(), "Search budget ran out planning the path to " +
+                        leg + " within " + legMoveLimits[i] + " moves");
+            }
+            if (legs.get(i).path() == null) {
+                return DronePathPlan.infeasible(drone.getId(), (i < tasks.size()
+                        ? "No path to task " + tasks.get(i).getId()
+                        : "No return path") + " within " + legMoveLimits[i] + " moves");
+            }
+            legPaths.add(legs.get(i).path());
+        }
+
         System.out.println("=== Starting Single Drone Path Calculation ===");
         System.out.println("Drone: " + drone.getId() + ", Service Point: (" +
                 servicePoint.getLng() + ", " + servicePoint.getLat() + ")");
@@ -631,7 +727,7 @@ public class droneService {
                     ") to (" + target.getLng() + ", " + target.getLat() + ")");
 
             // Convert A* returned path to modifiable ArrayList
-            List<PositionDto> flightPath = new ArrayList<>(calculateAStarPath(currentPosition, target, restrictedAreas, drone));
+            List<PositionDto> flightPath = new ArrayList<>(legPaths.get(i));
 
             if (!flightPath.isEmpty() && !isSamePosition(flightPath.get(0), currentPosition)) {
                 flightPath.add(0, currentPosition);
@@ -645,9 +741,9 @@ public class droneService {
 
             System.out.println("  Total moves so far: " + totalMoves);
 
-            if (totalMoves > drone.getCapability().getMaxMoves()) {
-                throw new IllegalArgumentException("Drone " + drone.getId() + " movement count exceeded: " +
-                        totalMoves + " > " + drone.getCapability().getMaxMoves());
+            if (totalMoves > maxMoves) {
+                return DronePathPlan.infeasible(drone.getId(), "Movement count exceeded: " +
+                        totalMoves + " > " + maxMoves);
             }
 
             if (!flightPath.isEmpty()) {
@@ -673,7 +769,7 @@ public class droneService {
             System.out.println("Return path needed - positions are different");
 
             // Convert return path to modifiable ArrayList
-            List<PositionDto> returnPath = new ArrayList<>(calculateAStarPath(currentPosition, servicePoint, restrictedAreas, drone));
+            List<PositionDto> returnPath = new ArrayList<>(legPaths.get(tasks.size()));
 
             if (!returnPath.isEmpty() && !isSamePosition(returnPath.get(0), currentPosition)) {
                 returnPath.add(0, currentPosition);
@@ -687,9 +783,9 @@ public class droneService {
             System.out.println("Return path calculated: " + returnPath.size() + " points, " + returnMoves + " moves + 1 hover move");
             System.out.println("Final total moves: " + totalMoves);
 
-            if (totalMoves > drone.getCapability().getMaxMoves()) {
-                throw new IllegalArgumentException("Drone " + drone.getId() + " total movement count exceeded: " +
-                        totalMoves + " > " + drone.getCapability().getMaxMoves());
+            if (totalMoves > maxMoves) {
+                return DronePathPlan.infeasible(drone.getId(), "Total movement count exceeded: " +
+                        totalMoves + " > " + maxMoves);
             }
 
             if (!returnPath.isEmpty()) {
@@ -765,7 +861,114 @@ public class droneService {
         dronePath.setDeliveries(deliveries);
 
         System.out.println("=== Single Drone Path Calculation Completed ===");
-        return dronePath;
+        return DronePathPlan.feasible(drone.getId(), dronePath);
+    }
+
+    /**
+     * Plans the legs between consecutive stops of a tour.
+     * Legs are searched concurrently on the leg planning pool; a leg between identical stops is not searched.
+     * @param stops stops of the tour in visiting order
+     * @param legMoveLimits largest number of moves of each leg
+     * @param restrictedAreas list of restricted areas to avoid
+     * @return outcome of each leg in tour order
+     */
+    private List<BoundedLeg> planLegs(List<PositionDto> stops, int[] legMoveLimits,
+                                      List<RestrictedArea> restrictedAreas) {
+        List<Callable<BoundedLeg>> legs = new ArrayList<>(legMoveLimits.length);
+        for (int i = 0; i < legMoveLimits.length; i++) {
+            PositionDto from = stops.get(i);
+            PositionDto to = stops.get(i + 1);
+            int moveLimit = legMoveLimits[i];
+            legs.add(isSamePosition(from, to)
+                    ? () -> new BoundedLeg(Collections.singletonList(from), false)
+                    : () -> planBoundedLeg(from, to, restrictedAreas, moveLimit));
+        }
+
+        List<BoundedLeg> legPaths = new ArrayList<>(legs.size());
+        ForkJoinPool pool = legPlanningPool();
+        if (pool == null || legs.size() < 2) {
+            for (Callable<BoundedLeg> leg : legs) {
+                try {
+                    legPaths.add(leg.call());
+                } catch (Exception e) {
+                    throw e instanceof RuntimeException ? (RuntimeException) e : new IllegalStateException(e);
+                }
+            }
+            return legPaths;
+        }
+
+        List<Future<BoundedLeg>> futures = new ArrayList<>(legs.size());
+        for (Callable<BoundedLeg> leg : legs) {
+            futures.add(pool.submit(leg));
+        }
+        try {
+            for (Future<BoundedLeg> future : futures) {
+                legPaths.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while planning legs", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } finally {
+            for (Future<BoundedLeg> future : futures) {
+                future.cancel(false);
+            }
+        }
+        return legPaths;
+    }
+
+    /**
+     * Gets the number of workers of a parallel search
+     * @return the configured count, or the number of processors for 0
+     */
+    private int searchThreads() {
+        return searchThreadCount > 0 ? searchThreadCount : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Gets the threads parallel searches run their workers on, creating them on first use
+     * @return executor with one thread less than the workers of a search
+     */
+    private ExecutorService searchWorkerPool() {
+        ExecutorService pool = searchWorkers;
+        if (pool == null) {
+            synchronized (searchWorkersLock) {
+                pool = searchWorkers;
+                if (pool == null) {
+                    pool = Executors.newFixedThreadPool(Math.max(1, searchThreads() - 1), runnable -> {
+                        Thread thread = new Thread(runnable, "lattice-search-worker");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    searchWorkers = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Gets the pool legs are planned on, creating it on first use
+     * @return the pool, or null if legs are planned one after another
+     */
+    private ForkJoinPool legPlanningPool() {
+        if (legParallelism == 1) {
+            return null;
+        }
+        ForkJoinPool pool = legPool;
+        if (pool == null) {
+            synchronized (legPoolLock) {
+                pool = legPool;
+                if (pool == null) {
+                    pool = new ForkJoinPool(legParallelism > 0
+                            ? legParallelism : Runtime.getRuntime().availableProcessors());
+                    legPool = pool;
+                }
+            }
+        }
+        return pool;
     }
 
     // ==============================================
@@ -997,6 +1200,12 @@ public class droneService {
             return assigned;
         }
 
+        // Distance of each task from the service point, computed once rather than on every comparison
+        Map<Integer, Double> distancesFromServicePoint = new HashMap<>();
+        for (MedDispatchRec task : feasibleTasks) {
+            distancesFromServicePoint.put(task.getId(), distanceBetween(servicePoint, taskLocations.get(task.getId())));
+        }
+
         List<MedDispatchRec> prioritizedTasks = feasibleTasks.stream()
                 .sorted((t1, t2) -> {
                     boolean t1hasTemp = t1.getRequirements().isCooling() || t1.getRequirements().isHeating();
@@ -1009,8 +1218,8 @@ public class droneService {
                     if (cap1 != cap2) {
                         return Double.compare(cap2, cap1);
                     }
-                    double dist1 = ilpService.distanceCalculate(new DistanceRequest(servicePoint, taskLocations.get(t1.getId())));
-                    double dist2 = ilpService.distanceCalculate(new DistanceRequest(servicePoint, taskLocations.get(t2.getId())));
+                    double dist1 = distancesFromServicePoint.get(t1.getId());
+                    double dist2 = distancesFromServicePoint.get(t2.getId());
                     return Double.compare(dist1, dist2);
                 })
                 .collect(Collectors.toList());
@@ -1020,8 +1229,8 @@ public class droneService {
             PositionDto taskLocation = taskLocations.get(task.getId());
 
             // Calculate round-trip movement count
-            double distance = ilpService.distanceCalculate(new DistanceRequest(servicePoint, taskLocation));
-            int estimatedMoves = (int) Math.ceil(distance / 0.00015) * 2; // Multiply by 2 for round trip
+            double distance = distancesFromServicePoint.get(task.getId());
+            int estimatedMoves = minimumMoves(distance, servicePoint, taskLocation) * 2; // Multiply by 2 for round trip
 
             if (taskCapacity <= remainingCapacity && estimatedMoves <= remainingMoves) {
                 assigned.add(task);
@@ -1046,6 +1255,21 @@ public class droneService {
      */
     public List<PositionDto> calculateAStarPath(PositionDto start, PositionDto goal,
                                                 List<RestrictedArea> restrictedAreas, Drone drone) {
+        return calculateAStarPath(start, goal, restrictedAreas, drone, SearchDirection.AUTO);
+    }
+
+    /**
+     * Calculates A* path between two points avoiding restricted areas, with a chosen search direction
+     * @param start starting position
+     * @param goal target position
+     * @param restrictedAreas list of restricted areas to avoid
+     * @param drone the drone for cost calculation
+     * @param direction FORWARD, BIDIRECTIONAL or PARALLEL, or AUTO to choose by the length of the leg
+     * @return list of positions forming the path
+     */
+    public List<PositionDto> calculateAStarPath(PositionDto start, PositionDto goal,
+                                                List<RestrictedArea> restrictedAreas, Drone drone,
+                                                SearchDirection direction) {
 
         for (RestrictedArea area : restrictedAreas) {
             if (isPointInPolygon(start, area.getVertices()) ||
@@ -1058,39 +1282,253 @@ public class droneService {
             return Collections.singletonList(start);
         }
 
-        PriorityQueue<AStarNode> openSet = new PriorityQueue<>();
-        Map<PositionDto, Double> gScore = new HashMap<>();
-        Map<PositionDto, AStarNode> nodeMap = new HashMap<>();
+        if (direction == SearchDirection.AUTO) {
+            direction = autoDirection(start, goal);
+        }
+        // Identical legs are planned by both the single- and multi-drone solutions and by later requests.
+        // Every direction returns a flyable path, so a leg is cached once whichever direction planned it
+        RestrictedAreaIndex areaIndex = getRestrictedAreaIndex(restrictedAreas);
+        LegPathCache.Key cacheKey = LegPathCache.key(areaIndex.fingerprint(), start, goal);
+        List<PositionDto> cachedPath = legPathCache.get(cacheKey);
+        if (cachedPath != null) {
+            return cachedPath;
+        }
+        List<PositionDto> tablePath = lookupRouteTable(start, goal, areaIndex);
+        if (tablePath != null) {
+            legPathCache.put(cacheKey, tablePath);
+            return tablePath;
+        }
 
-        AStarNode startNode = new AStarNode(start, heuristicCostEstimate(start, goal, drone), null);
-        gScore.put(start, 0.0);
-        openSet.add(startNode);
-        nodeMap.put(start, startNode);
+        SearchBudget budget = new SearchBudget(searchTimeBudgetMillis, searchMaxExpansions, searchMaxNodes);
+        List<PositionDto> path = searchAStarPath(start, goal, areaIndex, direction, budget,
+                Double.POSITIVE_INFINITY);
+        if (path == null) {
+            path = calculateFallbackPath(start, goal, restrictedAreas);
+            if (budget.isExhausted()) {
+                // The search was cut short rather than proven impossible, so a later call may do better
+                return path;
+            }
+        }
+        legPathCache.put(cacheKey, path);
+        return path;
+    }
 
-        while (!openSet.isEmpty()) {
-            AStarNode current = openSet.poll();
+    /**
+     * Chooses the search direction of a leg planned with {@link SearchDirection#AUTO} by its length
+     * @param start leg start
+     * @param goal leg goal
+     * @return PARALLEL for long legs while several search threads are configured, BIDIRECTIONAL for medium legs,
+     *         FORWARD otherwise
+     */
+    public SearchDirection autoDirection(PositionDto start, PositionDto goal) {
+        double length = euclideanDistance(start.getLng(), start.getLat(), goal.getLng(), goal.getLat());
+        return length >= parallelMinLength && searchThreads() > 1 ? SearchDirection.PARALLEL
+                : length >= bidirectionalMinLength ? SearchDirection.BIDIRECTIONAL
+                : SearchDirection.FORWARD;
+    }
 
-            if (ilpService.distanceCalculate(new DistanceRequest(current.position, goal)) < 0.00015) {
-                List<PositionDto> path = reconstructPath(current);
-                if (!path.isEmpty() && !isSamePosition(path.get(0), start)) {
-                    path.add(0, start);
-                }
+    /**
+     * Calculates A* path between two points avoiding restricted areas, within a move limit.
+     * The search prunes every node from which the goal cannot be reached within the limit,
+     * so a leg the drone cannot fly is rejected without planning it in full.
+     * @param start starting position
+     * @param goal target position
+     * @param restrictedAreas list of restricted areas to avoid
+     * @param drone the drone for cost calculation
+     * @param maxMoves largest number of moves the path may have
+     * @return list of positions forming the path, or null if the goal cannot be reached within maxMoves moves
+     *         or the search budget ran out before a path was found
+     */
+    public List<PositionDto> calculateAStarPath(PositionDto start, PositionDto goal,
+                                                List<RestrictedArea> restrictedAreas, Drone drone, int maxMoves) {
+        return planBoundedLeg(start, goal, restrictedAreas, maxMoves).path();
+    }
+
+    /**
+     * Outcome of planning a leg within a move limit
+     * @param path positions forming the path, or null if none was found
+     * @param budgetExhausted true if no path was found because the time budget or the node cap ran out,
+     *                        rather than because the search proved that none is short enough
+     */
+    public record BoundedLeg(List<PositionDto> path, boolean budgetExhausted) {
+    }
+
+    /**
+     * Plans a leg within a move limit, telling a leg that cannot be flown from one the search gave up on
+     * @param start starting position
+     * @param goal target position
+     * @param restrictedAreas list of restricted areas to avoid
+     * @param maxMoves largest number of moves the path may have
+     * @return the path, or no path with the reason
+     */
+    public BoundedLeg planBoundedLeg(PositionDto start, PositionDto goal, List<RestrictedArea> restrictedAreas,
+                                      int maxMoves) {
+        if (minimumMoves(start, goal) > maxMoves) {
+            return new BoundedLeg(null, false);
+        }
+
+        for (RestrictedArea area : restrictedAreas) {
+            if (isPointInPolygon(start, area.getVertices()) ||
+                    isPointInPolygon(goal, area.getVertices())) {
+                return new BoundedLeg(null, false);
+            }
+        }
+
+        if (isSamePosition(start, goal)) {
+            return new BoundedLeg(Collections.singletonList(start), false);
+        }
+
+        RestrictedAreaIndex areaIndex = getRestrictedAreaIndex(restrictedAreas);
+        LegPathCache.Key cacheKey = LegPathCache.key(areaIndex.fingerprint(), start, goal);
+        List<PositionDto> cachedPath = legPathCache.get(cacheKey);
+        if (cachedPath != null && cachedPath.size() - 1 <= maxMoves) {
+            return new BoundedLeg(cachedPath, false);
+        }
+        List<PositionDto> tablePath = lookupRouteTable(start, goal, areaIndex);
+        if (tablePath != null && tablePath.size() - 1 <= maxMoves) {
+            if (cachedPath == null) {
+                legPathCache.put(cacheKey, tablePath);
+            }
+            return new BoundedLeg(tablePath, false);
+        }
+
+        // Every move is one step long, so the move limit is a length bound for the search.
+        // The extra half step keeps the bound clear of rounding in the summed move lengths
+        SearchBudget budget = new SearchBudget(searchTimeBudgetMillis, searchMaxExpansions, searchMaxNodes);
+        List<PositionDto> path = searchAStarPath(start, goal, areaIndex, SearchDirection.FORWARD, budget,
+                (maxMoves + 0.5) * 0.00015);
+        if (path == null || path.size() - 1 > maxMoves) {
+            // Only a search that emptied its pruned open set has shown that no path is short enough
+            return new BoundedLeg(null, budget.isExhausted());
+        }
+        if (cachedPath == null) {
+            legPathCache.put(cacheKey, path);
+        }
+        return new BoundedLeg(path, false);
+    }
+
+    /**
+     * Plans a detour for a leg that is already being flown, inside a corridor around the route it flies now.
+     * The corridor is widened once if it holds no path; the whole lattice is never searched.
+     * Detours are neither cached nor looked up in the route tables, and the caller's budget is used,
+     * so the detours of one repair share it.
+     * @param start starting position
+     * @param goal target position
+     * @param areaIndex spatial index over the restricted areas
+     * @param corridor corridor around the route being repaired
+     * @param budget time and expansion limit shared by the caller's detours
+     * @return positions from the start to within one move of the goal, or null if none was found within the budget
+     */
+    public List<PositionDto> planDetour(PositionDto start, PositionDto goal, RestrictedAreaIndex areaIndex,
+                                        RouteCorridor corridor, SearchBudget budget) {
+        for (int attempt = 0; attempt < CORRIDOR_ATTEMPTS && !budget.isExhausted(); attempt++) {
+            List<PositionDto> path = searchLattice(start, goal, areaIndex, corridor, SearchDirection.FORWARD,
+                    budget, Double.POSITIVE_INFINITY);
+            if (path != null) {
                 return path;
             }
+            corridor = corridor.widened(CORRIDOR_WIDENING);
+        }
+        return null;
+    }
+
+    /**
+     * Looks up a leg from or to a service point in the route tables
+     * @param start leg start
+     * @param goal leg goal
+     * @param areaIndex spatial index over the restricted areas
+     * @return list of positions forming the path, or null if no ready table answers the leg
+     */
+    private List<PositionDto> lookupRouteTable(PositionDto start, PositionDto goal, RestrictedAreaIndex areaIndex) {
+        return routeTables.lookup(start, goal, areaIndex.fingerprint(),
+                (fromLng, fromLat, toLng, toLat) -> isMoveSafe(fromLng, fromLat, toLng, toLat, areaIndex));
+    }
+
+    /**
+     * Calculates a lower bound on the moves of a leg from the 16-direction lattice distance.
+     * A leg ends within one move of its goal, so k moves must cover the lattice distance less that last gap.
+     * @param from starting position
+     * @param to target position
+     * @return smallest possible number of moves
+     */
+    private int minimumMoves(PositionDto from, PositionDto to) {
+        return MoveLattice.minimumMoves(
+                MoveLattice.latticeDistance(to.getLng() - from.getLng(), to.getLat() - from.getLat()));
+    }
 
-            for (PositionDto neighborPos : getSafeNeighbors(current.position, restrictedAreas)) {
-                double distance = ilpService.distanceCalculate(new DistanceRequest(current.position, neighborPos));
-                double newGScore = gScore.get(current.position) + distance;
-                if (newGScore < gScore.getOrDefault(neighborPos, Double.MAX_VALUE)) {
-                    gScore.put(neighborPos, newGScore);
-                    double fScore = newGScore + heuristicCostEstimate(neighborPos, goal, drone);
-                    AStarNode neighborNode = new AStarNode(neighborPos, fScore, current);
-                    openSet.add(neighborNode);
-                    nodeMap.put(neighborPos, neighborNode);
+    /**
+     * Calculates the straight-line distance between two positions through the ILP service,
+     * without wrapping them in a request
+     */
+    private double distanceBetween(PositionDto from, PositionDto to) {
+        return ilpService.distanceCalculate(from.getLng(), from.getLat(), to.getLng(), to.getLat());
+    }
+
+    /**
+     * Calculates a lower bound on the moves of a leg whose straight-line distance is already known
+     * @param distance straight-line distance of the leg
+     * @param from starting position
+     * @param to target position
+     * @return smallest possible number of moves
+     */
+    private int minimumMoves(double distance, PositionDto from, PositionDto to) {
+        return MoveLattice.minimumMoves(distance
+                * MoveLattice.latticeFactor(to.getLng() - from.getLng(), to.getLat() - from.getLat()));
+    }
+
+    /**
+     * Plans a leg whose endpoints are outside every restricted area.
+     * A leg whose direct segment is clear is flown straight without opening a search.
+     * Otherwise, in corridor mode the lattice search first runs inside a corridor around a coarse visibility graph route,
+     * widening it on failure; the unrestricted lattice search runs when no corridor yields a path.
+     * All searches share one budget.
+     * @param start starting position
+     * @param goal target position
+     * @param areaIndex spatial index over the restricted areas
+     * @param direction FORWARD, BIDIRECTIONAL or PARALLEL lattice searches; forward when the length is bounded
+     * @param budget time and expansion limit for the leg
+     * @param lengthBound only paths shorter than this are searched for; infinity for no bound
+     * @return list of positions forming the path, or null if no search found one within the budget and bound
+     */
+    private List<PositionDto> searchAStarPath(PositionDto start, PositionDto goal, RestrictedAreaIndex areaIndex,
+                                              SearchDirection direction, SearchBudget budget, double lengthBound) {
+        List<PositionDto> straightPath = flyStraight(start, goal, areaIndex);
+        if (straightPath != null && pathLength(straightPath) < lengthBound) {
+            return straightPath;
+        }
+        // The bound prunes by the distance still to go, which only the forward search can tell
+        if (lengthBound != Double.POSITIVE_INFINITY) {
+            direction = SearchDirection.FORWARD;
+        }
+
+        if (plannerMode == PlannerMode.CORRIDOR) {
+            double[] route = VisibilityGraphPlanner.coarseRoute(
+                    start.getLng(), start.getLat(), goal.getLng(), goal.getLat(), areaIndex);
+            if (route != null) {
+                RouteCorridor corridor = new RouteCorridor(route, CORRIDOR_HALF_WIDTH);
+                for (int attempt = 0; attempt < CORRIDOR_ATTEMPTS; attempt++) {
+                    List<PositionDto> path = searchLattice(start, goal, areaIndex, corridor, direction,
+                            budget, lengthBound);
+                    if (path != null) {
+                        return path;
+                    }
+                    corridor = corridor.widened(CORRIDOR_WIDENING);
                 }
             }
         }
 
+        return searchLattice(start, goal, areaIndex, null, direction, budget, lengthBound);
+    }
+
+    /**
+     * Builds the path used when no search reaches the goal: the safe prefix of the straight segment
+     * @param start starting position
+     * @param goal target position
+     * @param restrictedAreas list of restricted areas to avoid
+     * @return list of positions, or an empty list if the goal cannot be reached
+     */
+    private List<PositionDto> calculateFallbackPath(PositionDto start, PositionDto goal,
+                                                    List<RestrictedArea> restrictedAreas) {
         List<PositionDto> safePath = calculateSafeStraightPath(start, goal, restrictedAreas);
 
         if (!safePath.isEmpty() && !isSamePosition(safePath.get(0), start)) {
@@ -1107,12 +1545,289 @@ public class droneService {
         return safePath;
     }
 
-    private double heuristicCostEstimate(PositionDto from, PositionDto to, Drone drone) {
-        double distance = ilpService.distanceCalculate(new DistanceRequest(from, to));
-        double exactMoves = distance / 0.00015;
-        double obstacleBuffer = 1.25;
-        double encouragementWeight = 1.1;
-        return exactMoves * obstacleBuffer * encouragementWeight * drone.getCapability().getCostPerMove();
+    /**
+     * Flies towards the goal without a search when the direct segment is clear.
+     * Each move takes the compass direction that brings the drone closest to the goal, which keeps the path
+     * within a fraction of a move of the segment; every move is still checked, since the zigzag can clip an
+     * area that the segment itself misses.
+     * @param start starting position
+     * @param goal target position
+     * @param areaIndex spatial index over the restricted areas
+     * @return positions from the start to within one move of the goal, or null if a search is needed
+     */
+    private List<PositionDto> flyStraight(PositionDto start, PositionDto goal, RestrictedAreaIndex areaIndex) {
+        double goalLng = goal.getLng();
+        double goalLat = goal.getLat();
+        if (!isMoveSafe(start.getLng(), start.getLat(), goalLng, goalLat, areaIndex)) {
+            return null;
+        }
+
+        double currentLng = start.getLng();
+        double currentLat = start.getLat();
+        double remaining = euclideanDistance(currentLng, currentLat, goalLng, goalLat);
+        List<PositionDto> path = new ArrayList<>((int) Math.min(1 << 16, remaining / 0.00015 + 2));
+        path.add(new PositionDto(currentLng, currentLat));
+        double[] neighborCoords = new double[MoveStepTable.DIRECTIONS * 2];
+
+        // The best of 16 directions is within 11.25 degrees of the goal, so every move gets strictly closer
+        while (remaining >= 0.00015) {
+            MoveStepTable.neighbours(currentLng, currentLat, neighborCoords);
+            int best = 0;
+            double bestRemaining = Double.POSITIVE_INFINITY;
+            for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+                double candidate = euclideanDistance(neighborCoords[2 * direction], neighborCoords[2 * direction + 1],
+                        goalLng, goalLat);
+                if (candidate < bestRemaining) {
+                    bestRemaining = candidate;
+                    best = direction;
+                }
+            }
+            double nextLng = neighborCoords[2 * best];
+            double nextLat = neighborCoords[2 * best + 1];
+            if (!(bestRemaining < remaining) || !isMoveSafe(currentLng, currentLat, nextLng, nextLat, areaIndex)) {
+                return null;
+            }
+            path.add(new PositionDto(nextLng, nextLat));
+            currentLng = nextLng;
+            currentLat = nextLat;
+            remaining = bestRemaining;
+        }
+        return path;
+    }
+
+    /**
+     * Runs the 16-direction lattice A* search
+     * @param start starting position
+     * @param goal target position
+     * @param areaIndex spatial index over the restricted areas
+     * @param corridor corridor the search is confined to, or null to search everywhere
+     * @param direction FORWARD, BIDIRECTIONAL or PARALLEL; only forward with a length bound. A parallel search
+     *                  runs bidirectionally while another leg holds the search threads
+     * @param budget time and expansion limit for the leg
+     * @param lengthBound only paths shorter than this are searched for; infinity for no bound
+     * @return list of positions forming the path, or null if the open set or the budget is exhausted
+     */
+    private List<PositionDto> searchLattice(PositionDto start, PositionDto goal, RestrictedAreaIndex areaIndex,
+                                            RouteCorridor corridor, SearchDirection direction,
+                                            SearchBudget budget, double lengthBound) {
+        // A corridor only confines the search. The route length through it can exceed the length still to fly,
+        // so the estimate is the lattice distance in both cases and the search stays optimal inside the corridor
+        DoubleBinaryOperator lengthToGoal = (lng, lat) -> heuristicCostEstimate(
+                MoveLattice.latticeDistance(goal.getLng() - lng, goal.getLat() - lat));
+        DoubleBinaryOperator lengthToStart = (lng, lat) -> heuristicCostEstimate(
+                MoveLattice.latticeDistance(start.getLng() - lng, start.getLat() - lat));
+
+        // Landmark bounds see the walls that the straight-line distance ignores. They are lower bounds on the
+        // length still to fly up to the flood error described in LandmarkSet, in degrees like g, so they are
+        // taken as they are
+        BidirectionalLatticeSearch.MoveCheck moveCheck =
+                (fromLng, fromLat, toLng, toLat) -> isMoveSafe(fromLng, fromLat, toLng, toLat, areaIndex);
+        LandmarkSet landmarks = routeTables.landmarks(areaIndex, moveCheck);
+        if (landmarks != null && landmarks.size() > 0) {
+            LandmarkSet.Target towardsGoal = landmarks.towards(goal.getLng(), goal.getLat());
+            LandmarkSet.Target towardsStart = landmarks.towards(start.getLng(), start.getLat());
+            DoubleBinaryOperator latticeToGoal = lengthToGoal;
+            DoubleBinaryOperator latticeToStart = lengthToStart;
+            lengthToGoal = (lng, lat) -> Math.max(latticeToGoal.applyAsDouble(lng, lat),
+                    towardsGoal.lowerBound(lng, lat));
+            lengthToStart = (lng, lat) -> Math.max(latticeToStart.applyAsDouble(lng, lat),
+                    towardsStart.lowerBound(lng, lat));
+        }
+        DoubleBinaryOperator toGoal = lengthToGoal;
+        DoubleBinaryOperator toStart = lengthToStart;
+        int nodeCapHits = budget.getNodeCapHits();
+
+        if (direction == SearchDirection.PARALLEL && parallelSearchPermit.tryAcquire()) {
+            List<PositionDto> path;
+            try {
+                path = new ParallelLatticeSearch(
+                        moveCheck,
+                        corridor,
+                        toGoal,
+                        budget,
+                        searchWorkerPool(),
+                        searchThreads())
+                        .search(start, goal);
+            } finally {
+                parallelSearchPermit.release();
+            }
+            return path == null && budget.getNodeCapHits() > nodeCapHits
+                    ? searchLatticeBounded(start, goal, moveCheck, corridor, budget, toGoal, lengthBound)
+                    : path;
+        }
+
+        if (direction != SearchDirection.FORWARD) {
+            List<PositionDto> path = new BidirectionalLatticeSearch(
+                    moveCheck,
+                    corridor,
+                    toGoal,
+                    toStart,
+                    budget)
+                    .search(start, goal);
+            return path == null && budget.getNodeCapHits() > nodeCapHits
+                    ? searchLatticeBounded(start, goal, moveCheck, corridor, budget, toGoal, lengthBound)
+                    : path;
+        }
+
+        // The first pass takes the first anytime weight, so a configured schedule finds a path quickly;
+        // without one it is plain A*, whose first path is already the shortest
+        double[] weights = anytimeWeights;
+        double firstWeight = weights.length > 0 ? weights[0] : 1.0;
+        List<PositionDto> best = searchLatticePass(start, goal, areaIndex, corridor, budget,
+                (lng, lat) -> firstWeight * toGoal.applyAsDouble(lng, lat),
+                lengthBound);
+        if (best == null) {
+            return budget.getNodeCapHits() > nodeCapHits
+                    ? searchLatticeBounded(start, goal, moveCheck, corridor, budget, toGoal, lengthBound)
+                    : null;
+        }
+
+        // Anytime improvement: restart weighted A* with decreasing inflation while the budget lasts.
+        // g and h are both distances here, so a weight of 1 gives the unweighted search, and nodes that
+        // cannot beat the best path so far are pruned
+        double bestLength = pathLength(best);
+        for (int i = 1; i < weights.length; i++) {
+            if (budget.isExhausted()) {
+                break;
+            }
+            double weight = weights[i];
+            List<PositionDto> improved = searchLatticePass(start, goal, areaIndex, corridor, budget,
+                    (lng, lat) -> weight * toGoal.applyAsDouble(lng, lat), bestLength);
+            if (improved != null && pathLength(improved) < bestLength) {
+                best = improved;
+                bestLength = pathLength(improved);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plans a leg the lattice search gave up on at the node cap with the memory-bounded search
+     * @param toGoal lower bound of the length still to fly to the goal
+     * @return list of positions forming the path, or null if none was found within the budget and bound
+     */
+    private List<PositionDto> searchLatticeBounded(PositionDto start, PositionDto goal,
+                                                   BidirectionalLatticeSearch.MoveCheck moveCheck,
+                                                   RouteCorridor corridor, SearchBudget budget,
+                                                   DoubleBinaryOperator toGoal, double lengthBound) {
+        System.out.println("Leg search reached the node cap of " + budget.getMaxNodes() +
+                ", continuing with the memory-bounded search");
+        return new BoundedLatticeSearch(moveCheck, corridor, toGoal, budget.getMaxNodes(), budget)
+                .search(start, goal, lengthBound);
+    }
+
+    /**
+     * Runs one pass of the forward lattice A* search
+     * @param start starting position
+     * @param goal target position
+     * @param areaIndex spatial index over the restricted areas
+     * @param corridor corridor the search is confined to, or null to search everywhere
+     * @param budget time and expansion limit for the leg
+     * @param heuristic estimate of the remaining cost from a position, in the units of the move distances
+     *                  or larger for a greedier search
+     * @param lengthBound only paths shorter than this are searched for; infinity for no bound
+     * @return list of positions forming the path, or null if the open set or the budget is exhausted
+     *         or the node cap is reached
+     */
+    private List<PositionDto> searchLatticePass(PositionDto start, PositionDto goal, RestrictedAreaIndex areaIndex,
+                                                RouteCorridor corridor, SearchBudget budget,
+                                                DoubleBinaryOperator heuristic, double lengthBound) {
+        // Nodes are identified by their packed lattice coordinates relative to the start,
+        // so the same point reached by a different ordering of moves is only expanded once
+        MoveLattice lattice = new MoveLattice(start);
+        try (SearchArena arena = SearchArena.acquire()) {
+            LatticeNodeTable nodes = arena.nodes();
+            IndexedMinHeap openSet = arena.openSet();
+
+            int startId = nodes.add(lattice.keyOf(start), start.getLng(), start.getLat(), 0.0, -1);
+            openSet.insertOrDecrease(startId, heuristic.applyAsDouble(start.getLng(), start.getLat()));
+
+            double goalLng = goal.getLng();
+            double goalLat = goal.getLat();
+            double[] neighborCoords = arena.neighborCoords();
+
+            while (!openSet.isEmpty()) {
+                if (!budget.tryExpand()) {
+                    return null;
+                }
+                int current = openSet.poll();
+                nodes.close(current);
+                double currentLng = nodes.lngOf(current);
+                double currentLat = nodes.latOf(current);
+
+                if (euclideanDistance(currentLng, currentLat, goalLng, goalLat) < 0.00015) {
+                    List<PositionDto> path = nodes.pathTo(current);
+                    if (!path.isEmpty() && !isSamePosition(path.get(0), start)) {
+                        path.add(0, start);
+                    }
+                    return path;
+                }
+
+                double currentGScore = nodes.gScoreOf(current);
+                MoveStepTable.neighbours(currentLng, currentLat, neighborCoords);
+                for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+                    double neighborLng = neighborCoords[2 * direction];
+                    double neighborLat = neighborCoords[2 * direction + 1];
+                    long neighborKey = lattice.keyOf(neighborLng, neighborLat);
+                    int neighbor = nodes.idOf(neighborKey);
+                    if (neighbor >= 0 && nodes.isClosed(neighbor)) {
+                        continue;
+                    }
+                    double newGScore = currentGScore + euclideanDistance(currentLng, currentLat, neighborLng, neighborLat);
+                    if (neighbor >= 0 && newGScore >= nodes.gScoreOf(neighbor)) {
+                        continue;
+                    }
+                    // The goal counts as reached one move early, so the bound allows for that move
+                    if (newGScore + Math.max(0.0, MoveLattice.latticeDistance(goalLng - neighborLng, goalLat - neighborLat)
+                            - MoveLattice.GOAL_REACH) >= lengthBound) {
+                        continue;
+                    }
+                    if (corridor != null && !corridor.contains(neighborLng, neighborLat)) {
+                        continue;
+                    }
+                    // The safety check is the expensive part, so it runs only for moves that would improve a node
+                    if (!isMoveSafe(currentLng, currentLat, neighborLng, neighborLat, areaIndex)) {
+                        continue;
+                    }
+                    if (neighbor < 0) {
+                        if (!budget.allowsNodes(nodes.size())) {
+                            return null;
+                        }
+                        neighbor = nodes.add(neighborKey, neighborLng, neighborLat, newGScore, current);
+                    } else {
+                        nodes.update(neighbor, neighborLng, neighborLat, newGScore, current);
+                    }
+                    double fScore = newGScore + heuristic.applyAsDouble(neighborLng, neighborLat);
+                    openSet.insertOrDecrease(neighbor, fScore);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Sums the move distances of a path
+     * @param path list of positions
+     * @return total length in degrees
+     */
+    private double pathLength(List<PositionDto> path) {
+        double length = 0.0;
+        for (int i = 1; i < path.size(); i++) {
+            length += euclideanDistance(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                    path.get(i).getLng(), path.get(i).getLat());
+        }
+        return length;
+    }
+
+    /**
+     * Estimates the length still to fly, in degrees like the g-scores it is added to.
+     * The goal counts as reached one move early, so that move is taken off the remaining distance;
+     * the estimate never exceeds the true remaining length and the searches stay optimal with it.
+     * @param distance remaining lattice distance, or a lower bound on it
+     * @return lower bound on the remaining flown length
+     */
+    private double heuristicCostEstimate(double distance) {
+        return Math.max(0.0, distance - MoveLattice.GOAL_REACH);
     }
 
     /**
@@ -1138,11 +1853,12 @@ public class droneService {
      */
     public List<PositionDto> getSafeNeighbors(PositionDto position, List<RestrictedArea> restrictedAreas) {
         List<PositionDto> safeNeighbors = new ArrayList<>();
-        double[] angles = {0, 22.5, 45, 67.5, 90, 112.5, 135, 157.5,
-                180, 202.5, 225, 247.5, 270, 292.5, 315, 337.5};
-        for (double angle : angles) {
-            PositionDto neighbor = ilpService.movementCalculate(new MovementRequest(position, angle));
-            if (isMoveSafe(position, neighbor, restrictedAreas)) {
+        RestrictedAreaIndex areaIndex = getRestrictedAreaIndex(restrictedAreas);
+        double[] neighborCoords = new double[MoveStepTable.DIRECTIONS * 2];
+        MoveStepTable.neighbours(position.getLng(), position.getLat(), neighborCoords);
+        for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+            PositionDto neighbor = new PositionDto(neighborCoords[2 * direction], neighborCoords[2 * direction + 1]);
+            if (isMoveSafe(position, neighbor, areaIndex)) {
                 safeNeighbors.add(neighbor);
             }
         }
@@ -1157,19 +1873,73 @@ public class droneService {
      * @return true if move is safe, false otherwise
      */
     public boolean isMoveSafe(PositionDto from, PositionDto to, List<RestrictedArea> restrictedAreas) {
-        for (RestrictedArea area : restrictedAreas) {
-            if (isPointInPolygon(from, area.getVertices()) || isPointInPolygon(to, area.getVertices())) {
+        return isMoveSafe(from, to, getRestrictedAreaIndex(restrictedAreas));
+    }
+
+    /**
+     * Checks if a move between two positions is safe, testing only the areas the index returns for the move
+     * @param from starting position
+     * @param to target position
+     * @param areaIndex spatial index over the restricted areas to avoid
+     * @return true if move is safe, false otherwise
+     */
+    public boolean isMoveSafe(PositionDto from, PositionDto to, RestrictedAreaIndex areaIndex) {
+        return isMoveSafe(from.getLng(), from.getLat(), to.getLng(), to.getLat(), areaIndex);
+    }
+
+    /**
+     * Checks if a move between two coordinate pairs is safe.
+     * The clearance raster decides moves far from any boundary; moves near a boundary are tested
+     * exactly against the prepared polygons of nearby areas.
+     * @param fromLng starting longitude
+     * @param fromLat starting latitude
+     * @param toLng target longitude
+     * @param toLat target latitude
+     * @param areaIndex spatial index over the restricted areas to avoid
+     * @return true if move is safe, false otherwise
+     */
+    private boolean isMoveSafe(double fromLng, double fromLat, double toLng, double toLat, RestrictedAreaIndex areaIndex) {
+        ClearanceRaster raster = areaIndex.getClearanceRaster();
+        if (raster != null) {
+            ClearanceRaster.Verdict verdict = raster.classifyMove(fromLng, fromLat, toLng, toLat);
+            if (verdict == ClearanceRaster.Verdict.BLOCKED) {
                 return false;
             }
+            if (verdict == ClearanceRaster.Verdict.SAFE) {
+                // Open rings are not rasterized and still need the exact test
+                return isMoveClear(fromLng, fromLat, toLng, toLat, areaIndex.unboundedPolygons());
+            }
         }
-        for (RestrictedArea area : restrictedAreas) {
-            if (doesLineIntersectPolygon(from, to, area.getVertices())) {
+        return isMoveClear(fromLng, fromLat, toLng, toLat, areaIndex.candidatePolygons(fromLng, fromLat, toLng, toLat));
+    }
+
+    /**
+     * Checks a move exactly against a set of polygons
+     * @return true if no polygon contains either endpoint or touches the segment
+     */
+    private boolean isMoveClear(double fromLng, double fromLat, double toLng, double toLat, PreparedPolygon[] polygons) {
+        for (PreparedPolygon polygon : polygons) {
+            if (polygon.contains(fromLng, fromLat) || polygon.contains(toLng, toLat)
+                    || polygon.intersectsSegment(fromLng, fromLat, toLng, toLat)) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Gets a spatial index over the given restricted areas.
+     * The last index is cached and reused while callers pass the same areas, even when they were fetched again
+     * from the API, and rebuilt when the set changes.
+     * @param restrictedAreas list of restricted areas
+     * @return index over exactly these areas
+     */
+    public RestrictedAreaIndex getRestrictedAreaIndex(List<RestrictedArea> restrictedAreas) {
+        RestrictedAreaIndex index = RestrictedAreaIndex.reuseOrBuild(restrictedAreaIndex, restrictedAreas);
+        restrictedAreaIndex = index;
+        return index;
+    }
+
     /**
      * Checks if a line intersects with a polygon
      * @param p1 line start point
@@ -1178,15 +1948,7 @@ public class droneService {
      * @return true if line intersects polygon, false otherwise
      */
     public boolean doesLineIntersectPolygon(PositionDto p1, PositionDto p2, List<PositionDto> polygon) {
-        int n = polygon.size();
-        for (int i = 0; i < n; i++) {
-            PositionDto a = polygon.get(i);
-            PositionDto b = polygon.get((i + 1) % n);
-            if (doLinesIntersect(p1, p2, a, b)) {
-                return true;
-            }
-        }
-        return false;
+        return PreparedPolygon.of(polygon).intersectsSegment(p1, p2);
     }
 
     /**
@@ -1198,16 +1960,8 @@ public class droneService {
      * @return true if line segments intersect, false otherwise
      */
     public boolean doLinesIntersect(PositionDto p1, PositionDto p2, PositionDto q1, PositionDto q2) {
-        int o1 = orientation(p1, p2, q1);
-        int o2 = orientation(p1, p2, q2);
-        int o3 = orientation(q1, q2, p1);
-        int o4 = orientation(q1, q2, p2);
-        if (o1 != o2 && o3 != o4) return true;
-        if (o1 == 0 && onSegment(p1, q1, p2)) return true;
-        if (o2 == 0 && onSegment(p1, q2, p2)) return true;
-        if (o3 == 0 && onSegment(q1, p1, q2)) return true;
-        if (o4 == 0 && onSegment(q1, p2, q2)) return true;
-        return false;
+        return PreparedPolygon.segmentsIntersect(p1.getLng(), p1.getLat(), p2.getLng(), p2.getLat(),
+                q1.getLng(), q1.getLat(), q2.getLng(), q2.getLat());
     }
 
     /**
@@ -1218,10 +1972,7 @@ public class droneService {
      * @return 0 if collinear, 1 if clockwise, 2 if counterclockwise
      */
     public int orientation(PositionDto p, PositionDto q, PositionDto r) {
-        double val = (q.getLat() - p.getLat()) * (r.getLng() - q.getLng()) -
-                (q.getLng() - p.getLng()) * (r.getLat() - q.getLat());
-        if (val == 0) return 0;
-        return (val > 0) ? 1 : 2;
+        return PreparedPolygon.orientation(p.getLng(), p.getLat(), q.getLng(), q.getLat(), r.getLng(), r.getLat());
     }
 
     /**
@@ -1232,10 +1983,7 @@ public class droneService {
      * @return true if point lies on segment, false otherwise
      */
     public boolean onSegment(PositionDto p, PositionDto q, PositionDto r) {
-        return q.getLng() <= Math.max(p.getLng(), r.getLng()) &&
-                q.getLng() >= Math.min(p.getLng(), r.getLng()) &&
-                q.getLat() <= Math.max(p.getLat(), r.getLat()) &&
-                q.getLat() >= Math.min(p.getLat(), r.getLat());
+        return PreparedPolygon.onSegment(p.getLng(), p.getLat(), q.getLng(), q.getLat(), r.getLng(), r.getLat());
     }
 
     /**
@@ -1249,18 +1997,21 @@ public class droneService {
                                                        List<RestrictedArea> restrictedAreas) {
         List<PositionDto> path = new ArrayList<>();
         path.add(start);
-        double distance = ilpService.distanceCalculate(new DistanceRequest(start, end));
+        RestrictedAreaIndex areaIndex = getRestrictedAreaIndex(restrictedAreas);
+        double distance = distanceBetween(start, end);
         int steps = Math.max(1, (int) Math.ceil(distance / 0.00015));
-        PositionDto lastSafe = start;
+        GeoPoint from = GeoPoint.of(start);
+        GeoPoint to = GeoPoint.of(end);
+        GeoPoint lastSafe = from;
 
         for (int i = 1; i <= steps; i++) {
             double ratio = (double) i / steps;
-            PositionDto candidate = new PositionDto(
-                    start.getLng() + (end.getLng() - start.getLng()) * ratio,
-                    start.getLat() + (end.getLat() - start.getLat()) * ratio
+            GeoPoint candidate = new GeoPoint(
+                    from.lng() + (to.lng() - from.lng()) * ratio,
+                    from.lat() + (to.lat() - from.lat()) * ratio
             );
-            if (isMoveSafe(lastSafe, candidate, restrictedAreas)) {
-                path.add(candidate);
+            if (isMoveSafe(lastSafe.lng(), lastSafe.lat(), candidate.lng(), candidate.lat(), areaIndex)) {
+                path.add(candidate.toDto());
                 lastSafe = candidate;
             } else {
                 break;
@@ -1795,22 +2546,23 @@ public class droneService {
         Drone.DroneCapability capability = drone.getCapability();
         double costPerMove = capability.getCostPerMove() != null ? capability.getCostPerMove() : 0.0;
 
-        // Calculate total distance from start to first task, between tasks, and from last task to end point
-        double totalDistance = 0.0;
+        // Calculate total moves from start to first task, between tasks, and from last task to end point
+        int totalMoves = 0;
         PositionDto currentPos = startPoint;
 
         for (MedDispatchRec task : tasks) {
             PositionDto taskLoc = taskLocations.get(task.getId());
             if (taskLoc != null) {
-                totalDistance += ilpService.distanceCalculate(new DistanceRequest(currentPos, taskLoc));
+                totalMoves += minimumMoves(distanceBetween(currentPos, taskLoc),
+                        currentPos, taskLoc);
                 currentPos = taskLoc;
             }
         }
 
         // Return from last task to end point
-        totalDistance += ilpService.distanceCalculate(new DistanceRequest(currentPos, endPoint));
+        totalMoves += minimumMoves(distanceBetween(currentPos, endPoint),
+                currentPos, endPoint);
 
-        int totalMoves = (int) Math.ceil(totalDistance / 0.00015);
         int hoverMoves = tasks.size(); // Hover once after each task completion
 
         return (totalMoves + hoverMoves) * costPerMove;
@@ -1822,7 +2574,7 @@ public class droneService {
     private double calculatePathDistance(List<PositionDto> path) {
         double distance = 0.0;
         for (int i = 0; i < path.size() - 1; i++) {
-            distance += ilpService.distanceCalculate(new DistanceRequest(path.get(i), path.get(i + 1)));
+            distance += distanceBetween(path.get(i), path.get(i + 1));
         }
         return distance;
     }
@@ -1841,6 +2593,72 @@ public class droneService {
     // Add fields to store dynamic restricted areas
     private final List<RestrictedArea> dynamicRestrictedAreas = new ArrayList<>();
     private final Object areasLock = new Object();
+    private final List<Consumer<RestrictedArea>> restrictedAreaListeners = new CopyOnWriteArrayList<>();
+    private volatile RestrictedAreaIndex restrictedAreaIndex;
+    private final LegPathCache legPathCache = new LegPathCache();
+    /** Disabled until configured, so a service built outside Spring starts no background floods */
+    private final RouteTableStore routeTables = new RouteTableStore(0);
+    private volatile PlannerMode plannerMode = PlannerMode.CORRIDOR;
+
+    /** Half-width of the first corridor around a coarse route */
+    private static final double CORRIDOR_HALF_WIDTH = 6 * MoveLattice.STEP;
+    /** Corridor searches tried before searching the whole lattice */
+    private static final int CORRIDOR_ATTEMPTS = 2;
+    /** Factor the corridor is widened by after a failed attempt */
+    private static final double CORRIDOR_WIDENING = 4.0;
+
+    /** Wall-clock limit for planning one leg in milliseconds, 0 for none */
+    private volatile long searchTimeBudgetMillis = 2000;
+    /** Node expansion limit for planning one leg, 0 for none */
+    private volatile long searchMaxExpansions = 0;
+    /** Default of {@link #searchMaxNodes}, a few tens of megabytes of search state */
+    public static final int DEFAULT_SEARCH_MAX_NODES = 500_000;
+    /** Nodes one lattice search may store before the leg is left to the memory-bounded search, 0 for none */
+    private volatile int searchMaxNodes = DEFAULT_SEARCH_MAX_NODES;
+    /** Decreasing heuristic weights of the passes that improve a found path while the budget lasts */
+    private volatile double[] anytimeWeights = {2.0, 1.5, 1.0};
+
+    /** Leg length from which AUTO searches bidirectionally, in degrees */
+    private volatile double bidirectionalMinLength = 0.005;
+
+    /** Leg length from which AUTO runs the parallel search, in degrees */
+    private volatile double parallelMinLength = 0.02;
+    /** Threads of a parallel search, 0 for one per processor and 1 to never search in parallel */
+    private volatile int searchThreadCount = 0;
+    /** Runs all workers of a parallel search but the one on the planning thread */
+    private volatile ExecutorService searchWorkers;
+    private final Object searchWorkersLock = new Object();
+    /** Workers of a parallel search wait for each other, so only one such search runs at a time */
+    private final Semaphore parallelSearchPermit = new Semaphore(1);
+
+    /** Threads planning the legs of a tour, 0 for one per processor and 1 to plan legs one after another */
+    private volatile int legParallelism = 0;
+    private volatile ForkJoinPool legPool;
+    private final Object legPoolLock = new Object();
+
+    /**
+     * Direction the lattice search grows in
+     */
+    public enum SearchDirection {
+        /** Parallel or bidirectional for legs of at least the configured lengths, forward otherwise */
+        AUTO,
+        /** From the start only */
+        FORWARD,
+        /** From both ends, meeting in the middle */
+        BIDIRECTIONAL,
+        /** From the start, with the nodes hash-distributed over the search threads */
+        PARALLEL
+    }
+
+    /**
+     * How legs are planned
+     */
+    public enum PlannerMode {
+        /** Lattice A* over the whole map */
+        LATTICE,
+        /** Lattice A* inside a corridor around a visibility graph route, falling back to LATTICE */
+        CORRIDOR
+    }
 
     // Add restricted area management methods
     public void addRestrictedArea(RestrictedArea area) {
@@ -1850,9 +2668,25 @@ public class droneService {
                 throw new IllegalArgumentException("Restricted area ID already exists: " + area.getId());
             }
             dynamicRestrictedAreas.add(area);
+            legPathCache.invalidateAll();
             System.out.println("SUCCESS: Restricted area added: " + area.getName() + " (ID: " + area.getId() + ")");
             System.out.println("   Vertices: " + (area.getVertices() != null ? area.getVertices().size() : 0));
         }
+        for (Consumer<RestrictedArea> listener : restrictedAreaListeners) {
+            try {
+                listener.accept(area);
+            } catch (RuntimeException e) {
+                System.err.println("Warning: Restricted area listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Registers a callback run after each restricted area is added, outside the area lock
+     * @param listener callback receiving the new area
+     */
+    public void addRestrictedAreaListener(Consumer<RestrictedArea> listener) {
+        restrictedAreaListeners.add(listener);
     }
 
     public void deleteRestrictedAreaByName(String areaName) {
@@ -1875,6 +2709,9 @@ public class droneService {
                 return match;
             });
 
+            if (removed) {
+                legPathCache.invalidateAll();
+            }
             System.out.println("Deletion result: " + (removed ? "SUCCESS" : "FAILED"));
             System.out.println("Dynamic restricted areas after deletion: " + dynamicRestrictedAreas.size());
 
@@ -1888,6 +2725,7 @@ public class droneService {
         synchronized (areasLock) {
             int count = dynamicRestrictedAreas.size();
             dynamicRestrictedAreas.clear();
+            legPathCache.invalidateAll();
             System.out.println("SUCCESS: All restricted areas cleared, total deleted: " + count + " areas");
         }
     }
@@ -1917,4 +2755,211 @@ public class droneService {
             return new ArrayList<>(dynamicRestrictedAreas);
         }
     }
+
+    /**
+     * Gets the cache of planned A* legs, for metrics
+     * @return the leg cache
+     */
+    public LegPathCache getLegPathCache() {
+        return legPathCache;
+    }
+
+    /**
+     * Sets the maximum number of cached A* legs
+     * @param capacity maximum number of legs, 0 disables the cache
+     */
+    @Value("${drone.path-cache.max-entries:" + LegPathCache.DEFAULT_CAPACITY + "}")
+    public void setLegPathCacheCapacity(int capacity) {
+        legPathCache.setCapacity(capacity);
+    }
+
+    /**
+     * Sets how legs are planned; cached legs are dropped because the modes can produce different paths
+     * @param plannerMode the planner mode
+     */
+    @Value("${drone.planner.mode:CORRIDOR}")
+    public void setPlannerMode(PlannerMode plannerMode) {
+        this.plannerMode = plannerMode;
+        legPathCache.invalidateAll();
+    }
+
+    public PlannerMode getPlannerMode() {
+        return plannerMode;
+    }
+
+    /**
+     * Sets the wall-clock limit for planning one leg; when it is hit the best path found so far is returned
+     * @param timeBudgetMillis limit in milliseconds, 0 for none
+     */
+    @Value("${drone.planner.time-budget-ms:2000}")
+    public void setSearchTimeBudgetMillis(long timeBudgetMillis) {
+        if (timeBudgetMillis < 0) {
+            throw new IllegalArgumentException("Search time budget cannot be negative");
+        }
+        this.searchTimeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Sets the node expansion limit for planning one leg
+     * @param maxExpansions limit on expansions, 0 for none
+     */
+    @Value("${drone.planner.max-expansions:0}")
+    public void setSearchMaxExpansions(long maxExpansions) {
+        if (maxExpansions < 0) {
+            throw new IllegalArgumentException("Search expansion limit cannot be negative");
+        }
+        this.searchMaxExpansions = maxExpansions;
+    }
+
+    /**
+     * Sets the nodes one lattice search may store. A search reaching the cap is abandoned and the leg is
+     * planned again by {@link BoundedLatticeSearch}, whose memory stays within the cap, so a single
+     * pathological leg cannot exhaust the heap
+     * @param maxNodes limit on stored nodes, 0 for none
+     */
+    @Value("${drone.planner.max-nodes:" + DEFAULT_SEARCH_MAX_NODES + "}")
+    public void setSearchMaxNodes(int maxNodes) {
+        if (maxNodes < 0) {
+            throw new IllegalArgumentException("Search node limit cannot be negative");
+        }
+        this.searchMaxNodes = maxNodes;
+    }
+
+    /**
+     * Sets the heuristic weights of the anytime passes of the forward search.
+     * The first pass takes the first weight; once it has found a path, the search restarts with each later
+     * weight in turn while the budget lasts, keeping the shortest path. A final weight of 1 makes the last
+     * pass unweighted A*, whose path is a shortest one.
+     * @param weights decreasing weights of at least 1, empty for a single unweighted pass
+     */
+    @Value("${drone.planner.anytime-weights:2.0,1.5,1.0}")
+    public void setAnytimeWeights(double[] weights) {
+        for (double weight : weights) {
+            if (!(weight >= 1.0)) {
+                throw new IllegalArgumentException("Anytime weights must be at least 1: " + weight);
+            }
+        }
+        this.anytimeWeights = weights.clone();
+        legPathCache.invalidateAll();
+    }
+
+    /**
+     * Sets how many legs of a single-drone tour are planned at the same time
+     * @param parallelism number of threads, 0 for one per processor and 1 to plan legs one after another
+     */
+    @Value("${drone.planner.leg-parallelism:0}")
+    public void setLegParallelism(int parallelism) {
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("Leg parallelism cannot be negative");
+        }
+        synchronized (legPoolLock) {
+            this.legParallelism = parallelism;
+            shutdownLegPlanning();
+        }
+    }
+
+    /**
+     * Sets the size limit of the service point route tables
+     * @param maxCells largest number of lattice cells in one table, 0 disables route tables
+     */
+    @Value("${drone.route-table.max-cells:" + RouteTableStore.DEFAULT_MAX_CELLS + "}")
+    public void setRouteTableMaxCells(int maxCells) {
+        routeTables.setMaxCells(maxCells);
+    }
+
+    /**
+     * Sets the number of landmarks of the ALT search heuristic.
+     * Landmarks are built by the route table builder, so route tables must be enabled too.
+     * @param maxLandmarks largest number of landmarks, 0 to use the straight-line distance only
+     */
+    @Value("${drone.planner.landmarks:" + RouteTableStore.DEFAULT_MAX_LANDMARKS + "}")
+    public void setLandmarkCount(int maxLandmarks) {
+        routeTables.setMaxLandmarks(maxLandmarks);
+        legPathCache.invalidateAll();
+    }
+
+    /**
+     * Sets the size limit of each landmark flood
+     * @param maxCells largest number of lattice cells in one landmark flood
+     */
+    @Value("${drone.planner.landmark-max-cells:" + RouteTableStore.DEFAULT_LANDMARK_MAX_CELLS + "}")
+    public void setLandmarkMaxCells(int maxCells) {
+        routeTables.setLandmarkMaxCells(maxCells);
+        legPathCache.invalidateAll();
+    }
+
+    public RouteTableStore getRouteTables() {
+        return routeTables;
+    }
+
+    /**
+     * Stops the background threads of the planner
+     */
+    @PreDestroy
+    public void shutdown() {
+        shutdownLegPlanning();
+        shutdownSearchWorkers();
+        routeTables.shutdown();
+    }
+
+    /**
+     * Shuts down the threads of the parallel search; new threads are started by the next parallel search
+     */
+    public void shutdownSearchWorkers() {
+        synchronized (searchWorkersLock) {
+            if (searchWorkers != null) {
+                searchWorkers.shutdown();
+                searchWorkers = null;
+            }
+        }
+    }
+
+    /**
+     * Shuts down the leg planning pool; a new pool is created when the next tour is planned
+     */
+    public void shutdownLegPlanning() {
+        synchronized (legPoolLock) {
+            if (legPool != null) {
+                legPool.shutdown();
+                legPool = null;
+            }
+        }
+    }
+
+    /**
+     * Sets the leg length from which the AUTO search direction runs the parallel search
+     * @param minLength length in degrees; 0 makes every AUTO search parallel when there are search threads
+     */
+    @Value("${drone.planner.parallel-min-length:0.02}")
+    public void setParallelMinLength(double minLength) {
+        if (minLength < 0) {
+            throw new IllegalArgumentException("Parallel minimum length cannot be negative");
+        }
+        this.parallelMinLength = minLength;
+    }
+
+    /**
+     * Sets the threads of one parallel search; the running search threads are replaced
+     * @param threads thread count, 0 for one per processor and 1 to never search in parallel
+     */
+    @Value("${drone.planner.search-threads:0}")
+    public void setSearchThreads(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("Search thread count cannot be negative");
+        }
+        this.searchThreadCount = threads;
+        shutdownSearchWorkers();
+    }
+
+    /**
+     * Sets the leg length from which the AUTO search direction searches bidirectionally
+     * @param minLength length in degrees; 0 makes every AUTO search bidirectional
+     */
+    @Value("${drone.planner.bidirectional-min-length:0.005}")
+    public void setBidirectionalMinLength(double minLength) {
+        if (minLength < 0) {
+            throw new IllegalArgumentException("Bidirectional minimum length cannot be negative");
+        }
+        this.bidirectionalMinLength = minLength;
+    }
 }
\ No newline at end of file
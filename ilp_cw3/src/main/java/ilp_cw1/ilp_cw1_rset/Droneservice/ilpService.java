@@ -3,9 +3,6 @@ package ilp_cw1.ilp_cw1_rset.Droneservice;
 import data.*;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.util.List;
-
 /**
  * Service class that provides core calculation logic for distance, movement, and region detection.
  */
@@ -18,11 +15,33 @@ public class ilpService {
      * @return the Euclidean distance between the two positions
      */
     public Double distanceCalculate(DistanceRequest distanceRequest) {
-        double lng1 = distanceRequest.getPosition1().getLng();
-        double lat1 = distanceRequest.getPosition1().getLat();
-        double lng2 = distanceRequest.getPosition2().getLng();
-        double lat2 = distanceRequest.getPosition2().getLat();
+        return distanceCalculate(distanceRequest.getPosition1().getLng(), distanceRequest.getPosition1().getLat(),
+                distanceRequest.getPosition2().getLng(), distanceRequest.getPosition2().getLat());
+    }
+
+    /**
+     * Calculates the distance between two coordinate pairs, without a request object.
+     * @param lng1 longitude of the first position
+     * @param lat1 latitude of the first position
+     * @param lng2 longitude of the second position
+     * @param lat2 latitude of the second position
+     * @return the Euclidean distance between the two positions
+     */
+    public double distanceCalculate(double lng1, double lat1, double lng2, double lat2) {
+        return euclideanDistance(lng1, lat1, lng2, lat2);
+    }
 
+    /**
+     * Calculates the Euclidean distance between two coordinate pairs without allocating request objects.
+     * Used by search loops that keep positions as primitive coordinates; being static it is never answered by
+     * a mocked service, so step costs and goal checks always use the real metric.
+     * @param lng1 longitude of the first position
+     * @param lat1 latitude of the first position
+     * @param lng2 longitude of the second position
+     * @param lat2 latitude of the second position
+     * @return the Euclidean distance in degrees
+     */
+    public static double euclideanDistance(double lng1, double lat1, double lng2, double lat2) {
         double dLn = lng1 - lng2;
         double dLat = lat1 - lat2;
 
@@ -36,45 +55,26 @@ public class ilpService {
      * @return a new PositionDto representing the next position
      */
     public PositionDto movementCalculate(MovementRequest movementRequest) {
-        double lng = movementRequest.getStart().getLng();
-        double lat = movementRequest.getStart().getLat();
-        double angle = movementRequest.getAngle();
-
-        // Convert to BigDecimal for higher precision
-        BigDecimal bdStartLng = BigDecimal.valueOf(lng);
-        BigDecimal bdStartLat = BigDecimal.valueOf(lat);
+        return movementCalculate(movementRequest.getStart().getLng(), movementRequest.getStart().getLat(),
+                movementRequest.getAngle()).toDto();
+    }
 
+    /**
+     * Calculates the next position after moving from a start point by a given angle, without a request object.
+     * @param lng longitude of the start position
+     * @param lat latitude of the start position
+     * @param angle direction of the move in degrees
+     * @return the next position
+     */
+    public GeoPoint movementCalculate(double lng, double lat, double angle) {
         // Convert angle to radians
         double radians = Math.toRadians(angle);
 
-        // Calculate cosine and sine values
-        double cos = Math.cos(radians);
-        double sin = Math.sin(radians);
-
-        BigDecimal bdCos = BigDecimal.valueOf(cos);
-        BigDecimal bdSin = BigDecimal.valueOf(sin);
-
-        // Move distance (fixed step)
-        BigDecimal moveDistance = new BigDecimal("0.00015");
-
-        // Calculate coordinate deltas
-        BigDecimal deltaLng = moveDistance.multiply(bdCos);
-        BigDecimal deltaLat = moveDistance.multiply(bdSin);
+        // Move by the fixed step with the coordinates taken as decimals, see GeometryKernel
+        double nextLng = GeometryKernel.moveCoordinate(lng, Math.cos(radians));
+        double nextLat = GeometryKernel.moveCoordinate(lat, Math.sin(radians));
 
-        // Add deltas to current coordinates
-        BigDecimal bdnextLng = bdStartLng.add(deltaLng);
-        BigDecimal bdnextLat = bdStartLat.add(deltaLat);
-
-        // Convert results back to double
-        double nextLng = bdnextLng.doubleValue();
-        double nextLat = bdnextLat.doubleValue();
-
-        // Create result position
-        PositionDto result = new PositionDto();
-        result.setLng(nextLng);
-        result.setLat(nextLat);
-
-        return result;
+        return new GeoPoint(nextLng, nextLat);
     }
 
     /**
@@ -85,80 +85,17 @@ public class ilpService {
     public boolean isPointInPolygon(RegionRequest regionRequest) {
         PositionDto position = regionRequest.getPosition();
         Region region = regionRequest.getRegion();
-        List<PositionDto> vertices = region.getVertices();
-
-        int n = vertices.size();
-        boolean inside = false;
-
-        double pointLng = position.getLng();
-        double pointLat = position.getLat();
-
-        // Loop through each polygon edge
-        for (int i = 0; i < n - 1; i++) {
-            PositionDto current = vertices.get(i);
-            PositionDto next = vertices.get(i + 1);
-
-            double currLng = current.getLng();
-            double currLat = current.getLat();
-            double nextLng = next.getLng();
-            double nextLat = next.getLat();
-
-            // Check if point lies exactly on an edge
-            if (isPointOnEdge(pointLng, pointLat, currLng, currLat, nextLng, nextLat)) {
-                return true;
-            }
-
-            // Ray casting method to toggle "inside" state
-            if (((currLat > pointLat) != (nextLat > pointLat)) &&
-                    (pointLng < (nextLng - currLng) * (pointLat - currLat) / (nextLat - currLat) + currLng)) {
-                inside = !inside;
-            }
-        }
-
-        return inside;
-    }
-
-    /**
-     * Checks if a point lies on the given edge.
-     * @param pointLng longitude of the point
-     * @param pointLat latitude of the point
-     * @param edgeLng1 longitude of the first vertex
-     * @param edgeLat1 latitude of the first vertex
-     * @param edgeLng2 longitude of the second vertex
-     * @param edgeLat2 latitude of the second vertex
-     * @return true if the point lies on the edge, false otherwise
-     */
-    private boolean isPointOnEdge(double pointLng, double pointLat,
-                                         double edgeLng1, double edgeLat1,
-                                         double edgeLng2, double edgeLat2) {
-        // Check if point is within the bounding box of the edge
-        if (!isValueInRange(pointLat, edgeLat1, edgeLat2) ||
-                !isValueInRange(pointLng, edgeLng1, edgeLng2)) {
-            return false;
-        }
-
-        // Compute cross product to check collinearity
-        BigDecimal dx1 = BigDecimal.valueOf(pointLng).subtract(BigDecimal.valueOf(edgeLng1));
-        BigDecimal dy1 = BigDecimal.valueOf(pointLat).subtract(BigDecimal.valueOf(edgeLat1));
-        BigDecimal dx2 = BigDecimal.valueOf(edgeLng2).subtract(BigDecimal.valueOf(edgeLng1));
-        BigDecimal dy2 = BigDecimal.valueOf(edgeLat2).subtract(BigDecimal.valueOf(edgeLat1));
 
-        BigDecimal crossProduct = dx1.multiply(dy2).subtract(dx2.multiply(dy1));
-        return crossProduct.compareTo(BigDecimal.ZERO) == 0;
+        // Ray casting with points on an edge counted as inside, see PreparedPolygon
+        return PreparedPolygon.of(region.getVertices()).contains(position.getLng(), position.getLat());
     }
 
     /**
-     * Checks if a numeric value lies between two bounds.
-     * @param value the number to check
-     * @param a first bound
-     * @param b second bound
-     * @return true if value is between a and b, false otherwise
+     * Prepares and indexes a region once for checking many points against it.
+     * @param region the region definition
+     * @return the indexed polygon, with the same containment rule as isPointInPolygon
      */
-    private boolean isValueInRange(double value, double a, double b) {
-        if (a > b) {
-            return value >= b && value <= a;
-        } else {
-            return value >= a && value <= b;
-        }
+    public BandedPolygon prepareRegion(Region region) {
+        return new BandedPolygon(PreparedPolygon.of(region.getVertices()));
     }
 }
@@ -0,0 +1,36 @@
+package ilp_cw1.ilp_cw1_rset.config;
+
+import ilp_cw1.ilp_cw1_rset.Droneservice.LegPathCache;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes the A* leg cache statistics through actuator (/actuator/metrics/drone.path.cache.*)
+ */
+@Configuration
+public class PathCacheMetricsConfig {
+    @Bean
+    public MeterBinder legPathCacheMetrics(droneService droneService) {
+        return registry -> {
+            LegPathCache cache = droneService.getLegPathCache();
+            FunctionCounter.builder("drone.path.cache.gets", cache, LegPathCache::getHitCount)
+                    .tag("result", "hit")
+                    .description("A* leg lookups answered from the cache")
+                    .register(registry);
+            FunctionCounter.builder("drone.path.cache.gets", cache, LegPathCache::getMissCount)
+                    .tag("result", "miss")
+                    .description("A* leg lookups that ran a search")
+                    .register(registry);
+            FunctionCounter.builder("drone.path.cache.evictions", cache, LegPathCache::getEvictionCount)
+                    .description("A* legs evicted to stay within the cache size")
+                    .register(registry);
+            Gauge.builder("drone.path.cache.size", cache, LegPathCache::size)
+                    .description("A* legs currently cached")
+                    .register(registry);
+        };
+    }
+}
@@ -1,18 +1,49 @@
 package ilp_cw1.ilp_cw1_rset;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import data.DistanceRequest;
 import data.MovementRequest;
 import data.PositionDto;
+import data.Region;
+import data.RegionBatchRequest;
 import data.RegionRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ilp_cw1.ilp_cw1_rset.Droneservice.BandedPolygon;
+import ilp_cw1.ilp_cw1_rset.Droneservice.RegionRegistry;
 import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * REST controller that provides APIs for distance calculation,
  * movement computation, and region checking operations.
+ *
+ * Every operation also has a batch variant under "/batch" that takes many requests in one call, either as a
+ * JSON array answered with a JSON array, or as newline-delimited JSON (application/x-ndjson) answered with one
+ * result line per request line as the lines arrive. Results are in request order; a request the single
+ * endpoint would reject with 400 gets a null result instead, so one bad entry does not fail the batch.
+ *
+ * Regions checked repeatedly can be registered once under "/regions" and then checked by id,
+ * without sending and preparing their vertices again.
  */
 @RestController
 @RequestMapping("/api/v1")
@@ -21,11 +52,33 @@ public class ilpController {
     /** Small tolerance constant for floating-point comparisons */
     private static final double EPSILON = 1e-12;
 
+    /** Move distance that counts as close */
+    private static final double CLOSE_DISTANCE = 0.00015;
+
+    /** Content type of newline-delimited JSON batches */
+    public static final String NDJSON = "application/x-ndjson";
+
+    /** Result lines written between flushes of a streamed batch */
+    private static final int FLUSH_LINES = 256;
+
     /** Service layer instance used for calculations */
     private final ilpService ilpService;
 
+    /** Regions registered by name for checks by id */
+    private final RegionRegistry regionRegistry;
+
+    /** JSON mapper for the lines of streamed batches, configured like the one behind the request bodies */
+    private final ObjectMapper objectMapper;
+
     public ilpController(ilpService ilpService) {
+        this(ilpService, new RegionRegistry(), Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    @Autowired
+    public ilpController(ilpService ilpService, RegionRegistry regionRegistry, ObjectMapper objectMapper) {
         this.ilpService = ilpService;
+        this.regionRegistry = regionRegistry;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -45,13 +98,7 @@ public class ilpController {
     @PostMapping("/distanceTo")
     public ResponseEntity<Double> distanceTo(@RequestBody DistanceRequest distanceRequest) {
         // Validate request and position data
-        if (distanceRequest == null
-                || distanceRequest.getPosition1() == null
-                || distanceRequest.getPosition2() == null
-                || distanceRequest.getPosition1().getLat() == null
-                || distanceRequest.getPosition1().getLng() == null
-                || distanceRequest.getPosition2().getLat() == null
-                || distanceRequest.getPosition2().getLng() == null) {
+        if (!isValidPair(distanceRequest)) {
             return ResponseEntity.badRequest().build();
         }
 
@@ -67,18 +114,12 @@ public class ilpController {
     @PostMapping("/isCloseTo")
     public ResponseEntity<Boolean> isCloseTo(@RequestBody DistanceRequest distanceRequest) {
         // Validate request and position data
-        if (distanceRequest == null
-                || distanceRequest.getPosition1() == null
-                || distanceRequest.getPosition2() == null
-                || distanceRequest.getPosition1().getLat() == null
-                || distanceRequest.getPosition1().getLng() == null
-                || distanceRequest.getPosition2().getLat() == null
-                || distanceRequest.getPosition2().getLng() == null) {
+        if (!isValidPair(distanceRequest)) {
             return ResponseEntity.badRequest().build();
         }
 
         // Compare distance with threshold
-        boolean isClose = ilpService.distanceCalculate(distanceRequest) < 0.00015;
+        boolean isClose = ilpService.distanceCalculate(distanceRequest) < CLOSE_DISTANCE;
         return ResponseEntity.ok(isClose);
     }
 
@@ -89,24 +130,8 @@ public class ilpController {
      */
     @PostMapping("/nextPosition")
     public ResponseEntity<PositionDto> calculateNextPosition(@RequestBody MovementRequest movementRequest) {
-        // Validate request and position data
-        if (movementRequest == null
-                || movementRequest.getStart() == null
-                || movementRequest.getStart().getLng() == null
-                || movementRequest.getStart().getLat() == null) {
-            return ResponseEntity.badRequest().build();
-        }
-
-        // Normalize angle
-        double angle = movementRequest.getAngle();
-        double normalizedAngle = angle % 360;
-        if (normalizedAngle < 0) {
-            normalizedAngle += 360;
-        }
-
-        // Check if angle is a multiple of 22.5 degrees
-        double remainder = normalizedAngle % 22.5;  // difference from valid angle
-        if (!(remainder < 1e-12 || (22.5 - remainder) < 1e-12)) {
+        // Validate request, position data and angle
+        if (!isValidMove(movementRequest)) {
             return ResponseEntity.badRequest().build();
         }
 
@@ -122,30 +147,345 @@ public class ilpController {
      */
     @PostMapping("/isInRegion")
     public ResponseEntity<Boolean> isInRegion(@RequestBody RegionRequest inRegionRequest) {
-        // Validate base request parameters
+        // Validate request, position and region
         if (inRegionRequest == null
-                || inRegionRequest.getPosition() == null
-                || inRegionRequest.getRegion() == null
-                || inRegionRequest.getRegion().getVertices() == null
-                || inRegionRequest.getRegion().getName() == null) {
+                || !isValidPosition(inRegionRequest.getPosition())
+                || !isValidRegion(inRegionRequest.getRegion())) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Determine whether position is inside region
+        boolean inside = ilpService.isPointInPolygon(inRegionRequest);
+        return ResponseEntity.ok(inside);
+    }
+
+    /**
+     * Calculates the distances of many position pairs.
+     * @param distanceRequests position pairs
+     * @return the distance of each pair, null for an invalid pair
+     */
+    @PostMapping(value = "/distanceTo/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Double>> distanceToBatch(@RequestBody List<DistanceRequest> distanceRequests) {
+        if (distanceRequests == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(mapAll(distanceRequests, this::distanceOf));
+    }
+
+    /**
+     * Streams the distances of position pairs sent as NDJSON, one pair per line.
+     * @param body request body
+     * @return one distance per line, null for an invalid pair
+     */
+    @PostMapping(value = "/distanceTo/batch", consumes = NDJSON, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> distanceToStream(InputStream body) {
+        return ndjson(out -> streamLines(body, out, objectMapper.readerFor(DistanceRequest.class), this::distanceOf));
+    }
+
+    /**
+     * Checks whether each of many position pairs is close.
+     * @param distanceRequests position pairs
+     * @return whether each pair is close, null for an invalid pair
+     */
+    @PostMapping(value = "/isCloseTo/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Boolean>> isCloseToBatch(@RequestBody List<DistanceRequest> distanceRequests) {
+        if (distanceRequests == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(mapAll(distanceRequests, this::closenessOf));
+    }
+
+    /**
+     * Streams whether position pairs sent as NDJSON are close, one pair per line.
+     * @param body request body
+     * @return one boolean per line, null for an invalid pair
+     */
+    @PostMapping(value = "/isCloseTo/batch", consumes = NDJSON, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> isCloseToStream(InputStream body) {
+        return ndjson(out -> streamLines(body, out, objectMapper.readerFor(DistanceRequest.class), this::closenessOf));
+    }
+
+    /**
+     * Calculates the next positions of many moves.
+     * @param movementRequests start positions and angles
+     * @return the position after each move, null for an invalid move
+     */
+    @PostMapping(value = "/nextPosition/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<PositionDto>> calculateNextPositionBatch(@RequestBody List<MovementRequest> movementRequests) {
+        if (movementRequests == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(mapAll(movementRequests, this::nextPositionOf));
+    }
+
+    /**
+     * Streams the next positions of moves sent as NDJSON, one move per line.
+     * @param body request body
+     * @return one position per line, null for an invalid move
+     */
+    @PostMapping(value = "/nextPosition/batch", consumes = NDJSON, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> calculateNextPositionStream(InputStream body) {
+        return ndjson(out -> streamLines(body, out, objectMapper.readerFor(MovementRequest.class),
+                this::nextPositionOf));
+    }
+
+    /**
+     * Checks many positions against one region, which is validated and prepared once.
+     * @param regionBatchRequest the region and the positions to check
+     * @return whether each position is inside, null for an invalid position; bad request for an invalid region
+     */
+    @PostMapping(value = "/isInRegion/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Boolean>> isInRegionBatch(@RequestBody RegionBatchRequest regionBatchRequest) {
+        if (regionBatchRequest == null
+                || regionBatchRequest.getPositions() == null
+                || !isValidRegion(regionBatchRequest.getRegion())) {
+            return ResponseEntity.badRequest().build();
+        }
+        BandedPolygon polygon = ilpService.prepareRegion(regionBatchRequest.getRegion());
+        return ResponseEntity.ok(mapAll(regionBatchRequest.getPositions(), position -> containmentOf(polygon, position)));
+    }
+
+    /**
+     * Streams whether positions sent as NDJSON are inside a region.
+     * The first line is the region, every following line a position.
+     * @param body request body
+     * @return one boolean per position line, null for an invalid position; a single null line if the region is invalid
+     */
+    @PostMapping(value = "/isInRegion/batch", consumes = NDJSON, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> isInRegionStream(InputStream body) {
+        return ndjson(out -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            String line = nextLine(reader);
+            Region region = line == null ? null : parse(objectMapper.readerFor(Region.class), line);
+            if (!isValidRegion(region)) {
+                writer.write("null\n");
+                writer.flush();
+                return;
+            }
+            BandedPolygon polygon = ilpService.prepareRegion(region);
+            ObjectReader positionReader = objectMapper.readerFor(PositionDto.class);
+            writeResults(reader, writer, positionReader,
+                    (PositionDto position) -> containmentOf(polygon, position));
+        });
+    }
+
+    /**
+     * Registers a region by name for later checks by id; a region with the same name is replaced.
+     * @param region the region definition
+     * @return the region id; bad request if the region is invalid, its name cannot be used in a region path
+     *         or it has too many vertices; conflict if the registry is full
+     */
+    @PostMapping("/regions")
+    public ResponseEntity<String> registerRegion(@RequestBody Region region) {
+        if (!isValidRegion(region) || !regionRegistry.accepts(region)) {
+            return ResponseEntity.badRequest().build();
+        }
+        String id = regionRegistry.register(region);
+        if (id == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(id);
+    }
+
+    /**
+     * Lists the registered regions.
+     * @return the ids of all registered regions
+     */
+    @GetMapping("/regions")
+    public ResponseEntity<List<String>> getRegions() {
+        return ResponseEntity.ok(regionRegistry.getIds());
+    }
+
+    /**
+     * Removes a registered region.
+     * @param id region id
+     * @return true, or not found if no region has the id
+     */
+    @DeleteMapping("/regions/{id}")
+    public ResponseEntity<Boolean> removeRegion(@PathVariable String id) {
+        if (!regionRegistry.remove(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(true);
+    }
+
+    /**
+     * Checks whether a position is inside a registered region.
+     * @param id region id
+     * @param position the position to check
+     * @return true if the position is inside, not found for an unknown region, bad request for an invalid position
+     */
+    @PostMapping("/regions/{id}/isInRegion")
+    public ResponseEntity<Boolean> isInRegisteredRegion(@PathVariable String id, @RequestBody PositionDto position) {
+        BandedPolygon polygon = regionRegistry.get(id);
+        if (polygon == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!isValidPosition(position)) {
             return ResponseEntity.badRequest().build();
         }
+        return ResponseEntity.ok(polygon.contains(position.getLng(), position.getLat()));
+    }
 
-        // Validate position coordinates
-        PositionDto position = inRegionRequest.getPosition();
-        if (position.getLng() == null || position.getLat() == null) {
+    /**
+     * Checks many positions against a registered region.
+     * @param id region id
+     * @param positions the positions to check
+     * @return whether each position is inside, null for an invalid position; not found for an unknown region
+     */
+    @PostMapping(value = "/regions/{id}/isInRegion/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Boolean>> isInRegisteredRegionBatch(@PathVariable String id,
+                                                                   @RequestBody List<PositionDto> positions) {
+        BandedPolygon polygon = regionRegistry.get(id);
+        if (polygon == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (positions == null) {
             return ResponseEntity.badRequest().build();
         }
+        return ResponseEntity.ok(mapAll(positions, position -> containmentOf(polygon, position)));
+    }
+
+    /**
+     * Streams whether positions sent as NDJSON, one per line, are inside a registered region.
+     * @param id region id
+     * @param body request body
+     * @return one boolean per line, null for an invalid position; not found for an unknown region
+     */
+    @PostMapping(value = "/regions/{id}/isInRegion/batch", consumes = NDJSON, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> isInRegisteredRegionStream(@PathVariable String id, InputStream body) {
+        BandedPolygon polygon = regionRegistry.get(id);
+        if (polygon == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ndjson(out -> streamLines(body, out, objectMapper.readerFor(PositionDto.class),
+                (PositionDto position) -> containmentOf(polygon, position)));
+    }
+
+    private Double distanceOf(DistanceRequest distanceRequest) {
+        return isValidPair(distanceRequest) ? ilpService.distanceCalculate(distanceRequest) : null;
+    }
+
+    private Boolean closenessOf(DistanceRequest distanceRequest) {
+        return isValidPair(distanceRequest) ? ilpService.distanceCalculate(distanceRequest) < CLOSE_DISTANCE : null;
+    }
+
+    private PositionDto nextPositionOf(MovementRequest movementRequest) {
+        return isValidMove(movementRequest) ? ilpService.movementCalculate(movementRequest) : null;
+    }
+
+    private static Boolean containmentOf(BandedPolygon polygon, PositionDto position) {
+        return isValidPosition(position) ? polygon.contains(position.getLng(), position.getLat()) : null;
+    }
+
+    private static <T, R> List<R> mapAll(List<T> requests, Function<T, R> operation) {
+        List<R> results = new ArrayList<>(requests.size());
+        for (T request : requests) {
+            results.add(operation.apply(request));
+        }
+        return results;
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * Answers every NDJSON request line of a stream with one result line
+     */
+    private <T, R> void streamLines(InputStream body, OutputStream out, ObjectReader requestReader,
+                                    Function<T, R> operation) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeResults(reader, writer, requestReader, operation);
+    }
+
+    private <T, R> void writeResults(BufferedReader reader, Writer writer, ObjectReader requestReader,
+                                     Function<T, R> operation) throws IOException {
+        int pending = 0;
+        String line;
+        while ((line = nextLine(reader)) != null) {
+            T request = parse(requestReader, line);
+            R result = request == null ? null : operation.apply(request);
+            writer.write(objectMapper.writeValueAsString(result));
+            writer.write('\n');
+            // Flush regularly so results reach the caller while later lines are still being sent
+            if (++pending == FLUSH_LINES) {
+                writer.flush();
+                pending = 0;
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads the next non-blank line
+     * @return the line, or null at the end of the stream
+     */
+    private static String nextLine(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses one NDJSON line
+     * @return the value, or null if the line is not valid JSON for the type
+     */
+    private static <T> T parse(ObjectReader requestReader, String line) {
+        try {
+            return requestReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static boolean isValidPosition(PositionDto position) {
+        return position != null && position.getLng() != null && position.getLat() != null;
+    }
+
+    private static boolean isValidPair(DistanceRequest distanceRequest) {
+        return distanceRequest != null
+                && isValidPosition(distanceRequest.getPosition1())
+                && isValidPosition(distanceRequest.getPosition2());
+    }
+
+    private static boolean isValidMove(MovementRequest movementRequest) {
+        if (movementRequest == null || !isValidPosition(movementRequest.getStart())) {
+            return false;
+        }
+
+        // Normalize angle
+        double angle = movementRequest.getAngle();
+        double normalizedAngle = angle % 360;
+        if (normalizedAngle < 0) {
+            normalizedAngle += 360;
+        }
+
+        // Check if angle is a multiple of 22.5 degrees
+        double remainder = normalizedAngle % 22.5;  // difference from valid angle
+        return remainder < 1e-12 || (22.5 - remainder) < 1e-12;
+    }
+
+    private static boolean isValidRegion(Region region) {
+        if (region == null || region.getVertices() == null || region.getName() == null) {
+            return false;
+        }
 
         // Validate vertices
-        List<PositionDto> vertices = inRegionRequest.getRegion().getVertices();
+        List<PositionDto> vertices = region.getVertices();
         if (vertices.size() < 4) {
-            return ResponseEntity.badRequest().build();
+            return false;
         }
 
         for (PositionDto vertex : vertices) {
-            if (vertex.getLng() == null || vertex.getLat() == null) {
-                return ResponseEntity.badRequest().build();
+            if (!isValidPosition(vertex)) {
+                return false;
             }
         }
 
@@ -154,12 +494,6 @@ public class ilpController {
         PositionDto lastVertex = vertices.getLast();
         double lngDiff = Math.abs(firstVertex.getLng() - lastVertex.getLng());
         double latDiff = Math.abs(firstVertex.getLat() - lastVertex.getLat());
-        if (lngDiff > EPSILON || latDiff > EPSILON) {
-            return ResponseEntity.badRequest().build();
-        }
-
-        // Determine whether position is inside region
-        boolean inside = ilpService.isPointInPolygon(inRegionRequest);
-        return ResponseEntity.ok(inside);
+        return lngDiff <= EPSILON && latDiff <= EPSILON;
     }
 }
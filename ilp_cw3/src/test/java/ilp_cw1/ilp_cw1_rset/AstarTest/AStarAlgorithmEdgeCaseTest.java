@@ -64,11 +64,10 @@ public class AStarAlgorithmEdgeCaseTest {
         Drone drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 0.1, 1.0, 1.0));
 
         // Mock distance
-        when(ilpService.distanceCalculate(any(DistanceRequest.class))).thenAnswer(inv -> {
-            DistanceRequest r = inv.getArgument(0);
-            double dx = r.getPosition1().getLng() - r.getPosition2().getLng();
-            double dy = r.getPosition1().getLat() - r.getPosition2().getLat();
-            return Math.sqrt(dx*dx + dy*dy);
+        when(ilpService.distanceCalculate(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenAnswer(inv -> {
+            double dx = inv.<Double>getArgument(0) - inv.<Double>getArgument(2);
+            double dy = inv.<Double>getArgument(1) - inv.<Double>getArgument(3);
+            return Math.sqrt(dx * dx + dy * dy);
         });
 
         // Mock movement: 16 directions, step ～0.00015
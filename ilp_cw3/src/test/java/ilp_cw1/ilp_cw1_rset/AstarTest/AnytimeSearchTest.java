@@ -0,0 +1,119 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.Drone;
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.SearchBudget;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the search budget bounds the planning time of a leg and that the anytime passes only improve paths.
+ * Uses the real ILP service so the exact polygon tests run as in production.
+ */
+public class AnytimeSearchTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private droneService droneServiceUnderTest;
+    private Drone drone;
+    private List<RestrictedArea> walls;
+    private PositionDto start;
+    private PositionDto goal;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        droneServiceUnderTest = new droneService(restTemplate, new ilpService());
+        droneServiceUnderTest.setPlannerMode(droneService.PlannerMode.LATTICE);
+        drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 0.1, 1.0, 1.0));
+        walls = List.of(
+                rectangle("wall-a", -3.1880, 55.9400, 0.0004, 0.0060),
+                rectangle("wall-b", -3.1840, 55.9420, 0.0004, 0.0060));
+        start = new PositionDto(-3.1900, 55.9430);
+        goal = new PositionDto(-3.1820, 55.9440);
+    }
+
+    @Test
+    void testSearchBudget_ExpansionLimit() {
+        SearchBudget budget = new SearchBudget(0, 10);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(budget.tryExpand());
+        }
+        assertFalse(budget.tryExpand());
+        assertTrue(budget.isExhausted());
+        assertFalse(SearchBudget.unlimited().isExhausted());
+        assertThrows(IllegalArgumentException.class, () -> new SearchBudget(-1, 0));
+    }
+
+    @Test
+    void testExhaustedBudget_ReturnsFastAndIsNotCached() {
+        droneServiceUnderTest.setSearchMaxExpansions(50);
+
+        long begin = System.nanoTime();
+        List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, walls, drone,
+                droneService.SearchDirection.FORWARD);
+        long elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+
+        assertNotNull(path);
+        assertTrue(elapsedMillis < 500, "Budgeted leg took " + elapsedMillis + " ms");
+
+        droneServiceUnderTest.calculateAStarPath(start, goal, walls, drone, droneService.SearchDirection.FORWARD);
+        assertEquals(0, droneServiceUnderTest.getLegPathCache().getHitCount(),
+                "A leg cut short by the budget must be planned again");
+    }
+
+    @Test
+    void testAnytimePasses_NeverLonger() {
+        // Without a time limit the result does not depend on the speed of the machine
+        droneServiceUnderTest.setSearchTimeBudgetMillis(0);
+        droneServiceUnderTest.setAnytimeWeights(new double[]{2.0});
+        List<PositionDto> firstPath = droneServiceUnderTest.calculateAStarPath(start, goal, walls, drone,
+                droneService.SearchDirection.FORWARD);
+
+        droneServiceUnderTest.setAnytimeWeights(new double[]{2.0, 1.5});
+        List<PositionDto> improvedPath = droneServiceUnderTest.calculateAStarPath(start, goal, walls, drone,
+                droneService.SearchDirection.FORWARD);
+
+        assertFlyable(improvedPath);
+        assertTrue(improvedPath.size() <= firstPath.size(),
+                "Improved path has " + improvedPath.size() + " points, first path " + firstPath.size());
+        assertThrows(IllegalArgumentException.class, () -> droneServiceUnderTest.setAnytimeWeights(new double[]{0.5}));
+    }
+
+    private void assertFlyable(List<PositionDto> path) {
+        assertFalse(path.isEmpty(), "No path found");
+        assertEquals(start.getLng(), path.get(0).getLng(), 0.0);
+        assertEquals(start.getLat(), path.get(0).getLat(), 0.0);
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(0.00015, ilpService.euclideanDistance(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                    path.get(i).getLng(), path.get(i).getLat()), 1e-12, "Step " + i + " is not one move");
+            assertTrue(droneServiceUnderTest.isMoveSafe(path.get(i - 1), path.get(i), walls),
+                    "Step " + i + " enters a restricted area");
+        }
+        PositionDto last = path.get(path.size() - 1);
+        assertTrue(ilpService.euclideanDistance(last.getLng(), last.getLat(), goal.getLng(), goal.getLat()) < 0.00015);
+    }
+
+    private RestrictedArea rectangle(String name, double lng, double lat, double width, double height) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + width, lat),
+                new PositionDto(lng + width, lat + height),
+                new PositionDto(lng, lat + height),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
@@ -0,0 +1,129 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.Drone;
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.BidirectionalLatticeSearch;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the bidirectional lattice search produces flyable paths under the same rules as the forward search.
+ * Uses the real ILP service so the exact polygon tests run as in production.
+ */
+public class BidirectionalSearchTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private droneService droneServiceUnderTest;
+    private Drone drone;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        droneServiceUnderTest = new droneService(restTemplate, new ilpService());
+        drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 0.1, 1.0, 1.0));
+    }
+
+    @Test
+    void testBidirectional_LegalPathAroundWalls() {
+        List<RestrictedArea> areas = List.of(
+                rectangle("wall-a", -3.1880, 55.9400, 0.0004, 0.0060),
+                rectangle("wall-b", -3.1840, 55.9420, 0.0004, 0.0060));
+        PositionDto start = new PositionDto(-3.1900, 55.9430);
+        PositionDto goal = new PositionDto(-3.1820, 55.9440);
+
+        // Without a time limit the result does not depend on the speed of the machine
+        droneServiceUnderTest.setSearchTimeBudgetMillis(0);
+        for (droneService.PlannerMode mode : droneService.PlannerMode.values()) {
+            droneServiceUnderTest.setPlannerMode(mode);
+            List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone,
+                    droneService.SearchDirection.BIDIRECTIONAL);
+            assertFlyable(path, start, goal, areas);
+        }
+    }
+
+    @Test
+    void testBidirectional_OpenAirspace() {
+        PositionDto start = new PositionDto(-3.1863580788986368, 55.94468066708487);
+        PositionDto goal = new PositionDto(-3.1750, 55.9520);
+
+        List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, List.of(), drone,
+                droneService.SearchDirection.BIDIRECTIONAL);
+
+        assertFlyable(path, start, goal, List.of());
+    }
+
+    @Test
+    void testBidirectional_EnclosedGoalExhaustsSearch() {
+        // Four walls around the goal with no gap
+        List<RestrictedArea> areas = List.of(
+                rectangle("south", -3.1870, 55.9440, 0.0020, 0.0003),
+                rectangle("north", -3.1870, 55.9457, 0.0020, 0.0003),
+                rectangle("west", -3.1870, 55.9440, 0.0003, 0.0020),
+                rectangle("east", -3.1853, 55.9440, 0.0003, 0.0020));
+        PositionDto start = new PositionDto(-3.1950, 55.9450);
+        PositionDto goal = new PositionDto(-3.1860, 55.9450);
+
+        BidirectionalLatticeSearch search = new BidirectionalLatticeSearch(
+                (fromLng, fromLat, toLng, toLat) -> droneServiceUnderTest.isMoveSafe(
+                        new PositionDto(fromLng, fromLat), new PositionDto(toLng, toLat), areas),
+                null,
+                (lng, lat) -> ilpService.euclideanDistance(lng, lat, goal.getLng(), goal.getLat()) / 0.00015,
+                (lng, lat) -> ilpService.euclideanDistance(lng, lat, start.getLng(), start.getLat()) / 0.00015);
+
+        // The enclosed side runs out of nodes first, so the search ends without flooding the open side
+        assertNull(search.search(start, goal));
+    }
+
+    @Test
+    void testAuto_SelectsByLegLength() {
+        PositionDto start = new PositionDto(-3.1863, 55.9446);
+        PositionDto goal = new PositionDto(-3.1843, 55.9446);
+
+        droneServiceUnderTest.setBidirectionalMinLength(0.01);
+        assertEquals(droneService.SearchDirection.FORWARD, droneServiceUnderTest.autoDirection(start, goal),
+                "Short AUTO leg is searched forward");
+
+        droneServiceUnderTest.setBidirectionalMinLength(0.001);
+        assertEquals(droneService.SearchDirection.BIDIRECTIONAL, droneServiceUnderTest.autoDirection(start, goal),
+                "Long AUTO leg is searched bidirectionally");
+        assertFalse(droneServiceUnderTest.calculateAStarPath(start, goal, List.of(), drone).isEmpty());
+    }
+
+    private void assertFlyable(List<PositionDto> path, PositionDto start, PositionDto goal, List<RestrictedArea> areas) {
+        assertFalse(path.isEmpty(), "No path found");
+        assertEquals(start.getLng(), path.get(0).getLng(), 0.0);
+        assertEquals(start.getLat(), path.get(0).getLat(), 0.0);
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(0.00015, ilpService.euclideanDistance(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                    path.get(i).getLng(), path.get(i).getLat()), 1e-12, "Step " + i + " is not one move");
+            assertTrue(droneServiceUnderTest.isMoveSafe(path.get(i - 1), path.get(i), areas),
+                    "Step " + i + " enters a restricted area");
+        }
+        PositionDto last = path.get(path.size() - 1);
+        assertTrue(ilpService.euclideanDistance(last.getLng(), last.getLat(), goal.getLng(), goal.getLat()) < 0.00015);
+    }
+
+    private RestrictedArea rectangle(String name, double lng, double lat, double width, double height) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + width, lat),
+                new PositionDto(lng + width, lat + height),
+                new PositionDto(lng, lat + height),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
@@ -48,7 +48,7 @@ public class BoundaryValuePathTest {
 
         Drone drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 0.1, 1.0, 1.0));
 
-        when(ilpService.distanceCalculate(any(DistanceRequest.class))).thenReturn(0.707);
+        when(ilpService.distanceCalculate(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(0.707);
         when(ilpService.movementCalculate(any(MovementRequest.class))).thenReturn(pos(0.1, 0.0));
         when(ilpService.isPointInPolygon(any(RegionRequest.class))).thenAnswer(inv -> {
             RegionRequest r = inv.getArgument(0);
@@ -0,0 +1,115 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.Drone;
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.BoundedLatticeSearch;
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveLattice;
+import ilp_cw1.ilp_cw1_rset.Droneservice.SearchBudget;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Verifies the memory-bounded search plans legs within a node cap the lattice search cannot plan them in,
+ * close to the length of the unbounded search, and that the planner falls back to it when a search reaches the cap.
+ */
+public class BoundedSearchTest {
+
+    private static final double STEP = MoveLattice.STEP;
+
+    private droneService droneServiceUnderTest;
+    private Drone drone;
+    private List<RestrictedArea> areas;
+    private PositionDto start;
+    private PositionDto goal;
+
+    @BeforeEach
+    void setUp() {
+        droneServiceUnderTest = new droneService(mock(RestTemplate.class), new ilpService());
+        drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 0.1, 1.0, 1.0));
+        areas = List.of(rectangle("wall", -3.1880, 55.9400, 0.0004, 0.0030));
+        start = new PositionDto(-3.1890, 55.9415);
+        goal = new PositionDto(-3.1868, 55.9415);
+    }
+
+    @AfterEach
+    void tearDown() {
+        droneServiceUnderTest.shutdown();
+    }
+
+    @Test
+    void testBoundedSearch_CloseToUnbounded() {
+        SearchBudget budget = new SearchBudget(10_000, 0);
+        List<PositionDto> bounded = new BoundedLatticeSearch(this::isMoveSafe, null,
+                (lng, lat) -> Math.max(0.0, MoveLattice.latticeDistance(goal.getLng() - lng, goal.getLat() - lat)
+                        - MoveLattice.GOAL_REACH),
+                4000, budget)
+                .search(start, goal, Double.POSITIVE_INFINITY);
+        List<PositionDto> unbounded = droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone);
+
+        assertTrue(isFlyable(bounded), "Bounded search found no path");
+        assertTrue(isFlyable(unbounded));
+        // The unbounded search returns a shortest path; the threshold steps of 5% bound how far the bounded one strays
+        assertTrue(bounded.size() - 1 <= Math.ceil((unbounded.size() - 1) * 1.05),
+                (bounded.size() - 1) + " moves against " + (unbounded.size() - 1));
+    }
+
+    @Test
+    void testNodeCap_PlannerFallsBack() {
+        droneServiceUnderTest.setSearchMaxNodes(4000);
+        droneServiceUnderTest.setSearchTimeBudgetMillis(10_000);
+
+        assertTrue(isFlyable(droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone)));
+    }
+
+    @Test
+    void testSearchBudget_CountsNodeCapHits() {
+        SearchBudget budget = new SearchBudget(0, 0, 3);
+        assertTrue(budget.allowsNodes(2));
+        assertFalse(budget.allowsNodes(3));
+        assertFalse(budget.allowsNodes(4));
+        assertEquals(2, budget.getNodeCapHits());
+
+        assertTrue(SearchBudget.unlimited().allowsNodes(Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> new SearchBudget(0, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> droneServiceUnderTest.setSearchMaxNodes(-1));
+    }
+
+    private boolean isMoveSafe(double fromLng, double fromLat, double toLng, double toLat) {
+        return droneServiceUnderTest.isMoveSafe(new PositionDto(fromLng, fromLat), new PositionDto(toLng, toLat), areas);
+    }
+
+    private boolean isFlyable(List<PositionDto> path) {
+        if (path == null || path.isEmpty()) {
+            return false;
+        }
+        for (int i = 1; i < path.size(); i++) {
+            if (!droneServiceUnderTest.isMoveSafe(path.get(i - 1), path.get(i), areas)) {
+                return false;
+            }
+        }
+        PositionDto last = path.get(path.size() - 1);
+        return ilpService.euclideanDistance(last.getLng(), last.getLat(), goal.getLng(), goal.getLat()) < STEP;
+    }
+
+    private RestrictedArea rectangle(String name, double lng, double lat, double width, double height) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + width, lat),
+                new PositionDto(lng + width, lat + height),
+                new PositionDto(lng, lat + height),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
@@ -0,0 +1,96 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.PositionDto;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ClearanceRaster;
+import ilp_cw1.ilp_cw1_rset.Droneservice.PreparedPolygon;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the clearance raster only decides moves the exact polygon tests agree with.
+ */
+public class ClearanceRasterTest {
+
+    @Test
+    void testClassifyMove_AgreesWithExactTests() {
+        Random random = new Random(23);
+        List<PreparedPolygon> polygons = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            polygons.add(randomStar(random, -3.20 + random.nextDouble() * 0.03, 55.93 + random.nextDouble() * 0.03));
+        }
+        ClearanceRaster raster = ClearanceRaster.build(polygons);
+        assertNotNull(raster);
+
+        int decided = 0;
+        int moves = 20000;
+        for (int i = 0; i < moves; i++) {
+            double fromLng = -3.205 + random.nextDouble() * 0.04;
+            double fromLat = 55.925 + random.nextDouble() * 0.04;
+            double angle = Math.toRadians(random.nextInt(16) * 22.5);
+            double length = i % 10 == 0 ? 0.0004 : 0.00015;
+            double toLng = fromLng + length * Math.cos(angle);
+            double toLat = fromLat + length * Math.sin(angle);
+
+            ClearanceRaster.Verdict verdict = raster.classifyMove(fromLng, fromLat, toLng, toLat);
+            if (verdict == ClearanceRaster.Verdict.UNKNOWN) {
+                continue;
+            }
+            decided++;
+            boolean safe = isMoveSafeExactly(polygons, fromLng, fromLat, toLng, toLat);
+            assertEquals(verdict == ClearanceRaster.Verdict.SAFE, safe,
+                    "Mismatch for move " + fromLng + "," + fromLat + " -> " + toLng + "," + toLat);
+        }
+        assertTrue(decided > moves / 2, "Raster decided only " + decided + " of " + moves + " moves");
+    }
+
+    @Test
+    void testClassifyMove_InteriorBoundaryAndFarAway() {
+        PreparedPolygon square = PreparedPolygon.of(Arrays.asList(
+                new PositionDto(0.0, 0.0), new PositionDto(0.003, 0.0),
+                new PositionDto(0.003, 0.003), new PositionDto(0.0, 0.003), new PositionDto(0.0, 0.0)));
+        ClearanceRaster raster = ClearanceRaster.build(List.of(square));
+
+        assertEquals(ClearanceRaster.Verdict.BLOCKED, raster.classifyMove(0.0015, 0.0015, 0.00165, 0.0015));
+        assertEquals(ClearanceRaster.Verdict.UNKNOWN, raster.classifyMove(-0.0001, 0.0015, 0.00005, 0.0015));
+        assertEquals(ClearanceRaster.Verdict.SAFE, raster.classifyMove(0.01, 0.01, 0.01015, 0.01));
+        assertEquals(0, raster.clearanceAt(0.0, 0.0015));
+        assertTrue(raster.clearanceAt(-0.0006, 0.0015) >= 3);
+    }
+
+    @Test
+    void testBuild_EmptyAndOversizedExtents() {
+        ClearanceRaster empty = ClearanceRaster.build(List.of());
+        assertEquals(ClearanceRaster.Verdict.SAFE, empty.classifyMove(0.0, 0.0, 0.00015, 0.0));
+
+        PreparedPolygon huge = PreparedPolygon.of(Arrays.asList(
+                new PositionDto(0.0, 0.0), new PositionDto(1.0, 0.0),
+                new PositionDto(1.0, 1.0), new PositionDto(0.0, 0.0)));
+        assertNull(ClearanceRaster.build(List.of(huge)));
+    }
+
+    private boolean isMoveSafeExactly(List<PreparedPolygon> polygons,
+                                      double fromLng, double fromLat, double toLng, double toLat) {
+        for (PreparedPolygon polygon : polygons) {
+            if (polygon.contains(fromLng, fromLat) || polygon.contains(toLng, toLat)
+                    || polygon.intersectsSegment(fromLng, fromLat, toLng, toLat)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private PreparedPolygon randomStar(Random random, double centerLng, double centerLat) {
+        int points = 3 + random.nextInt(8);
+        List<PositionDto> vertices = new ArrayList<>();
+        for (int i = 0; i < points; i++) {
+            double angle = 2 * Math.PI * i / points;
+            double radius = 0.0003 + random.nextDouble() * 0.0015;
+            vertices.add(new PositionDto(centerLng + radius * Math.cos(angle), centerLat + radius * Math.sin(angle)));
+        }
+        vertices.add(vertices.get(0));
+        return PreparedPolygon.of(vertices);
+    }
+}
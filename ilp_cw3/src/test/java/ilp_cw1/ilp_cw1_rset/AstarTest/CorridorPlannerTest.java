@@ -0,0 +1,106 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.Drone;
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.RestrictedAreaIndex;
+import ilp_cw1.ilp_cw1_rset.Droneservice.RouteCorridor;
+import ilp_cw1.ilp_cw1_rset.Droneservice.VisibilityGraphPlanner;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the visibility graph route and the corridor-confined lattice search.
+ * Uses the real ILP service so the exact polygon tests run as in production.
+ */
+public class CorridorPlannerTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private droneService droneServiceUnderTest;
+    private Drone drone;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        droneServiceUnderTest = new droneService(restTemplate, new ilpService());
+        drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 0.1, 1.0, 1.0));
+    }
+
+    @Test
+    void testCoarseRoute_GoesAroundWall() {
+        List<RestrictedArea> areas = List.of(rectangle("wall", -3.1880, 55.9400, 0.0004, 0.0060));
+        RestrictedAreaIndex index = new RestrictedAreaIndex(areas);
+
+        double[] route = VisibilityGraphPlanner.coarseRoute(-3.1900, 55.9430, -3.1850, 55.9430, index);
+
+        assertNotNull(route);
+        assertTrue(route.length / 2 > 2, "Route should bend around the wall");
+        assertEquals(-3.1900, route[0], 0.0);
+        assertEquals(55.9430, route[route.length - 1], 0.0);
+        for (int i = 0; i + 3 < route.length; i += 2) {
+            assertTrue(droneServiceUnderTest.isMoveSafe(new PositionDto(route[i], route[i + 1]),
+                    new PositionDto(route[i + 2], route[i + 3]), areas), "Route segment crosses the wall");
+        }
+    }
+
+    @Test
+    void testCorridorMode_ProducesLegalPath() {
+        List<RestrictedArea> areas = List.of(
+                rectangle("wall-a", -3.1880, 55.9400, 0.0004, 0.0060),
+                rectangle("wall-b", -3.1840, 55.9420, 0.0004, 0.0060),
+                rectangle("block", -3.1865, 55.9470, 0.0010, 0.0010));
+        PositionDto start = new PositionDto(-3.1900, 55.9430);
+        PositionDto goal = new PositionDto(-3.1820, 55.9440);
+
+        for (droneService.PlannerMode mode : droneService.PlannerMode.values()) {
+            droneServiceUnderTest.setPlannerMode(mode);
+            List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone);
+
+            assertFalse(path.isEmpty(), mode + " found no path");
+            assertEquals(start.getLng(), path.get(0).getLng(), 0.0);
+            assertEquals(start.getLat(), path.get(0).getLat(), 0.0);
+            for (int i = 1; i < path.size(); i++) {
+                assertEquals(0.00015, ilpService.euclideanDistance(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                        path.get(i).getLng(), path.get(i).getLat()), 1e-12, mode + " step " + i + " is not one move");
+                assertTrue(droneServiceUnderTest.isMoveSafe(path.get(i - 1), path.get(i), areas),
+                        mode + " step " + i + " enters a restricted area");
+            }
+            PositionDto last = path.get(path.size() - 1);
+            assertTrue(ilpService.euclideanDistance(last.getLng(), last.getLat(), goal.getLng(), goal.getLat()) < 0.00015);
+        }
+    }
+
+    @Test
+    void testRouteCorridor_ContainsPointsNearRoute() {
+        RouteCorridor corridor = new RouteCorridor(new double[]{0.0, 0.0, 0.001, 0.0, 0.001, 0.001}, 0.0001);
+
+        assertTrue(corridor.contains(0.0005, 0.00009));
+        assertTrue(corridor.contains(0.00109, 0.0005));
+        assertFalse(corridor.contains(0.0005, 0.0002));
+        assertFalse(corridor.contains(0.0005, 0.0005));
+        assertTrue(corridor.widened(4).contains(0.0005, 0.0002));
+    }
+
+    private RestrictedArea rectangle(String name, double lng, double lat, double width, double height) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + width, lat),
+                new PositionDto(lng + width, lat + height),
+                new PositionDto(lng, lat + height),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
@@ -0,0 +1,96 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import ilp_cw1.ilp_cw1_rset.Droneservice.IndexedMinHeap;
+import ilp_cw1.ilp_cw1_rset.Droneservice.LatticeNodeTable;
+import data.PositionDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the primitive open-set heap and node table used by A*.
+ */
+public class IndexedMinHeapTest {
+
+    @Test
+    void testPoll_ReturnsIdsInPriorityOrder() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        double[] keys = {5.0, 1.0, 4.0, 2.0, 3.0};
+        for (int id = 0; id < keys.length; id++) {
+            heap.insertOrDecrease(id, keys[id]);
+        }
+
+        List<Integer> order = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            order.add(heap.poll());
+        }
+        assertEquals(List.of(1, 3, 4, 2, 0), order);
+    }
+
+    @Test
+    void testDecreaseKey_ReordersWithoutDuplicates() {
+        IndexedMinHeap heap = new IndexedMinHeap();
+        heap.insertOrDecrease(7, 10.0);
+        heap.insertOrDecrease(8, 5.0);
+
+        assertTrue(heap.insertOrDecrease(7, 1.0), "Lower priority should be applied");
+        assertFalse(heap.insertOrDecrease(8, 6.0), "Higher priority should be ignored");
+        assertEquals(2, heap.size());
+
+        assertEquals(7, heap.poll());
+        assertEquals(8, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    void testRandomOperations_MatchReferenceOrdering() {
+        Random random = new Random(42);
+        IndexedMinHeap heap = new IndexedMinHeap(8);
+        Map<Integer, Double> reference = new HashMap<>();
+
+        for (int i = 0; i < 5000; i++) {
+            int id = random.nextInt(500);
+            double key = random.nextDouble() * 1000;
+            heap.insertOrDecrease(id, key);
+            reference.merge(id, key, Math::min);
+        }
+
+        double last = Double.NEGATIVE_INFINITY;
+        int polled = 0;
+        while (!heap.isEmpty()) {
+            double key = heap.peekKey();
+            int id = heap.poll();
+            assertEquals(reference.get(id), key, 0.0);
+            assertTrue(key >= last, "Keys must be non-decreasing");
+            assertFalse(heap.contains(id));
+            last = key;
+            polled++;
+        }
+        assertEquals(reference.size(), polled);
+    }
+
+    @Test
+    void testNodeTable_LooksUpKeysAndRebuildsPath() {
+        LatticeNodeTable nodes = new LatticeNodeTable(2);
+        int a = nodes.add(100L, 0.0, 0.0, 0.0, -1);
+        int b = nodes.add(-5L, 0.00015, 0.0, 1.0, a);
+        int c = nodes.add(Long.MAX_VALUE, 0.0003, 0.0, 2.0, b);
+        for (long key = 1000; key < 1100; key++) {
+            nodes.add(key, 1.0, 1.0, 9.0, c);
+        }
+
+        assertEquals(b, nodes.idOf(-5L));
+        assertEquals(c, nodes.idOf(Long.MAX_VALUE));
+        assertEquals(-1, nodes.idOf(42L));
+
+        List<PositionDto> path = nodes.pathTo(c);
+        assertEquals(3, path.size());
+        assertEquals(0.0003, path.get(2).getLng(), 0.0);
+
+        nodes.update(c, 0.0, 0.00015, 1.5, a);
+        assertEquals(2, nodes.pathTo(c).size());
+        assertEquals(1.5, nodes.gScoreOf(c), 0.0);
+    }
+}
@@ -0,0 +1,198 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.Drone;
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.LandmarkSet;
+import ilp_cw1.ilp_cw1_rset.Droneservice.RestrictedAreaIndex;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the landmark lower bounds never exceed the moves of a planned leg, see walls the straight-line
+ * distance misses, and are only used with the restricted areas they were built around.
+ * Uses the real ILP service so the exact polygon tests run as in production.
+ */
+public class LandmarkTest {
+
+    private static final double STEP = 0.00015;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private droneService droneServiceUnderTest;
+    private Drone drone;
+    private List<RestrictedArea> areas;
+    private PositionDto servicePoint;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        droneServiceUnderTest = new droneService(restTemplate, new ilpService());
+        drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 0.1, 1.0, 1.0));
+        areas = List.of(rectangle("wall", -3.1880, 55.9400, 0.0004, 0.0060));
+        servicePoint = new PositionDto(-3.1900, 55.9430);
+    }
+
+    @AfterEach
+    void tearDown() {
+        droneServiceUnderTest.shutdown();
+    }
+
+    @Test
+    void testLowerBound_NeverAbovePlannedMoves() {
+        LandmarkSet landmarks = LandmarkSet.build(droneServiceUnderTest.getRestrictedAreaIndex(areas),
+                List.of(servicePoint), this::isMoveSafe, 5, 1_000_000);
+        assertEquals(5, landmarks.size());
+
+        Random random = new Random(15);
+        for (int i = 0; i < 8; i++) {
+            PositionDto start = randomPosition(random);
+            PositionDto goal = randomPosition(random);
+            List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone);
+            assertTrue(isFlyable(path, goal), "Leg " + i + " was not planned");
+
+            double bound = landmarks.towards(goal.getLng(), goal.getLat()).lowerBound(start.getLng(), start.getLat());
+            // The leg ends within one move of the goal, so the goal is at most one move further
+            assertTrue(bound <= path.size() * STEP + 1e-12,
+                    "Bound of " + bound / STEP + " moves above a leg of " + (path.size() - 1) + " moves");
+        }
+    }
+
+    @Test
+    void testLowerBound_SeesWall() {
+        LandmarkSet landmarks = LandmarkSet.build(droneServiceUnderTest.getRestrictedAreaIndex(areas),
+                List.of(servicePoint), this::isMoveSafe, 5, 1_000_000);
+        PositionDto goal = new PositionDto(-3.1860, 55.9430);
+
+        double straight = ilpService.euclideanDistance(servicePoint.getLng(), servicePoint.getLat(), goal.getLng(), goal.getLat());
+        double bound = landmarks.towards(goal.getLng(), goal.getLat())
+                .lowerBound(servicePoint.getLng(), servicePoint.getLat());
+
+        assertTrue(bound > 1.5 * straight, "Bound of " + bound / STEP + " moves ignores the wall");
+    }
+
+    @Test
+    void testCellLimit_UncoveredGoalHasNoBound() {
+        LandmarkSet landmarks = LandmarkSet.build(droneServiceUnderTest.getRestrictedAreaIndex(areas),
+                List.of(servicePoint), this::isMoveSafe, 5, 200);
+        PositionDto goal = new PositionDto(-3.1860, 55.9430);
+
+        // Floods of 200 cells stay within a few moves of their landmark
+        assertEquals(0.0, landmarks.towards(goal.getLng(), goal.getLat())
+                .lowerBound(servicePoint.getLng(), servicePoint.getLat()));
+    }
+
+    @Test
+    void testNoAreas_EmptySet() {
+        RestrictedAreaIndex index = droneServiceUnderTest.getRestrictedAreaIndex(List.of());
+        LandmarkSet landmarks = LandmarkSet.build(index, List.of(servicePoint), (a, b, c, d) -> true, 8, 1_000_000);
+
+        assertEquals(0, landmarks.size());
+        assertEquals(0.0, landmarks.towards(-3.1860, 55.9430).lowerBound(-3.1900, 55.9430));
+    }
+
+    @Test
+    void testService_UsesLandmarksOnlyForTheirAreas() throws InterruptedException {
+        droneServiceUnderTest.setRouteTableMaxCells(1_000_000);
+        droneServiceUnderTest.setLandmarkCount(4);
+        RestrictedAreaIndex index = droneServiceUnderTest.getRestrictedAreaIndex(areas);
+
+        // The first request starts the background build
+        assertNull(droneServiceUnderTest.getRouteTables().landmarks(index, this::isMoveSafe));
+        LandmarkSet landmarks = awaitLandmarks(index);
+        assertNotNull(landmarks, "Landmarks were not built");
+        assertEquals(index.fingerprint(), landmarks.getFingerprint());
+
+        PositionDto goal = new PositionDto(-3.1860, 55.9430);
+        assertTrue(isFlyable(droneServiceUnderTest.calculateAStarPath(servicePoint, goal, areas, drone), goal));
+
+        List<RestrictedArea> otherAreas = List.of(rectangle("moved", -3.1882, 55.9400, 0.0004, 0.0060));
+        RestrictedAreaIndex otherIndex = droneServiceUnderTest.getRestrictedAreaIndex(otherAreas);
+        assertNull(droneServiceUnderTest.getRouteTables().landmarks(otherIndex, this::isMoveSafe),
+                "Landmarks of other areas are not used");
+    }
+
+    @Test
+    void testService_LandmarksKeepShortestPath() throws InterruptedException {
+        PositionDto goal = new PositionDto(-3.1860, 55.9430);
+        droneService withoutLandmarks = new droneService(restTemplate, new ilpService());
+        // Without a time limit the result does not depend on the speed of the machine
+        withoutLandmarks.setSearchTimeBudgetMillis(0);
+        withoutLandmarks.setPlannerMode(droneService.PlannerMode.LATTICE);
+        droneServiceUnderTest.setSearchTimeBudgetMillis(0);
+        droneServiceUnderTest.setPlannerMode(droneService.PlannerMode.LATTICE);
+        droneServiceUnderTest.setRouteTableMaxCells(1_000_000);
+        droneServiceUnderTest.setLandmarkCount(4);
+        assertNotNull(awaitLandmarks(droneServiceUnderTest.getRestrictedAreaIndex(areas)), "Landmarks were not built");
+
+        try {
+            // The landmark bound is taken unscaled, so it only prunes and never makes a search greedy
+            for (droneService.SearchDirection direction : List.of(droneService.SearchDirection.FORWARD,
+                    droneService.SearchDirection.BIDIRECTIONAL)) {
+                List<PositionDto> expected = withoutLandmarks.calculateAStarPath(servicePoint, goal, areas, drone,
+                        direction);
+                List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(servicePoint, goal, areas, drone,
+                        direction);
+                assertTrue(isFlyable(path, goal));
+                assertEquals(expected.size(), path.size(), direction + " path with landmarks has another length");
+            }
+        } finally {
+            withoutLandmarks.shutdown();
+        }
+    }
+
+    private LandmarkSet awaitLandmarks(RestrictedAreaIndex index) throws InterruptedException {
+        LandmarkSet landmarks = null;
+        for (int i = 0; i < 300 && landmarks == null; i++) {
+            Thread.sleep(50);
+            landmarks = droneServiceUnderTest.getRouteTables().landmarks(index, this::isMoveSafe);
+        }
+        return landmarks;
+    }
+
+    private PositionDto randomPosition(Random random) {
+        // Left or right of the wall, within its height
+        double lng = random.nextBoolean() ? -3.1900 + random.nextDouble() * 0.0012 : -3.1872 + random.nextDouble() * 0.0012;
+        return new PositionDto(lng, 55.9405 + random.nextDouble() * 0.0050);
+    }
+
+    private boolean isMoveSafe(double fromLng, double fromLat, double toLng, double toLat) {
+        return droneServiceUnderTest.isMoveSafe(new PositionDto(fromLng, fromLat), new PositionDto(toLng, toLat), areas);
+    }
+
+    private boolean isFlyable(List<PositionDto> path, PositionDto goal) {
+        if (path == null || path.isEmpty()) {
+            return false;
+        }
+        for (int i = 1; i < path.size(); i++) {
+            if (!droneServiceUnderTest.isMoveSafe(path.get(i - 1), path.get(i), areas)) {
+                return false;
+            }
+        }
+        PositionDto last = path.get(path.size() - 1);
+        return ilpService.euclideanDistance(last.getLng(), last.getLat(), goal.getLng(), goal.getLat()) < STEP;
+    }
+
+    private RestrictedArea rectangle(String name, double lng, double lat, double width, double height) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + width, lat),
+                new PositionDto(lng + width, lat + height),
+                new PositionDto(lng, lat + height),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
@@ -0,0 +1,81 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveLattice;
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveStepTable;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the 16-direction lattice distance is exact along move directions, never above the length of
+ * any real move sequence, and tighter than the straight-line distance between them.
+ */
+public class LatticeDistanceTest {
+
+    private static final double STEP = MoveLattice.STEP;
+
+    @Test
+    void testMoveDirections_Exact() {
+        double[] out = new double[2];
+        for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+            MoveStepTable.neighbour(0.0, 0.0, direction, out);
+            assertEquals(7 * STEP, MoveLattice.latticeDistance(7 * out[0], 7 * out[1]), 1e-12,
+                    "Direction " + direction);
+        }
+        // Between two directions the lattice needs 1/cos(11.25 degrees) times the straight line
+        double angle = Math.toRadians(11.25);
+        assertEquals(STEP / Math.cos(angle),
+                MoveLattice.latticeDistance(STEP * Math.cos(angle), STEP * Math.sin(angle)), 1e-12);
+    }
+
+    @Test
+    void testRandomMoveSequences_NeverBelowBound() {
+        Random random = new Random(16);
+        double[] out = new double[2];
+
+        for (int i = 0; i < 2000; i++) {
+            int moves = 1 + random.nextInt(60);
+            double lng = -3.19;
+            double lat = 55.94;
+            // A bias towards one direction gives long sequences, the spread gives every sector
+            int preferred = random.nextInt(MoveStepTable.DIRECTIONS);
+            for (int m = 0; m < moves; m++) {
+                int direction = random.nextInt(3) == 0 ? random.nextInt(MoveStepTable.DIRECTIONS) : preferred;
+                MoveStepTable.neighbour(lng, lat, direction, out);
+                lng = out[0];
+                lat = out[1];
+            }
+            double lattice = MoveLattice.latticeDistance(lng + 3.19, lat - 55.94);
+            double straight = ilpService.euclideanDistance(-3.19, 55.94, lng, lat);
+
+            assertTrue(lattice <= moves * STEP + 1e-12, moves + " moves cover a lattice distance of " + lattice / STEP);
+            assertTrue(lattice >= straight - 1e-15);
+            assertTrue(lattice <= straight / Math.cos(Math.toRadians(11.25)) + 1e-15);
+
+            // A goal anywhere within one move of the end is reached by the same moves
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double gap = random.nextDouble() * STEP * 0.999;
+            double goalLng = lng + gap * Math.cos(angle) + 3.19;
+            double goalLat = lat + gap * Math.sin(angle) - 55.94;
+            assertTrue(MoveLattice.minimumMoves(MoveLattice.latticeDistance(goalLng, goalLat)) <= moves);
+        }
+    }
+
+    @Test
+    void testMinimumMoves_TighterThanStraightLine() {
+        // Half way between two directions the straight-line estimate undercounts by one move in fifty
+        double angle = Math.toRadians(11.25);
+        double length = 100 * STEP;
+        int straightMoves = (int) Math.floor(length / STEP - 1e-9);
+        int latticeMoves = MoveLattice.minimumMoves(MoveLattice.latticeDistance(length * Math.cos(angle),
+                length * Math.sin(angle)));
+
+        assertEquals(99, straightMoves);
+        assertEquals(101, latticeMoves);
+        assertEquals(0, MoveLattice.minimumMoves(0.0));
+        assertEquals(0, MoveLattice.minimumMoves(0.9 * STEP));
+    }
+}
@@ -0,0 +1,109 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.*;
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveLattice;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that A* nodes are identified by lattice coordinates rather than object identity.
+ * Uses the real ILP service so that neighbour positions are produced exactly as in production.
+ */
+public class LatticeNodeIdentityTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private ilpService ilpService;
+    private droneService droneServiceUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ilpService = new ilpService();
+        droneServiceUnderTest = new droneService(restTemplate, ilpService);
+    }
+
+    @Test
+    void testDifferentMoveOrderings_MapToSameKey() {
+        PositionDto origin = pos(-3.1863580788986368, 55.94468066708487);
+        MoveLattice lattice = new MoveLattice(origin);
+
+        PositionDto eastThenNorth = move(move(origin, 0), 90);
+        PositionDto northThenEast = move(move(origin, 90), 0);
+        PositionDto diagonalDetour = move(move(move(origin, 22.5), 67.5), 315);
+
+        assertEquals(lattice.keyOf(eastThenNorth), lattice.keyOf(northThenEast));
+        assertNotEquals(lattice.keyOf(eastThenNorth), lattice.keyOf(diagonalDetour));
+    }
+
+    @Test
+    void testMoveAndReturn_MapsBackToOrigin() {
+        PositionDto origin = pos(-3.17732611501824, 55.981186279333656);
+        MoveLattice lattice = new MoveLattice(origin);
+
+        PositionDto back = move(move(origin, 112.5), 292.5);
+
+        assertEquals(lattice.keyOf(origin), lattice.keyOf(back));
+        assertEquals(0, MoveLattice.unpackX(lattice.keyOf(back)));
+        assertEquals(0, MoveLattice.unpackY(lattice.keyOf(back)));
+    }
+
+    @Test
+    void testPackUnpack_PreservesNegativeOffsets() {
+        long key = MoveLattice.pack(-12345, 678);
+        assertEquals(-12345, MoveLattice.unpackX(key));
+        assertEquals(678, MoveLattice.unpackY(key));
+    }
+
+    @Test
+    void testDetourAroundWall_TerminatesWithValidMoves() {
+        PositionDto start = pos(-3.1900, 55.9440);
+        PositionDto goal = pos(-3.1870, 55.9440);
+
+        // A wall straight across the direct route, open at the north end
+        RestrictedArea wall = new RestrictedArea();
+        wall.setId(1L);
+        wall.setName("wall");
+        wall.setVertices(Arrays.asList(
+                pos(-3.1886, 55.9425),
+                pos(-3.1884, 55.9425),
+                pos(-3.1884, 55.9450),
+                pos(-3.1886, 55.9450),
+                pos(-3.1886, 55.9425)
+        ));
+
+        Drone drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 2000, 0.01, 1.0, 1.0));
+
+        List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, List.of(wall), drone);
+
+        assertFalse(path.isEmpty(), "A detour around the wall should be found");
+        for (int i = 1; i < path.size(); i++) {
+            double step = ilpService.distanceCalculate(new DistanceRequest(path.get(i - 1), path.get(i)));
+            assertEquals(0.00015, step, 1e-12, "Every move must be a single lattice step");
+            assertTrue(droneServiceUnderTest.isMoveSafe(path.get(i - 1), path.get(i), List.of(wall)));
+        }
+        PositionDto last = path.get(path.size() - 1);
+        assertTrue(ilpService.distanceCalculate(new DistanceRequest(last, goal)) < 0.00015);
+    }
+
+    private PositionDto move(PositionDto from, double angle) {
+        return ilpService.movementCalculate(new MovementRequest(from, angle));
+    }
+
+    private PositionDto pos(double lng, double lat) {
+        PositionDto p = new PositionDto();
+        p.setLng(lng);
+        p.setLat(lat);
+        return p;
+    }
+}
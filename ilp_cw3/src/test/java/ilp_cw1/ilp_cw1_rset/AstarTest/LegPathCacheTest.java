@@ -0,0 +1,154 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.Drone;
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.LegPathCache;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import ilp_cw1.ilp_cw1_rset.config.PathCacheMetricsConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies caching of planned A* legs and its invalidation when restricted areas change.
+ */
+public class LegPathCacheTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private droneService droneServiceUnderTest;
+    private Drone drone;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        droneServiceUnderTest = new droneService(restTemplate, new ilpService());
+        drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 0.1, 1.0, 1.0));
+    }
+
+    @Test
+    void testRepeatedLeg_ServedFromCache() {
+        PositionDto start = new PositionDto(-3.1863580788986368, 55.94468066708487);
+        PositionDto goal = new PositionDto(-3.1853, 55.9450);
+        List<RestrictedArea> areas = List.of(square("wall", -3.1860, 55.9440, 0.0004));
+
+        List<PositionDto> first = droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone);
+        List<PositionDto> second = droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone);
+
+        LegPathCache cache = droneServiceUnderTest.getLegPathCache();
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertFalse(first.isEmpty());
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getLng(), second.get(i).getLng(), 0.0);
+            assertEquals(first.get(i).getLat(), second.get(i).getLat(), 0.0);
+        }
+
+        // Callers may modify the returned list without affecting the cache
+        second.clear();
+        assertEquals(first.size(), droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone).size());
+    }
+
+    @Test
+    void testOtherDroneModel_SharesCachedLeg() {
+        PositionDto start = new PositionDto(-3.1863, 55.9446);
+        PositionDto goal = new PositionDto(-3.1858, 55.9446);
+        Drone expensive = new Drone("E", "E1", new Drone.DroneCapability(false, false, 10.0, 1000, 25.0, 1.0, 1.0));
+
+        droneServiceUnderTest.calculateAStarPath(start, goal, List.of(), drone);
+        droneServiceUnderTest.calculateAStarPath(start, goal, List.of(), expensive);
+
+        assertEquals(1, droneServiceUnderTest.getLegPathCache().getHitCount());
+    }
+
+    @Test
+    void testChangedAreas_MissTheCache() {
+        PositionDto start = new PositionDto(-3.1863, 55.9446);
+        PositionDto goal = new PositionDto(-3.1858, 55.9446);
+
+        droneServiceUnderTest.calculateAStarPath(start, goal, List.of(), drone);
+        List<PositionDto> detour = droneServiceUnderTest.calculateAStarPath(start, goal,
+                List.of(square("block", -3.1861, 55.94455, 0.0001)), drone);
+
+        assertEquals(2, droneServiceUnderTest.getLegPathCache().getMissCount());
+        assertFalse(detour.isEmpty());
+    }
+
+    @Test
+    void testAddingRestrictedArea_InvalidatesCache() {
+        PositionDto start = new PositionDto(-3.1863, 55.9446);
+        PositionDto goal = new PositionDto(-3.1858, 55.9446);
+        droneServiceUnderTest.calculateAStarPath(start, goal, List.of(), drone);
+        assertEquals(1, droneServiceUnderTest.getLegPathCache().size());
+
+        RestrictedArea area = square("dynamic", 0.0, 0.0, 0.001);
+        area.setId(77L);
+        droneServiceUnderTest.addRestrictedArea(area);
+        assertEquals(0, droneServiceUnderTest.getLegPathCache().size());
+
+        droneServiceUnderTest.calculateAStarPath(start, goal, List.of(), drone);
+        droneServiceUnderTest.clearAllRestrictedAreas();
+        assertEquals(0, droneServiceUnderTest.getLegPathCache().size());
+    }
+
+    @Test
+    void testCapacity_EvictsLeastRecentlyUsed() {
+        LegPathCache cache = new LegPathCache(2);
+        PositionDto a = new PositionDto(0.0, 0.0);
+        PositionDto b = new PositionDto(1.0, 0.0);
+        PositionDto c = new PositionDto(2.0, 0.0);
+        LegPathCache.Key ab = LegPathCache.key(1L, a, b);
+        LegPathCache.Key ac = LegPathCache.key(1L, a, c);
+        LegPathCache.Key bc = LegPathCache.key(1L, b, c);
+
+        cache.put(ab, List.of(a, b));
+        cache.put(ac, List.of(a, c));
+        assertNotNull(cache.get(ab));
+        cache.put(bc, List.of(b, c));
+
+        assertNotNull(cache.get(ab));
+        assertNull(cache.get(ac));
+        assertNotNull(cache.get(bc));
+        assertEquals(1, cache.getEvictionCount());
+        assertNotEquals(ab, LegPathCache.key(2L, a, b), "The area fingerprint is part of the key");
+        assertEquals(LegPathCache.key(1L, new PositionDto(-0.0, 0.0), b), ab);
+    }
+
+    @Test
+    void testMetrics_ReportHitsAndMisses() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new PathCacheMetricsConfig().legPathCacheMetrics(droneServiceUnderTest).bindTo(registry);
+
+        PositionDto start = new PositionDto(-3.1863, 55.9446);
+        PositionDto goal = new PositionDto(-3.1858, 55.9446);
+        droneServiceUnderTest.calculateAStarPath(start, goal, List.of(), drone);
+        droneServiceUnderTest.calculateAStarPath(start, goal, List.of(), drone);
+
+        assertEquals(1.0, registry.get("drone.path.cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("drone.path.cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("drone.path.cache.size").gauge().value());
+    }
+
+    private RestrictedArea square(String name, double lng, double lat, double size) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + size, lat),
+                new PositionDto(lng + size, lat + size),
+                new PositionDto(lng, lat + size),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
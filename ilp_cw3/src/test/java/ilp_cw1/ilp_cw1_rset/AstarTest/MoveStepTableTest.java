@@ -0,0 +1,76 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.MovementRequest;
+import data.PositionDto;
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveStepTable;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the precomputed step table reproduces ilpService.movementCalculate bit for bit.
+ */
+public class MoveStepTableTest {
+
+    private final ilpService ilpService = new ilpService();
+
+    @Test
+    void testNeighbours_MatchMovementCalculateExactly() {
+        Random random = new Random(7);
+        double[] out = new double[MoveStepTable.DIRECTIONS * 2];
+
+        for (int i = 0; i < 2000; i++) {
+            double lng = -3.3 + random.nextDouble() * 0.3;
+            double lat = 55.8 + random.nextDouble() * 0.2;
+            assertMatchesReference(lng, lat, out);
+        }
+    }
+
+    @Test
+    void testNeighbours_MatchAlongChainedMoves() {
+        double[] out = new double[MoveStepTable.DIRECTIONS * 2];
+        double lng = -3.1863580788986368;
+        double lat = 55.94468066708487;
+
+        // Feed each result back in, as the search does
+        for (int i = 0; i < 500; i++) {
+            assertMatchesReference(lng, lat, out);
+            int direction = (i * 7) % MoveStepTable.DIRECTIONS;
+            lng = out[2 * direction];
+            lat = out[2 * direction + 1];
+        }
+    }
+
+    @Test
+    void testNeighbours_MatchAtEdgeCoordinates() {
+        double[] out = new double[MoveStepTable.DIRECTIONS * 2];
+        double[][] points = {{0.0, 0.0}, {-0.0, 0.0}, {180.0, -90.0}, {-179.99999, 89.99999}, {1e-12, -1e-12}};
+        for (double[] point : points) {
+            assertMatchesReference(point[0], point[1], out);
+        }
+    }
+
+    @Test
+    void testSteps_HaveMoveLength() {
+        for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+            double length = Math.hypot(MoveStepTable.lngStep(direction), MoveStepTable.latStep(direction));
+            assertEquals(0.00015, length, 1e-15);
+            assertEquals(direction * 22.5, MoveStepTable.angleOf(direction), 0.0);
+        }
+    }
+
+    private void assertMatchesReference(double lng, double lat, double[] out) {
+        MoveStepTable.neighbours(lng, lat, out);
+        for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+            PositionDto expected = ilpService.movementCalculate(
+                    new MovementRequest(new PositionDto(lng, lat), MoveStepTable.angleOf(direction)));
+            assertEquals(Double.doubleToLongBits(expected.getLng()), Double.doubleToLongBits(out[2 * direction]),
+                    "Longitude differs for direction " + direction + " from " + lng + "," + lat);
+            assertEquals(Double.doubleToLongBits(expected.getLat()), Double.doubleToLongBits(out[2 * direction + 1]),
+                    "Latitude differs for direction " + direction + " from " + lng + "," + lat);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.Drone;
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.BidirectionalLatticeSearch;
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveLattice;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ParallelLatticeSearch;
+import ilp_cw1.ilp_cw1_rset.Droneservice.SearchBudget;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.DoubleBinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Verifies the hash-distributed search plans legs as short as the single-threaded A* search, ends when there
+ * is no path, and is used by the planner for parallel legs.
+ */
+public class ParallelSearchTest {
+
+    private static final double STEP = MoveLattice.STEP;
+
+    private droneService droneServiceUnderTest;
+    private ExecutorService executor;
+    private Drone drone;
+    private List<RestrictedArea> areas;
+    private PositionDto start;
+    private PositionDto goal;
+
+    @BeforeEach
+    void setUp() {
+        droneServiceUnderTest = new droneService(mock(RestTemplate.class), new ilpService());
+        executor = Executors.newFixedThreadPool(3);
+        drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 0.1, 1.0, 1.0));
+        areas = List.of(rectangle("wall", -3.1880, 55.9400, 0.0004, 0.0030));
+        start = new PositionDto(-3.1890, 55.9415);
+        goal = new PositionDto(-3.1868, 55.9415);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        droneServiceUnderTest.shutdown();
+    }
+
+    @Test
+    void testFourWorkers_SameLengthAsSingleThreadedSearch() {
+        // The lattice distance is admissible, so every search finds a shortest path
+        DoubleBinaryOperator toGoal = (lng, lat) ->
+                Math.max(0.0, MoveLattice.latticeDistance(goal.getLng() - lng, goal.getLat() - lat) - MoveLattice.GOAL_REACH);
+        List<PositionDto> shortest = singleThreadedPath();
+        assertTrue(isFlyable(shortest));
+
+        // Workers interleave differently on every run
+        for (int run = 0; run < 5; run++) {
+            for (int threads : new int[]{1, 4}) {
+                List<PositionDto> parallel = new ParallelLatticeSearch(this::isMoveSafe, null, toGoal,
+                        new SearchBudget(10_000, 0), executor, threads).search(start, goal);
+                assertTrue(isFlyable(parallel));
+                assertEquals(shortest.size(), parallel.size(), threads + " workers return a longer path");
+            }
+        }
+    }
+
+    @Test
+    void testNoPath_EndsWithNull() {
+        // Every move leaving a small disc around the start is refused, so the goal cannot be reached
+        BidirectionalLatticeSearch.MoveCheck disc = (fromLng, fromLat, toLng, toLat) ->
+                ilpService.euclideanDistance(start.getLng(), start.getLat(), toLng, toLat) < 4 * STEP;
+        SearchBudget budget = new SearchBudget(10_000, 0);
+
+        assertNull(new ParallelLatticeSearch(disc, null, (lng, lat) -> 0.0, budget, executor, 4).search(start, goal));
+        assertFalse(budget.isExhausted());
+        assertTrue(budget.getExpansions() > 0);
+    }
+
+    @Test
+    void testStalledWorker_DeadlineEndsSearch() {
+        // The only pool thread is busy, so the second worker never runs and its nodes stay in flight
+        ExecutorService busy = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        busy.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            SearchBudget budget = new SearchBudget(200, 0);
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> new ParallelLatticeSearch(this::isMoveSafe, null,
+                    (lng, lat) -> 0.0, budget, busy, 2).search(start, goal));
+            assertTrue(budget.isExhausted());
+        } finally {
+            release.countDown();
+            busy.shutdownNow();
+        }
+    }
+
+    @Test
+    void testService_ParallelDirection() {
+        List<PositionDto> shortest = singleThreadedPath();
+        droneServiceUnderTest.setSearchThreads(4);
+        List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone,
+                droneService.SearchDirection.PARALLEL);
+
+        assertTrue(isFlyable(path));
+        assertEquals(shortest.size(), path.size());
+        assertThrows(IllegalArgumentException.class, () -> droneServiceUnderTest.setSearchThreads(-1));
+    }
+
+    @Test
+    void testSplitBudget_SharesLimits() {
+        SearchBudget budget = new SearchBudget(0, 100, 40);
+        SearchBudget[] parts = budget.split(4);
+        assertEquals(4, parts.length);
+        assertEquals(10, parts[0].getMaxNodes());
+        for (int i = 0; i < 25; i++) {
+            assertTrue(parts[0].tryExpand());
+        }
+        assertFalse(parts[0].tryExpand());
+        assertFalse(parts[1].allowsNodes(10));
+
+        for (SearchBudget part : parts) {
+            budget.absorb(part);
+        }
+        assertEquals(26, budget.getExpansions());
+        assertEquals(1, budget.getNodeCapHits());
+        assertTrue(budget.isExhausted());
+    }
+
+    /**
+     * Plans the leg with one unweighted pass of the forward A* search on the planning thread
+     */
+    private List<PositionDto> singleThreadedPath() {
+        droneService singleThreaded = new droneService(mock(RestTemplate.class), new ilpService());
+        try {
+            singleThreaded.setPlannerMode(droneService.PlannerMode.LATTICE);
+            singleThreaded.setAnytimeWeights(new double[0]);
+            singleThreaded.setSearchTimeBudgetMillis(0);
+            return singleThreaded.calculateAStarPath(start, goal, areas, drone, droneService.SearchDirection.FORWARD);
+        } finally {
+            singleThreaded.shutdown();
+        }
+    }
+
+    private boolean isMoveSafe(double fromLng, double fromLat, double toLng, double toLat) {
+        return droneServiceUnderTest.isMoveSafe(new PositionDto(fromLng, fromLat), new PositionDto(toLng, toLat), areas);
+    }
+
+    private boolean isFlyable(List<PositionDto> path) {
+        if (path == null || path.isEmpty()) {
+            return false;
+        }
+        for (int i = 1; i < path.size(); i++) {
+            if (!droneServiceUnderTest.isMoveSafe(path.get(i - 1), path.get(i), areas)) {
+                return false;
+            }
+        }
+        PositionDto last = path.get(path.size() - 1);
+        return ilpService.euclideanDistance(last.getLng(), last.getLat(), goal.getLng(), goal.getLat()) < STEP;
+    }
+
+    private RestrictedArea rectangle(String name, double lng, double lat, double width, double height) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + width, lat),
+                new PositionDto(lng + width, lat + height),
+                new PositionDto(lng, lat + height),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
@@ -33,16 +33,10 @@ public class PathfindingCombinatorialTest {
         MockitoAnnotations.openMocks(this);
         droneServiceUnderTest = new droneService(restTemplate, ilpService);
 
-        // 🔒 SAFE MOCK: handle null positions gracefully
-        when(ilpService.distanceCalculate(any(DistanceRequest.class))).thenAnswer(inv -> {
-            DistanceRequest r = inv.getArgument(0);
-            PositionDto p1 = r.getPosition1();
-            PositionDto p2 = r.getPosition2();
-            if (p1 == null || p2 == null) {
-                return Double.MAX_VALUE; // or 0.0, but MAX_VALUE is safer for A*
-            }
-            double dx = p1.getLng() - p2.getLng();
-            double dy = p1.getLat() - p2.getLat();
+        // Euclidean distance of the coordinates
+        when(ilpService.distanceCalculate(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenAnswer(inv -> {
+            double dx = inv.<Double>getArgument(0) - inv.<Double>getArgument(2);
+            double dy = inv.<Double>getArgument(1) - inv.<Double>getArgument(3);
             return Math.sqrt(dx * dx + dy * dy);
         });
 
@@ -81,10 +81,9 @@ public class PathfindingPerformanceTest {
         Drone drone = new Drone("D", "D1", capability);
 
         // Mock distance calculation: Euclidean distance (no delay)
-        when(ilpService.distanceCalculate(any(DistanceRequest.class))).thenAnswer(invocation -> {
-            DistanceRequest req = invocation.getArgument(0);
-            double dx = req.getPosition1().getLng() - req.getPosition2().getLng();
-            double dy = req.getPosition1().getLat() - req.getPosition2().getLat();
+        when(ilpService.distanceCalculate(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenAnswer(inv -> {
+            double dx = inv.<Double>getArgument(0) - inv.<Double>getArgument(2);
+            double dy = inv.<Double>getArgument(1) - inv.<Double>getArgument(3);
             return Math.sqrt(dx * dx + dy * dy);
         });
 
@@ -0,0 +1,152 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ClearanceRaster;
+import ilp_cw1.ilp_cw1_rset.Droneservice.RestrictedAreaIndex;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the restricted area index only prunes areas a move cannot touch.
+ * Uses the real ILP service so the exact polygon tests run as in production.
+ */
+public class RestrictedAreaIndexTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private droneService droneServiceUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        droneServiceUnderTest = new droneService(restTemplate, new ilpService());
+    }
+
+    @Test
+    void testCandidates_OnlyNearbyAreas() {
+        RestrictedArea near = square("near", 0.0, 0.0, 0.001);
+        RestrictedArea far = square("far", 1.0, 1.0, 0.001);
+        RestrictedAreaIndex index = new RestrictedAreaIndex(List.of(near, far));
+
+        assertEquals(List.of(near), index.candidates(-0.0005, 0.0005, 0.0005, 0.0005));
+        assertEquals(List.of(far), index.candidates(1.0005, 0.9995, 1.0005, 1.0005));
+        assertTrue(index.candidates(0.5, 0.5, 0.50015, 0.5).isEmpty());
+    }
+
+    @Test
+    void testCandidates_OpenRingAlwaysReturned() {
+        RestrictedArea open = new RestrictedArea();
+        open.setName("open");
+        open.setVertices(Arrays.asList(
+                new PositionDto(0.5, 0.5), new PositionDto(0.5, 1.5),
+                new PositionDto(1.5, 1.5), new PositionDto(1.5, 0.5)));
+        RestrictedArea noVertices = new RestrictedArea();
+        noVertices.setName("none");
+        RestrictedAreaIndex index = new RestrictedAreaIndex(List.of(square("closed", 5.0, 5.0, 0.1), open, noVertices));
+
+        assertEquals(List.of(open, noVertices), index.candidates(-3.0, -3.0, -2.9, -3.0));
+    }
+
+    @Test
+    void testReuseOrBuild_RebuildsWhenAreasChange() {
+        List<RestrictedArea> areas = new ArrayList<>(List.of(square("a", 0.0, 0.0, 0.001)));
+        RestrictedAreaIndex first = RestrictedAreaIndex.reuseOrBuild(null, areas);
+
+        assertSame(first, RestrictedAreaIndex.reuseOrBuild(first, new ArrayList<>(areas)));
+
+        areas.add(square("b", 0.01, 0.0, 0.001));
+        RestrictedAreaIndex second = RestrictedAreaIndex.reuseOrBuild(first, areas);
+        assertNotSame(first, second);
+        assertEquals(2, second.getAreas().size());
+    }
+
+    @Test
+    void testClearanceRaster_BuiltOnceInBackground() throws InterruptedException {
+        RestrictedAreaIndex first = new RestrictedAreaIndex(List.of(square("raster", 10.0, 10.0, 0.003)));
+        RestrictedAreaIndex second = new RestrictedAreaIndex(List.of(square("raster", 10.0, 10.0, 0.003)));
+
+        // Warm-up lookups are answered exactly, without a raster
+        for (int i = 0; i < 64; i++) {
+            assertNull(first.getClearanceRaster());
+        }
+        ClearanceRaster raster = null;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (raster == null && System.currentTimeMillis() < deadline) {
+            raster = first.getClearanceRaster();
+            Thread.sleep(5);
+        }
+        assertNotNull(raster);
+
+        for (int i = 0; i <= 64; i++) {
+            second.getClearanceRaster();
+        }
+        assertSame(raster, second.getClearanceRaster(), "An index over the same areas shares the raster");
+    }
+
+    @Test
+    void testReuseOrBuild_ReusesRefetchedAreas() {
+        RestrictedAreaIndex first = RestrictedAreaIndex.reuseOrBuild(null, List.of(square("a", 0.0, 0.0, 0.001)));
+
+        // Every API call deserializes new objects for the same areas
+        assertSame(first, RestrictedAreaIndex.reuseOrBuild(first, List.of(square("a", 0.0, 0.0, 0.001))));
+        assertNotSame(first, RestrictedAreaIndex.reuseOrBuild(first, List.of(square("b", 0.0, 0.0, 0.001))));
+        assertNotSame(first, RestrictedAreaIndex.reuseOrBuild(first, List.of(square("a", 0.0, 0.0, 0.002))));
+    }
+
+    @Test
+    void testIsMoveSafe_MatchesFullScan() {
+        Random random = new Random(11);
+        List<RestrictedArea> areas = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            double lng = -3.20 + random.nextDouble() * 0.03;
+            double lat = 55.93 + random.nextDouble() * 0.03;
+            areas.add(square("area-" + i, lng, lat, 0.0003 + random.nextDouble() * 0.002));
+        }
+
+        for (int i = 0; i < 3000; i++) {
+            PositionDto from = new PositionDto(-3.20 + random.nextDouble() * 0.03, 55.93 + random.nextDouble() * 0.03);
+            double angle = random.nextInt(16) * 22.5;
+            double length = i % 10 == 0 ? 0.005 : 0.00015;
+            PositionDto to = new PositionDto(
+                    from.getLng() + length * Math.cos(Math.toRadians(angle)),
+                    from.getLat() + length * Math.sin(Math.toRadians(angle)));
+
+            assertEquals(isMoveSafeByFullScan(from, to, areas), droneServiceUnderTest.isMoveSafe(from, to, areas),
+                    "Mismatch for move " + from.getLng() + "," + from.getLat() + " -> " + to.getLng() + "," + to.getLat());
+        }
+    }
+
+    private boolean isMoveSafeByFullScan(PositionDto from, PositionDto to, List<RestrictedArea> areas) {
+        for (RestrictedArea area : areas) {
+            if (droneServiceUnderTest.isPointInPolygon(from, area.getVertices())
+                    || droneServiceUnderTest.isPointInPolygon(to, area.getVertices())
+                    || droneServiceUnderTest.doesLineIntersectPolygon(from, to, area.getVertices())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private RestrictedArea square(String name, double lng, double lat, double size) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + size, lat),
+                new PositionDto(lng + size, lat + size),
+                new PositionDto(lng, lat + size),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
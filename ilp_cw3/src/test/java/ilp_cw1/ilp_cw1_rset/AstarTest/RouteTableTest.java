@@ -0,0 +1,157 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.Drone;
+import data.MedDispatchRec;
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.RouteTable;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies service point route tables answer outbound and return legs with flyable paths,
+ * and that tables built around other restricted areas are never used.
+ * Uses the real ILP service so the exact polygon tests run as in production.
+ */
+public class RouteTableTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private droneService droneServiceUnderTest;
+    private List<RestrictedArea> areas;
+    private PositionDto servicePoint;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        droneServiceUnderTest = new droneService(restTemplate, new ilpService());
+        areas = List.of(rectangle("wall", -3.1880, 55.9400, 0.0004, 0.0060));
+        servicePoint = new PositionDto(-3.1900, 55.9430);
+    }
+
+    @AfterEach
+    void tearDown() {
+        droneServiceUnderTest.shutdown();
+    }
+
+    @Test
+    void testTablePaths_FlyableBothWays() {
+        RouteTable table = RouteTable.build(servicePoint, this::isMoveSafe, 80, 1_000_000);
+        assertFalse(table.isTruncated());
+
+        PositionDto[] goals = {
+                new PositionDto(-3.1850, 55.9440),
+                new PositionDto(-3.1860, 55.9390),
+                new PositionDto(-3.1920, 55.9470)};
+        for (PositionDto goal : goals) {
+            List<PositionDto> outbound = table.pathTo(goal.getLng(), goal.getLat());
+            assertNotNull(outbound, "No outbound path to " + goal.getLng() + ", " + goal.getLat());
+            assertFlyable(outbound, servicePoint, goal);
+
+            List<PositionDto> inbound = table.pathFrom(goal.getLng(), goal.getLat(), this::isMoveSafe);
+            assertNotNull(inbound, "No return path from " + goal.getLng() + ", " + goal.getLat());
+            assertFlyable(inbound, goal, servicePoint);
+        }
+    }
+
+    @Test
+    void testReplayedPath_EndsInRecordedCell() {
+        RouteTable table = RouteTable.build(servicePoint, this::isMoveSafe, 80, 1_000_000);
+
+        PositionDto[] goals = {
+                new PositionDto(-3.1850, 55.9440),
+                new PositionDto(-3.1860, 55.9390)};
+        for (PositionDto goal : goals) {
+            List<PositionDto> outbound = table.pathTo(goal.getLng(), goal.getLat());
+            assertNotNull(outbound);
+            PositionDto end = outbound.get(outbound.size() - 1);
+            assertEquals(outbound.size() - 1, table.movesNear(end.getLng(), end.getLat()),
+                    "Replayed node is not the node recorded for its cell");
+        }
+    }
+
+    @Test
+    void testSizeLimit_TruncatesFlood() {
+        RouteTable table = RouteTable.build(servicePoint, this::isMoveSafe, 1000, 500);
+
+        assertTrue(table.isTruncated());
+        assertEquals(500, table.getCellCount());
+        assertNull(table.pathTo(-3.1700, 55.9430), "Goal beyond the flooded cells");
+    }
+
+    @Test
+    void testService_UsesTableOnlyForItsAreas() throws InterruptedException {
+        droneServiceUnderTest.setRouteTableMaxCells(200_000);
+        Drone drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 200, 0.1, 1.0, 1.0));
+        MedDispatchRec task = new MedDispatchRec();
+        task.setId(1);
+        PositionDto taskLocation = new PositionDto(-3.1850, 55.9440);
+
+        // The first tour is searched and starts the background flood
+        assertNotNull(droneServiceUnderTest.calculateSingleDronePath(drone, List.of(task), servicePoint,
+                Map.of(1, taskLocation), areas));
+        long fingerprint = droneServiceUnderTest.getRestrictedAreaIndex(areas).fingerprint();
+        RouteTable table = null;
+        for (int i = 0; i < 300 && table == null; i++) {
+            Thread.sleep(50);
+            table = droneServiceUnderTest.getRouteTables().getTable(servicePoint, fingerprint);
+        }
+        assertNotNull(table, "Route table was not built");
+
+        PositionDto goal = new PositionDto(-3.1845, 55.9420);
+        List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(servicePoint, goal, areas, drone, 100);
+        List<PositionDto> expected = table.pathTo(goal.getLng(), goal.getLat());
+        assertEquals(expected.size(), path.size(), "Outbound leg is answered from the table");
+        assertFlyable(path, servicePoint, goal);
+
+        List<RestrictedArea> otherAreas = List.of(rectangle("moved", -3.1882, 55.9400, 0.0004, 0.0060));
+        long otherFingerprint = droneServiceUnderTest.getRestrictedAreaIndex(otherAreas).fingerprint();
+        assertNull(droneServiceUnderTest.getRouteTables().getTable(servicePoint, otherFingerprint));
+        List<PositionDto> searched = droneServiceUnderTest.calculateAStarPath(servicePoint, goal, otherAreas, drone, 100);
+        assertNotNull(searched);
+        for (int i = 1; i < searched.size(); i++) {
+            assertTrue(droneServiceUnderTest.isMoveSafe(searched.get(i - 1), searched.get(i), otherAreas));
+        }
+    }
+
+    private boolean isMoveSafe(double fromLng, double fromLat, double toLng, double toLat) {
+        return droneServiceUnderTest.isMoveSafe(new PositionDto(fromLng, fromLat), new PositionDto(toLng, toLat), areas);
+    }
+
+    private void assertFlyable(List<PositionDto> path, PositionDto start, PositionDto goal) {
+        assertFalse(path.isEmpty(), "No path found");
+        assertEquals(start.getLng(), path.get(0).getLng(), 0.0);
+        assertEquals(start.getLat(), path.get(0).getLat(), 0.0);
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(0.00015, ilpService.euclideanDistance(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                    path.get(i).getLng(), path.get(i).getLat()), 1e-12, "Step " + i + " is not one move");
+            assertTrue(droneServiceUnderTest.isMoveSafe(path.get(i - 1), path.get(i), areas),
+                    "Step " + i + " enters a restricted area");
+        }
+        PositionDto last = path.get(path.size() - 1);
+        assertTrue(ilpService.euclideanDistance(last.getLng(), last.getLat(), goal.getLng(), goal.getLat()) < 0.00015);
+    }
+
+    private RestrictedArea rectangle(String name, double lng, double lat, double width, double height) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + width, lat),
+                new PositionDto(lng + width, lat + height),
+                new PositionDto(lng, lat + height),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
@@ -0,0 +1,124 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.Drone;
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.LatticeNodeTable;
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveLattice;
+import ilp_cw1.ilp_cw1_rset.Droneservice.SearchArena;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Verifies search arenas are handed out empty, reused on the same thread without mixing nested searches,
+ * and that planning with a reused arena gives the same paths as with a fresh one.
+ */
+public class SearchArenaTest {
+
+    @Test
+    void testReacquire_SameArenaEmptied() {
+        SearchArena first;
+        try (SearchArena arena = SearchArena.acquire()) {
+            first = arena;
+            int id = arena.nodes().add(MoveLattice.pack(3, 4), 1.0, 2.0, 0.5, -1);
+            arena.openSet().insertOrDecrease(id, 1.0);
+        }
+
+        try (SearchArena arena = SearchArena.acquire()) {
+            assertSame(first, arena);
+            assertEquals(0, arena.nodes().size());
+            assertEquals(-1, arena.nodes().idOf(MoveLattice.pack(3, 4)));
+            assertTrue(arena.openSet().isEmpty());
+        }
+    }
+
+    @Test
+    void testGrownArena_NotRetained() {
+        SearchArena grown;
+        try (SearchArena arena = SearchArena.acquire()) {
+            grown = arena;
+            // Beyond the retention limit, well below the default node cap of a search
+            for (int i = 0; i < 70_000; i++) {
+                arena.nodes().add(MoveLattice.pack(i, 0), i, 0.0, 0.0, -1);
+            }
+        }
+
+        try (SearchArena arena = SearchArena.acquire()) {
+            assertNotSame(grown, arena);
+            assertEquals(0, arena.nodes().size());
+        }
+    }
+
+    @Test
+    void testNestedAcquire_SeparateArenas() {
+        try (SearchArena outer = SearchArena.acquire()) {
+            outer.nodes().add(MoveLattice.pack(1, 1), 1.0, 1.0, 0.0, -1);
+            try (SearchArena inner = SearchArena.acquire()) {
+                assertNotSame(outer, inner);
+                assertEquals(0, inner.nodes().size());
+                inner.nodes().add(MoveLattice.pack(2, 2), 2.0, 2.0, 0.0, -1);
+            }
+            assertEquals(1, outer.nodes().size());
+            assertEquals(0, outer.nodes().idOf(MoveLattice.pack(1, 1)));
+        }
+    }
+
+    @Test
+    void testClearedTable_ForgetsKeysAcrossRehash() {
+        LatticeNodeTable table = new LatticeNodeTable(16);
+        for (int generation = 0; generation < 5; generation++) {
+            table.clear();
+            // Every generation grows the table past several rehashes with keys of its own
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(i, table.add(MoveLattice.pack(i, generation), i, generation, 0.0, -1));
+            }
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(i, table.idOf(MoveLattice.pack(i, generation)));
+                assertEquals(-1, table.idOf(MoveLattice.pack(i, generation - 1)));
+            }
+        }
+    }
+
+    @Test
+    void testReusedArena_SamePaths() {
+        Drone drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 0.1, 1.0, 1.0));
+        List<RestrictedArea> areas = List.of(square("block", -3.1860, 55.9440, 0.0010));
+        PositionDto start = new PositionDto(-3.1870, 55.9445);
+        PositionDto goal = new PositionDto(-3.1840, 55.9445);
+
+        // Separate services so the second leg is planned again rather than read from the leg cache
+        List<PositionDto> first = newService().calculateAStarPath(start, goal, areas, drone);
+        List<PositionDto> second = newService().calculateAStarPath(start, goal, areas, drone);
+
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getLng(), second.get(i).getLng(), 0.0);
+            assertEquals(first.get(i).getLat(), second.get(i).getLat(), 0.0);
+        }
+    }
+
+    private droneService newService() {
+        droneService service = new droneService(mock(RestTemplate.class), new ilpService());
+        service.setSearchTimeBudgetMillis(0);
+        return service;
+    }
+
+    private RestrictedArea square(String name, double lng, double lat, double size) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + size, lat),
+                new PositionDto(lng + size, lat + size),
+                new PositionDto(lng, lat + size),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
@@ -0,0 +1,146 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.Drone;
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveLattice;
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveStepTable;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Verifies that the forward, bidirectional and parallel searches all return a path with the fewest moves,
+ * counted independently by a breadth-first search over the same lattice.
+ * Uses the real ILP service so the exact polygon tests run as in production.
+ */
+public class SearchOptimalityTest {
+
+    private static final double STEP = MoveLattice.STEP;
+
+    private droneService droneServiceUnderTest;
+    private Drone drone;
+    private List<RestrictedArea> areas;
+    private PositionDto start;
+    private PositionDto goal;
+
+    @BeforeEach
+    void setUp() {
+        droneServiceUnderTest = new droneService(mock(RestTemplate.class), new ilpService());
+        droneServiceUnderTest.setPlannerMode(droneService.PlannerMode.LATTICE);
+        droneServiceUnderTest.setSearchThreads(4);
+        // Without a time limit the result does not depend on the speed of the machine
+        droneServiceUnderTest.setSearchTimeBudgetMillis(0);
+        // The cache would hand every direction the path of the first one
+        droneServiceUnderTest.setLegPathCacheCapacity(0);
+        // A cost per move far from 1 must not change which path is shortest
+        drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 25.0, 1.0, 1.0));
+        // A pocket open towards the start, with the goal behind it: heading straight for the goal leads into it
+        areas = List.of(
+                rectangle("back", -3.1878, 55.9405, 0.0002, 0.0020),
+                rectangle("upper-arm", -3.1886, 55.9423, 0.0010, 0.0002),
+                rectangle("lower-arm", -3.1886, 55.9405, 0.0010, 0.0002));
+        start = new PositionDto(-3.1892, 55.9415);
+        goal = new PositionDto(-3.1868, 55.9415);
+    }
+
+    @AfterEach
+    void tearDown() {
+        droneServiceUnderTest.shutdown();
+    }
+
+    @Test
+    void testAllDirections_FewestMoves() {
+        int fewestMoves = fewestMoves();
+        assertTrue(fewestMoves > 0, "The goal is reachable");
+
+        for (droneService.SearchDirection direction : List.of(droneService.SearchDirection.FORWARD,
+                droneService.SearchDirection.BIDIRECTIONAL, droneService.SearchDirection.PARALLEL)) {
+            List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone, direction);
+            assertFlyable(path, direction);
+            assertEquals(fewestMoves, path.size() - 1, direction + " search returns a longer path");
+        }
+    }
+
+    @Test
+    void testCorridorMode_FewestMoves() {
+        int fewestMoves = fewestMoves();
+        droneServiceUnderTest.setPlannerMode(droneService.PlannerMode.CORRIDOR);
+
+        for (droneService.SearchDirection direction : List.of(droneService.SearchDirection.FORWARD,
+                droneService.SearchDirection.BIDIRECTIONAL, droneService.SearchDirection.PARALLEL)) {
+            List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone, direction);
+            assertFlyable(path, direction);
+            assertEquals(fewestMoves, path.size() - 1, direction + " search in the corridor returns a longer path");
+        }
+    }
+
+    /**
+     * Counts the moves of the shortest route level by level, merging positions on the same lattice key
+     * as the searches do
+     */
+    private int fewestMoves() {
+        MoveLattice lattice = new MoveLattice(start);
+        Set<Long> seen = new HashSet<>();
+        seen.add(lattice.keyOf(start));
+        List<double[]> frontier = List.of(new double[]{start.getLng(), start.getLat()});
+        double[] neighbours = new double[MoveStepTable.DIRECTIONS * 2];
+
+        for (int moves = 0; !frontier.isEmpty(); moves++) {
+            List<double[]> next = new ArrayList<>();
+            for (double[] position : frontier) {
+                if (ilpService.euclideanDistance(position[0], position[1], goal.getLng(), goal.getLat()) < STEP) {
+                    return moves;
+                }
+                MoveStepTable.neighbours(position[0], position[1], neighbours);
+                for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+                    double lng = neighbours[2 * direction];
+                    double lat = neighbours[2 * direction + 1];
+                    long key = lattice.keyOf(lng, lat);
+                    if (!seen.contains(key) && isMoveSafe(position[0], position[1], lng, lat)) {
+                        seen.add(key);
+                        next.add(new double[]{lng, lat});
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return -1;
+    }
+
+    private boolean isMoveSafe(double fromLng, double fromLat, double toLng, double toLat) {
+        return droneServiceUnderTest.isMoveSafe(new PositionDto(fromLng, fromLat), new PositionDto(toLng, toLat), areas);
+    }
+
+    private void assertFlyable(List<PositionDto> path, droneService.SearchDirection direction) {
+        assertFalse(path.isEmpty(), "No " + direction + " path found");
+        assertEquals(start.getLng(), path.get(0).getLng(), 0.0);
+        assertEquals(start.getLat(), path.get(0).getLat(), 0.0);
+        for (int i = 1; i < path.size(); i++) {
+            assertTrue(droneServiceUnderTest.isMoveSafe(path.get(i - 1), path.get(i), areas),
+                    "Step " + i + " of the " + direction + " path enters a restricted area");
+        }
+        PositionDto last = path.get(path.size() - 1);
+        assertTrue(ilpService.euclideanDistance(last.getLng(), last.getLat(), goal.getLng(), goal.getLat()) < STEP);
+    }
+
+    private RestrictedArea rectangle(String name, double lng, double lat, double width, double height) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + width, lat),
+                new PositionDto(lng + width, lat + height),
+                new PositionDto(lng, lat + height),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
@@ -0,0 +1,106 @@
+package ilp_cw1.ilp_cw1_rset.AstarTest;
+
+import data.Drone;
+import data.PositionDto;
+import data.RestrictedArea;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies legs with a clear direct segment are flown straight, and that blocked legs still get a detour.
+ * Uses the real ILP service so the exact polygon tests run as in production.
+ */
+public class StraightLinePathTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private droneService droneServiceUnderTest;
+    private Drone drone;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        droneServiceUnderTest = new droneService(restTemplate, new ilpService());
+        drone = new Drone("D", "D1", new Drone.DroneCapability(false, false, 10.0, 1000, 0.1, 1.0, 1.0));
+    }
+
+    @Test
+    void testClearLeg_FlownInMinimalMoves() {
+        PositionDto start = new PositionDto(-3.1863580788986368, 55.94468066708487);
+        Random random = new Random(5);
+
+        for (int i = 0; i < 50; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double length = 0.0005 + random.nextDouble() * 0.01;
+            PositionDto goal = new PositionDto(start.getLng() + length * Math.cos(angle),
+                    start.getLat() + length * Math.sin(angle));
+
+            List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, List.of(), drone);
+
+            assertFlyable(path, start, goal, List.of());
+            // Each move gains at least cos(11.25 degrees) of a step towards the goal
+            assertTrue(path.size() - 1 <= Math.ceil(length / (0.00015 * Math.cos(Math.toRadians(11.25)))),
+                    "Leg of " + length + " took " + (path.size() - 1) + " moves");
+        }
+    }
+
+    @Test
+    void testSegmentGrazingArea_StillSafe() {
+        // The direct segment runs just below the square, so a zigzag towards it would clip the corner
+        List<RestrictedArea> areas = List.of(square("grazed", -3.1860, 55.94470, 0.0010));
+        PositionDto start = new PositionDto(-3.1875, 55.944695);
+        PositionDto goal = new PositionDto(-3.1835, 55.944695);
+
+        List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone);
+
+        assertFlyable(path, start, goal, areas);
+    }
+
+    @Test
+    void testBlockedLeg_Detours() {
+        List<RestrictedArea> areas = List.of(square("block", -3.1860, 55.9440, 0.0010));
+        PositionDto start = new PositionDto(-3.1870, 55.9445);
+        PositionDto goal = new PositionDto(-3.1840, 55.9445);
+
+        List<PositionDto> path = droneServiceUnderTest.calculateAStarPath(start, goal, areas, drone);
+
+        assertFlyable(path, start, goal, areas);
+        assertTrue(path.size() - 1 > 20, "A detour needs more moves than the direct distance");
+    }
+
+    private void assertFlyable(List<PositionDto> path, PositionDto start, PositionDto goal, List<RestrictedArea> areas) {
+        assertFalse(path.isEmpty(), "No path found");
+        assertEquals(start.getLng(), path.get(0).getLng(), 0.0);
+        assertEquals(start.getLat(), path.get(0).getLat(), 0.0);
+        for (int i = 1; i < path.size(); i++) {
+            assertEquals(0.00015, ilpService.euclideanDistance(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                    path.get(i).getLng(), path.get(i).getLat()), 1e-12, "Step " + i + " is not one move");
+            assertTrue(droneServiceUnderTest.isMoveSafe(path.get(i - 1), path.get(i), areas),
+                    "Step " + i + " enters a restricted area");
+        }
+        PositionDto last = path.get(path.size() - 1);
+        assertTrue(ilpService.euclideanDistance(last.getLng(), last.getLat(), goal.getLng(), goal.getLat()) < 0.00015);
+    }
+
+    private RestrictedArea square(String name, double lng, double lat, double size) {
+        RestrictedArea area = new RestrictedArea();
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + size, lat),
+                new PositionDto(lng + size, lat + size),
+                new PositionDto(lng, lat + size),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
@@ -17,6 +17,7 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.Mockito.when;
 
 public class HandleTaskTest {
@@ -132,7 +133,7 @@ public class HandleTaskTest {
         data.PositionDto servicePoint = new data.PositionDto(0.0, 0.0);
         data.PositionDto taskLocation = new data.PositionDto(0.01, 0.01);
 
-        when(ilpService.distanceCalculate(any())).thenReturn(0.01);
+        when(ilpService.distanceCalculate(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(0.01);
 
         boolean result = droneService.canDroneHandleTaskWithMoves(
                 drone, task,
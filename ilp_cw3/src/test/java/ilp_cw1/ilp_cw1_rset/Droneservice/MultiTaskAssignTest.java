@@ -104,7 +104,7 @@ class MultiTaskAssignTest {
         Map<Integer, PositionDto> taskLocations = Map.of(task.getId(), createPosition(0.001,0.001));
         DroneForServicePoint info = createDroneInfo(1, drone);
 
-        when(ilpService.distanceCalculate(any())).thenReturn(0.001);
+        when(ilpService.distanceCalculate(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(0.001);
         when(restTemplate.getForObject(anyString(), eq(ServicePoint[].class))).thenReturn(createServicePoints());
 
         DeliveryPathResponse resp = droneService.calculateOptimizedMultiDroneSolution(
@@ -129,7 +129,7 @@ class MultiTaskAssignTest {
         DroneForServicePoint info1 = createDroneInfo(1, drone1);
         DroneForServicePoint info2 = createDroneInfo(1, drone2);
 
-        when(ilpService.distanceCalculate(any())).thenReturn(0.001);
+        when(ilpService.distanceCalculate(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(0.001);
         when(restTemplate.getForObject(anyString(), eq(ServicePoint[].class))).thenReturn(createServicePoints());
 
         DeliveryPathResponse resp = droneService.calculateOptimizedMultiDroneSolution(
@@ -163,7 +163,7 @@ class MultiTaskAssignTest {
                 createDroneInfo(1, drone2)
         );
 
-        when(ilpService.distanceCalculate(any())).thenReturn(0.001);
+        when(ilpService.distanceCalculate(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(0.001);
         when(restTemplate.getForObject(anyString(), eq(ServicePoint[].class))).thenReturn(createServicePoints());
 
         DeliveryPathResponse resp = droneService.calculateOptimizedMultiDroneSolution(
@@ -187,7 +187,7 @@ class MultiTaskAssignTest {
         Map<Integer, PositionDto> taskLocations = Map.of(task.getId(), createPosition(0.001,0.001));
         DroneForServicePoint info = createDroneInfo(1, drone);
 
-        when(ilpService.distanceCalculate(any())).thenReturn(0.001);
+        when(ilpService.distanceCalculate(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(0.001);
         when(restTemplate.getForObject(anyString(), eq(ServicePoint[].class))).thenReturn(createServicePoints());
 
         DeliveryPathResponse resp = droneService.calculateOptimizedMultiDroneSolution(
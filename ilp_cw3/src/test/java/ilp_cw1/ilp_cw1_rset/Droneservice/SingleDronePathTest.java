@@ -4,6 +4,8 @@ import data.Drone;
 import data.MedDispatchRec;
 import data.PositionDto;
 import data.DeliveryPathResponse;
+import data.DronePathPlan;
+import data.RestrictedArea;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -46,19 +48,19 @@ public class SingleDronePathTest {
         taskLocations.put(task.getId(), taskLocation);
 
         List<PositionDto> mockPathToTask = Arrays.asList(servicePoint, taskLocation);
-        doReturn(mockPathToTask).when(spyDroneService).calculateAStarPath(
+        doReturn(new droneService.BoundedLeg(mockPathToTask, false)).when(spyDroneService).planBoundedLeg(
                 eq(servicePoint),
                 eq(taskLocation),
                 anyList(),
-                eq(drone)
+                anyInt()
         );
 
         List<PositionDto> mockReturnPath = Arrays.asList(taskLocation, servicePoint);
-        doReturn(mockReturnPath).when(spyDroneService).calculateAStarPath(
+        doReturn(new droneService.BoundedLeg(mockReturnPath, false)).when(spyDroneService).planBoundedLeg(
                 eq(taskLocation),
                 eq(servicePoint),
                 anyList(),
-                eq(drone)
+                anyInt()
         );
 
         DeliveryPathResponse.DronePath dronePath = spyDroneService.calculateSingleDronePath(
@@ -92,7 +94,7 @@ public class SingleDronePathTest {
 
 
     @Test
-    public void calculateSingleDronePath_ExceedsMaxMoves_ThrowsException() {
+    public void calculateSingleDronePath_ExceedsMaxMoves_ReturnsNull() {
         Drone drone = createDroneWithCapability(20.0, false, false, 5);
         MedDispatchRec task = createTaskWithRequirements(10.0, false, false);
         PositionDto servicePoint = new PositionDto(0.0, 0.0);
@@ -101,27 +103,148 @@ public class SingleDronePathTest {
         Map<Integer, PositionDto> taskLocations = new HashMap<>();
         taskLocations.put(task.getId(), taskLocation);
 
-        List<PositionDto> longPath = new ArrayList<>();
-        for (int i = 0; i < 10; i++) {
-            longPath.add(new PositionDto(i * 0.001, i * 0.001));
-        }
+        DronePathPlan plan = spyDroneService.planSingleDronePath(
+                drone,
+                Collections.singletonList(task),
+                servicePoint,
+                taskLocations,
+                new ArrayList<>()
+        );
 
-        doReturn(longPath).when(spyDroneService).calculateAStarPath(
-                eq(servicePoint),
-                eq(taskLocation),
-                anyList(),
-                eq(drone)
+        assertFalse(plan.isFeasible());
+        assertNull(plan.getDronePath());
+        assertNotNull(plan.getMessage());
+        assertNull(spyDroneService.calculateSingleDronePath(
+                drone,
+                Collections.singletonList(task),
+                servicePoint,
+                taskLocations,
+                new ArrayList<>()
+        ));
+        // The tour is rejected from the move lower bound before any leg is searched
+        verify(spyDroneService, never()).planBoundedLeg(any(), any(), anyList(), anyInt());
+    }
+
+    @Test
+    public void calculateSingleDronePath_LegOverBudget_ReturnsNull() {
+        // The straight tour needs 10 moves, so the drone passes the lower bound check
+        Drone drone = createDroneWithCapability(20.0, false, false, 12);
+        MedDispatchRec task = createTaskWithRequirements(10.0, false, false);
+        PositionDto servicePoint = new PositionDto(0.0, 0.0);
+        PositionDto taskLocation = new PositionDto(0.0006, 0.0);
+
+        Map<Integer, PositionDto> taskLocations = new HashMap<>();
+        taskLocations.put(task.getId(), taskLocation);
+
+        // A wall between service point and task forces a detour longer than the move limit allows
+        RestrictedArea wall = new RestrictedArea();
+        wall.setName("wall");
+        wall.setVertices(Arrays.asList(
+                new PositionDto(0.0002, -0.01),
+                new PositionDto(0.0004, -0.01),
+                new PositionDto(0.0004, 0.01),
+                new PositionDto(0.0002, 0.01),
+                new PositionDto(0.0002, -0.01)));
+
+        droneService plannerWithGeometry = new droneService(restTemplate, new ilpService());
+        DronePathPlan plan = plannerWithGeometry.planSingleDronePath(
+                drone,
+                Collections.singletonList(task),
+                servicePoint,
+                taskLocations,
+                Collections.singletonList(wall)
+        );
+
+        assertFalse(plan.isFeasible());
+        assertFalse(plan.isBudgetExhausted(), "The search proved that no path fits");
+        assertTrue(plan.getMessage().contains("task " + task.getId()));
+    }
+
+    @Test
+    public void calculateSingleDronePath_SearchOutOfBudget_NotInfeasible() {
+        Drone drone = createDroneWithCapability(20.0, false, false, 2000);
+        MedDispatchRec task = createTaskWithRequirements(10.0, false, false);
+        PositionDto servicePoint = new PositionDto(-3.1900, 55.9430);
+        PositionDto taskLocation = new PositionDto(-3.1820, 55.9440);
+
+        Map<Integer, PositionDto> taskLocations = new HashMap<>();
+        taskLocations.put(task.getId(), taskLocation);
+
+        RestrictedArea wall = new RestrictedArea();
+        wall.setName("wall");
+        wall.setVertices(Arrays.asList(
+                new PositionDto(-3.1880, 55.9400),
+                new PositionDto(-3.1876, 55.9400),
+                new PositionDto(-3.1876, 55.9460),
+                new PositionDto(-3.1880, 55.9460),
+                new PositionDto(-3.1880, 55.9400)));
+
+        // The tour fits easily, but the leg searches are stopped long before they reach the task
+        droneService plannerWithGeometry = new droneService(restTemplate, new ilpService());
+        plannerWithGeometry.setSearchMaxExpansions(5);
+        DronePathPlan plan = plannerWithGeometry.planSingleDronePath(
+                drone,
+                Collections.singletonList(task),
+                servicePoint,
+                taskLocations,
+                Collections.singletonList(wall)
         );
 
-        assertThrows(IllegalArgumentException.class, () -> {
-            spyDroneService.calculateSingleDronePath(
-                    drone,
-                    Collections.singletonList(task),
-                    servicePoint,
-                    taskLocations,
-                    new ArrayList<>()
-            );
-        });
+        assertFalse(plan.isFeasible());
+        assertTrue(plan.isBudgetExhausted());
+        assertTrue(plan.getMessage().contains("task " + task.getId()));
+    }
+
+    @Test
+    public void calculateSingleDronePath_ParallelLegs_MatchSequential() {
+        Drone drone = createDroneWithCapability(20.0, false, false, 2000);
+        PositionDto servicePoint = new PositionDto(-3.1900, 55.9430);
+        List<MedDispatchRec> tasks = new ArrayList<>();
+        Map<Integer, PositionDto> taskLocations = new HashMap<>();
+        PositionDto[] locations = {
+                new PositionDto(-3.1820, 55.9440),
+                new PositionDto(-3.1860, 55.9480),
+                new PositionDto(-3.1900, 55.9470)};
+        for (int i = 0; i < locations.length; i++) {
+            MedDispatchRec task = createTaskWithRequirements(5.0, false, false);
+            task.setId(i + 1);
+            tasks.add(task);
+            taskLocations.put(task.getId(), locations[i]);
+        }
+        RestrictedArea wall = new RestrictedArea();
+        wall.setName("wall");
+        wall.setVertices(Arrays.asList(
+                new PositionDto(-3.1880, 55.9400),
+                new PositionDto(-3.1876, 55.9400),
+                new PositionDto(-3.1876, 55.9460),
+                new PositionDto(-3.1880, 55.9460),
+                new PositionDto(-3.1880, 55.9400)));
+        List<RestrictedArea> areas = Collections.singletonList(wall);
+
+        droneService sequential = new droneService(restTemplate, new ilpService());
+        sequential.setLegParallelism(1);
+        droneService parallel = new droneService(restTemplate, new ilpService());
+        parallel.setLegParallelism(4);
+
+        DeliveryPathResponse.DronePath expected = sequential.calculateSingleDronePath(
+                drone, tasks, servicePoint, taskLocations, areas);
+        DeliveryPathResponse.DronePath actual = parallel.calculateSingleDronePath(
+                drone, tasks, servicePoint, taskLocations, areas);
+        parallel.shutdownLegPlanning();
+
+        assertNotNull(expected);
+        assertNotNull(actual);
+        assertEquals(expected.getDeliveries().size(), actual.getDeliveries().size());
+        for (int i = 0; i < expected.getDeliveries().size(); i++) {
+            Delivery expectedDelivery = expected.getDeliveries().get(i);
+            Delivery actualDelivery = actual.getDeliveries().get(i);
+            assertEquals(expectedDelivery.getDeliveryId(), actualDelivery.getDeliveryId());
+            assertEquals(expectedDelivery.getFlightPath().size(), actualDelivery.getFlightPath().size());
+            for (int j = 0; j < expectedDelivery.getFlightPath().size(); j++) {
+                assertEquals(expectedDelivery.getFlightPath().get(j).getLng(), actualDelivery.getFlightPath().get(j).getLng(), 0.0);
+                assertEquals(expectedDelivery.getFlightPath().get(j).getLat(), actualDelivery.getFlightPath().get(j).getLat(), 0.0);
+            }
+        }
     }
 
     private Drone createDroneWithCapability(double capacity, boolean cooling, boolean heating, int maxMoves) {
@@ -0,0 +1,206 @@
+package ilp_cw1.ilp_cw1_rset.DynamicDispatchService;
+
+import data.*;
+import ilp_cw1.ilp_cw1_rset.Droneservice.DynamicDispatchService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveLattice;
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveStepTable;
+import ilp_cw1.ilp_cw1_rset.Droneservice.droneService;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verifies routes are repaired around a restricted area added mid-simulation.
+ * Uses a real drone service with an unreachable API, so only the added areas exist.
+ */
+public class RouteRepairTest {
+
+    /** Longest wait for a repair handed to the repair thread */
+    private static final long REPAIR_TIMEOUT_MILLIS = 5000;
+
+    private RestTemplate restTemplate;
+    private droneService droneService;
+    private DynamicDispatchService dynamicDispatchService;
+
+    @BeforeEach
+    public void setup() {
+        restTemplate = mock(RestTemplate.class);
+        droneService = new droneService(restTemplate, new ilpService());
+        dynamicDispatchService = new DynamicDispatchService(droneService);
+        dynamicDispatchService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dynamicDispatchService.stopSimulation();
+        droneService.shutdown();
+    }
+
+    @Test
+    public void REPAIR_001_repairRoutesAround_CrossingRoute_ReroutedClear() {
+        List<PositionDto> path = eastwardPath(-3.1900, 55.9430, 40);
+        dynamicDispatchService.startSimulation(response("drone-1", path));
+        dynamicDispatchService.stopSimulation();
+        List<PositionDto> before = dynamicDispatchService.getRemainingFlightPath("drone-1");
+
+        RestrictedArea area = square(1, "Blocker", -3.1880, 55.9425, 0.0010);
+        assertEquals(1, dynamicDispatchService.repairRoutesAround(area));
+
+        List<PositionDto> after = dynamicDispatchService.getRemainingFlightPath("drone-1");
+        assertFlyable(after, List.of(area));
+        // The moves before the area are kept, and the route still ends hovering at the stop
+        assertSame(before.get(0), after.get(0));
+        assertSame(before.get(5), after.get(5));
+        PositionDto end = after.get(after.size() - 1);
+        PositionDto stop = path.get(path.size() - 1);
+        assertTrue(ilpService.euclideanDistance(end.getLng(), end.getLat(), stop.getLng(), stop.getLat()) < MoveLattice.STEP);
+        PositionDto beforeEnd = after.get(after.size() - 2);
+        assertEquals(end.getLng(), beforeEnd.getLng(), 0.0);
+        assertEquals(end.getLat(), beforeEnd.getLat(), 0.0);
+    }
+
+    @Test
+    public void REPAIR_002_repairRoutesAround_ClearRoute_Untouched() {
+        dynamicDispatchService.startSimulation(response("drone-1", eastwardPath(-3.1900, 55.9430, 40)));
+        dynamicDispatchService.stopSimulation();
+        List<PositionDto> before = dynamicDispatchService.getRemainingFlightPath("drone-1");
+
+        RestrictedArea area = square(1, "Elsewhere", -3.1880, 55.9460, 0.0010);
+        assertEquals(0, dynamicDispatchService.repairRoutesAround(area));
+
+        List<PositionDto> after = dynamicDispatchService.getRemainingFlightPath("drone-1");
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < before.size(); i++) {
+            assertSame(before.get(i), after.get(i));
+        }
+    }
+
+    @Test
+    public void REPAIR_003_addRestrictedArea_RunningSimulation_Repaired() {
+        dynamicDispatchService.startSimulation(response("drone-1", eastwardPath(-3.1900, 55.9430, 60)));
+
+        RestrictedArea area = square(7, "Dynamic", -3.1860, 55.9425, 0.0010);
+        droneService.addRestrictedArea(area);
+
+        assertFlyable(awaitClearRoute("drone-1", area), List.of(area));
+    }
+
+    @Test
+    public void REPAIR_004_addRestrictedArea_RunningSimulation_NoApiCalls() {
+        dynamicDispatchService.startSimulation(response("drone-1", eastwardPath(-3.1900, 55.9430, 60)));
+        clearInvocations(restTemplate);
+
+        RestrictedArea area = square(8, "Dynamic", -3.1860, 55.9425, 0.0010);
+        droneService.addRestrictedArea(area);
+        awaitClearRoute("drone-1", area);
+
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    public void REPAIR_005_addRestrictedArea_SeveralDrones_AllRepaired() {
+        DeliveryPathResponse response = new DeliveryPathResponse();
+        List<DeliveryPathResponse.DronePath> dronePaths = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            dronePaths.addAll(response("drone-" + i, eastwardPath(-3.1900, 55.9427 + i * 0.00015, 60)).getDronePaths());
+        }
+        response.setDronePaths(dronePaths);
+        dynamicDispatchService.startSimulation(response);
+
+        RestrictedArea area = square(9, "Dynamic", -3.1860, 55.9425, 0.0010);
+        droneService.addRestrictedArea(area);
+
+        // The repair shares one budget between the drones and runs beside the position updates
+        for (int i = 0; i < 5; i++) {
+            assertFlyable(awaitClearRoute("drone-" + i, area), List.of(area));
+        }
+    }
+
+    /**
+     * Waits until the repair thread has repaired the remaining route of a drone around an area
+     */
+    private List<PositionDto> awaitClearRoute(String droneId, RestrictedArea area) {
+        long deadline = System.currentTimeMillis() + REPAIR_TIMEOUT_MILLIS;
+        while (true) {
+            List<PositionDto> path = dynamicDispatchService.getRemainingFlightPath(droneId);
+            if (isClear(path, area) || System.currentTimeMillis() > deadline) {
+                return path;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return path;
+            }
+        }
+    }
+
+    private boolean isClear(List<PositionDto> path, RestrictedArea area) {
+        for (int i = 1; i < path.size(); i++) {
+            if (!droneService.isMoveSafe(path.get(i - 1), path.get(i), List.of(area))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void assertFlyable(List<PositionDto> path, List<RestrictedArea> areas) {
+        assertFalse(path.isEmpty());
+        for (int i = 1; i < path.size(); i++) {
+            PositionDto from = path.get(i - 1);
+            PositionDto to = path.get(i);
+            assertTrue(droneService.isMoveSafe(from, to, areas), "Move " + i + " enters the restricted area");
+            double length = ilpService.euclideanDistance(from.getLng(), from.getLat(), to.getLng(), to.getLat());
+            assertTrue(length == 0.0 || Math.abs(length - MoveLattice.STEP) < 1e-12, "Move " + i + " is not one step");
+        }
+    }
+
+    private List<PositionDto> eastwardPath(double lng, double lat, int moves) {
+        List<PositionDto> path = new ArrayList<>();
+        path.add(new PositionDto(lng, lat));
+        double[] out = new double[2];
+        for (int m = 0; m < moves; m++) {
+            MoveStepTable.neighbour(lng, lat, 0, out);
+            lng = out[0];
+            lat = out[1];
+            path.add(new PositionDto(lng, lat));
+        }
+        // Hover at the stop
+        path.add(new PositionDto(lng, lat));
+        return path;
+    }
+
+    private DeliveryPathResponse response(String droneId, List<PositionDto> path) {
+        DeliveryPathResponse.Delivery delivery = new DeliveryPathResponse.Delivery();
+        delivery.setDeliveryId(1001);
+        delivery.setFlightPath(path);
+
+        DeliveryPathResponse.DronePath dronePath = new DeliveryPathResponse.DronePath();
+        dronePath.setDroneId(droneId);
+        dronePath.setDeliveries(Collections.singletonList(delivery));
+
+        DeliveryPathResponse response = new DeliveryPathResponse();
+        response.setDronePaths(Collections.singletonList(dronePath));
+        return response;
+    }
+
+    private RestrictedArea square(long id, String name, double lng, double lat, double size) {
+        RestrictedArea area = new RestrictedArea();
+        area.setId(id);
+        area.setName(name);
+        area.setVertices(Arrays.asList(
+                new PositionDto(lng, lat),
+                new PositionDto(lng + size, lat),
+                new PositionDto(lng + size, lat + size),
+                new PositionDto(lng, lat + size),
+                new PositionDto(lng, lat)));
+        return area;
+    }
+}
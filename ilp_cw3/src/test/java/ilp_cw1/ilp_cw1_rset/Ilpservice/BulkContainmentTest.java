@@ -0,0 +1,117 @@
+package ilp_cw1.ilp_cw1_rset.Ilpservice;
+
+import data.PositionDto;
+import ilp_cw1.ilp_cw1_rset.Droneservice.BulkContainment;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ClearanceRaster;
+import ilp_cw1.ilp_cw1_rset.Droneservice.PreparedPolygon;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the bulk point-in-polygon test, vectorized or not, answers exactly like
+ * {@link PreparedPolygon#contains(double, double)} point by point.
+ */
+public class BulkContainmentTest {
+
+    /**
+     * Test scenario: Random open and closed polygons against random points, vertices and edge midpoints,
+     * with counts that are not a multiple of the vector length
+     * Expected result: Bulk and scalar answers equal the single-point answers for every point
+     */
+    @Test
+    void testBulkContainment_MatchesSinglePointTest() {
+        Random random = new Random(29);
+        for (int shape = 0; shape < 60; shape++) {
+            List<PositionDto> vertices = randomStar(random, 3 + random.nextInt(120), shape % 3 != 0);
+            PreparedPolygon polygon = PreparedPolygon.of(vertices);
+
+            int count = 1000 + random.nextInt(64);
+            double[] lngs = new double[count + 2 * vertices.size()];
+            double[] lats = new double[lngs.length];
+            for (int i = 0; i < count; i++) {
+                lngs[i] = -3.20 + random.nextDouble() * 0.02;
+                lats[i] = 55.93 + random.nextDouble() * 0.02;
+            }
+            // Vertices and edge midpoints exercise the exact on-edge test inside a vector
+            for (int i = 0; i < vertices.size(); i++) {
+                PositionDto a = vertices.get(i);
+                PositionDto b = vertices.get((i + 1) % vertices.size());
+                lngs[count] = a.getLng();
+                lats[count++] = a.getLat();
+                lngs[count] = (a.getLng() + b.getLng()) / 2;
+                lats[count++] = (a.getLat() + b.getLat()) / 2;
+            }
+
+            boolean[] bulk = new boolean[count];
+            boolean[] scalar = new boolean[count];
+            BulkContainment.contains(polygon, lngs, lats, count, bulk);
+            BulkContainment.containsScalar(polygon, lngs, lats, count, scalar);
+            for (int i = 0; i < count; i++) {
+                boolean expected = polygon.contains(lngs[i], lats[i]);
+                assertEquals(expected, bulk[i], "Mismatch at " + lngs[i] + "," + lats[i]);
+                assertEquals(expected, scalar[i]);
+            }
+        }
+    }
+
+    /**
+     * Test scenario: Fewer points than one vector, an empty polygon and non-finite points
+     * Expected result: Only the requested entries are written, with the single-point answers
+     */
+    @Test
+    void testBulkContainment_EdgeCases() {
+        PreparedPolygon square = PreparedPolygon.of(List.of(
+                new PositionDto(0.0, 0.0), new PositionDto(1.0, 0.0), new PositionDto(1.0, 1.0),
+                new PositionDto(0.0, 1.0), new PositionDto(0.0, 0.0)));
+        double[] lngs = {0.5, 1.0, Double.NaN, 2.0, 0.5};
+        double[] lats = {0.5, 0.5, 0.5, 0.5, Double.POSITIVE_INFINITY};
+
+        boolean[] out = new boolean[6];
+        out[5] = true;
+        BulkContainment.contains(square, lngs, lats, 5, out);
+        assertArrayEquals(new boolean[]{true, true, false, false, false, true}, out);
+
+        boolean[] empty = new boolean[5];
+        BulkContainment.contains(PreparedPolygon.of(null), lngs, lats, 5, empty);
+        assertArrayEquals(new boolean[5], empty);
+    }
+
+    /**
+     * Test scenario: Raster built from a square area, classified through the bulk test
+     * Expected result: Cells well inside are blocked, cells well outside are free
+     */
+    @Test
+    void testClearanceRaster_UsesBulkClassification() {
+        PreparedPolygon square = PreparedPolygon.of(List.of(
+                new PositionDto(-3.19, 55.94), new PositionDto(-3.18, 55.94), new PositionDto(-3.18, 55.95),
+                new PositionDto(-3.19, 55.95), new PositionDto(-3.19, 55.94)));
+        ClearanceRaster raster = ClearanceRaster.build(List.of(square));
+
+        assertNotNull(raster);
+        assertEquals(ClearanceRaster.Verdict.BLOCKED, raster.classifyMove(-3.185, 55.945, -3.185, 55.94515));
+        assertEquals(ClearanceRaster.Verdict.SAFE, raster.classifyMove(-3.1905, 55.9395, -3.1905, 55.9394));
+        assertTrue(raster.clearanceAt(-3.1905, 55.9395) >= 1);
+    }
+
+    private List<PositionDto> randomStar(Random random, int count, boolean closed) {
+        double centerLng = -3.19;
+        double centerLat = 55.94;
+        List<PositionDto> vertices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double angle = 2 * Math.PI * i / count;
+            double radius = 0.001 + random.nextDouble() * 0.008;
+            double lng = Math.round((centerLng + radius * Math.cos(angle)) * 1e5) / 1e5;
+            double lat = Math.round((centerLat + radius * Math.sin(angle)) * 1e5) / 1e5;
+            vertices.add(new PositionDto(lng, lat));
+        }
+        if (closed) {
+            vertices.add(new PositionDto(vertices.get(0).getLng(), vertices.get(0).getLat()));
+        }
+        return vertices;
+    }
+}
@@ -0,0 +1,157 @@
+package ilp_cw1.ilp_cw1_rset.Ilpservice;
+
+import data.MovementRequest;
+import data.PositionDto;
+import ilp_cw1.ilp_cw1_rset.Droneservice.GeometryKernel;
+import ilp_cw1.ilp_cw1_rset.Droneservice.MoveStepTable;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the double-precision geometry kernel is bit-identical to the original BigDecimal
+ * movement and on-edge arithmetic of ilpService.
+ */
+public class GeometryKernelTest {
+
+    private static final BigDecimal MOVE_DISTANCE = new BigDecimal("0.00015");
+
+    private final ilpService service = new ilpService();
+
+    @Test
+    void testMovementCalculate_MatchesReference() {
+        Random random = new Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            double lng = randomCoordinate(random, i, 180);
+            double lat = randomCoordinate(random, i, 90);
+            double angle = i % 2 == 0 ? random.nextInt(16) * 22.5 : random.nextDouble() * 1080 - 540;
+            PositionDto next = service.movementCalculate(new MovementRequest(new PositionDto(lng, lat), angle));
+
+            double radians = Math.toRadians(angle);
+            assertBitEquals(referenceMove(lng, Math.cos(radians)), next.getLng(), lng + " at " + angle);
+            assertBitEquals(referenceMove(lat, Math.sin(radians)), next.getLat(), lat + " at " + angle);
+        }
+    }
+
+    @Test
+    void testNeighbours_MatchReferenceAlongRandomWalks() {
+        Random random = new Random(5);
+        double[] neighbours = new double[MoveStepTable.DIRECTIONS * 2];
+        double[] single = new double[2];
+        for (int walk = 0; walk < 200; walk++) {
+            double lng = -3.20 + random.nextDouble() * 0.02;
+            double lat = 55.93 + random.nextDouble() * 0.02;
+            for (int move = 0; move < 200; move++) {
+                MoveStepTable.neighbours(lng, lat, neighbours);
+                for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+                    double radians = Math.toRadians(MoveStepTable.angleOf(direction));
+                    assertBitEquals(referenceMove(lng, Math.cos(radians)), neighbours[2 * direction], "lng " + lng);
+                    assertBitEquals(referenceMove(lat, Math.sin(radians)), neighbours[2 * direction + 1], "lat " + lat);
+                }
+                int direction = random.nextInt(MoveStepTable.DIRECTIONS);
+                MoveStepTable.neighbour(lng, lat, direction, single);
+                assertBitEquals(neighbours[2 * direction], single[0], "lng " + lng);
+                assertBitEquals(neighbours[2 * direction + 1], single[1], "lat " + lat);
+                lng = single[0];
+                lat = single[1];
+            }
+        }
+    }
+
+    @Test
+    void testDecimalCrossZero_MatchesReference() {
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            // Edge end points with a few decimals and a point at a decimal fraction along the edge
+            BigDecimal aLng = BigDecimal.valueOf(-3.2 + random.nextInt(20_000) * 1e-6).setScale(6, java.math.RoundingMode.HALF_EVEN);
+            BigDecimal aLat = BigDecimal.valueOf(55.93 + random.nextInt(20_000) * 1e-6).setScale(6, java.math.RoundingMode.HALF_EVEN);
+            BigDecimal dLng = BigDecimal.valueOf(random.nextInt(2000) - 1000, 6);
+            BigDecimal dLat = BigDecimal.valueOf(random.nextInt(2000) - 1000, 6);
+            BigDecimal t = BigDecimal.valueOf(random.nextInt(1000), 3);
+            double pLng = aLng.add(dLng.multiply(t)).doubleValue();
+            double pLat = aLat.add(dLat.multiply(t)).doubleValue();
+            if (i % 3 == 1) {
+                pLng = Math.nextUp(pLng);
+            } else if (i % 3 == 2) {
+                pLat = -3.2 + random.nextDouble() * 0.02;
+            }
+            double a1 = aLng.doubleValue();
+            double a2 = aLat.doubleValue();
+            double b1 = aLng.add(dLng).doubleValue();
+            double b2 = aLat.add(dLat).doubleValue();
+            assertEquals(referenceCrossZero(pLng, pLat, a1, a2, b1, b2),
+                    GeometryKernel.isDecimalCrossZero(pLng, pLat, a1, a2, b1, b2),
+                    "Mismatch at " + pLng + "," + pLat);
+        }
+        assertTrue(GeometryKernel.isDecimalCrossZero(0.3, 0.3, 0.1, 0.1, 0.5, 0.5));
+        assertFalse(GeometryKernel.isDecimalCrossZero(0.1 + 0.2, 0.3, 0.1, 0.1, 0.5, 0.5));
+        assertTrue(GeometryKernel.isDecimalCrossZero(1e20, 2e20, 0.0, 0.0, 3e20, 6e20));
+    }
+
+    @Test
+    void testDecimalError_MatchesValueOf() {
+        Random random = new Random(13);
+        for (int i = 0; i < 200_000; i++) {
+            double value = i % 2 == 0 ? randomCoordinate(random, i, 180) : Double.longBitsToDouble(random.nextLong());
+            double error = GeometryKernel.decimalError(value);
+            if (Double.isNaN(error) || !Double.isFinite(value)) {
+                continue;
+            }
+            BigDecimal exact = BigDecimal.valueOf(value).subtract(new BigDecimal(value));
+            BigDecimal difference = exact.subtract(new BigDecimal(error)).abs();
+            assertTrue(difference.compareTo(exact.abs().multiply(new BigDecimal(0x1p-48))) <= 0, "Error of " + value);
+        }
+        assertEquals(0.0, GeometryKernel.decimalError(-0.0));
+        assertEquals(0.0, GeometryKernel.decimalError(55.875));
+        assertTrue(GeometryKernel.decimalError(0.1) < 0);
+    }
+
+    @Test
+    void testSpecialValues_MatchReference() {
+        double[] values = {0.0, -0.0, 1e-300, -1e-20, 4.9e-324, 9.007199254740993E15, 1e20, -1.7e308, 180.0, -90.0};
+        for (double value : values) {
+            for (int direction = 0; direction < MoveStepTable.DIRECTIONS; direction++) {
+                double radians = Math.toRadians(MoveStepTable.angleOf(direction));
+                assertBitEquals(referenceMove(value, Math.cos(radians)),
+                        GeometryKernel.moveCoordinate(value, Math.cos(radians)), "at " + value);
+            }
+        }
+        assertThrows(NumberFormatException.class, () -> GeometryKernel.moveCoordinate(Double.NaN, 1.0));
+        assertThrows(NumberFormatException.class, () -> GeometryKernel.moveCoordinate(0.0, Double.POSITIVE_INFINITY));
+    }
+
+    /**
+     * Coordinates near the service area, anywhere on the globe, and short decimals
+     */
+    private double randomCoordinate(Random random, int i, double range) {
+        switch (i % 3) {
+            case 0:
+                return range == 180 ? -3.2 + random.nextDouble() * 0.1 : 55.9 + random.nextDouble() * 0.1;
+            case 1:
+                return (random.nextDouble() * 2 - 1) * range;
+            default:
+                return Math.round((random.nextDouble() * 2 - 1) * range * 1e4) / 1e4;
+        }
+    }
+
+    private double referenceMove(double start, double unit) {
+        return BigDecimal.valueOf(start).add(MOVE_DISTANCE.multiply(BigDecimal.valueOf(unit))).doubleValue();
+    }
+
+    private boolean referenceCrossZero(double pLng, double pLat, double aLng, double aLat, double bLng, double bLat) {
+        BigDecimal dx1 = BigDecimal.valueOf(pLng).subtract(BigDecimal.valueOf(aLng));
+        BigDecimal dy1 = BigDecimal.valueOf(pLat).subtract(BigDecimal.valueOf(aLat));
+        BigDecimal dx2 = BigDecimal.valueOf(bLng).subtract(BigDecimal.valueOf(aLng));
+        BigDecimal dy2 = BigDecimal.valueOf(bLat).subtract(BigDecimal.valueOf(aLat));
+        return dx1.multiply(dy2).subtract(dx2.multiply(dy1)).signum() == 0;
+    }
+
+    private void assertBitEquals(double expected, double actual, String message) {
+        assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual),
+                message + ": expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,178 @@
+package ilp_cw1.ilp_cw1_rset.Ilpservice;
+
+import data.PositionDto;
+import ilp_cw1.ilp_cw1_rset.Droneservice.PreparedPolygon;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the prepared polygon kernel gives the same answers as the original
+ * list-based point-in-polygon (BigDecimal on-edge test) and orientation-based segment test.
+ */
+public class PreparedPolygonTest {
+
+    @Test
+    void testContains_MatchesReferenceOnRandomPolygons() {
+        Random random = new Random(3);
+        for (int shape = 0; shape < 200; shape++) {
+            List<PositionDto> vertices = randomPolygon(random, shape % 2 == 0);
+            PreparedPolygon polygon = PreparedPolygon.of(vertices);
+            for (int i = 0; i < 200; i++) {
+                PositionDto point = new PositionDto(-3.20 + random.nextDouble() * 0.02, 55.93 + random.nextDouble() * 0.02);
+                assertEquals(referenceContains(point, vertices), polygon.contains(point.getLng(), point.getLat()),
+                        "Mismatch at " + point.getLng() + "," + point.getLat());
+            }
+        }
+    }
+
+    @Test
+    void testContains_DecimalPointsOnEdges() {
+        List<PositionDto> vertices = Arrays.asList(
+                new PositionDto(-3.19, 55.94), new PositionDto(-3.18, 55.943),
+                new PositionDto(-3.181, 55.95), new PositionDto(-3.19, 55.94));
+        PreparedPolygon polygon = PreparedPolygon.of(vertices);
+
+        // Points that lie on an edge in decimal arithmetic but not necessarily in binary
+        for (int k = 0; k <= 10; k++) {
+            BigDecimal t = BigDecimal.valueOf(k).movePointLeft(1);
+            double lng = new BigDecimal("-3.19").add(t.multiply(new BigDecimal("0.01"))).doubleValue();
+            double lat = new BigDecimal("55.94").add(t.multiply(new BigDecimal("0.003"))).doubleValue();
+            PositionDto point = new PositionDto(lng, lat);
+            assertEquals(referenceContains(point, vertices), polygon.contains(lng, lat), "Mismatch at t=" + t);
+        }
+
+        assertTrue(polygon.contains(-3.185, 55.9415));
+        assertTrue(polygon.contains(-3.19, 55.94));
+        assertFalse(polygon.contains(-3.2, 55.945));
+    }
+
+    @Test
+    void testContains_OpenRingKeepsReferenceBehaviour() {
+        // Without a repeated first vertex the closing edge is not tested, as in the original implementation
+        List<PositionDto> vertices = Arrays.asList(
+                new PositionDto(0.0, 0.0), new PositionDto(1.0, 0.0), new PositionDto(1.0, 1.0));
+        PreparedPolygon polygon = PreparedPolygon.of(vertices);
+        for (double lng = -1.5; lng <= 1.5; lng += 0.25) {
+            for (double lat = -0.5; lat <= 1.5; lat += 0.25) {
+                PositionDto point = new PositionDto(lng, lat);
+                assertEquals(referenceContains(point, vertices), polygon.contains(lng, lat),
+                        "Mismatch at " + lng + "," + lat);
+            }
+        }
+    }
+
+    @Test
+    void testIntersectsSegment_MatchesReference() {
+        Random random = new Random(5);
+        for (int shape = 0; shape < 200; shape++) {
+            List<PositionDto> vertices = randomPolygon(random, shape % 3 != 0);
+            PreparedPolygon polygon = PreparedPolygon.of(vertices);
+            for (int i = 0; i < 200; i++) {
+                PositionDto from = new PositionDto(-3.20 + random.nextDouble() * 0.02, 55.93 + random.nextDouble() * 0.02);
+                double length = i % 4 == 0 ? 0.01 : 0.00015;
+                double angle = Math.toRadians(random.nextInt(16) * 22.5);
+                PositionDto to = new PositionDto(from.getLng() + length * Math.cos(angle), from.getLat() + length * Math.sin(angle));
+                assertEquals(referenceIntersects(from, to, vertices), polygon.intersectsSegment(from, to));
+            }
+        }
+    }
+
+    @Test
+    void testEmptyPolygon_NeverMatches() {
+        PreparedPolygon polygon = PreparedPolygon.of(null);
+        assertFalse(polygon.contains(0.0, 0.0));
+        assertFalse(polygon.intersectsSegment(0.0, 0.0, 1.0, 1.0));
+        assertEquals(0, polygon.getVertexCount());
+    }
+
+    private List<PositionDto> randomPolygon(Random random, boolean closed) {
+        double centerLng = -3.19 + random.nextDouble() * 0.001;
+        double centerLat = 55.94 + random.nextDouble() * 0.001;
+        int count = 3 + random.nextInt(8);
+        List<PositionDto> vertices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double angle = 2 * Math.PI * i / count;
+            double radius = 0.002 + random.nextDouble() * 0.006;
+            // Round to five decimals like hand-entered coordinates, so decimal on-edge cases occur
+            double lng = Math.round((centerLng + radius * Math.cos(angle)) * 1e5) / 1e5;
+            double lat = Math.round((centerLat + radius * Math.sin(angle)) * 1e5) / 1e5;
+            vertices.add(new PositionDto(lng, lat));
+        }
+        if (closed) {
+            vertices.add(new PositionDto(vertices.get(0).getLng(), vertices.get(0).getLat()));
+        }
+        return vertices;
+    }
+
+    // Reference: the original ilpService.isPointInPolygon
+    private boolean referenceContains(PositionDto position, List<PositionDto> vertices) {
+        int n = vertices.size();
+        boolean inside = false;
+        double pointLng = position.getLng();
+        double pointLat = position.getLat();
+        for (int i = 0; i < n - 1; i++) {
+            double currLng = vertices.get(i).getLng();
+            double currLat = vertices.get(i).getLat();
+            double nextLng = vertices.get(i + 1).getLng();
+            double nextLat = vertices.get(i + 1).getLat();
+            if (referenceOnEdge(pointLng, pointLat, currLng, currLat, nextLng, nextLat)) {
+                return true;
+            }
+            if (((currLat > pointLat) != (nextLat > pointLat)) &&
+                    (pointLng < (nextLng - currLng) * (pointLat - currLat) / (nextLat - currLat) + currLng)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private boolean referenceOnEdge(double pointLng, double pointLat, double lng1, double lat1, double lng2, double lat2) {
+        if (pointLat < Math.min(lat1, lat2) || pointLat > Math.max(lat1, lat2)
+                || pointLng < Math.min(lng1, lng2) || pointLng > Math.max(lng1, lng2)) {
+            return false;
+        }
+        BigDecimal dx1 = BigDecimal.valueOf(pointLng).subtract(BigDecimal.valueOf(lng1));
+        BigDecimal dy1 = BigDecimal.valueOf(pointLat).subtract(BigDecimal.valueOf(lat1));
+        BigDecimal dx2 = BigDecimal.valueOf(lng2).subtract(BigDecimal.valueOf(lng1));
+        BigDecimal dy2 = BigDecimal.valueOf(lat2).subtract(BigDecimal.valueOf(lat1));
+        return dx1.multiply(dy2).subtract(dx2.multiply(dy1)).compareTo(BigDecimal.ZERO) == 0;
+    }
+
+    // Reference: the original droneService.doesLineIntersectPolygon
+    private boolean referenceIntersects(PositionDto p1, PositionDto p2, List<PositionDto> polygon) {
+        int n = polygon.size();
+        for (int i = 0; i < n; i++) {
+            PositionDto q1 = polygon.get(i);
+            PositionDto q2 = polygon.get((i + 1) % n);
+            int o1 = referenceOrientation(p1, p2, q1);
+            int o2 = referenceOrientation(p1, p2, q2);
+            int o3 = referenceOrientation(q1, q2, p1);
+            int o4 = referenceOrientation(q1, q2, p2);
+            if (o1 != o2 && o3 != o4) return true;
+            if (o1 == 0 && referenceOnSegment(p1, q1, p2)) return true;
+            if (o2 == 0 && referenceOnSegment(p1, q2, p2)) return true;
+            if (o3 == 0 && referenceOnSegment(q1, p1, q2)) return true;
+            if (o4 == 0 && referenceOnSegment(q1, p2, q2)) return true;
+        }
+        return false;
+    }
+
+    private int referenceOrientation(PositionDto p, PositionDto q, PositionDto r) {
+        double val = (q.getLat() - p.getLat()) * (r.getLng() - q.getLng()) -
+                (q.getLng() - p.getLng()) * (r.getLat() - q.getLat());
+        if (val == 0) return 0;
+        return (val > 0) ? 1 : 2;
+    }
+
+    private boolean referenceOnSegment(PositionDto p, PositionDto q, PositionDto r) {
+        return q.getLng() <= Math.max(p.getLng(), r.getLng()) && q.getLng() >= Math.min(p.getLng(), r.getLng()) &&
+                q.getLat() <= Math.max(p.getLat(), r.getLat()) && q.getLat() >= Math.min(p.getLat(), r.getLat());
+    }
+}
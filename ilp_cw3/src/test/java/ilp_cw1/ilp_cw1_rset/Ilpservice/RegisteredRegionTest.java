@@ -0,0 +1,159 @@
+package ilp_cw1.ilp_cw1_rset.Ilpservice;
+
+import data.PositionDto;
+import data.Region;
+import ilp_cw1.ilp_cw1_rset.Droneservice.BandedPolygon;
+import ilp_cw1.ilp_cw1_rset.Droneservice.PreparedPolygon;
+import ilp_cw1.ilp_cw1_rset.Droneservice.RegionRegistry;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import ilp_cw1.ilp_cw1_rset.ilpController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that regions registered by name answer containment checks exactly like
+ * the prepared polygon they are built from.
+ */
+public class RegisteredRegionTest {
+
+    private ilpController controller;
+    private RegionRegistry registry;
+    private Region region;
+
+    @BeforeEach
+    void setUp() {
+        registry = new RegionRegistry();
+        controller = new ilpController(new ilpService(), registry, Jackson2ObjectMapperBuilder.json().build());
+        region = new Region("central", Arrays.asList(
+                new PositionDto(-3.192473, 55.946233),
+                new PositionDto(-3.192473, 55.942617),
+                new PositionDto(-3.184319, 55.942617),
+                new PositionDto(-3.184319, 55.946233),
+                new PositionDto(-3.192473, 55.946233)));
+    }
+
+    @Test
+    void testBandedPolygon_MatchesPreparedPolygon() {
+        Random random = new Random(17);
+        for (int shape = 0; shape < 50; shape++) {
+            List<PositionDto> vertices = randomStar(random, 20 + random.nextInt(300), shape % 2 == 0);
+            PreparedPolygon polygon = PreparedPolygon.of(vertices);
+            BandedPolygon banded = new BandedPolygon(polygon);
+            for (int i = 0; i < 2000; i++) {
+                double lng = -3.20 + random.nextDouble() * 0.02;
+                double lat = 55.93 + random.nextDouble() * 0.02;
+                assertEquals(polygon.contains(lng, lat), banded.contains(lng, lat), "Mismatch at " + lng + "," + lat);
+            }
+            // Vertices and edge midpoints lie exactly on band boundaries and edges
+            for (int i = 0; i + 1 < vertices.size(); i++) {
+                PositionDto a = vertices.get(i);
+                PositionDto b = vertices.get(i + 1);
+                assertEquals(polygon.contains(a.getLng(), a.getLat()), banded.contains(a.getLng(), a.getLat()));
+                double midLng = (a.getLng() + b.getLng()) / 2;
+                double midLat = (a.getLat() + b.getLat()) / 2;
+                assertEquals(polygon.contains(midLng, midLat), banded.contains(midLng, midLat));
+            }
+        }
+    }
+
+    @Test
+    void testRegisteredRegion_SingleAndBatchChecks() throws Exception {
+        assertEquals("central", controller.registerRegion(region).getBody());
+        assertEquals(List.of("central"), controller.getRegions().getBody());
+
+        assertEquals(true, controller.isInRegisteredRegion("central", new PositionDto(-3.188, 55.944)).getBody());
+        assertEquals(false, controller.isInRegisteredRegion("central", new PositionDto(-3.200, 55.944)).getBody());
+        assertEquals(400, controller.isInRegisteredRegion("central", new PositionDto(null, 55.944)).getStatusCode().value());
+
+        List<PositionDto> points = Arrays.asList(
+                new PositionDto(-3.188, 55.944), new PositionDto(-3.192473, 55.944), new PositionDto(-3.188, null));
+        assertEquals(Arrays.asList(true, true, null),
+                controller.isInRegisteredRegionBatch("central", points).getBody());
+
+        String body = "{\"lng\":-3.188,\"lat\":55.944}\n{\"lng\":-3.2,\"lat\":55.944}\n";
+        StreamingResponseBody stream = controller.isInRegisteredRegionStream("central",
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))).getBody();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.writeTo(out);
+        assertEquals("true\nfalse\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRegions_UnknownInvalidAndRemoved() {
+        assertEquals(404, controller.isInRegisteredRegion("central", new PositionDto(-3.188, 55.944)).getStatusCode().value());
+        assertEquals(404, controller.isInRegisteredRegionBatch("central", List.of()).getStatusCode().value());
+
+        Region open = new Region("open", region.getVertices().subList(0, 4));
+        assertEquals(400, controller.registerRegion(open).getStatusCode().value());
+
+        controller.registerRegion(region);
+        // Registering the same name again replaces the region
+        controller.registerRegion(new Region("central", Arrays.asList(
+                new PositionDto(0.0, 0.0), new PositionDto(1.0, 0.0), new PositionDto(1.0, 1.0),
+                new PositionDto(0.0, 1.0), new PositionDto(0.0, 0.0))));
+        assertEquals(true, controller.isInRegisteredRegion("central", new PositionDto(0.5, 0.5)).getBody());
+
+        assertEquals(true, controller.removeRegion("central").getBody());
+        assertEquals(404, controller.removeRegion("central").getStatusCode().value());
+        assertTrue(controller.getRegions().getBody().isEmpty());
+    }
+
+    @Test
+    void testRegister_NamesUnusableInPathRejected() {
+        for (String name : List.of("", "  ", "a/b", "a\\b", "a;b", ".", "..", "x".repeat(129))) {
+            assertEquals(400, controller.registerRegion(new Region(name, region.getVertices())).getStatusCode().value(),
+                    "Name '" + name + "' was accepted");
+        }
+        assertTrue(controller.getRegions().getBody().isEmpty());
+        assertEquals("central area-2", controller.registerRegion(new Region("central area-2", region.getVertices())).getBody());
+    }
+
+    @Test
+    void testRegister_CountAndVertexLimits() {
+        registry.setMaxRegions(2);
+        registry.setMaxVertices(5);
+
+        assertEquals(200, controller.registerRegion(region).getStatusCode().value());
+        List<PositionDto> sixVertices = new ArrayList<>(region.getVertices());
+        sixVertices.add(4, new PositionDto(-3.188, 55.947));
+        assertEquals(400, controller.registerRegion(new Region("detailed", sixVertices)).getStatusCode().value());
+
+        assertEquals(200, controller.registerRegion(new Region("second", region.getVertices())).getStatusCode().value());
+        assertEquals(409, controller.registerRegion(new Region("third", region.getVertices())).getStatusCode().value());
+        // A full registry still replaces regions by name, and takes new ones once a region is removed
+        assertEquals(200, controller.registerRegion(region).getStatusCode().value());
+        controller.removeRegion("second");
+        assertEquals(200, controller.registerRegion(new Region("third", region.getVertices())).getStatusCode().value());
+        assertEquals(List.of("central", "third"), controller.getRegions().getBody());
+    }
+
+    private List<PositionDto> randomStar(Random random, int count, boolean closed) {
+        double centerLng = -3.19;
+        double centerLat = 55.94;
+        List<PositionDto> vertices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double angle = 2 * Math.PI * i / count;
+            double radius = 0.001 + random.nextDouble() * 0.008;
+            // Round to five decimals like hand-entered coordinates, so decimal on-edge cases occur
+            double lng = Math.round((centerLng + radius * Math.cos(angle)) * 1e5) / 1e5;
+            double lat = Math.round((centerLat + radius * Math.sin(angle)) * 1e5) / 1e5;
+            vertices.add(new PositionDto(lng, lat));
+        }
+        if (closed) {
+            vertices.add(new PositionDto(vertices.get(0).getLng(), vertices.get(0).getLat()));
+        }
+        return vertices;
+    }
+}
@@ -0,0 +1,167 @@
+package ilp_cw1.ilp_cw1_rset.Ilpservice;
+
+import data.*;
+import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
+import ilp_cw1.ilp_cw1_rset.ilpController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifies the batch endpoints answer like the single endpoints, in order,
+ * with null for entries the single endpoint would reject.
+ */
+public class batchTest {
+
+    private ilpService service;
+    private ilpController controller;
+    private Region region;
+
+    @BeforeEach
+    void setUp() {
+        service = new ilpService();
+        controller = new ilpController(service);
+        region = new Region("central", Arrays.asList(
+                new PositionDto(-3.192473, 55.946233),
+                new PositionDto(-3.192473, 55.942617),
+                new PositionDto(-3.184319, 55.942617),
+                new PositionDto(-3.184319, 55.946233),
+                new PositionDto(-3.192473, 55.946233)));
+    }
+
+    /**
+     * Test scenario: Array of valid and invalid moves
+     * Expected result: Same positions as the single endpoint, null for the invalid angle and the missing start
+     */
+    @Test
+    void testNextPositionBatch_MatchesSingleEndpoint() {
+        PositionDto start = new PositionDto(-3.192473, 55.946233);
+        List<MovementRequest> moves = Arrays.asList(
+                new MovementRequest(start, 45.0),
+                new MovementRequest(start, 10.0),
+                new MovementRequest(null, 0.0),
+                new MovementRequest(start, 337.5));
+
+        List<PositionDto> results = controller.calculateNextPositionBatch(moves).getBody();
+
+        assertNotNull(results);
+        assertEquals(4, results.size());
+        assertSamePosition(controller.calculateNextPosition(moves.get(0)).getBody(), results.get(0));
+        assertNull(results.get(1));
+        assertNull(results.get(2));
+        assertSamePosition(controller.calculateNextPosition(moves.get(3)).getBody(), results.get(3));
+        assertEquals(400, controller.calculateNextPositionBatch(null).getStatusCode().value());
+    }
+
+    /**
+     * Test scenario: Many points against one region
+     * Expected result: Same answers as the single endpoint; an open region is rejected as a whole
+     */
+    @Test
+    void testIsInRegionBatch_MatchesSingleEndpoint() {
+        List<PositionDto> points = Arrays.asList(
+                new PositionDto(-3.188, 55.944),
+                new PositionDto(-3.200, 55.944),
+                new PositionDto(-3.192473, 55.944),
+                new PositionDto(null, 55.944));
+
+        List<Boolean> results = controller.isInRegionBatch(new RegionBatchRequest(points, region)).getBody();
+
+        assertEquals(Arrays.asList(true, false, true, null), results);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(controller.isInRegion(new RegionRequest(points.get(i), region)).getBody(), results.get(i));
+        }
+        Region open = new Region("open", region.getVertices().subList(0, 4));
+        assertEquals(400, controller.isInRegionBatch(new RegionBatchRequest(points, open)).getStatusCode().value());
+    }
+
+    /**
+     * Test scenario: Distance and closeness of position pairs sent as NDJSON, with a blank and a malformed line
+     * Expected result: One result line per request line, null for the malformed line
+     */
+    @Test
+    void testDistanceStream_OneLinePerRequest() throws Exception {
+        String body = "{\"position1\":{\"lng\":0.0,\"lat\":0.0},\"position2\":{\"lng\":3.0,\"lat\":4.0}}\n"
+                + "\n"
+                + "not json\n"
+                + "{\"position1\":{\"lng\":0.0,\"lat\":0.0},\"position2\":{\"lng\":0.0001,\"lat\":0.0}}";
+
+        assertEquals(List.of("5.0", "null", "1.0E-4"), lines(controller.distanceToStream(stream(body))));
+        assertEquals(List.of("false", "null", "true"), lines(controller.isCloseToStream(stream(body))));
+    }
+
+    /**
+     * Test scenario: NDJSON lines carrying properties the request types do not have
+     * Expected result: The lines are answered like the request bodies of the single endpoints, not rejected
+     */
+    @Test
+    void testStream_IgnoresUnknownProperties() throws Exception {
+        String body = "{\"requestId\":\"a\",\"position1\":{\"lng\":0.0,\"lat\":0.0,\"alt\":120.0},"
+                + "\"position2\":{\"lng\":3.0,\"lat\":4.0}}\n"
+                + "{\"start\":{\"lng\":0.0,\"lat\":0.0},\"angle\":90.0,\"speed\":1}\n";
+
+        assertEquals(List.of("5.0", "null"), lines(controller.distanceToStream(stream(body))));
+        assertNotEquals("null", lines(controller.calculateNextPositionStream(stream(body))).get(1));
+    }
+
+    /**
+     * Test scenario: Region on the first NDJSON line followed by points, through the MVC layer
+     * Expected result: The NDJSON content type selects the streaming variant and each point gets a line
+     */
+    @Test
+    void testIsInRegionStream_RoutedByContentType() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        String body = "{\"name\":\"central\",\"vertices\":[{\"lng\":-3.192473,\"lat\":55.946233},"
+                + "{\"lng\":-3.192473,\"lat\":55.942617},{\"lng\":-3.184319,\"lat\":55.942617},"
+                + "{\"lng\":-3.184319,\"lat\":55.946233},{\"lng\":-3.192473,\"lat\":55.946233}]}\n"
+                + "{\"lng\":-3.188,\"lat\":55.944}\n"
+                + "{\"lng\":-3.200,\"lat\":55.944}\n"
+                + "{\"lat\":55.944}\n";
+
+        MvcResult result = mockMvc.perform(post("/api/v1/isInRegion/batch")
+                        .contentType(ilpController.NDJSON).content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ilpController.NDJSON))
+                .andExpect(content().string("true\nfalse\nnull\n"));
+
+        mockMvc.perform(post("/api/v1/isCloseTo/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"position1\":{\"lng\":0.0,\"lat\":0.0},\"position2\":{\"lng\":0.0,\"lat\":0.0001}}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[true]"));
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> lines(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return Arrays.asList(out.toString(StandardCharsets.UTF_8).split("\n"));
+    }
+
+    private void assertSamePosition(PositionDto expected, PositionDto actual) {
+        assertEquals(expected.getLng(), actual.getLng());
+        assertEquals(expected.getLat(), actual.getLat());
+    }
+}
@@ -3,6 +3,7 @@ package ilp_cw1.ilp_cw1_rset.Ilpservice;
 import data.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ilp_cw1.ilp_cw1_rset.Droneservice.GeoPoint;
 import ilp_cw1.ilp_cw1_rset.Droneservice.ilpService;
 
 import java.util.ArrayList;
@@ -143,4 +144,31 @@ public class ilpServiceTest {
 
         assertTrue(service.isPointInPolygon(request), "Point in open region should return false");
     }
+
+    /** 8. Test the primitive overloads against the request versions */
+    @Test
+    void testPrimitiveOverloads_MatchRequestVersions() {
+        assertEquals(service.distanceCalculate(distanceRequest),
+                service.distanceCalculate(p1.getLng(), p1.getLat(), p2.getLng(), p2.getLat()),
+                "Primitive distance should equal the request distance");
+
+        for (double angle = 0; angle < 360; angle += 22.5) {
+            PositionDto expected = service.movementCalculate(new MovementRequest(p1, angle));
+            GeoPoint next = service.movementCalculate(p1.getLng(), p1.getLat(), angle);
+            assertEquals(expected.getLng(), next.lng(), "Longitude should be identical for angle " + angle);
+            assertEquals(expected.getLat(), next.lat(), "Latitude should be identical for angle " + angle);
+        }
+    }
+
+    /** 9. Test GeoPoint conversion and distance */
+    @Test
+    void testGeoPoint_ConversionAndDistance() {
+        GeoPoint point = GeoPoint.of(p1);
+        PositionDto back = point.toDto();
+
+        assertEquals(p1.getLng(), back.getLng(), "Longitude should survive the round trip");
+        assertEquals(p1.getLat(), back.getLat(), "Latitude should survive the round trip");
+        assertEquals(service.distanceCalculate(distanceRequest), point.distanceTo(GeoPoint.of(p2)),
+                "GeoPoint distance should equal the service distance");
+    }
 }